@@ -0,0 +1,72 @@
+package edu.stanford.bmir.protege.web.server.events;
+
+import edu.stanford.bmir.protege.web.shared.event.EntityDeprecatedChangedEvent;
+import edu.stanford.bmir.protege.web.shared.event.EventList;
+import edu.stanford.bmir.protege.web.shared.event.EventTag;
+import edu.stanford.bmir.protege.web.shared.event.ProjectEvent;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import org.openjdk.jmh.annotations.*;
+import org.semanticweb.owlapi.model.IRI;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures event polling.  Clients that are polling regularly ask for the last few event buckets, whereas clients
+ * that return after being idle ask for every live bucket.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventManagerBenchmark {
+
+    private static final int EVENTS_PER_BUCKET = 5;
+
+    private static final int RECENT_BUCKET_COUNT = 10;
+
+    @Param({"100", "10000"})
+    public int bucketCount;
+
+    @Param({"recent", "all"})
+    public String range;
+
+    private EventManager<ProjectEvent<?>> eventManager;
+
+    private EventTag fromTag;
+
+    @Setup
+    public void setUp() {
+        eventManager = new EventManager<>(EventLifeTime.get(1, TimeUnit.HOURS));
+        var projectId = ProjectId.get(UUID.randomUUID().toString());
+        var dataFactory = new OWLDataFactoryImpl();
+        var recentTag = EventTag.getFirst();
+        for(int i = 0; i < bucketCount; i++) {
+            List<ProjectEvent<?>> events = new ArrayList<>(EVENTS_PER_BUCKET);
+            for(int j = 0; j < EVENTS_PER_BUCKET; j++) {
+                var entity = dataFactory.getOWLClass(IRI.create("http://example.org/C" + (i * EVENTS_PER_BUCKET + j)));
+                events.add(new EntityDeprecatedChangedEvent(projectId, entity, true));
+            }
+            var tag = eventManager.postEvents(events);
+            if(i == bucketCount - RECENT_BUCKET_COUNT) {
+                recentTag = tag;
+            }
+        }
+        fromTag = range.equals("recent") ? recentTag : EventTag.getFirst();
+    }
+
+    @TearDown
+    public void tearDown() {
+        eventManager.dispose();
+    }
+
+    @Benchmark
+    public EventList<ProjectEvent<?>> getEventsFromTag() {
+        return eventManager.getEventsFromTag(fromTag);
+    }
+}
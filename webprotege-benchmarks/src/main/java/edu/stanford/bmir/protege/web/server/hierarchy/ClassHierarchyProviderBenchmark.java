@@ -0,0 +1,63 @@
+package edu.stanford.bmir.protege.web.server.hierarchy;
+
+import edu.stanford.bmir.protege.web.server.synthetic.SyntheticOntologySettings;
+import edu.stanford.bmir.protege.web.server.synthetic.SyntheticProject;
+import org.openjdk.jmh.annotations.*;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the class hierarchy queries that back the class tree and hierarchy criteria.  Each invocation queries a
+ * different class, taken from a fixed random sample, so that the results reflect lookups across the whole hierarchy
+ * rather than repeated lookups of one class.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClassHierarchyProviderBenchmark {
+
+    private static final int SAMPLE_SIZE = 1024;
+
+    @Param({"10000", "100000"})
+    public int classCount;
+
+    private ClassHierarchyProvider classHierarchyProvider;
+
+    private OWLClass[] sample;
+
+    private int next = 0;
+
+    @Setup
+    public void setUp() throws OWLOntologyCreationException {
+        var project = SyntheticProject.create(SyntheticOntologySettings.forClassCount(classCount));
+        classHierarchyProvider = project.createClassHierarchyProvider();
+        var generator = project.getGenerator();
+        var random = new Random(classCount);
+        sample = new OWLClass[SAMPLE_SIZE];
+        for(int i = 0; i < SAMPLE_SIZE; i++) {
+            sample[i] = generator.getOWLClass(random.nextInt(classCount));
+        }
+    }
+
+    private OWLClass nextClass() {
+        next = (next + 1) % SAMPLE_SIZE;
+        return sample[next];
+    }
+
+    @Benchmark
+    public Set<OWLClass> getChildren() {
+        return classHierarchyProvider.getChildren(nextClass());
+    }
+
+    @Benchmark
+    public Set<OWLClass> getAncestors() {
+        return classHierarchyProvider.getAncestors(nextClass());
+    }
+}
@@ -0,0 +1,34 @@
+package edu.stanford.bmir.protege.web.server.loadtest;
+
+import dagger.Component;
+import edu.stanford.bmir.protege.web.server.app.ApplicationDisposablesManager;
+import edu.stanford.bmir.protege.web.server.dispatch.DispatchServiceExecutor;
+import edu.stanford.bmir.protege.web.server.inject.*;
+import edu.stanford.bmir.protege.web.server.inject.project.ProjectModule;
+import edu.stanford.bmir.protege.web.shared.inject.ApplicationSingleton;
+import edu.stanford.bmir.protege.web.shared.inject.SharedApplicationModule;
+
+/**
+ * An application component for commands that need the same object graph as the server, without the servlets.
+ */
+@Component(modules = {
+        ApplicationModule.class,
+        SharedApplicationModule.class,
+        FileSystemConfigurationModule.class,
+        ConfigurationTasksModule.class,
+        ActionHandlersModule.class,
+        AuthenticationModule.class,
+        DbModule.class,
+        CliModule.class
+})
+@ApplicationSingleton
+public interface CliComponent {
+
+    SyntheticProjectCreator getSyntheticProjectCreator();
+
+    DispatchServiceExecutor getDispatchServiceExecutor();
+
+    ApplicationDisposablesManager getApplicationDisposablesManager();
+
+    ProjectComponent getProjectComponent(ProjectModule module);
+}
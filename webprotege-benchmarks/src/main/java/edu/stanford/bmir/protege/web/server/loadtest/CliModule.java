@@ -0,0 +1,14 @@
+package edu.stanford.bmir.protege.web.server.loadtest;
+
+import dagger.Module;
+import dagger.Provides;
+import edu.stanford.bmir.protege.web.server.project.ProjectComponentFactory;
+
+@Module
+public class CliModule {
+
+    @Provides
+    public ProjectComponentFactory provideProjectComponentFactory(CliProjectComponentFactory impl) {
+        return impl;
+    }
+}
@@ -0,0 +1,28 @@
+package edu.stanford.bmir.protege.web.server.loadtest;
+
+import edu.stanford.bmir.protege.web.server.inject.ProjectComponent;
+import edu.stanford.bmir.protege.web.server.inject.project.ProjectModule;
+import edu.stanford.bmir.protege.web.server.project.ProjectComponentFactory;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public class CliProjectComponentFactory implements ProjectComponentFactory {
+
+    @Nonnull
+    private final CliComponent cliComponent;
+
+    @Inject
+    public CliProjectComponentFactory(@Nonnull CliComponent cliComponent) {
+        this.cliComponent = checkNotNull(cliComponent);
+    }
+
+    @Nonnull
+    @Override
+    public ProjectComponent createProjectComponent(@Nonnull ProjectId projectId) {
+        return cliComponent.getProjectComponent(new ProjectModule(projectId));
+    }
+}
@@ -0,0 +1,102 @@
+package edu.stanford.bmir.protege.web.server.loadtest;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.server.cmdline.Cmd;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.List;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+/**
+ * Generates synthetic projects with large class hierarchies, multilingual labels and long change histories.  The
+ * projects are written to the data directory and registered in the database that are specified in
+ * webprotege.properties, so they can be opened in a running server.
+ */
+public class GenerateProjectsCmd extends Cmd {
+
+    private static final int DEFAULT_PROJECT_COUNT = 1;
+
+    private static final int DEFAULT_CLASS_COUNT = 100_000;
+
+    private static final int DEFAULT_REVISION_COUNT = 10_000;
+
+    private static final String OWNER = "owner";
+
+    private static final String EDITORS = "editors";
+
+    public GenerateProjectsCmd() {
+        super("generate-projects", "Generates large synthetic projects for performance testing");
+    }
+
+    @Override
+    public void run(@Nonnull List<String> args) {
+        var options = new Options();
+        SyntheticProjectOptions.addOptions(options, DEFAULT_PROJECT_COUNT, DEFAULT_CLASS_COUNT, DEFAULT_REVISION_COUNT);
+        options.addOption(null, OWNER, true, "The user name of the project owner");
+        options.addOption(null, EDITORS, true, "A comma separated list of user names that edit the projects " +
+                "(default the owner)");
+        try {
+            var commandLine = new DefaultParser().parse(options, args.toArray(new String[0]));
+            if(!commandLine.hasOption(OWNER)) {
+                printHelp(options);
+                return;
+            }
+            generateProjects(commandLine);
+        } catch (ParseException | IllegalArgumentException e) {
+            System.out.printf("%s\n", e.getMessage());
+            printHelp(options);
+        } catch (IOException e) {
+            System.out.printf("An error occurred: %s %s\n", e.getClass().getSimpleName(), e.getMessage());
+        }
+    }
+
+    private void generateProjects(@Nonnull CommandLine commandLine) throws IOException {
+        var owner = UserId.getUserId(commandLine.getOptionValue(OWNER));
+        var editors = getEditors(commandLine, owner);
+        var projectCount = SyntheticProjectOptions.getProjectCount(commandLine, DEFAULT_PROJECT_COUNT);
+        var revisionCount = SyntheticProjectOptions.getRevisionCount(commandLine, DEFAULT_REVISION_COUNT);
+        var component = DaggerCliComponent.create();
+        try {
+            var creator = component.getSyntheticProjectCreator();
+            for(int i = 0; i < projectCount; i++) {
+                var settings = SyntheticProjectOptions.getOntologySettings(commandLine, DEFAULT_CLASS_COUNT, i);
+                var displayName = String.format("Synthetic Project %d (%,d classes)", i + 1, settings.getClassCount());
+                var start = System.currentTimeMillis();
+                var projectId = creator.createProject(displayName, settings, revisionCount, owner, editors);
+                System.out.printf("Generated %s in %,d ms: %s\n",
+                                  displayName,
+                                  System.currentTimeMillis() - start,
+                                  projectId.getId());
+            }
+        } finally {
+            component.getApplicationDisposablesManager().dispose();
+        }
+    }
+
+    @Nonnull
+    private static ImmutableList<UserId> getEditors(@Nonnull CommandLine commandLine, @Nonnull UserId owner) {
+        if(!commandLine.hasOption(EDITORS)) {
+            return ImmutableList.of(owner);
+        }
+        return Splitter.on(',')
+                       .trimResults()
+                       .omitEmptyStrings()
+                       .splitToList(commandLine.getOptionValue(EDITORS))
+                       .stream()
+                       .map(UserId::getUserId)
+                       .collect(toImmutableList());
+    }
+
+    private void printHelp(@Nonnull Options options) {
+        new HelpFormatter().printHelp(getName(), options);
+    }
+}
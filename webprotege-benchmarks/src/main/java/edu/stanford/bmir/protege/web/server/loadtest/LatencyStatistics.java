@@ -0,0 +1,89 @@
+package edu.stanford.bmir.protege.web.server.loadtest;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Summary statistics for a set of latency samples.  Percentiles use the nearest rank method, so every percentile is
+ * a latency that was actually observed.
+ */
+public class LatencyStatistics {
+
+    private final long [] sortedLatencies;
+
+    private final long errorCount;
+
+    private LatencyStatistics(long [] sortedLatencies, long errorCount) {
+        this.sortedLatencies = sortedLatencies;
+        this.errorCount = errorCount;
+    }
+
+    /**
+     * Gets the statistics for the specified latencies
+     * @param latenciesInNanos The latencies, in nanoseconds.  The array is not modified.
+     * @param errorCount The number of operations that failed.  Failed operations are not included in the latencies.
+     */
+    @Nonnull
+    public static LatencyStatistics get(@Nonnull long [] latenciesInNanos, long errorCount) {
+        checkNotNull(latenciesInNanos);
+        checkArgument(errorCount >= 0, "errorCount must not be negative");
+        var sortedLatencies = Arrays.copyOf(latenciesInNanos, latenciesInNanos.length);
+        Arrays.sort(sortedLatencies);
+        return new LatencyStatistics(sortedLatencies, errorCount);
+    }
+
+    public long getCount() {
+        return sortedLatencies.length;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Gets the number of successful operations per second over the specified elapsed time
+     */
+    public double getThroughput(long elapsedNanos) {
+        if(elapsedNanos <= 0) {
+            return 0;
+        }
+        return sortedLatencies.length / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    public long getMeanNanos() {
+        if(sortedLatencies.length == 0) {
+            return 0;
+        }
+        var total = 0.0;
+        for(var latency : sortedLatencies) {
+            total += latency;
+        }
+        return Math.round(total / sortedLatencies.length);
+    }
+
+    /**
+     * Gets the latency at the specified percentile
+     * @param percentile The percentile, greater than zero and no greater than 100.
+     * @return The smallest latency that is greater than or equal to the specified percentage of latencies, or zero
+     * if there are no latencies.
+     */
+    public long getPercentileNanos(double percentile) {
+        checkArgument(percentile > 0 && percentile <= 100, "percentile must be greater than 0 and at most 100");
+        if(sortedLatencies.length == 0) {
+            return 0;
+        }
+        var rank = (int) Math.ceil(percentile / 100 * sortedLatencies.length);
+        return sortedLatencies[Math.max(rank, 1) - 1];
+    }
+
+    public long getMaxNanos() {
+        if(sortedLatencies.length == 0) {
+            return 0;
+        }
+        return sortedLatencies[sortedLatencies.length - 1];
+    }
+}
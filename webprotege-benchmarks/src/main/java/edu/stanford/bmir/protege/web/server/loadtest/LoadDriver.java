@@ -0,0 +1,378 @@
+package edu.stanford.bmir.protege.web.server.loadtest;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.bmir.protege.web.server.dispatch.DispatchServiceExecutor;
+import edu.stanford.bmir.protege.web.server.dispatch.ExecutionContext;
+import edu.stanford.bmir.protege.web.server.dispatch.RequestContext;
+import edu.stanford.bmir.protege.web.server.session.WebProtegeSession;
+import edu.stanford.bmir.protege.web.server.session.WebProtegeSessionAttribute;
+import edu.stanford.bmir.protege.web.server.synthetic.SyntheticOntologyGenerator;
+import edu.stanford.bmir.protege.web.server.synthetic.SyntheticOntologySettings;
+import edu.stanford.bmir.protege.web.shared.dispatch.Action;
+import edu.stanford.bmir.protege.web.shared.dispatch.Result;
+import edu.stanford.bmir.protege.web.shared.dispatch.actions.GetClassFrameAction;
+import edu.stanford.bmir.protege.web.shared.dispatch.actions.UpdateClassFrameAction;
+import edu.stanford.bmir.protege.web.shared.entity.OWLAnnotationPropertyData;
+import edu.stanford.bmir.protege.web.shared.entity.OWLLiteralData;
+import edu.stanford.bmir.protege.web.shared.event.EventTag;
+import edu.stanford.bmir.protege.web.shared.event.GetProjectEventsAction;
+import edu.stanford.bmir.protege.web.shared.frame.ClassFrame;
+import edu.stanford.bmir.protege.web.shared.frame.PropertyAnnotationValue;
+import edu.stanford.bmir.protege.web.shared.frame.PropertyValue;
+import edu.stanford.bmir.protege.web.shared.frame.State;
+import edu.stanford.bmir.protege.web.shared.event.GetProjectEventsResult;
+import edu.stanford.bmir.protege.web.shared.hierarchy.GetHierarchyChildrenAction;
+import edu.stanford.bmir.protege.web.shared.hierarchy.GetHierarchyChildrenResult;
+import edu.stanford.bmir.protege.web.shared.hierarchy.HierarchyId;
+import edu.stanford.bmir.protege.web.shared.pagination.PageRequest;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.search.PerformEntitySearchAction;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.semanticweb.owlapi.model.EntityType;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLEntity;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Drives load against a dispatch service executor by simulating users that work on synthetic projects.  Each user
+ * runs on its own thread and repeatedly chooses an operation from a {@link LoadMix}, in a closed loop with an
+ * optional think time between operations.  Operations are made up of the same actions that the browser dispatches:
+ * users search for classes, walk down the class tree, edit class frames and poll for events.  The latency of each
+ * action is recorded after a warm up period and summarised in a {@link LoadTestReport}.
+ */
+public class LoadDriver {
+
+    private static final ImmutableSet<EntityType<?>> SEARCH_ENTITY_TYPES = ImmutableSet.of(EntityType.CLASS);
+
+    @Nonnull
+    private final DispatchServiceExecutor executor;
+
+    @Nonnull
+    private final ImmutableMap<ProjectId, SyntheticOntologySettings> projects;
+
+    @Nonnull
+    private final ImmutableList<UserId> users;
+
+    @Nonnull
+    private final LoadMix mix;
+
+    @Nonnull
+    private final Duration thinkTime;
+
+    private final OWLDataFactory dataFactory = new OWLDataFactoryImpl();
+
+    /**
+     * @param executor The executor that actions are dispatched to
+     * @param projects The projects that users work on, along with the settings that they were generated with
+     * @param users The simulated users.  Each user must be able to edit every project.
+     * @param mix The operation mix
+     * @param thinkTime The pause between consecutive operations of a user
+     */
+    public LoadDriver(@Nonnull DispatchServiceExecutor executor,
+                      @Nonnull ImmutableMap<ProjectId, SyntheticOntologySettings> projects,
+                      @Nonnull ImmutableList<UserId> users,
+                      @Nonnull LoadMix mix,
+                      @Nonnull Duration thinkTime) {
+        this.executor = checkNotNull(executor);
+        this.projects = checkNotNull(projects);
+        this.users = checkNotNull(users);
+        this.mix = checkNotNull(mix);
+        this.thinkTime = checkNotNull(thinkTime);
+        checkArgument(!projects.isEmpty(), "At least one project must be specified");
+        checkArgument(!users.isEmpty(), "At least one user must be specified");
+    }
+
+    /**
+     * Loads each project by expanding the root of its class tree
+     * @return The time taken to load each project
+     */
+    @Nonnull
+    public ImmutableMap<ProjectId, Duration> loadProjects() {
+        var loadTimes = ImmutableMap.<ProjectId, Duration>builder();
+        var user = new VirtualUser(users.get(0), 0, Long.MAX_VALUE, Long.MAX_VALUE);
+        for(var projectId : projects.keySet()) {
+            var start = System.nanoTime();
+            user.execute(new GetHierarchyChildrenAction(projectId, dataFactory.getOWLThing(), HierarchyId.CLASS_HIERARCHY));
+            loadTimes.put(projectId, Duration.ofNanos(System.nanoTime() - start));
+        }
+        return loadTimes.build();
+    }
+
+    /**
+     * Runs the load test.  All users start at the same time and stop at the end of the measurement period.
+     * @param warmUp The period at the start of the run for which latencies are not recorded
+     * @param measurement The period, after the warm up, for which latencies are recorded
+     */
+    @Nonnull
+    public LoadTestReport run(@Nonnull Duration warmUp,
+                              @Nonnull Duration measurement) throws InterruptedException {
+        var startTime = System.nanoTime();
+        var measurementStartTime = startTime + warmUp.toNanos();
+        var endTime = measurementStartTime + measurement.toNanos();
+        var userExecutor = Executors.newFixedThreadPool(users.size());
+        try {
+            var futures = new ArrayList<Future<Map<String, LatencySamples>>>();
+            for(int i = 0; i < users.size(); i++) {
+                futures.add(userExecutor.submit(new VirtualUser(users.get(i), i, measurementStartTime, endTime)));
+            }
+            var samplesByAction = new TreeMap<String, LatencySamples>();
+            for(var future : futures) {
+                future.get().forEach((actionName, samples) -> samplesByAction.computeIfAbsent(actionName,
+                                                                                              n -> new LatencySamples())
+                                                                             .addAll(samples));
+            }
+            var statistics = ImmutableMap.<String, LatencyStatistics>builder();
+            samplesByAction.forEach((actionName, samples) -> statistics.put(actionName, samples.toStatistics()));
+            return new LoadTestReport(users.size(), mix, statistics.build(), endTime - measurementStartTime);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("A simulated user failed", e.getCause());
+        } finally {
+            userExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * A simulated user.  Users keep track of where they are in the class tree of each project and of the last event
+     * that they have seen in each project, just as the browser does.
+     */
+    private class VirtualUser implements Callable<Map<String, LatencySamples>> {
+
+        private final Random random;
+
+        private final long measurementStartTime;
+
+        private final long endTime;
+
+        private final RequestContext requestContext;
+
+        private final ExecutionContext executionContext;
+
+        private final ImmutableList<ProjectId> projectIds = projects.keySet().asList();
+
+        private final Map<ProjectId, SyntheticOntologyGenerator> generators = new HashMap<>();
+
+        private final Map<ProjectId, OWLEntity> currentTreeNodes = new HashMap<>();
+
+        private final Map<ProjectId, EventTag> lastEventTags = new HashMap<>();
+
+        private final Map<String, LatencySamples> samplesByAction = new HashMap<>();
+
+        private int editCount = 0;
+
+        private VirtualUser(@Nonnull UserId userId, int index, long measurementStartTime, long endTime) {
+            this.random = new Random(index);
+            this.measurementStartTime = measurementStartTime;
+            this.endTime = endTime;
+            this.requestContext = new RequestContext(userId);
+            this.executionContext = new ExecutionContext(new LoadTestSession(userId));
+            projects.forEach((projectId, settings) -> generators.put(projectId,
+                                                                     new SyntheticOntologyGenerator(dataFactory,
+                                                                                                    settings)));
+        }
+
+        @Override
+        public Map<String, LatencySamples> call() throws InterruptedException {
+            while(System.nanoTime() < endTime) {
+                var projectId = projectIds.get(random.nextInt(projectIds.size()));
+                switch(mix.next(random)) {
+                    case SEARCH:
+                        search(projectId);
+                        break;
+                    case EXPAND:
+                        expand(projectId);
+                        break;
+                    case EDIT:
+                        edit(projectId);
+                        break;
+                    case POLL:
+                        poll(projectId);
+                        break;
+                }
+                if(!thinkTime.isZero()) {
+                    Thread.sleep(thinkTime.toMillis());
+                }
+            }
+            return samplesByAction;
+        }
+
+        private void search(@Nonnull ProjectId projectId) {
+            var vocabulary = SyntheticOntologyGenerator.getVocabulary();
+            var word = vocabulary.get(random.nextInt(vocabulary.size()));
+            final String searchString;
+            switch(random.nextInt(3)) {
+                case 0:
+                    // What users have typed so far
+                    searchString = word.substring(0, Math.min(3, word.length()));
+                    break;
+                case 1:
+                    searchString = word + " " + vocabulary.get(random.nextInt(vocabulary.size()));
+                    break;
+                default:
+                    searchString = word;
+            }
+            execute(new PerformEntitySearchAction(projectId,
+                                                  searchString,
+                                                  SEARCH_ENTITY_TYPES,
+                                                  PageRequest.requestFirstPage()));
+        }
+
+        private void expand(@Nonnull ProjectId projectId) {
+            var node = currentTreeNodes.getOrDefault(projectId, dataFactory.getOWLThing());
+            var result = execute(new GetHierarchyChildrenAction(projectId, node, HierarchyId.CLASS_HIERARCHY));
+            var children = result.map(GetHierarchyChildrenResult::getChildren)
+                                 .map(page -> page.getPageElements())
+                                 .orElse(Collections.emptyList());
+            if(children.isEmpty()) {
+                // Back to the top of the tree
+                currentTreeNodes.remove(projectId);
+                return;
+            }
+            var child = children.get(random.nextInt(children.size()));
+            if(child.isSink()) {
+                currentTreeNodes.remove(projectId);
+            }
+            else {
+                currentTreeNodes.put(projectId, child.getUserObject().getEntity());
+            }
+        }
+
+        private void edit(@Nonnull ProjectId projectId) {
+            var generator = generators.get(projectId);
+            var cls = generator.getOWLClass(random.nextInt(generator.getSettings().getClassCount()));
+            var frameResult = execute(new GetClassFrameAction(cls, projectId));
+            if(frameResult.isEmpty()) {
+                return;
+            }
+            var from = frameResult.get().getFrame();
+            editCount++;
+            var comment = PropertyAnnotationValue.get(
+                    OWLAnnotationPropertyData.get(dataFactory.getRDFSComment(), "comment", ImmutableMap.of()),
+                    OWLLiteralData.get(dataFactory.getOWLLiteral("Load test edit " + editCount, "en")),
+                    State.ASSERTED);
+            var propertyValues = ImmutableSet.<PropertyValue>builder()
+                                             .addAll(from.getPropertyValues())
+                                             .add(comment)
+                                             .build();
+            var to = ClassFrame.get(from.getSubject(), from.getClassEntries(), propertyValues);
+            execute(new UpdateClassFrameAction(projectId, from, to));
+        }
+
+        private void poll(@Nonnull ProjectId projectId) {
+            var sinceTag = lastEventTags.getOrDefault(projectId, EventTag.getFirst());
+            execute(new GetProjectEventsAction(sinceTag, projectId))
+                    .map(GetProjectEventsResult::getEvents)
+                    .ifPresent(events -> lastEventTags.put(projectId, events.getEndTag()));
+        }
+
+        /**
+         * Executes an action and records its latency, or records an error if it fails
+         * @return The result, or empty if the action failed
+         */
+        @SuppressWarnings("unchecked")
+        private <A extends Action<R>, R extends Result> Optional<R> execute(@Nonnull A action) {
+            var startTime = System.nanoTime();
+            var record = startTime >= measurementStartTime;
+            try {
+                var container = executor.execute(action, requestContext, executionContext);
+                var elapsedTime = System.nanoTime() - startTime;
+                if(record) {
+                    getSamples(action).add(elapsedTime);
+                }
+                return Optional.of((R) container.getResult());
+            } catch (RuntimeException e) {
+                if(record) {
+                    getSamples(action).addError();
+                }
+                return Optional.empty();
+            }
+        }
+
+        private LatencySamples getSamples(@Nonnull Action<?> action) {
+            return samplesByAction.computeIfAbsent(action.getClass().getSimpleName(), n -> new LatencySamples());
+        }
+    }
+
+    /**
+     * Latencies recorded by a single user.  Not thread safe.
+     */
+    private static class LatencySamples {
+
+        private long [] latencies = new long[1024];
+
+        private int count = 0;
+
+        private long errorCount = 0;
+
+        private void add(long latency) {
+            if(count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, latencies.length * 2);
+            }
+            latencies[count] = latency;
+            count++;
+        }
+
+        private void addError() {
+            errorCount++;
+        }
+
+        private void addAll(@Nonnull LatencySamples other) {
+            for(int i = 0; i < other.count; i++) {
+                add(other.latencies[i]);
+            }
+            errorCount += other.errorCount;
+        }
+
+        private LatencyStatistics toStatistics() {
+            return LatencyStatistics.get(Arrays.copyOf(latencies, count), errorCount);
+        }
+    }
+
+    private static class LoadTestSession implements WebProtegeSession {
+
+        private final UserId userId;
+
+        private LoadTestSession(@Nonnull UserId userId) {
+            this.userId = checkNotNull(userId);
+        }
+
+        @Override
+        public <T> Optional<T> getAttribute(WebProtegeSessionAttribute<T> attribute) {
+            return Optional.empty();
+        }
+
+        @Override
+        public <T> void setAttribute(WebProtegeSessionAttribute<T> attribute, T value) {
+
+        }
+
+        @Override
+        public void removeAttribute(WebProtegeSessionAttribute<?> attribute) {
+
+        }
+
+        @Override
+        public UserId getUserInSession() {
+            return userId;
+        }
+
+        @Override
+        public void setUserInSession(UserId userId) {
+
+        }
+
+        @Override
+        public void clearUserInSession() {
+
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package edu.stanford.bmir.protege.web.server.loadtest;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+
+import javax.annotation.Nonnull;
+import java.util.EnumMap;
+import java.util.Random;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * The relative frequencies of the operations that simulated users perform during a load test.
+ */
+public class LoadMix {
+
+    public enum Operation {
+
+        /**
+         * Searches for classes by label
+         */
+        SEARCH,
+
+        /**
+         * Expands a node in the class tree
+         */
+        EXPAND,
+
+        /**
+         * Gets the frame for a class and then updates it
+         */
+        EDIT,
+
+        /**
+         * Polls for project events
+         */
+        POLL;
+
+        @Nonnull
+        public String getName() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final ImmutableMap<Operation, Integer> weights;
+
+    private final int totalWeight;
+
+    private LoadMix(@Nonnull ImmutableMap<Operation, Integer> weights) {
+        this.weights = checkNotNull(weights);
+        this.totalWeight = weights.values().stream().mapToInt(Integer::intValue).sum();
+        checkArgument(totalWeight > 0, "At least one operation must have a weight greater than zero");
+    }
+
+    /**
+     * Gets the default mix, which is dominated by event polling and tree navigation with occasional edits, much
+     * like the traffic generated by users that have a project open in the browser.
+     */
+    @Nonnull
+    public static LoadMix getDefault() {
+        return new LoadMix(ImmutableMap.of(Operation.SEARCH, 20,
+                                           Operation.EXPAND, 30,
+                                           Operation.EDIT, 10,
+                                           Operation.POLL, 40));
+    }
+
+    /**
+     * Parses a mix that is specified as a comma separated list of weights, for example
+     * {@code search=20,expand=30,edit=10,poll=40}.  Operations that are not listed have a weight of zero.
+     * @throws IllegalArgumentException if the specification is malformed
+     */
+    @Nonnull
+    public static LoadMix parse(@Nonnull String specification) {
+        var weights = new EnumMap<Operation, Integer>(Operation.class);
+        var entries = Splitter.on(',').trimResults().omitEmptyStrings().withKeyValueSeparator('=').split(specification);
+        entries.forEach((name, weight) -> {
+            var operation = Operation.valueOf(name.toUpperCase());
+            var parsedWeight = Integer.parseInt(weight);
+            checkArgument(parsedWeight >= 0, "The weight for %s must not be negative", name);
+            weights.put(operation, parsedWeight);
+        });
+        return new LoadMix(ImmutableMap.copyOf(weights));
+    }
+
+    /**
+     * Chooses an operation at random, in proportion to the weights in this mix
+     */
+    @Nonnull
+    public Operation next(@Nonnull Random random) {
+        var value = random.nextInt(totalWeight);
+        for(var entry : weights.entrySet()) {
+            value -= entry.getValue();
+            if(value < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Weights do not sum to the total weight");
+    }
+
+    @Override
+    public String toString() {
+        return weights.entrySet()
+                      .stream()
+                      .map(entry -> entry.getKey().getName() + "=" + entry.getValue())
+                      .collect(joining(","));
+    }
+}
@@ -0,0 +1,22 @@
+package edu.stanford.bmir.protege.web.server.loadtest;
+
+import edu.stanford.bmir.protege.web.server.cmdline.WebProtegeCli;
+
+import static java.util.Arrays.asList;
+
+/**
+ * The entry point for the commands that generate synthetic projects and run load tests against them.  These commands
+ * are kept out of the production command line tool because they bring in test-only dependencies such as the
+ * embedded Mongo server.
+ */
+public class LoadTestCli {
+
+    public static void main(String[] args) {
+        WebProtegeCli.disableWarning();
+        var cli = new WebProtegeCli(asList(
+                new GenerateProjectsCmd(),
+                new LoadTestCmd()
+        ));
+        cli.run(asList(args));
+    }
+}
@@ -0,0 +1,151 @@
+package edu.stanford.bmir.protege.web.server.loadtest;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import edu.stanford.bmir.protege.web.server.cmdline.Cmd;
+import edu.stanford.bmir.protege.web.server.synthetic.SyntheticOntologySettings;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+/**
+ * Runs an end-to-end load test in process.  The test starts an in-memory Mongo server and uses a temporary data
+ * directory, so it needs neither a database nor a servlet container.  Synthetic projects are generated and then
+ * simulated users dispatch a mix of actions against the same {@link edu.stanford.bmir.protege.web.server.dispatch.DispatchServiceExecutor}
+ * that the server uses.  The throughput and latency percentiles of each action are printed at the end of the test.
+ */
+public class LoadTestCmd extends Cmd {
+
+    private static final int DEFAULT_PROJECT_COUNT = 1;
+
+    private static final int DEFAULT_CLASS_COUNT = 10_000;
+
+    private static final int DEFAULT_REVISION_COUNT = 1_000;
+
+    private static final int DEFAULT_USER_COUNT = 16;
+
+    private static final int DEFAULT_WARM_UP_SECONDS = 10;
+
+    private static final int DEFAULT_DURATION_SECONDS = 60;
+
+    private static final String USERS = "users";
+
+    private static final String WARM_UP = "warmup";
+
+    private static final String DURATION = "duration";
+
+    private static final String THINK_TIME = "think";
+
+    private static final String MIX = "mix";
+
+    public LoadTestCmd() {
+        super("load-test", "Runs an in-process load test against synthetic projects");
+    }
+
+    @Override
+    public void run(@Nonnull List<String> args) {
+        var options = new Options();
+        SyntheticProjectOptions.addOptions(options, DEFAULT_PROJECT_COUNT, DEFAULT_CLASS_COUNT, DEFAULT_REVISION_COUNT);
+        options.addOption(null, USERS, true, "The number of concurrent users (default " + DEFAULT_USER_COUNT + ")");
+        options.addOption(null, WARM_UP, true, "The warm up time in seconds (default " + DEFAULT_WARM_UP_SECONDS + ")");
+        options.addOption(null, DURATION, true, "The measurement time in seconds (default " + DEFAULT_DURATION_SECONDS + ")");
+        options.addOption(null, THINK_TIME, true, "The think time between the operations of a user in milliseconds (default 0)");
+        options.addOption(null, MIX, true, "The operation mix (default " + LoadMix.getDefault() + ")");
+        options.addOption("h", "help", false, "Prints this message");
+        try {
+            var commandLine = new DefaultParser().parse(options, args.toArray(new String[0]));
+            if(commandLine.hasOption("help")) {
+                printHelp(options);
+                return;
+            }
+            runLoadTest(commandLine);
+        } catch (ParseException | IllegalArgumentException e) {
+            System.out.printf("%s\n", e.getMessage());
+            printHelp(options);
+        } catch (IOException | InterruptedException e) {
+            System.out.printf("An error occurred: %s %s\n", e.getClass().getSimpleName(), e.getMessage());
+        }
+    }
+
+    private void runLoadTest(@Nonnull CommandLine commandLine) throws IOException, InterruptedException {
+        var userCount = SyntheticProjectOptions.getInt(commandLine, USERS, DEFAULT_USER_COUNT);
+        var warmUp = Duration.ofSeconds(SyntheticProjectOptions.getInt(commandLine, WARM_UP, DEFAULT_WARM_UP_SECONDS));
+        var duration = Duration.ofSeconds(SyntheticProjectOptions.getInt(commandLine, DURATION, DEFAULT_DURATION_SECONDS));
+        var thinkTime = Duration.ofMillis(SyntheticProjectOptions.getInt(commandLine, THINK_TIME, 0));
+        var mix = commandLine.hasOption(MIX) ? LoadMix.parse(commandLine.getOptionValue(MIX)) : LoadMix.getDefault();
+        var projectCount = SyntheticProjectOptions.getProjectCount(commandLine, DEFAULT_PROJECT_COUNT);
+        var revisionCount = SyntheticProjectOptions.getRevisionCount(commandLine, DEFAULT_REVISION_COUNT);
+        var users = IntStream.rangeClosed(1, userCount)
+                             .mapToObj(i -> UserId.getUserId("load-test-user-" + i))
+                             .collect(toImmutableList());
+
+        var dataDirectory = Files.createTempDirectory("webprotege-load-test");
+        var mongoServer = new MongoServer(new MemoryBackend());
+        try {
+            var mongoAddress = mongoServer.bind();
+            // Overrides the values in webprotege.properties
+            System.setProperty("webprotege.data.directory", dataDirectory.toString());
+            System.setProperty("webprotege.mongodb.host", mongoAddress.getHostString());
+            System.setProperty("webprotege.mongodb.port", Integer.toString(mongoAddress.getPort()));
+            var component = DaggerCliComponent.create();
+            try {
+                var projects = ImmutableMap.<ProjectId, SyntheticOntologySettings>builder();
+                var creator = component.getSyntheticProjectCreator();
+                for(int i = 0; i < projectCount; i++) {
+                    var settings = SyntheticProjectOptions.getOntologySettings(commandLine, DEFAULT_CLASS_COUNT, i);
+                    var start = System.currentTimeMillis();
+                    var projectId = creator.createProject("Load Test Project " + (i + 1),
+                                                          settings,
+                                                          revisionCount,
+                                                          users.get(0),
+                                                          users);
+                    System.out.printf("Generated project %s with %,d classes in %,d ms\n",
+                                      projectId.getId(),
+                                      settings.getClassCount(),
+                                      System.currentTimeMillis() - start);
+                    projects.put(projectId, settings);
+                }
+                var driver = new LoadDriver(component.getDispatchServiceExecutor(),
+                                            projects.build(),
+                                            users,
+                                            mix,
+                                            thinkTime);
+                driver.loadProjects().forEach((projectId, loadTime) -> {
+                    System.out.printf("Loaded project %s in %,d ms\n", projectId.getId(), loadTime.toMillis());
+                });
+                System.out.printf("Running %d users for %d s after a %d s warm up\n",
+                                  userCount,
+                                  duration.getSeconds(),
+                                  warmUp.getSeconds());
+                var report = driver.run(warmUp, duration);
+                System.out.println();
+                report.print(System.out);
+            } finally {
+                component.getApplicationDisposablesManager().dispose();
+            }
+        } finally {
+            mongoServer.shutdown();
+            MoreFiles.deleteRecursively(dataDirectory, RecursiveDeleteOption.ALLOW_INSECURE);
+        }
+    }
+
+    private void printHelp(@Nonnull Options options) {
+        new HelpFormatter().printHelp(getName(), options);
+    }
+}
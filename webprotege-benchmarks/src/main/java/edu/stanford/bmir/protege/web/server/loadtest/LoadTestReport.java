@@ -0,0 +1,74 @@
+package edu.stanford.bmir.protege.web.server.loadtest;
+
+import com.google.common.collect.ImmutableMap;
+
+import javax.annotation.Nonnull;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The latencies that were recorded for each action during the measurement period of a load test.
+ */
+public class LoadTestReport {
+
+    private static final double [] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final int userCount;
+
+    @Nonnull
+    private final LoadMix mix;
+
+    @Nonnull
+    private final ImmutableMap<String, LatencyStatistics> statisticsByAction;
+
+    private final long measurementNanos;
+
+    public LoadTestReport(int userCount,
+                          @Nonnull LoadMix mix,
+                          @Nonnull ImmutableMap<String, LatencyStatistics> statisticsByAction,
+                          long measurementNanos) {
+        this.userCount = userCount;
+        this.mix = checkNotNull(mix);
+        this.statisticsByAction = checkNotNull(statisticsByAction);
+        this.measurementNanos = measurementNanos;
+    }
+
+    @Nonnull
+    public ImmutableMap<String, LatencyStatistics> getStatisticsByAction() {
+        return statisticsByAction;
+    }
+
+    public long getMeasurementNanos() {
+        return measurementNanos;
+    }
+
+    /**
+     * Prints this report as a table, with one row per action.  Latencies are in milliseconds.
+     */
+    public void print(@Nonnull PrintStream out) {
+        out.printf("Users: %d    Mix: %s    Measurement: %.1f s\n\n",
+                   userCount,
+                   mix,
+                   measurementNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        out.printf("%-36s %9s %7s %9s %9s %9s %9s %9s %9s %9s\n",
+                   "Action", "Count", "Errors", "Ops/s", "Mean", "p50", "p90", "p99", "p99.9", "Max");
+        statisticsByAction.forEach((actionName, statistics) -> {
+            out.printf("%-36s %9d %7d %9.1f %9.2f",
+                       actionName,
+                       statistics.getCount(),
+                       statistics.getErrorCount(),
+                       statistics.getThroughput(measurementNanos),
+                       toMillis(statistics.getMeanNanos()));
+            for(var percentile : PERCENTILES) {
+                out.printf(" %9.2f", toMillis(statistics.getPercentileNanos(percentile)));
+            }
+            out.printf(" %9.2f\n", toMillis(statistics.getMaxNanos()));
+        });
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
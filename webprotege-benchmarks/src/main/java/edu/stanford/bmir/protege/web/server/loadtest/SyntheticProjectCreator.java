@@ -0,0 +1,81 @@
+package edu.stanford.bmir.protege.web.server.loadtest;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.server.access.AccessManager;
+import edu.stanford.bmir.protege.web.server.access.ProjectResource;
+import edu.stanford.bmir.protege.web.server.project.ProjectDetailsManager;
+import edu.stanford.bmir.protege.web.server.project.ProjectIdFactory;
+import edu.stanford.bmir.protege.web.server.synthetic.SyntheticOntologySettings;
+import edu.stanford.bmir.protege.web.server.synthetic.SyntheticProjectWriter;
+import edu.stanford.bmir.protege.web.shared.project.NewProjectSettings;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.io.IOException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static edu.stanford.bmir.protege.web.server.access.Subject.forAnySignedInUser;
+import static edu.stanford.bmir.protege.web.server.access.Subject.forUser;
+import static edu.stanford.bmir.protege.web.shared.access.BuiltInRole.*;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+
+/**
+ * Creates synthetic projects in the data directory and registers them, so that they appear in project lists and can
+ * be opened like any other project.  The owner manages each project and the editors can edit it.
+ */
+public class SyntheticProjectCreator {
+
+    @Nonnull
+    private final SyntheticProjectWriter projectWriter;
+
+    @Nonnull
+    private final ProjectDetailsManager projectDetailsManager;
+
+    @Nonnull
+    private final AccessManager accessManager;
+
+    @Inject
+    public SyntheticProjectCreator(@Nonnull SyntheticProjectWriter projectWriter,
+                                   @Nonnull ProjectDetailsManager projectDetailsManager,
+                                   @Nonnull AccessManager accessManager) {
+        this.projectWriter = checkNotNull(projectWriter);
+        this.projectDetailsManager = checkNotNull(projectDetailsManager);
+        this.accessManager = checkNotNull(accessManager);
+    }
+
+    @Nonnull
+    public ProjectId createProject(@Nonnull String displayName,
+                                   @Nonnull SyntheticOntologySettings settings,
+                                   int editRevisionCount,
+                                   @Nonnull UserId owner,
+                                   @Nonnull ImmutableList<UserId> editors) throws IOException {
+        var projectId = ProjectIdFactory.getFreshProjectId();
+        projectWriter.writeProject(projectId, settings, editRevisionCount, owner, editors);
+        var languages = settings.getLanguages();
+        var langTag = languages.isEmpty() ? "" : languages.get(0);
+        var description = String.format("A synthetic project with %,d classes and %,d revisions",
+                                        settings.getClassCount(),
+                                        editRevisionCount + 1);
+        projectDetailsManager.registerProject(projectId,
+                                              NewProjectSettings.get(owner, displayName, langTag, description));
+        var projectResource = new ProjectResource(projectId);
+        accessManager.setAssignedRoles(forUser(owner),
+                                       projectResource,
+                                       asList(CAN_MANAGE.getRoleId(), PROJECT_DOWNLOADER.getRoleId()));
+        accessManager.setAssignedRoles(forAnySignedInUser(),
+                                       projectResource,
+                                       singleton(LAYOUT_EDITOR.getRoleId()));
+        for(var editor : editors) {
+            if(editor.equals(owner)) {
+                continue;
+            }
+            accessManager.setAssignedRoles(forUser(editor),
+                                           projectResource,
+                                           singleton(CAN_EDIT.getRoleId()));
+        }
+        return projectId;
+    }
+}
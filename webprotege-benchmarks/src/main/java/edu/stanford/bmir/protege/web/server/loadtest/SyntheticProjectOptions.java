@@ -0,0 +1,87 @@
+package edu.stanford.bmir.protege.web.server.loadtest;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.server.synthetic.SyntheticOntologySettings;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Options;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Command line options that describe the synthetic projects that are generated by the generate-projects and
+ * load-test commands.
+ */
+public class SyntheticProjectOptions {
+
+    private static final String PROJECTS = "projects";
+
+    private static final String CLASSES = "classes";
+
+    private static final String REVISIONS = "revisions";
+
+    private static final String LANGUAGES = "languages";
+
+    private static final String SEED = "seed";
+
+    private SyntheticProjectOptions() {
+    }
+
+    /**
+     * Adds the synthetic project options to the specified options
+     * @param defaultProjectCount The number of projects that are generated if the projects option is not specified
+     * @param defaultClassCount The number of classes in each project if the classes option is not specified
+     * @param defaultRevisionCount The number of edit revisions if the revisions option is not specified
+     */
+    public static void addOptions(@Nonnull Options options,
+                                  int defaultProjectCount,
+                                  int defaultClassCount,
+                                  int defaultRevisionCount) {
+        options.addOption(null, PROJECTS, true,
+                          "The number of projects to generate (default " + defaultProjectCount + ")");
+        options.addOption(null, CLASSES, true,
+                          "The number of classes in each project (default " + defaultClassCount + ")");
+        options.addOption(null, REVISIONS, true,
+                          "The number of edit revisions after the initial import (default " + defaultRevisionCount + ")");
+        options.addOption(null, LANGUAGES, true,
+                          "A comma separated list of label languages (default en)");
+        options.addOption(null, SEED, true,
+                          "The seed for the first project.  Subsequent projects use consecutive seeds (default 42)");
+    }
+
+    public static int getProjectCount(@Nonnull CommandLine commandLine, int defaultProjectCount) {
+        return getInt(commandLine, PROJECTS, defaultProjectCount);
+    }
+
+    public static int getRevisionCount(@Nonnull CommandLine commandLine, int defaultRevisionCount) {
+        return getInt(commandLine, REVISIONS, defaultRevisionCount);
+    }
+
+    /**
+     * Gets the ontology settings for the project with the specified index
+     */
+    @Nonnull
+    public static SyntheticOntologySettings getOntologySettings(@Nonnull CommandLine commandLine,
+                                                                int defaultClassCount,
+                                                                int projectIndex) {
+        var classCount = getInt(commandLine, CLASSES, defaultClassCount);
+        var languages = ImmutableList.copyOf(Splitter.on(',')
+                                                     .trimResults()
+                                                     .omitEmptyStrings()
+                                                     .split(commandLine.getOptionValue(LANGUAGES, "en")));
+        var seed = Long.parseLong(commandLine.getOptionValue(SEED, "42"));
+        return SyntheticOntologySettings.forClassCount(classCount, languages, seed + projectIndex);
+    }
+
+    static int getInt(@Nonnull CommandLine commandLine, @Nonnull String option, int defaultValue) {
+        var value = commandLine.getOptionValue(option);
+        if(value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Invalid value for %s: %s", option, value));
+        }
+    }
+}
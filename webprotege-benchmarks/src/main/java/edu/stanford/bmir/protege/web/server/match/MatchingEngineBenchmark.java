@@ -0,0 +1,75 @@
+package edu.stanford.bmir.protege.web.server.match;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.server.synthetic.SyntheticOntologySettings;
+import edu.stanford.bmir.protege.web.server.synthetic.SyntheticProject;
+import edu.stanford.bmir.protege.web.shared.match.criteria.*;
+import org.openjdk.jmh.annotations.*;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Measures criteria matching, as used by entity search, tagging criteria and the match portlets.  The criteria
+ * cover a scan of annotation values, an indexed hierarchy query and a conjunction of the two.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatchingEngineBenchmark {
+
+    @Param({"10000", "100000"})
+    public int classCount;
+
+    @Param({"labelContains", "subClassOf", "subClassOfAndLabelContains"})
+    public String criteriaName;
+
+    private ExecutorService executorService;
+
+    private MatchingEngine matchingEngine;
+
+    private RootCriteria criteria;
+
+    @Setup
+    public void setUp() throws OWLOntologyCreationException {
+        var project = SyntheticProject.create(SyntheticOntologySettings.forClassCount(classCount));
+        executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        matchingEngine = project.createMatchingEngine(project.createClassHierarchyProvider(), executorService);
+        var labelContains = EntityAnnotationCriteria.get(IriEqualsCriteria.isRdfsLabel(),
+                                                         StringContainsCriteria.get("kinase", true));
+        // A direct subclass of the root class, which has a large number of descendants
+        var subClassOf = SubClassOfCriteria.get(project.getGenerator().getOWLClass(1), HierarchyFilterType.ALL);
+        switch(criteriaName) {
+            case "labelContains":
+                criteria = labelContains;
+                break;
+            case "subClassOf":
+                criteria = subClassOf;
+                break;
+            case "subClassOfAndLabelContains":
+                criteria = CompositeRootCriteria.get(ImmutableList.of(subClassOf, labelContains), MultiMatchType.ALL);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown criteria: " + criteriaName);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Benchmark
+    public List<OWLEntity> match() {
+        return matchingEngine.match(criteria).collect(toList());
+    }
+}
@@ -0,0 +1,186 @@
+package edu.stanford.bmir.protege.web.server.project.chg;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+import edu.stanford.bmir.protege.web.server.access.AccessManager;
+import edu.stanford.bmir.protege.web.server.access.Resource;
+import edu.stanford.bmir.protege.web.server.access.Subject;
+import edu.stanford.bmir.protege.web.server.app.UserInSessionFactory;
+import edu.stanford.bmir.protege.web.server.change.ChangeApplicationResult;
+import edu.stanford.bmir.protege.web.server.change.FixedChangeListGenerator;
+import edu.stanford.bmir.protege.web.server.crud.EntityCrudContextFactory;
+import edu.stanford.bmir.protege.web.server.crud.EntityCrudKitHandler;
+import edu.stanford.bmir.protege.web.server.crud.ProjectEntityCrudKitHandlerCache;
+import edu.stanford.bmir.protege.web.server.crud.obo.OBOIdAllocationIndex;
+import edu.stanford.bmir.protege.web.server.events.EventLifeTime;
+import edu.stanford.bmir.protege.web.server.events.EventManager;
+import edu.stanford.bmir.protege.web.server.events.EventTranslatorManager;
+import edu.stanford.bmir.protege.web.server.hierarchy.OWLAnnotationPropertyHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.hierarchy.OWLDataPropertyHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.hierarchy.OWLObjectPropertyHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.index.IndexUpdater;
+import edu.stanford.bmir.protege.web.server.lang.ActiveLanguagesManager;
+import edu.stanford.bmir.protege.web.server.owlapi.RenameMapFactory;
+import edu.stanford.bmir.protege.web.server.project.BuiltInPrefixDeclarations;
+import edu.stanford.bmir.protege.web.server.project.PrefixDeclarationsStore;
+import edu.stanford.bmir.protege.web.server.project.ProjectDetailsRepository;
+import edu.stanford.bmir.protege.web.server.renderer.RenderingManager;
+import edu.stanford.bmir.protege.web.server.revision.RevisionManagerImpl;
+import edu.stanford.bmir.protege.web.server.revision.RevisionStoreImpl;
+import edu.stanford.bmir.protege.web.server.shortform.DictionaryManager;
+import edu.stanford.bmir.protege.web.server.shortform.DictionaryUpdatesProcessor;
+import edu.stanford.bmir.protege.web.server.synthetic.SyntheticOntologySettings;
+import edu.stanford.bmir.protege.web.server.synthetic.SyntheticProject;
+import edu.stanford.bmir.protege.web.server.tag.CriteriaBasedTagsIndex;
+import edu.stanford.bmir.protege.web.server.webhook.ProjectChangedWebhookInvoker;
+import edu.stanford.bmir.protege.web.shared.access.BuiltInAction;
+import edu.stanford.bmir.protege.web.shared.event.ProjectEvent;
+import edu.stanford.bmir.protege.web.shared.project.PrefixDeclarations;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+import org.semanticweb.owlapi.model.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures applying small and bulk edits through the change manager.  The ontology store, change log, index
+ * updates and class hierarchy are real.  Collaborators that need MongoDB, and the dictionaries, tags and event
+ * translators, are stubbed out, so this measures the change pipeline itself rather than everything that listens to
+ * it.  The project is rebuilt for each iteration because every edit adds to the ontology and to the change log.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChangeManagerBenchmark {
+
+    private static final UserId USER_ID = UserId.getUserId("benchmark");
+
+    @Param({"10000", "100000"})
+    public int classCount;
+
+    /**
+     * The number of axioms that each edit adds
+     */
+    @Param({"1", "1000"})
+    public int editSize;
+
+    private SyntheticProject project;
+
+    private File directory;
+
+    private RevisionStoreImpl revisionStore;
+
+    private EventManager<ProjectEvent<?>> eventManager;
+
+    private ChangeManager changeManager;
+
+    private Random random;
+
+    private int nextChange;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws OWLOntologyCreationException, IOException {
+        project = SyntheticProject.create(SyntheticOntologySettings.forClassCount(classCount));
+        directory = Files.createTempDirectory("change-manager-benchmark").toFile();
+        var projectId = project.getProjectId();
+        var dataFactory = project.getDataFactory();
+        var rootOntology = project.getRootOntology();
+        revisionStore = new RevisionStoreImpl(projectId, new File(directory, "change-data.binary"), dataFactory);
+        revisionStore.load();
+        eventManager = new EventManager<>(EventLifeTime.get(1, TimeUnit.HOURS));
+
+        var accessManager = mock(AccessManager.class);
+        when(accessManager.hasPermission(any(Subject.class), any(Resource.class), any(BuiltInAction.class))).thenReturn(true);
+        var prefixDeclarationsStore = mock(PrefixDeclarationsStore.class);
+        when(prefixDeclarationsStore.find(projectId)).thenReturn(PrefixDeclarations.get(projectId));
+        var projectDetailsRepository = mock(ProjectDetailsRepository.class);
+        var entityCrudKitHandlerCache = mock(ProjectEntityCrudKitHandlerCache.class);
+        when(entityCrudKitHandlerCache.getHandler()).thenReturn(mock(EntityCrudKitHandler.class));
+        var eventTranslatorManager = new EventTranslatorManager(ImmutableSet.of(), MoreExecutors.newDirectExecutorService());
+        var renderingManager = mock(RenderingManager.class);
+
+        changeManager = new ChangeManager(projectId,
+                                          mock(DictionaryUpdatesProcessor.class),
+                                          mock(ActiveLanguagesManager.class),
+                                          accessManager,
+                                          prefixDeclarationsStore,
+                                          projectDetailsRepository,
+                                          mock(ProjectChangedWebhookInvoker.class),
+                                          eventManager,
+                                          () -> eventTranslatorManager,
+                                          entityCrudKitHandlerCache,
+                                          new RevisionManagerImpl(revisionStore),
+                                          dataFactory,
+                                          mock(DictionaryManager.class),
+                                          project.createClassHierarchyProvider(),
+                                          mock(OWLObjectPropertyHierarchyProvider.class),
+                                          mock(OWLDataPropertyHierarchyProvider.class),
+                                          mock(OWLAnnotationPropertyHierarchyProvider.class),
+                                          mock(UserInSessionFactory.class),
+                                          new EntityCrudContextFactory(() -> projectId, () -> projectDetailsRepository),
+                                          new RenameMapFactory(() -> dataFactory, () -> renderingManager),
+                                          BuiltInPrefixDeclarations.get(ImmutableList.of()),
+                                          new IndexUpdater(),
+                                          rootOntology::getOntologyID,
+                                          new OntologyStoreImpl(rootOntology),
+                                          mock(CriteriaBasedTagsIndex.class),
+                                          mock(OBOIdAllocationIndex.class),
+                                          (lockedProjectId, waitNanos) -> {});
+        random = new Random(classCount);
+        nextChange = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        eventManager.dispose();
+        revisionStore.dispose();
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public ChangeApplicationResult<Boolean> applyChanges() {
+        var changes = new ArrayList<OWLOntologyChange>(editSize);
+        for(int i = 0; i < editSize; i++) {
+            changes.add(createChange());
+        }
+        return changeManager.applyChanges(USER_ID, FixedChangeListGenerator.get(changes, true, "Edited classes"));
+    }
+
+    /**
+     * Creates a change that adds either a fresh comment or a subclass axiom to an existing class
+     */
+    private OWLOntologyChange createChange() {
+        var generator = project.getGenerator();
+        var dataFactory = project.getDataFactory();
+        var rootOntology = project.getRootOntology();
+        var changeNumber = nextChange++;
+        var subClassIndex = 1 + random.nextInt(classCount - 1);
+        var subClass = generator.getOWLClass(subClassIndex);
+        if(changeNumber % 2 == 0) {
+            var comment = dataFactory.getOWLLiteral("Edit " + changeNumber, "en");
+            return new AddAxiom(rootOntology,
+                                dataFactory.getOWLAnnotationAssertionAxiom(dataFactory.getRDFSComment(),
+                                                                           subClass.getIRI(),
+                                                                           comment));
+        }
+        else {
+            // Classes with a lower index are never descendants, so this does not introduce cycles
+            var superClass = generator.getOWLClass(random.nextInt(subClassIndex));
+            return new AddAxiom(rootOntology, dataFactory.getOWLSubClassOfAxiom(subClass, superClass));
+        }
+    }
+}
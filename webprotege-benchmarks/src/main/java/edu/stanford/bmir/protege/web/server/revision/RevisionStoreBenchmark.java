@@ -0,0 +1,96 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.server.synthetic.SyntheticOntologyGenerator;
+import edu.stanford.bmir.protege.web.server.synthetic.SyntheticOntologySettings;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+import org.semanticweb.owlapi.change.AddAxiomData;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.OWLOntologyID;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading the change history of a project, which happens every time a project is loaded into memory.
+ * Loading is measured with and without the revision index file that normally sits next to the change history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RevisionStoreBenchmark {
+
+    private static final int CHANGES_PER_REVISION = 10;
+
+    private static final UserId USER_ID = UserId.getUserId("benchmark");
+
+    @Param({"1000", "10000"})
+    public int revisionCount;
+
+    @Param({"true", "false"})
+    public boolean withIndexFile;
+
+    private final OWLDataFactoryImpl dataFactory = new OWLDataFactoryImpl();
+
+    private final ProjectId projectId = ProjectId.get(UUID.randomUUID().toString());
+
+    private File directory;
+
+    private File changeHistoryFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("revision-store-benchmark").toFile();
+        changeHistoryFile = new File(directory, "change-data.binary");
+        var settings = SyntheticOntologySettings.forClassCount(revisionCount * CHANGES_PER_REVISION / 4);
+        var axioms = new SyntheticOntologyGenerator(dataFactory, settings).generateAxioms();
+        var ontologyId = new OWLOntologyID();
+        for(int i = 0; i < revisionCount; i++) {
+            var changes = ImmutableList.<OWLOntologyChangeRecord>builder();
+            for(int j = 0; j < CHANGES_PER_REVISION; j++) {
+                var axiom = axioms.get((i * CHANGES_PER_REVISION + j) % axioms.size());
+                changes.add(new OWLOntologyChangeRecord(ontologyId, new AddAxiomData(axiom)));
+            }
+            var revision = new Revision(USER_ID,
+                                        RevisionNumber.getRevisionNumber(i + 1),
+                                        changes.build(),
+                                        i,
+                                        "Revision " + (i + 1));
+            new RevisionSerializationTask(changeHistoryFile, revision).call();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareIndexFile() throws IOException {
+        if(!withIndexFile) {
+            Files.deleteIfExists(RevisionIndexFile.forChangeHistoryFile(changeHistoryFile).getFile().toPath());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public RevisionNumber load() {
+        var revisionStore = new RevisionStoreImpl(projectId, changeHistoryFile, dataFactory);
+        try {
+            revisionStore.load();
+            return revisionStore.getCurrentRevisionNumber();
+        } finally {
+            revisionStore.dispose();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package edu.stanford.bmir.protege.web.server.shortform;
+
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.bmir.protege.web.server.synthetic.SyntheticOntologyGenerator;
+import edu.stanford.bmir.protege.web.server.synthetic.SyntheticOntologySettings;
+import edu.stanford.bmir.protege.web.shared.shortform.DictionaryLanguage;
+import org.openjdk.jmh.annotations.*;
+import org.semanticweb.owlapi.model.*;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Measures substring search over the short forms of every entity in a project, which is what the search box and
+ * the entity suggestion boxes do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShortFormCacheBenchmark {
+
+    private static final Set<EntityType<?>> ALL_ENTITY_TYPES = ImmutableSet.copyOf(EntityType.values());
+
+    private static final DictionaryLanguage LANGUAGE = DictionaryLanguage.rdfsLabel("en");
+
+    @Param({"10000", "100000"})
+    public int classCount;
+
+    /**
+     * A common single word, two words that both have to be matched and a word that matches nothing
+     */
+    @Param({"kinase", "cell membrane", "absent"})
+    public String query;
+
+    private ShortFormCache shortFormCache;
+
+    private List<SearchString> searchStrings;
+
+    @Setup
+    public void setUp() {
+        var generator = new SyntheticOntologyGenerator(new OWLDataFactoryImpl(),
+                                                       SyntheticOntologySettings.forClassCount(classCount));
+        var labels = new HashMap<IRI, String>();
+        var entities = new HashMap<OWLEntity, String>();
+        var axioms = generator.generateAxioms();
+        for(var axiom : axioms) {
+            if(axiom instanceof OWLAnnotationAssertionAxiom) {
+                var annotationAssertion = (OWLAnnotationAssertionAxiom) axiom;
+                var label = (OWLLiteral) annotationAssertion.getValue();
+                labels.put((IRI) annotationAssertion.getSubject(), label.getLiteral());
+            }
+        }
+        for(var axiom : axioms) {
+            if(axiom instanceof OWLDeclarationAxiom) {
+                var entity = ((OWLDeclarationAxiom) axiom).getEntity();
+                entities.put(entity, labels.get(entity.getIRI()));
+            }
+        }
+        shortFormCache = ShortFormCache.createWithCapacity(entities.size());
+        shortFormCache.putAll(entities);
+        searchStrings = SearchString.parseMultiWordSearchString(query);
+    }
+
+    @Benchmark
+    public List<ShortFormMatch> getShortFormsContaining() {
+        return shortFormCache.getShortFormsContaining(searchStrings,
+                                                      ALL_ENTITY_TYPES,
+                                                      (entity, shortForm, matchCount, matchPositions) ->
+                                                              new ShortFormMatch(entity,
+                                                                                 shortForm,
+                                                                                 LANGUAGE,
+                                                                                 matchCount,
+                                                                                 matchPositions))
+                             .collect(toList());
+    }
+}
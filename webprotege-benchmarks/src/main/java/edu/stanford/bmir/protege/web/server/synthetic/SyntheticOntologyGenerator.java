@@ -0,0 +1,197 @@
+package edu.stanford.bmir.protege.web.server.synthetic;
+
+import com.google.common.collect.ImmutableList;
+import org.semanticweb.owlapi.model.*;
+
+import javax.annotation.Nonnull;
+import java.util.HashSet;
+import java.util.Random;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Generates ontologies of a configurable size for benchmarks and load tests.  Generation is deterministic, so
+ * generators with equal settings produce equal axioms.
+ * <p>
+ * Classes are arranged in a hierarchy below a single root class with some multiple inheritance, and some classes
+ * have existential restrictions on object properties.  Individuals are typed with classes and some are related to
+ * each other by object property assertions.  Every entity is declared and has an rdfs:label for each of the
+ * configured languages.  Labels are made up of words from a fixed vocabulary so that they can be searched for.
+ */
+public class SyntheticOntologyGenerator {
+
+    private static final ImmutableList<String> VOCABULARY = ImmutableList.of(
+            "acid", "activity", "artery", "binding", "blood", "bone", "cartilage", "cell", "channel", "complex",
+            "cortex", "cycle", "disease", "domain", "duct", "enzyme", "epithelium", "factor", "fiber", "gene",
+            "gland", "heart", "hormone", "inhibitor", "kinase", "layer", "ligand", "liver", "lobe", "membrane",
+            "metabolic", "muscle", "neuron", "nucleus", "organ", "pathway", "plate", "process", "protein",
+            "receptor", "region", "regulation", "segment", "signal", "structure", "syndrome", "tissue", "transport",
+            "vessel", "zone"
+    );
+
+    private static final int MAX_LABEL_WORDS = 4;
+
+    private static final double MULTIPLE_PARENT_PROBABILITY = 0.05;
+
+    private static final double EXISTENTIAL_RESTRICTION_PROBABILITY = 0.2;
+
+    private static final double PROPERTY_ASSERTION_PROBABILITY = 0.5;
+
+    @Nonnull
+    private final OWLDataFactory dataFactory;
+
+    @Nonnull
+    private final SyntheticOntologySettings settings;
+
+    public SyntheticOntologyGenerator(@Nonnull OWLDataFactory dataFactory,
+                                      @Nonnull SyntheticOntologySettings settings) {
+        this.dataFactory = checkNotNull(dataFactory);
+        this.settings = checkNotNull(settings);
+    }
+
+    /**
+     * Gets the words that labels are made up from
+     */
+    @Nonnull
+    public static ImmutableList<String> getVocabulary() {
+        return VOCABULARY;
+    }
+
+    @Nonnull
+    public SyntheticOntologySettings getSettings() {
+        return settings;
+    }
+
+    @Nonnull
+    public IRI getOntologyIri() {
+        return IRI.create(settings.getIriPrefix() + "ontology");
+    }
+
+    /**
+     * Gets the class that all other classes are subclasses of
+     */
+    @Nonnull
+    public OWLClass getRootClass() {
+        return getOWLClass(0);
+    }
+
+    /**
+     * Gets a generated class.  Classes are numbered in breadth first order, so the ancestors of a class have a
+     * lower index than the class itself.
+     */
+    @Nonnull
+    public OWLClass getOWLClass(int index) {
+        checkElementIndex(index, settings.getClassCount());
+        return dataFactory.getOWLClass(IRI.create(settings.getIriPrefix() + "C" + index));
+    }
+
+    @Nonnull
+    public OWLObjectProperty getOWLObjectProperty(int index) {
+        checkElementIndex(index, settings.getObjectPropertyCount());
+        return dataFactory.getOWLObjectProperty(IRI.create(settings.getIriPrefix() + "P" + index));
+    }
+
+    @Nonnull
+    public OWLNamedIndividual getOWLNamedIndividual(int index) {
+        checkElementIndex(index, settings.getIndividualCount());
+        return dataFactory.getOWLNamedIndividual(IRI.create(settings.getIriPrefix() + "I" + index));
+    }
+
+    /**
+     * Creates an ontology that contains the generated axioms
+     * @param manager The manager that the ontology should be created in
+     */
+    @Nonnull
+    public OWLOntology generateOntology(@Nonnull OWLOntologyManager manager) throws OWLOntologyCreationException {
+        return manager.createOntology(new HashSet<>(generateAxioms()), getOntologyIri());
+    }
+
+    @Nonnull
+    public ImmutableList<OWLAxiom> generateAxioms() {
+        var random = new Random(settings.getSeed());
+        var axioms = ImmutableList.<OWLAxiom>builder();
+        addClassAxioms(random, axioms);
+        addObjectPropertyAxioms(random, axioms);
+        addIndividualAxioms(random, axioms);
+        return axioms.build();
+    }
+
+    private void addClassAxioms(@Nonnull Random random, @Nonnull ImmutableList.Builder<OWLAxiom> axioms) {
+        var classCount = settings.getClassCount();
+        var branchingFactor = settings.getBranchingFactor();
+        var parentIndex = 0;
+        var remainingChildren = 1 + random.nextInt(2 * branchingFactor);
+        for(int i = 0; i < classCount; i++) {
+            var cls = getOWLClass(i);
+            addDeclarationAndLabels(cls, random, axioms);
+            if(i == 0) {
+                continue;
+            }
+            while(remainingChildren == 0) {
+                parentIndex++;
+                // Some classes are leaves, but the previous class must become a parent if no other class can be
+                remainingChildren = parentIndex == i - 1 ? 1 + random.nextInt(2 * branchingFactor) : random.nextInt(2 * branchingFactor + 1);
+            }
+            remainingChildren--;
+            axioms.add(dataFactory.getOWLSubClassOfAxiom(cls, getOWLClass(parentIndex)));
+            if(random.nextDouble() < MULTIPLE_PARENT_PROBABILITY) {
+                // Classes with a lower index cannot be descendants so this does not introduce cycles
+                var otherParentIndex = random.nextInt(i);
+                if(otherParentIndex != parentIndex) {
+                    axioms.add(dataFactory.getOWLSubClassOfAxiom(cls, getOWLClass(otherParentIndex)));
+                }
+            }
+            if(random.nextDouble() < EXISTENTIAL_RESTRICTION_PROBABILITY) {
+                var property = getOWLObjectProperty(random.nextInt(settings.getObjectPropertyCount()));
+                var filler = getOWLClass(random.nextInt(classCount));
+                axioms.add(dataFactory.getOWLSubClassOfAxiom(cls, dataFactory.getOWLObjectSomeValuesFrom(property, filler)));
+            }
+        }
+    }
+
+    private void addObjectPropertyAxioms(@Nonnull Random random, @Nonnull ImmutableList.Builder<OWLAxiom> axioms) {
+        for(int i = 0; i < settings.getObjectPropertyCount(); i++) {
+            addDeclarationAndLabels(getOWLObjectProperty(i), random, axioms);
+        }
+    }
+
+    private void addIndividualAxioms(@Nonnull Random random, @Nonnull ImmutableList.Builder<OWLAxiom> axioms) {
+        var individualCount = settings.getIndividualCount();
+        for(int i = 0; i < individualCount; i++) {
+            var individual = getOWLNamedIndividual(i);
+            addDeclarationAndLabels(individual, random, axioms);
+            var type = getOWLClass(random.nextInt(settings.getClassCount()));
+            axioms.add(dataFactory.getOWLClassAssertionAxiom(type, individual));
+            if(random.nextDouble() < PROPERTY_ASSERTION_PROBABILITY) {
+                var property = getOWLObjectProperty(random.nextInt(settings.getObjectPropertyCount()));
+                var object = getOWLNamedIndividual(random.nextInt(individualCount));
+                axioms.add(dataFactory.getOWLObjectPropertyAssertionAxiom(property, individual, object));
+            }
+        }
+    }
+
+    private void addDeclarationAndLabels(@Nonnull OWLEntity entity,
+                                         @Nonnull Random random,
+                                         @Nonnull ImmutableList.Builder<OWLAxiom> axioms) {
+        axioms.add(dataFactory.getOWLDeclarationAxiom(entity));
+        for(var language : settings.getLanguages()) {
+            var label = dataFactory.getOWLLiteral(nextLabel(random), language);
+            axioms.add(dataFactory.getOWLAnnotationAssertionAxiom(dataFactory.getRDFSLabel(), entity.getIRI(), label));
+        }
+    }
+
+    @Nonnull
+    static String nextLabel(@Nonnull Random random) {
+        var wordCount = 1 + random.nextInt(MAX_LABEL_WORDS);
+        var label = new StringBuilder();
+        for(int i = 0; i < wordCount; i++) {
+            if(i > 0) {
+                label.append(' ');
+            }
+            label.append(VOCABULARY.get(random.nextInt(VOCABULARY.size())));
+        }
+        label.setCharAt(0, Character.toUpperCase(label.charAt(0)));
+        return label.toString();
+    }
+}
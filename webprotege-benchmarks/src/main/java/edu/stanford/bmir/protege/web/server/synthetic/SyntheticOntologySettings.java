@@ -0,0 +1,95 @@
+package edu.stanford.bmir.protege.web.server.synthetic;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Describes the size and shape of an ontology that is produced by a {@link SyntheticOntologyGenerator}.
+ */
+@AutoValue
+public abstract class SyntheticOntologySettings {
+
+    public static final String DEFAULT_IRI_PREFIX = "http://webprotege.stanford.edu/synthetic/";
+
+    private static final int DEFAULT_BRANCHING_FACTOR = 8;
+
+    private static final long DEFAULT_SEED = 42;
+
+    /**
+     * Gets settings for an ontology of the specified number of classes, with an individual for every second class,
+     * one object property per hundred classes and English labels.
+     */
+    @Nonnull
+    public static SyntheticOntologySettings forClassCount(int classCount) {
+        return forClassCount(classCount, ImmutableList.of("en"), DEFAULT_SEED);
+    }
+
+    /**
+     * Gets settings for an ontology of the specified number of classes, with an individual for every second class,
+     * one object property per hundred classes and labels in the specified languages.
+     */
+    @Nonnull
+    public static SyntheticOntologySettings forClassCount(int classCount,
+                                                          @Nonnull ImmutableList<String> languages,
+                                                          long seed) {
+        return get(DEFAULT_IRI_PREFIX,
+                   classCount,
+                   DEFAULT_BRANCHING_FACTOR,
+                   Math.max(10, classCount / 100),
+                   classCount / 2,
+                   languages,
+                   seed);
+    }
+
+    /**
+     * @param iriPrefix           The prefix for entity IRIs
+     * @param classCount          The number of classes.  Must be at least one.
+     * @param branchingFactor     The mean number of direct subclasses of a class that has subclasses.  Must be at
+     *                            least one.
+     * @param objectPropertyCount The number of object properties.  Must be at least one.
+     * @param individualCount     The number of named individuals
+     * @param languages           The language tags of the labels that each entity is given.  An empty list means
+     *                            that entities do not have labels.
+     * @param seed                The seed for the generator.  Generators with equal settings produce equal axioms.
+     */
+    @Nonnull
+    public static SyntheticOntologySettings get(@Nonnull String iriPrefix,
+                                                int classCount,
+                                                int branchingFactor,
+                                                int objectPropertyCount,
+                                                int individualCount,
+                                                @Nonnull ImmutableList<String> languages,
+                                                long seed) {
+        checkArgument(classCount > 0, "classCount must be greater than zero");
+        checkArgument(branchingFactor > 0, "branchingFactor must be greater than zero");
+        checkArgument(objectPropertyCount > 0, "objectPropertyCount must be greater than zero");
+        checkArgument(individualCount >= 0, "individualCount must not be negative");
+        return new AutoValue_SyntheticOntologySettings(iriPrefix,
+                                                       classCount,
+                                                       branchingFactor,
+                                                       objectPropertyCount,
+                                                       individualCount,
+                                                       languages,
+                                                       seed);
+    }
+
+    @Nonnull
+    public abstract String getIriPrefix();
+
+    public abstract int getClassCount();
+
+    public abstract int getBranchingFactor();
+
+    public abstract int getObjectPropertyCount();
+
+    public abstract int getIndividualCount();
+
+    @Nonnull
+    public abstract ImmutableList<String> getLanguages();
+
+    public abstract long getSeed();
+}
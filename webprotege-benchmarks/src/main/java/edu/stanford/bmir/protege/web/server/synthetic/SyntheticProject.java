@@ -0,0 +1,160 @@
+package edu.stanford.bmir.protege.web.server.synthetic;
+
+import edu.stanford.bmir.protege.web.server.hierarchy.ClassHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.index.*;
+import edu.stanford.bmir.protege.web.server.match.*;
+import edu.stanford.bmir.protege.web.server.owlapi.ProjectAnnotationAssertionAxiomsBySubjectIndexImpl;
+import edu.stanford.bmir.protege.web.server.owlapi.WebProtegeOWLManager;
+import edu.stanford.bmir.protege.web.server.project.chg.ProjectOWLOntologyManager;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+
+import javax.annotation.Nonnull;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An in-memory project whose root ontology is generated by a {@link SyntheticOntologyGenerator}.  The indexes are
+ * the same implementations that back a real project, wired up by hand rather than by the project component, so
+ * that benchmarks do not need a data directory or MongoDB.
+ */
+public class SyntheticProject {
+
+    @Nonnull
+    private final ProjectId projectId;
+
+    @Nonnull
+    private final SyntheticOntologyGenerator generator;
+
+    @Nonnull
+    private final OWLOntology rootOntology;
+
+    @Nonnull
+    private final ProjectOntologiesIndex projectOntologiesIndex;
+
+    @Nonnull
+    private final OntologyIndex ontologyIndex;
+
+    @Nonnull
+    private final ProjectSignatureByTypeIndex projectSignatureByTypeIndex;
+
+    @Nonnull
+    private final EntitiesInProjectSignatureByIriIndex entitiesInProjectSignatureByIriIndex;
+
+    @Nonnull
+    private final AxiomsByEntityReferenceIndex axiomsByEntityReferenceIndex;
+
+    private SyntheticProject(@Nonnull ProjectId projectId,
+                             @Nonnull SyntheticOntologyGenerator generator,
+                             @Nonnull OWLOntology rootOntology) {
+        this.projectId = checkNotNull(projectId);
+        this.generator = checkNotNull(generator);
+        this.rootOntology = checkNotNull(rootOntology);
+        this.projectOntologiesIndex = new ProjectOntologiesIndexImpl(rootOntology);
+        this.ontologyIndex = new OntologyIndexImpl(rootOntology);
+        this.projectSignatureByTypeIndex = new ProjectSignatureByTypeIndexImpl(projectOntologiesIndex,
+                                                                               new OntologySignatureByTypeIndexImpl(ontologyIndex));
+        this.entitiesInProjectSignatureByIriIndex = new EntitiesInProjectSignatureByIriIndexImpl(projectOntologiesIndex,
+                                                                                                 ontologyIndex);
+        this.axiomsByEntityReferenceIndex = new AxiomsByEntityReferenceIndexImpl(ontologyIndex);
+    }
+
+    /**
+     * Creates a project with a fresh project id whose root ontology is generated with the specified settings
+     */
+    @Nonnull
+    public static SyntheticProject create(@Nonnull SyntheticOntologySettings settings) throws OWLOntologyCreationException {
+        // Wrap the ontology in a project manager, as the root ontology loader does, so that it can be edited
+        // through the ontology store
+        var delegateManager = WebProtegeOWLManager.createConcurrentOWLOntologyManager();
+        var manager = new ProjectOWLOntologyManager();
+        manager.setDelegate(delegateManager);
+        var generator = new SyntheticOntologyGenerator(delegateManager.getOWLDataFactory(), settings);
+        var rootOntology = generator.generateOntology(delegateManager);
+        manager.sealDelegate();
+        return new SyntheticProject(ProjectId.get(UUID.randomUUID().toString()), generator, rootOntology);
+    }
+
+    @Nonnull
+    public ProjectId getProjectId() {
+        return projectId;
+    }
+
+    @Nonnull
+    public SyntheticOntologyGenerator getGenerator() {
+        return generator;
+    }
+
+    @Nonnull
+    public OWLOntology getRootOntology() {
+        return rootOntology;
+    }
+
+    @Nonnull
+    public OWLDataFactory getDataFactory() {
+        return rootOntology.getOWLOntologyManager().getOWLDataFactory();
+    }
+
+    @Nonnull
+    public ProjectOntologiesIndex getProjectOntologiesIndex() {
+        return projectOntologiesIndex;
+    }
+
+    /**
+     * Creates a class hierarchy provider for the project.  Creating the provider computes the implicit roots of the
+     * hierarchy, which involves examining every class in the project.
+     */
+    @Nonnull
+    public ClassHierarchyProvider createClassHierarchyProvider() {
+        return new ClassHierarchyProvider(projectId,
+                                          getDataFactory().getOWLThing(),
+                                          projectOntologiesIndex,
+                                          new SubClassOfAxiomsBySubClassIndexImpl(ontologyIndex),
+                                          new EquivalentClassesAxiomsIndexImpl(ontologyIndex),
+                                          projectSignatureByTypeIndex,
+                                          axiomsByEntityReferenceIndex,
+                                          entitiesInProjectSignatureByIriIndex);
+    }
+
+    /**
+     * Creates a matching engine for the project
+     * @param classHierarchyProvider The class hierarchy provider that is used to plan and evaluate hierarchy criteria
+     * @param executorService The executor that partitions of candidate entities are matched on
+     */
+    @Nonnull
+    public MatchingEngine createMatchingEngine(@Nonnull ClassHierarchyProvider classHierarchyProvider,
+                                               @Nonnull ExecutorService executorService) {
+        var annotationAssertionsIndex = new AnnotationAssertionAxiomsIndexWrapperImpl(
+                projectOntologiesIndex,
+                new AxiomsByTypeIndexImpl(ontologyIndex),
+                new ProjectAnnotationAssertionAxiomsBySubjectIndexImpl(projectOntologiesIndex,
+                                                                       new AnnotationAssertionAxiomsBySubjectIndexImpl(ontologyIndex)));
+        var classAssertionsByClassIndex = new ClassAssertionAxiomsByClassIndexImpl(ontologyIndex);
+        var matcherFactory = new MatcherFactory(
+                new SubClassOfMatcherFactory(() -> classHierarchyProvider),
+                new InstanceOfMatcherFactory(() -> classHierarchyProvider,
+                                             () -> projectOntologiesIndex,
+                                             () -> classAssertionsByClassIndex,
+                                             () -> projectSignatureByTypeIndex),
+                new ConflictingBooleanValuesMatcherFactory(() -> annotationAssertionsIndex),
+                new EntityIsDeprecatedMatcherFactory(() -> annotationAssertionsIndex),
+                new AnnotationValuesAreNotDisjointMatcherFactory(() -> annotationAssertionsIndex),
+                new NonUniqueLangTagsMatcherFactory(() -> annotationAssertionsIndex),
+                new EntityAnnotationMatcherFactory(() -> annotationAssertionsIndex),
+                new IriAnnotationsMatcherFactory(() -> annotationAssertionsIndex));
+        var queryPlanner = new MatchingQueryPlanner(new ProjectSignatureIndexImpl(projectOntologiesIndex,
+                                                                                  new OntologySignatureIndexImpl(ontologyIndex)),
+                                                    projectSignatureByTypeIndex,
+                                                    projectOntologiesIndex,
+                                                    axiomsByEntityReferenceIndex,
+                                                    classAssertionsByClassIndex,
+                                                    entitiesInProjectSignatureByIriIndex,
+                                                    classHierarchyProvider,
+                                                    getDataFactory());
+        return new MatchingEngineImpl(queryPlanner, matcherFactory, executorService);
+    }
+}
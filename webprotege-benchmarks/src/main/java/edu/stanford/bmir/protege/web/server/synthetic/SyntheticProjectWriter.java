@@ -0,0 +1,207 @@
+package edu.stanford.bmir.protege.web.server.synthetic;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.server.inject.ApplicationDataFactory;
+import edu.stanford.bmir.protege.web.server.inject.project.ChangeHistoryFileProvider;
+import edu.stanford.bmir.protege.web.server.inject.project.ProjectDirectoryFactory;
+import edu.stanford.bmir.protege.web.server.revision.Revision;
+import edu.stanford.bmir.protege.web.server.revision.RevisionSerializationTask;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.semanticweb.owlapi.change.AddAxiomData;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.change.RemoveAxiomData;
+import org.semanticweb.owlapi.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Writes synthetic projects into the data directory.  The first revision of a project imports a generated ontology
+ * and is followed by a history of small edits made by a set of editors.  The edits relabel classes, add and remove
+ * subclass axioms and add comments, which is roughly the mix of edits seen in long-lived projects.  Projects are
+ * written in exactly the same form as projects that are created from uploaded sources, so they can be loaded like
+ * any other project once they have been registered.
+ */
+public class SyntheticProjectWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticProjectWriter.class);
+
+    private static final int MAX_CHANGES_PER_REVISION = 5;
+
+    private static final long TIME_BETWEEN_REVISIONS = TimeUnit.MINUTES.toMillis(1);
+
+    @Nonnull
+    private final OWLDataFactory dataFactory;
+
+    @Nonnull
+    private final ProjectDirectoryFactory projectDirectoryFactory;
+
+    @Inject
+    public SyntheticProjectWriter(@Nonnull @ApplicationDataFactory OWLDataFactory dataFactory,
+                                  @Nonnull ProjectDirectoryFactory projectDirectoryFactory) {
+        this.dataFactory = checkNotNull(dataFactory);
+        this.projectDirectoryFactory = checkNotNull(projectDirectoryFactory);
+    }
+
+    /**
+     * Writes the change history of a synthetic project.
+     * @param projectId The id of the project.  There must not be an existing change history for this project.
+     * @param settings The settings for the ontology that is imported in the first revision.
+     * @param editRevisionCount The number of revisions that follow the first revision.
+     * @param owner The user that imports the ontology.
+     * @param editors The users that make the edits.  Each edit is made by an editor chosen at random.
+     */
+    public void writeProject(@Nonnull ProjectId projectId,
+                             @Nonnull SyntheticOntologySettings settings,
+                             int editRevisionCount,
+                             @Nonnull UserId owner,
+                             @Nonnull ImmutableList<UserId> editors) throws IOException {
+        checkNotNull(projectId);
+        checkArgument(settings.getClassCount() > 1, "Projects with edits must have more than one class");
+        checkArgument(editRevisionCount >= 0, "The number of edit revisions must not be negative");
+        checkNotNull(owner);
+        checkArgument(!editors.isEmpty(), "At least one editor must be specified");
+        var projectDirectory = projectDirectoryFactory.getProjectDirectory(projectId);
+        var changeHistoryFile = new ChangeHistoryFileProvider(projectDirectory).get();
+        checkState(!changeHistoryFile.exists(), "Project %s already has a change history", projectId);
+        Files.createDirectories(changeHistoryFile.getParentFile().toPath());
+
+        var generator = new SyntheticOntologyGenerator(dataFactory, settings);
+        var ontologyId = new OWLOntologyID(generator.getOntologyIri());
+        var axioms = generator.generateAxioms();
+        var timestamp = System.currentTimeMillis() - (editRevisionCount + 1) * TIME_BETWEEN_REVISIONS;
+        logger.info("{} Writing initial revision containing {} axioms", projectId, axioms.size());
+        var initialChanges = ImmutableList.<OWLOntologyChangeRecord>builder();
+        axioms.forEach(ax -> initialChanges.add(new OWLOntologyChangeRecord(ontologyId, new AddAxiomData(ax))));
+        write(changeHistoryFile, new Revision(owner,
+                                              RevisionNumber.getRevisionNumber(1),
+                                              initialChanges.build(),
+                                              timestamp,
+                                              "Initial import"));
+
+        var edits = new EditGenerator(generator, ontologyId, axioms);
+        for(int i = 0; i < editRevisionCount; i++) {
+            timestamp += TIME_BETWEEN_REVISIONS;
+            var editor = editors.get(edits.random.nextInt(editors.size()));
+            write(changeHistoryFile, new Revision(editor,
+                                                  RevisionNumber.getRevisionNumber(i + 2),
+                                                  edits.nextChanges(),
+                                                  timestamp,
+                                                  "Edited classes"));
+        }
+        logger.info("{} Wrote {} revisions", projectId, editRevisionCount + 1);
+    }
+
+    private static void write(@Nonnull File changeHistoryFile,
+                              @Nonnull Revision revision) throws IOException {
+        new RevisionSerializationTask(changeHistoryFile, revision).call();
+    }
+
+    /**
+     * Generates the changes for edit revisions.  Edits are generated from a seed that is derived from the ontology
+     * settings so that equal settings produce equal histories.
+     */
+    private class EditGenerator {
+
+        private final SyntheticOntologyGenerator generator;
+
+        private final OWLOntologyID ontologyId;
+
+        private final Random random;
+
+        /**
+         * The current label of each class in each language, keyed by class IRI and language
+         */
+        private final Map<String, OWLAxiom> currentLabels = new HashMap<>();
+
+        /**
+         * Subclass axioms that were added by earlier edits and that can be removed by later edits
+         */
+        private final List<OWLAxiom> addedSubClassAxioms = new ArrayList<>();
+
+        private int editCount = 0;
+
+        private EditGenerator(@Nonnull SyntheticOntologyGenerator generator,
+                              @Nonnull OWLOntologyID ontologyId,
+                              @Nonnull ImmutableList<OWLAxiom> axioms) {
+            this.generator = generator;
+            this.ontologyId = ontologyId;
+            this.random = new Random(generator.getSettings().getSeed() + 1);
+            axioms.stream()
+                  .filter(ax -> ax instanceof OWLAnnotationAssertionAxiom)
+                  .map(ax -> (OWLAnnotationAssertionAxiom) ax)
+                  .filter(ax -> ax.getProperty().isLabel())
+                  .filter(ax -> ax.getValue() instanceof OWLLiteral)
+                  .forEach(ax -> currentLabels.put(getLabelKey(ax.getSubject(), ((OWLLiteral) ax.getValue()).getLang()), ax));
+        }
+
+        private ImmutableList<OWLOntologyChangeRecord> nextChanges() {
+            var changes = ImmutableList.<OWLOntologyChangeRecord>builder();
+            var changeCount = 1 + random.nextInt(MAX_CHANGES_PER_REVISION);
+            for(int i = 0; i < changeCount; i++) {
+                addNextEdit(changes);
+            }
+            return changes.build();
+        }
+
+        private void addNextEdit(@Nonnull ImmutableList.Builder<OWLOntologyChangeRecord> changes) {
+            editCount++;
+            var classCount = generator.getSettings().getClassCount();
+            var subClassIndex = 1 + random.nextInt(classCount - 1);
+            var cls = generator.getOWLClass(subClassIndex);
+            var languages = generator.getSettings().getLanguages();
+            var editType = random.nextInt(10);
+            if(editType < 4 && !languages.isEmpty()) {
+                var language = languages.get(random.nextInt(languages.size()));
+                var newLabel = dataFactory.getOWLAnnotationAssertionAxiom(dataFactory.getRDFSLabel(),
+                                                                          cls.getIRI(),
+                                                                          dataFactory.getOWLLiteral(SyntheticOntologyGenerator.nextLabel(random), language));
+                var oldLabel = currentLabels.put(getLabelKey(cls.getIRI(), language), newLabel);
+                if(oldLabel != null) {
+                    changes.add(new OWLOntologyChangeRecord(ontologyId, new RemoveAxiomData(oldLabel)));
+                }
+                changes.add(new OWLOntologyChangeRecord(ontologyId, new AddAxiomData(newLabel)));
+            }
+            else if(editType < 7) {
+                // Classes with a lower index are never descendants, so this does not introduce cycles
+                var superClass = generator.getOWLClass(random.nextInt(subClassIndex));
+                var axiom = dataFactory.getOWLSubClassOfAxiom(cls, superClass);
+                addedSubClassAxioms.add(axiom);
+                changes.add(new OWLOntologyChangeRecord(ontologyId, new AddAxiomData(axiom)));
+            }
+            else if(editType < 9 || addedSubClassAxioms.isEmpty()) {
+                var comment = dataFactory.getOWLLiteral("Edit " + editCount, "en");
+                var axiom = dataFactory.getOWLAnnotationAssertionAxiom(dataFactory.getRDFSComment(), cls.getIRI(), comment);
+                changes.add(new OWLOntologyChangeRecord(ontologyId, new AddAxiomData(axiom)));
+            }
+            else {
+                var index = random.nextInt(addedSubClassAxioms.size());
+                var lastIndex = addedSubClassAxioms.size() - 1;
+                var axiom = addedSubClassAxioms.set(index, addedSubClassAxioms.get(lastIndex));
+                addedSubClassAxioms.remove(lastIndex);
+                changes.add(new OWLOntologyChangeRecord(ontologyId, new RemoveAxiomData(axiom)));
+            }
+        }
+
+        private String getLabelKey(@Nonnull OWLAnnotationSubject subject, @Nonnull String language) {
+            return subject + "@" + language;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package edu.stanford.bmir.protege.web.server.loadtest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+
+public class LatencyStatistics_TestCase {
+
+    private LatencyStatistics statistics;
+
+    @Before
+    public void setUp() {
+        var latencies = new long[100];
+        for(int i = 0; i < latencies.length; i++) {
+            // Unsorted, with values 1 to 100
+            latencies[i] = latencies.length - i;
+        }
+        statistics = LatencyStatistics.get(latencies, 3);
+    }
+
+    @Test
+    public void shouldReturnCount() {
+        assertThat(statistics.getCount(), is(100L));
+    }
+
+    @Test
+    public void shouldReturnErrorCount() {
+        assertThat(statistics.getErrorCount(), is(3L));
+    }
+
+    @Test
+    public void shouldReturnMedian() {
+        assertThat(statistics.getPercentileNanos(50), is(50L));
+    }
+
+    @Test
+    public void shouldReturnNearestRankPercentile() {
+        assertThat(statistics.getPercentileNanos(99), is(99L));
+        assertThat(statistics.getPercentileNanos(99.9), is(100L));
+        assertThat(statistics.getPercentileNanos(0.1), is(1L));
+    }
+
+    @Test
+    public void shouldReturnMax() {
+        assertThat(statistics.getMaxNanos(), is(100L));
+    }
+
+    @Test
+    public void shouldReturnMean() {
+        assertThat(statistics.getMeanNanos(), is(51L));
+    }
+
+    @Test
+    public void shouldReturnThroughput() {
+        assertThat(statistics.getThroughput(TimeUnit.SECONDS.toNanos(2)), is(closeTo(50.0, 0.001)));
+    }
+
+    @Test
+    public void shouldReturnZeroForEmptyLatencies() {
+        var empty = LatencyStatistics.get(new long[0], 0);
+        assertThat(empty.getPercentileNanos(99), is(0L));
+        assertThat(empty.getMaxNanos(), is(0L));
+        assertThat(empty.getMeanNanos(), is(0L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectZeroPercentile() {
+        statistics.getPercentileNanos(0);
+    }
+}
@@ -0,0 +1,110 @@
+package edu.stanford.bmir.protege.web.server.synthetic;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toSet;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class SyntheticOntologyGenerator_TestCase {
+
+    private static final int CLASS_COUNT = 500;
+
+    private static final int OBJECT_PROPERTY_COUNT = 10;
+
+    private static final int INDIVIDUAL_COUNT = 100;
+
+    private final OWLDataFactory dataFactory = new OWLDataFactoryImpl();
+
+    private SyntheticOntologySettings settings;
+
+    private SyntheticOntologyGenerator generator;
+
+    private ImmutableList<OWLAxiom> axioms;
+
+    @Before
+    public void setUp() {
+        settings = SyntheticOntologySettings.get(SyntheticOntologySettings.DEFAULT_IRI_PREFIX,
+                                                 CLASS_COUNT,
+                                                 4,
+                                                 OBJECT_PROPERTY_COUNT,
+                                                 INDIVIDUAL_COUNT,
+                                                 ImmutableList.of("en", "de"),
+                                                 7);
+        generator = new SyntheticOntologyGenerator(dataFactory, settings);
+        axioms = generator.generateAxioms();
+    }
+
+    private Set<OWLEntity> getDeclaredEntities(EntityType<?> entityType) {
+        return axioms.stream()
+                     .filter(ax -> ax instanceof OWLDeclarationAxiom)
+                     .map(ax -> ((OWLDeclarationAxiom) ax).getEntity())
+                     .filter(entity -> entity.getEntityType().equals(entityType))
+                     .collect(toSet());
+    }
+
+    @Test
+    public void shouldDeclareAllEntities() {
+        assertThat(getDeclaredEntities(EntityType.CLASS).size(), is(CLASS_COUNT));
+        assertThat(getDeclaredEntities(EntityType.OBJECT_PROPERTY).size(), is(OBJECT_PROPERTY_COUNT));
+        assertThat(getDeclaredEntities(EntityType.NAMED_INDIVIDUAL).size(), is(INDIVIDUAL_COUNT));
+    }
+
+    @Test
+    public void shouldGenerateEqualAxiomsForEqualSettings() {
+        var otherAxioms = new SyntheticOntologyGenerator(dataFactory, settings).generateAxioms();
+        assertThat(otherAxioms, is(axioms));
+    }
+
+    @Test
+    public void shouldGiveEveryClassExceptTheRootANamedSuperClassWithALowerIndex() {
+        var classesWithParents = new HashSet<OWLClass>();
+        for(int i = 1; i < CLASS_COUNT; i++) {
+            var cls = generator.getOWLClass(i);
+            var superClasses = axioms.stream()
+                                     .filter(ax -> ax instanceof OWLSubClassOfAxiom)
+                                     .map(ax -> (OWLSubClassOfAxiom) ax)
+                                     .filter(ax -> ax.getSubClass().equals(cls))
+                                     .map(OWLSubClassOfAxiom::getSuperClass)
+                                     .filter(superCls -> !superCls.isAnonymous())
+                                     .map(OWLClassExpression::asOWLClass)
+                                     .collect(toSet());
+            for(int j = i; j < CLASS_COUNT; j++) {
+                assertThat(superClasses, not(hasItem(generator.getOWLClass(j))));
+            }
+            if(!superClasses.isEmpty()) {
+                classesWithParents.add(cls);
+            }
+        }
+        assertThat(classesWithParents.size(), is(CLASS_COUNT - 1));
+        assertThat(axioms, not(hasItem(dataFactory.getOWLSubClassOfAxiom(generator.getRootClass(),
+                                                                         dataFactory.getOWLThing()))));
+    }
+
+    @Test
+    public void shouldLabelEntitiesInEachLanguage() {
+        var rootLabelLanguages = axioms.stream()
+                                       .filter(ax -> ax instanceof OWLAnnotationAssertionAxiom)
+                                       .map(ax -> (OWLAnnotationAssertionAxiom) ax)
+                                       .filter(ax -> ax.getSubject().equals(generator.getRootClass().getIRI()))
+                                       .filter(ax -> ax.getProperty().isLabel())
+                                       .map(ax -> ((OWLLiteral) ax.getValue()).getLang())
+                                       .collect(toSet());
+        assertThat(rootLabelLanguages, containsInAnyOrder("en", "de"));
+    }
+
+    @Test
+    public void shouldGenerateOntology() throws Exception {
+        var ontology = generator.generateOntology(OWLManager.createOWLOntologyManager());
+        assertThat(ontology.getOntologyID().getOntologyIRI().get(), is(generator.getOntologyIri()));
+        assertThat(ontology.getAxiomCount(), is(new HashSet<>(axioms).size()));
+    }
+}
@@ -0,0 +1,106 @@
+package edu.stanford.bmir.protege.web.server.synthetic;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.server.inject.project.ChangeHistoryFileProvider;
+import edu.stanford.bmir.protege.web.server.inject.project.ProjectDirectoryFactory;
+import edu.stanford.bmir.protege.web.server.revision.Revision;
+import edu.stanford.bmir.protege.web.server.revision.RevisionStoreImpl;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.UUID;
+
+import static java.util.stream.Collectors.toSet;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class SyntheticProjectWriter_TestCase {
+
+    private static final int EDIT_REVISION_COUNT = 50;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final OWLDataFactoryImpl dataFactory = new OWLDataFactoryImpl();
+
+    private final ProjectId projectId = ProjectId.get(UUID.randomUUID().toString());
+
+    private final UserId owner = UserId.getUserId("owner");
+
+    private final ImmutableList<UserId> editors = ImmutableList.of(UserId.getUserId("editorA"),
+                                                                   UserId.getUserId("editorB"));
+
+    private final SyntheticOntologySettings settings = SyntheticOntologySettings.forClassCount(200);
+
+    private ProjectDirectoryFactory projectDirectoryFactory;
+
+    private RevisionStoreImpl revisionStore;
+
+    @Before
+    public void setUp() throws IOException {
+        projectDirectoryFactory = new ProjectDirectoryFactory(temporaryFolder.getRoot());
+        var writer = new SyntheticProjectWriter(dataFactory, projectDirectoryFactory);
+        writer.writeProject(projectId, settings, EDIT_REVISION_COUNT, owner, editors);
+        var changeHistoryFile = new ChangeHistoryFileProvider(projectDirectoryFactory.getProjectDirectory(projectId)).get();
+        revisionStore = new RevisionStoreImpl(projectId, changeHistoryFile, dataFactory);
+        revisionStore.load();
+    }
+
+    @After
+    public void tearDown() {
+        revisionStore.dispose();
+    }
+
+    @Test
+    public void shouldWriteInitialRevisionAndEditRevisions() {
+        assertThat(revisionStore.getCurrentRevisionNumber(),
+                   is(RevisionNumber.getRevisionNumber(EDIT_REVISION_COUNT + 1)));
+    }
+
+    @Test
+    public void shouldImportGeneratedAxiomsInInitialRevision() {
+        var initialRevision = revisionStore.getRevision(RevisionNumber.getRevisionNumber(1)).orElseThrow();
+        assertThat(initialRevision.getUserId(), is(owner));
+        Set<OWLAxiom> importedAxioms = initialRevision.getChanges()
+                                                      .stream()
+                                                      .map(OWLOntologyChangeRecord::getData)
+                                                      .map(data -> (OWLAxiom) data.getItem())
+                                                      .collect(toSet());
+        var generatedAxioms = new SyntheticOntologyGenerator(dataFactory, settings).generateAxioms();
+        assertThat(importedAxioms, is(Set.copyOf(generatedAxioms)));
+    }
+
+    @Test
+    public void shouldAttributeEditsToEditors() {
+        var revisions = revisionStore.getRevisions();
+        for(Revision revision : revisions.subList(1, revisions.size())) {
+            assertThat(revision.getUserId(), isIn(editors));
+            assertThat(revision.getChanges(), is(not(empty())));
+        }
+    }
+
+    @Test
+    public void shouldWriteRevisionsInTimestampOrder() {
+        var revisions = revisionStore.getRevisions();
+        for(int i = 1; i < revisions.size(); i++) {
+            assertThat(revisions.get(i).getTimestamp(), is(greaterThan(revisions.get(i - 1).getTimestamp())));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotOverwriteExistingProject() throws IOException {
+        var writer = new SyntheticProjectWriter(dataFactory, projectDirectoryFactory);
+        writer.writeProject(projectId, settings, EDIT_REVISION_COUNT, owner, editors);
+    }
+}
@@ -139,7 +139,7 @@ public class SetupTools {
                 properties.getDBPassword().map(String::toCharArray).orElse(new char [0])
         );
         var credential = mongoCredentialProvider.get();
-        return new MongoClientProvider(dbHost, dbPort, credential, new ApplicationDisposablesManager(new DisposableObjectManager())).get();
+        return new MongoClientProvider(dbHost, dbPort, credential, new ApplicationDisposablesManager(new DisposableObjectManager()), new MongoCommandMetrics()).get();
     }
 
     private static Morphia getMorphia() {
@@ -1,6 +1,7 @@
 package edu.stanford.bmir.protege.web.client.viz;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableSet;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.place.shared.Place;
 import com.google.gwt.place.shared.PlaceController;
@@ -24,6 +25,7 @@ import edu.stanford.bmir.protege.web.shared.place.Item;
 import edu.stanford.bmir.protege.web.shared.place.ProjectViewPlace;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import edu.stanford.bmir.protege.web.client.selection.SelectionModel;
+import edu.stanford.bmir.protege.web.shared.viz.Edge;
 import edu.stanford.bmir.protege.web.shared.viz.EntityGraph;
 import edu.stanford.bmir.protege.web.shared.viz.GetEntityGraphAction;
 import edu.stanford.bmir.protege.web.shared.viz.GetEntityGraphResult;
@@ -42,6 +44,8 @@ import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static edu.stanford.bmir.protege.web.client.graphlib.GraphConstants.*;
+import static edu.stanford.bmir.protege.web.shared.viz.GetEntityGraphAction.DEFAULT_EDGE_BUDGET;
+import static edu.stanford.bmir.protege.web.shared.viz.GetEntityGraphAction.DEFAULT_MAX_DEPTH;
 import static java.util.stream.Collectors.toSet;
 
 /**
@@ -84,6 +88,16 @@ public class VizPresenter {
 
     private EntityGraph currentEntityGraph;
 
+    /**
+     * The nodes in the current entity graph that have edges that have not been retrieved
+     */
+    @Nonnull
+    private ImmutableSet<OWLEntity> currentFrontier = ImmutableSet.of();
+
+    private final ExpandNodeUiAction expandNodeUiAction = new ExpandNodeUiAction();
+
+    private final ExpandAllUiAction expandAllUiAction = new ExpandAllUiAction();
+
     private PopupPanel popupPanel = new PopupPanel();
 
     @Nonnull
@@ -129,6 +143,8 @@ public class VizPresenter {
     private void addContextMenuItemsToView() {
         view.addContextMenuAction(new HideNodeUiAction());
         view.addContextMenuAction(new SelectNodeUiAction());
+        view.addContextMenuAction(expandNodeUiAction);
+        view.addContextMenuAction(expandAllUiAction);
     }
 
     private void handleMouseEnter(NodeDetails nodeDetails, Event event) {
@@ -214,7 +230,7 @@ public class VizPresenter {
     }
 
     private void handleNodeContextMenuClick(@Nonnull NodeDetails nodeDetails) {
-
+        expandNodeUiAction.setEnabled(currentFrontier.contains(nodeDetails.getEntity()));
     }
 
     private void handleNodeClicked(@Nonnull NodeDetails nodeDetails) {
@@ -356,12 +372,68 @@ public class VizPresenter {
             return;
         }
         currentEntityGraph = result.getEntityGraph();
+        setCurrentFrontier(result.getFrontier());
         if (entityDisplay != null) {
             entityDisplay.setDisplayedEntity(Optional.of(result.getEntityGraph().getRoot()));
         }
         resetCurrentGraph();
     }
 
+    private void setCurrentFrontier(@Nonnull ImmutableSet<OWLEntity> frontier) {
+        currentFrontier = frontier;
+        expandAllUiAction.setEnabled(!frontier.isEmpty());
+    }
+
+    /**
+     * Retrieves the edges that are reachable from the specified frontier nodes and adds them to the current graph
+     */
+    private void expand(@Nonnull ImmutableSet<OWLEntity> frontierNodes) {
+        if (currentEntityGraph == null || frontierNodes.isEmpty()) {
+            return;
+        }
+        EntityGraph expandedGraph = currentEntityGraph;
+        dispatch.execute(new GetEntityGraphAction(projectId,
+                                                  expandedGraph.getRootEntity(),
+                                                  frontierNodes,
+                                                  DEFAULT_MAX_DEPTH,
+                                                  DEFAULT_EDGE_BUDGET),
+                         hasBusy,
+                         result -> handleExpansion(expandedGraph, result));
+    }
+
+    private void handleExpansion(@Nonnull EntityGraph expandedGraph, @Nonnull GetEntityGraphResult result) {
+        if (currentEntityGraph != expandedGraph) {
+            // The graph has changed since the expansion was requested
+            return;
+        }
+        EntityGraph expansion = result.getEntityGraph();
+        Set<OWLEntity> previouslyExpandedNodes = getEntities(currentEntityGraph);
+        previouslyExpandedNodes.removeAll(currentFrontier);
+        Set<OWLEntity> newlyExpandedNodes = getEntities(expansion);
+        newlyExpandedNodes.removeAll(result.getFrontier());
+        ImmutableSet.Builder<OWLEntity> frontier = ImmutableSet.builder();
+        currentFrontier.stream()
+                       .filter(node -> !newlyExpandedNodes.contains(node))
+                       .forEach(frontier::add);
+        result.getFrontier().stream()
+              .filter(node -> !previouslyExpandedNodes.contains(node))
+              .forEach(frontier::add);
+        ImmutableSet<Edge> edges = ImmutableSet.<Edge>builder()
+                                               .addAll(currentEntityGraph.getEdges())
+                                               .addAll(expansion.getEdges())
+                                               .build();
+        currentEntityGraph = EntityGraph.create(currentEntityGraph.getRoot(), edges);
+        setCurrentFrontier(frontier.build());
+        resetCurrentGraph();
+    }
+
+    @Nonnull
+    private static Set<OWLEntity> getEntities(@Nonnull EntityGraph graph) {
+        return graph.getNodes().stream()
+                    .map(OWLEntityData::getEntity)
+                    .collect(toSet());
+    }
+
     private Boolean isGraphForCurrentEntity(@Nonnull GetEntityGraphResult result) {
         return Objects.equals(currentEntityGraph, result.getEntityGraph());
     }
@@ -390,6 +462,34 @@ public class VizPresenter {
         }
     }
 
+    private class ExpandNodeUiAction extends AbstractUiAction {
+
+        public ExpandNodeUiAction() {
+            super("Show more from node");
+        }
+
+        @Override
+        public void execute() {
+            view.getMostRecentTargetNode()
+                .map(NodeDetails::getEntity)
+                .filter(currentFrontier::contains)
+                .ifPresent(entity -> expand(ImmutableSet.of(entity)));
+        }
+    }
+
+    private class ExpandAllUiAction extends AbstractUiAction {
+
+        public ExpandAllUiAction() {
+            super("Show more");
+            setEnabled(false);
+        }
+
+        @Override
+        public void execute() {
+            expand(currentFrontier);
+        }
+    }
+
     private class SelectNodeUiAction extends AbstractUiAction {
 
         public SelectNodeUiAction() {
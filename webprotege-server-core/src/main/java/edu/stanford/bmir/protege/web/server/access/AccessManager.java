@@ -7,6 +7,7 @@ import edu.stanford.bmir.protege.web.shared.access.RoleId;
 
 import javax.annotation.Nonnull;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -57,6 +58,18 @@ public interface AccessManager {
     Set<ActionId> getActionClosure(@Nonnull Subject subject,
                                    @Nonnull Resource resource);
 
+    /**
+     * Gets the action closures for the specified subject across the specified resources.  This is equivalent to
+     * calling {@link #getActionClosure(Subject, Resource)} for each resource, but requires only a single query.
+     * @param subject The subject.
+     * @param resources The resources.
+     * @return A map from each of the specified resources to the action closure for the subject and resource pair.
+     * Resources for which the subject has no actions are mapped to the empty set.
+     */
+    @Nonnull
+    Map<Resource, Set<ActionId>> getActionClosures(@Nonnull Subject subject,
+                                                   @Nonnull Collection<? extends Resource> resources);
+
     /**
      * Tests to see if the specified subject has permission to execute the specified action on the specified resource.
      * @param subject The subject.
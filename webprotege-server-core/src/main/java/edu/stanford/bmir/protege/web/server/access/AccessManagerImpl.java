@@ -1,10 +1,15 @@
 package edu.stanford.bmir.protege.web.server.access;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.mongodb.BasicDBObject;
+import edu.stanford.bmir.protege.web.server.persistence.BulkWriteBatch;
 import edu.stanford.bmir.protege.web.shared.access.ActionId;
 import edu.stanford.bmir.protege.web.shared.access.BuiltInAction;
 import edu.stanford.bmir.protege.web.shared.access.RoleId;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import org.mongodb.morphia.Datastore;
+import org.mongodb.morphia.UpdateOptions;
 import org.mongodb.morphia.query.CountOptions;
 import org.mongodb.morphia.query.Query;
 import org.mongodb.morphia.query.UpdateOperations;
@@ -12,8 +17,11 @@ import org.mongodb.morphia.query.UpdateOperations;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -49,18 +57,18 @@ public class AccessManagerImpl implements AccessManager {
     public void setAssignedRoles(@Nonnull Subject subject,
                                  @Nonnull Resource resource,
                                  @Nonnull Collection<RoleId> roleIds) {
-        String userName = toUserName(subject);
-        String projectId = toProjectId(resource);
         List<String> assignedRoles = roleIds.stream().map(RoleId::getId).collect(toList());
         List<String> roleClosure = getRoleClosure(roleIds);
         List<String> actionClosure = getActionClosure(roleIds);
-        RoleAssignment assignment = new RoleAssignment(userName,
-                                                       projectId,
-                                                       assignedRoles,
-                                                       roleClosure,
-                                                       actionClosure);
-        datastore.delete(withUserAndTarget(subject, resource));
-        datastore.save(assignment);
+        // A single upsert rather than a delete followed by a save.  The user name and project id
+        // are taken from the query when the assignment is inserted.
+        UpdateOperations<RoleAssignment> updateOperations = datastore.createUpdateOperations(RoleAssignment.class)
+                                                                     .set(ASSIGNED_ROLES, assignedRoles)
+                                                                     .set(ROLE_CLOSURE, roleClosure)
+                                                                     .set(ACTION_CLOSURE, actionClosure);
+        datastore.update(withUserAndTarget(subject, resource),
+                         updateOperations,
+                         new UpdateOptions().upsert(true));
     }
 
     private List<String> getActionClosure(@Nonnull Collection<RoleId> roleIds) {
@@ -102,11 +110,14 @@ public class AccessManagerImpl implements AccessManager {
     }
 
     private Query<RoleAssignment> withUserOrAnyUserAndTarget(Subject subject, Resource resource) {
-        String userName = toUserName(subject);
         String projectId = toProjectId(resource);
-
         Query<RoleAssignment> query = datastore.createQuery(RoleAssignment.class)
                                                .field(PROJECT_ID).equal(projectId);
+        return withUserOrAnyUser(query, subject);
+    }
+
+    private Query<RoleAssignment> withUserOrAnyUser(Query<RoleAssignment> query, Subject subject) {
+        String userName = toUserName(subject);
         if (!subject.isGuest()) {
             query.or(
                     query.criteria(USER_NAME).equal(userName),
@@ -144,6 +155,37 @@ public class AccessManagerImpl implements AccessManager {
                     .collect(toSet());
     }
 
+    @Nonnull
+    @Override
+    public Map<Resource, Set<ActionId>> getActionClosures(@Nonnull Subject subject,
+                                                          @Nonnull Collection<? extends Resource> resources) {
+        if (resources.isEmpty()) {
+            return ImmutableMap.of();
+        }
+        // The application resource is keyed by a null project id
+        Map<String, Resource> resourcesByProjectId = new HashMap<>();
+        Map<Resource, ImmutableSet.Builder<ActionId>> actionClosures = new HashMap<>();
+        for (Resource resource : resources) {
+            resourcesByProjectId.put(toProjectId(resource), resource);
+            actionClosures.put(resource, ImmutableSet.builder());
+        }
+        Query<RoleAssignment> query = datastore.createQuery(RoleAssignment.class)
+                                               .field(PROJECT_ID).in(new ArrayList<>(resourcesByProjectId.keySet()));
+        withUserOrAnyUser(query, subject)
+                .project(PROJECT_ID, true)
+                .project(ACTION_CLOSURE, true)
+                .asList()
+                .forEach(ra -> {
+                    Resource resource = resourcesByProjectId.get(ra.getProjectId().orElse(null));
+                    if (resource != null) {
+                        ra.getActionClosure().forEach(actionId -> actionClosures.get(resource).add(new ActionId(actionId)));
+                    }
+                });
+        ImmutableMap.Builder<Resource, Set<ActionId>> result = ImmutableMap.builder();
+        actionClosures.forEach((resource, actionClosure) -> result.put(resource, actionClosure.build()));
+        return result.build();
+    }
+
     @Override
     public boolean hasPermission(@Nonnull Subject subject, @Nonnull Resource resource, @Nonnull ActionId actionId) {
         Query<RoleAssignment> query = withUserOrAnyUserAndTarget(subject, resource)
@@ -198,6 +240,7 @@ public class AccessManagerImpl implements AccessManager {
     @Override
     public void rebuild() {
         Query<RoleAssignment> query = datastore.createQuery(RoleAssignment.class);
+        var batch = BulkWriteBatch.create(datastore.getCollection(RoleAssignment.class));
         query.asList()
              .forEach(roleAssignment -> {
                  List<RoleId> assignedRoles = roleAssignment.getAssignedRoles().stream()
@@ -205,12 +248,13 @@ public class AccessManagerImpl implements AccessManager {
                          .collect(Collectors.toList());
                  List<String> roleClosure = getRoleClosure(assignedRoles);
                  List<String> actionClosure = getActionClosure(assignedRoles);
-                 UpdateOperations<RoleAssignment> updateOperations = datastore.createUpdateOperations(RoleAssignment.class);
-                 updateOperations.set(RoleAssignment.ACTION_CLOSURE, actionClosure)
-                         .set(RoleAssignment.ROLE_CLOSURE, roleClosure);
-                 datastore.update(roleAssignment, updateOperations);
+                 var assignmentQuery = new BasicDBObject(USER_NAME, roleAssignment.getUserName().orElse(null))
+                         .append(PROJECT_ID, roleAssignment.getProjectId().orElse(null));
+                 var update = new BasicDBObject("$set", new BasicDBObject(ACTION_CLOSURE, actionClosure)
+                         .append(ROLE_CLOSURE, roleClosure));
+                 batch.updateOne(assignmentQuery, update);
              });
-
+        batch.flush();
     }
 
     /**
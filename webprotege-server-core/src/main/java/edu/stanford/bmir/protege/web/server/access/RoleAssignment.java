@@ -37,6 +37,8 @@ public class RoleAssignment {
 
     public static final String PROJECT_ID = "projectId";
 
+    public static final String ASSIGNED_ROLES = "assignedRoles";
+
     public static final String ACTION_CLOSURE = "actionClosure";
 
     public static final String ROLE_CLOSURE = "roleClosure";
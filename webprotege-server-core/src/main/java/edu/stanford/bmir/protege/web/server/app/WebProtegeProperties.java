@@ -2,6 +2,8 @@ package edu.stanford.bmir.protege.web.server.app;
 
 import com.google.common.collect.ImmutableMap;
 import edu.stanford.bmir.protege.web.server.init.WebProtegeConfigurationException;
+import edu.stanford.bmir.protege.web.server.revision.ChangeHistoryCompression;
+import edu.stanford.bmir.protege.web.server.revision.ChangeLogSyncPolicy;
 import edu.stanford.bmir.protege.web.shared.app.WebProtegePropertyName;
 
 import javax.annotation.Nonnull;
@@ -124,6 +126,84 @@ public class WebProtegeProperties implements Serializable {
         }
     }
 
+    @Nonnull
+    public ChangeLogSyncPolicy getChangeLogSyncPolicy() {
+        try {
+            return ChangeLogSyncPolicy.valueOf(getRequiredString(CHANGE_LOG_SYNC_POLICY));
+        } catch(IllegalArgumentException e) {
+            return ChangeLogSyncPolicy.valueOf(CHANGE_LOG_SYNC_POLICY.getDefaultValue().orElseThrow());
+        }
+    }
+
+    public long getChangeLogSyncInterval() {
+        try {
+            return Long.parseLong(getRequiredString(CHANGE_LOG_SYNC_INTERVAL));
+        } catch(NumberFormatException e) {
+            return Long.parseLong(CHANGE_LOG_SYNC_INTERVAL.getDefaultValue().orElseThrow());
+        }
+    }
+
+    public int getChangeLogMaxPendingRevisions() {
+        try {
+            return Integer.parseInt(getRequiredString(CHANGE_LOG_MAX_PENDING_REVISIONS));
+        } catch(NumberFormatException e) {
+            return Integer.parseInt(CHANGE_LOG_MAX_PENDING_REVISIONS.getDefaultValue().orElseThrow());
+        }
+    }
+
+    @Nonnull
+    public ChangeHistoryCompression getChangeLogCompression() {
+        try {
+            return ChangeHistoryCompression.valueOf(getRequiredString(CHANGE_LOG_COMPRESSION));
+        } catch(IllegalArgumentException e) {
+            return ChangeHistoryCompression.valueOf(CHANGE_LOG_COMPRESSION.getDefaultValue().orElseThrow());
+        }
+    }
+
+    public int getMemoryPressureShedCachesFreePercent() {
+        try {
+            return Integer.parseInt(getRequiredString(MEMORY_PRESSURE_SHED_CACHES_FREE_PERCENT));
+        } catch(NumberFormatException e) {
+            return Integer.parseInt(MEMORY_PRESSURE_SHED_CACHES_FREE_PERCENT.getDefaultValue().orElseThrow());
+        }
+    }
+
+    public int getMemoryPressureUnloadProjectsFreePercent() {
+        try {
+            return Integer.parseInt(getRequiredString(MEMORY_PRESSURE_UNLOAD_PROJECTS_FREE_PERCENT));
+        } catch(NumberFormatException e) {
+            return Integer.parseInt(MEMORY_PRESSURE_UNLOAD_PROJECTS_FREE_PERCENT.getDefaultValue().orElseThrow());
+        }
+    }
+
+    public long getMemoryPressureUnloadMinIdleTime() {
+        try {
+            return Long.parseLong(getRequiredString(MEMORY_PRESSURE_UNLOAD_MIN_IDLE_TIME));
+        } catch(NumberFormatException e) {
+            return Long.parseLong(MEMORY_PRESSURE_UNLOAD_MIN_IDLE_TIME.getDefaultValue().orElseThrow());
+        }
+    }
+
+    public int getRevisionCacheMaxSizeMB() {
+        try {
+            return Integer.parseInt(getRequiredString(REVISION_CACHE_MAX_SIZE_MB));
+        } catch(NumberFormatException e) {
+            return Integer.parseInt(REVISION_CACHE_MAX_SIZE_MB.getDefaultValue().orElseThrow());
+        }
+    }
+
+    public int getRevisionCacheProjectQuotaMB() {
+        try {
+            return Integer.parseInt(getRequiredString(REVISION_CACHE_PROJECT_QUOTA_MB));
+        } catch(NumberFormatException e) {
+            return Integer.parseInt(REVISION_CACHE_PROJECT_QUOTA_MB.getDefaultValue().orElseThrow());
+        }
+    }
+
+    public Optional<String> getMetricsAccessToken() {
+        return getOptionalString(METRICS_ACCESS_TOKEN).filter(token -> !token.isEmpty());
+    }
+
     public Optional<String> getDBUserName() {
         return getOptionalString(MONGO_DB_AUTH_USERNAME);
     }
@@ -37,6 +37,11 @@ public class GetEntityCrudKitSettingsActionHandler extends AbstractProjectAction
         return GetEntityCrudKitSettingsAction.class;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Nullable
     @Override
     protected BuiltInAction getRequiredExecutableBuiltInAction() {
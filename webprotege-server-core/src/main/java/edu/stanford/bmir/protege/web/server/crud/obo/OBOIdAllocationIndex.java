@@ -0,0 +1,173 @@
+package edu.stanford.bmir.protege.web.server.crud.obo;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+import com.google.common.collect.Table;
+import com.google.common.collect.TreeRangeSet;
+import edu.stanford.bmir.protege.web.server.index.EntitiesInProjectSignatureByIriIndex;
+import edu.stanford.bmir.protege.web.server.index.ProjectSignatureIndex;
+import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.util.HashSet;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Keeps track of the numeric OBO Id suffixes that are used in the project signature.  Used ids are held
+ * as a set of disjoint intervals for each IRI prefix and number of digits, so that the next free id after
+ * a given id can be found in logarithmic time.  The intervals for a prefix are computed from the project
+ * signature the first time that they are requested and they are then maintained from ontology changes.
+ */
+@ProjectSingleton
+public class OBOIdAllocationIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(OBOIdAllocationIndex.class);
+
+    /**
+     * Suffixes longer than this might not fit into a long
+     */
+    private static final int MAX_SUFFIX_LENGTH = 18;
+
+    @Nonnull
+    private final ProjectSignatureIndex projectSignatureIndex;
+
+    @Nonnull
+    private final EntitiesInProjectSignatureByIriIndex entitiesInProjectSignatureByIriIndex;
+
+    /**
+     * Used ids keyed by IRI prefix and total digits
+     */
+    private final Table<String, Integer, RangeSet<Long>> usedIds = HashBasedTable.create();
+
+    @Inject
+    public OBOIdAllocationIndex(@Nonnull ProjectSignatureIndex projectSignatureIndex,
+                                @Nonnull EntitiesInProjectSignatureByIriIndex entitiesInProjectSignatureByIriIndex) {
+        this.projectSignatureIndex = checkNotNull(projectSignatureIndex);
+        this.entitiesInProjectSignatureByIriIndex = checkNotNull(entitiesInProjectSignatureByIriIndex);
+    }
+
+    /**
+     * Gets the smallest id, that is greater than or equal to the specified id, that is not used in the
+     * project signature.
+     * @param iriPrefix The IRI prefix of the ids
+     * @param totalDigits The total number of digits that ids are padded to
+     * @param from The id to start from
+     */
+    public synchronized long getNextFreeId(@Nonnull String iriPrefix, int totalDigits, long from) {
+        checkNotNull(iriPrefix);
+        checkArgument(from >= 0, "from must not be negative");
+        var usedIdsForPrefix = getUsedIds(iriPrefix, totalDigits);
+        var usedRange = usedIdsForPrefix.rangeContaining(from);
+        if(usedRange == null) {
+            return from;
+        }
+        // Connected ranges are coalesced, so the end of the range is free
+        return usedRange.upperEndpoint();
+    }
+
+    /**
+     * Marks the specified id as being used.  This is used to correct the index if an id turns out to
+     * be used when it is allocated.
+     */
+    public synchronized void markUsed(@Nonnull String iriPrefix, int totalDigits, long id) {
+        getUsedIds(iriPrefix, totalDigits).add(Range.closedOpen(id, id + 1));
+    }
+
+    /**
+     * Updates the used ids for the entities in the signature of the specified changes.  This must be called
+     * after the project signature indexes have been updated.
+     */
+    public synchronized void handleChanges(@Nonnull List<OWLOntologyChange> changes) {
+        if(usedIds.isEmpty()) {
+            return;
+        }
+        var changedIris = new HashSet<IRI>();
+        for(var change : changes) {
+            for(var entity : change.getSignature()) {
+                changedIris.add(entity.getIRI());
+            }
+        }
+        for(var cell : usedIds.cellSet()) {
+            var iriPrefix = cell.getRowKey();
+            var totalDigits = cell.getColumnKey();
+            var usedIdsForPrefix = cell.getValue();
+            for(var iri : changedIris) {
+                parseId(iri.toString(), iriPrefix, totalDigits).ifPresent(id -> {
+                    var idRange = Range.closedOpen(id, id + 1);
+                    if(isInProjectSignature(iri)) {
+                        usedIdsForPrefix.add(idRange);
+                    }
+                    else {
+                        usedIdsForPrefix.remove(idRange);
+                    }
+                });
+            }
+        }
+    }
+
+    private boolean isInProjectSignature(IRI iri) {
+        return entitiesInProjectSignatureByIriIndex.getEntityInSignature(iri).findAny().isPresent();
+    }
+
+    private RangeSet<Long> getUsedIds(String iriPrefix, int totalDigits) {
+        var usedIdsForPrefix = usedIds.get(iriPrefix, totalDigits);
+        if(usedIdsForPrefix == null) {
+            usedIdsForPrefix = buildUsedIds(iriPrefix, totalDigits);
+            usedIds.put(iriPrefix, totalDigits, usedIdsForPrefix);
+        }
+        return usedIdsForPrefix;
+    }
+
+    private RangeSet<Long> buildUsedIds(String iriPrefix, int totalDigits) {
+        var stopwatch = Stopwatch.createStarted();
+        RangeSet<Long> usedIdsForPrefix = TreeRangeSet.create();
+        projectSignatureIndex.getSignature()
+                             .map(OWLEntity::getIRI)
+                             .map(IRI::toString)
+                             .forEach(iri -> parseId(iri, iriPrefix, totalDigits)
+                                     .ifPresent(id -> usedIdsForPrefix.add(Range.closedOpen(id, id + 1))));
+        logger.info("Built OBO Id allocation index for {} in {} ms ({} intervals)",
+                    iriPrefix,
+                    stopwatch.elapsed().toMillis(),
+                    usedIdsForPrefix.asRanges().size());
+        return usedIdsForPrefix;
+    }
+
+    /**
+     * Parses the numeric id from the specified IRI.  The suffix of the IRI must be the id formatted with
+     * the specified number of digits, otherwise the IRI could not have been generated from the id.
+     */
+    @Nonnull
+    static OptionalLong parseId(@Nonnull String iri, @Nonnull String iriPrefix, int totalDigits) {
+        if(!iri.startsWith(iriPrefix)) {
+            return OptionalLong.empty();
+        }
+        var suffixLength = iri.length() - iriPrefix.length();
+        if(suffixLength == 0 || suffixLength > MAX_SUFFIX_LENGTH || suffixLength < totalDigits) {
+            return OptionalLong.empty();
+        }
+        if(suffixLength > totalDigits && iri.charAt(iriPrefix.length()) == '0') {
+            // Not zero padded to the total digits
+            return OptionalLong.empty();
+        }
+        for(int i = iriPrefix.length(); i < iri.length(); i++) {
+            var c = iri.charAt(i);
+            if(c < '0' || c > '9') {
+                return OptionalLong.empty();
+            }
+        }
+        return OptionalLong.of(Long.parseLong(iri.substring(iriPrefix.length())));
+    }
+}
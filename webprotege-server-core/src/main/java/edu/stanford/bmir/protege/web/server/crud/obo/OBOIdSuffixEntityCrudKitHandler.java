@@ -2,6 +2,7 @@ package edu.stanford.bmir.protege.web.server.crud.obo;
 
 import com.google.auto.factory.AutoFactory;
 import com.google.auto.factory.Provided;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import edu.stanford.bmir.protege.web.server.change.OntologyChangeFactory;
@@ -21,8 +22,6 @@ import edu.stanford.bmir.protege.web.shared.user.UserId;
 import org.semanticweb.owlapi.model.*;
 
 import javax.annotation.Nonnull;
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -64,17 +63,22 @@ public class OBOIdSuffixEntityCrudKitHandler implements EntityCrudKitHandler<OBO
     @Nonnull
     private final EntitiesInProjectSignatureByIriIndex projectSignatureIndex;
 
+    @Nonnull
+    private final OBOIdAllocationIndex idAllocationIndex;
+
     @AutoFactory
     public OBOIdSuffixEntityCrudKitHandler(@Nonnull EntityCrudKitPrefixSettings prefixSettings,
                                            @Nonnull OBOIdSuffixSettings suffixSettings,
                                            @Provided @Nonnull OWLDataFactory dataFactory,
                                            @Provided @Nonnull OntologyChangeFactory changeFactory,
-                                           @Provided @Nonnull EntitiesInProjectSignatureByIriIndex projectSignatureIndex) {
+                                           @Provided @Nonnull EntitiesInProjectSignatureByIriIndex projectSignatureIndex,
+                                           @Provided @Nonnull OBOIdAllocationIndex idAllocationIndex) {
         this.prefixSettings = checkNotNull(prefixSettings);
         this.suffixSettings = checkNotNull(suffixSettings);
         this.dataFactory = dataFactory;
         this.changeFactory = changeFactory;
         this.projectSignatureIndex = projectSignatureIndex;
+        this.idAllocationIndex = idAllocationIndex;
 
         ImmutableMap.Builder<UserId, UserIdRange> builder = ImmutableMap.builder();
         for(UserIdRange range : suffixSettings.getUserIdRanges()) {
@@ -144,26 +148,28 @@ public class OBOIdSuffixEntityCrudKitHandler implements EntityCrudKitHandler<OBO
 
 
     private synchronized IRI getNextIRI(OBOIdSession session, UserId userId) {
-        StringBuilder formatStringBuilder = new StringBuilder();
-        for (int i = 0; i < suffixSettings.getTotalDigits(); i++) {
-            formatStringBuilder.append("0");
-        }
-        NumberFormat numberFormat = new DecimalFormat(formatStringBuilder.toString());
+        var iriPrefix = prefixSettings.getIRIPrefix();
+        var totalDigits = suffixSettings.getTotalDigits();
         long currentId = getCurrentId(userId);
         while (true) {
-            currentId++;
+            currentId = idAllocationIndex.getNextFreeId(iriPrefix, totalDigits, currentId + 1);
             if(!session.isSessionId(currentId)) {
-                String shortName = numberFormat.format(currentId);
-                IRI iri = IRI.create(prefixSettings.getIRIPrefix() + shortName);
+                IRI iri = IRI.create(iriPrefix + formatId(currentId, totalDigits));
                 if (projectSignatureIndex.getEntityInSignature(iri).limit(1).count() == 0) {
                     session.addSessionId(currentId);
                     setCurrentId(userId, currentId);
                     return iri;
                 }
+                // The allocation index is out of date.  Correct it and carry on.
+                idAllocationIndex.markUsed(iriPrefix, totalDigits, currentId);
             }
         }
     }
 
+    private static String formatId(long id, int totalDigits) {
+        return Strings.padStart(Long.toString(id), totalDigits, '0');
+    }
+
     private long getCurrentId(UserId userId) {
         Long currentIdForUser = userId2CurrentIdMap.get(userId);
         return Objects.requireNonNullElse(currentIdForUser, currentId);
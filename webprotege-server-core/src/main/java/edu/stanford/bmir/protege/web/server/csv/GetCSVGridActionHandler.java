@@ -57,17 +57,16 @@ public class GetCSVGridActionHandler implements ApplicationActionHandler<GetCSVG
 
     }
 
+    /**
+     * Reads a sample of rows for previewing the file.  Rows beyond the limit are not read.
+     */
     private CSVGrid getCSVGrid(File file, int rowLimit) {
-        CSVGrid grid;
-        try {
-            Reader fileReader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "utf-8"));
+        try (Reader fileReader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "utf-8"))) {
             CSVGridParser gridParser = new CSVGridParser();
-            grid = gridParser.readToLimit(fileReader, rowLimit);
-            fileReader.close();
+            return gridParser.readToLimit(fileReader, rowLimit);
         }
         catch (IOException e) {
             throw new RuntimeException(e);
         }
-        return grid;
     }
 }
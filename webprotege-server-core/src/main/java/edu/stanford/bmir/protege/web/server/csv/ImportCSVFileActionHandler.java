@@ -1,28 +1,34 @@
 package edu.stanford.bmir.protege.web.server.csv;
 
 import com.google.common.base.Charsets;
+import com.google.common.base.Stopwatch;
 import edu.stanford.bmir.protege.web.server.access.AccessManager;
-import edu.stanford.bmir.protege.web.server.change.ChangeApplicationResult;
-import edu.stanford.bmir.protege.web.server.change.ChangeListGenerator;
 import edu.stanford.bmir.protege.web.server.change.HasApplyChanges;
-import edu.stanford.bmir.protege.web.server.dispatch.AbstractProjectChangeHandler;
+import edu.stanford.bmir.protege.web.server.dispatch.AbstractProjectActionHandler;
 import edu.stanford.bmir.protege.web.server.dispatch.ExecutionContext;
-import edu.stanford.bmir.protege.web.server.events.EventManager;
 import edu.stanford.bmir.protege.web.server.inject.UploadsDirectory;
 import edu.stanford.bmir.protege.web.shared.access.BuiltInAction;
 import edu.stanford.bmir.protege.web.shared.csv.CSVGrid;
-import edu.stanford.bmir.protege.web.shared.csv.CSVImportDescriptor;
+import edu.stanford.bmir.protege.web.shared.csv.CSVRow;
 import edu.stanford.bmir.protege.web.shared.csv.ImportCSVFileAction;
 import edu.stanford.bmir.protege.web.shared.csv.ImportCSVFileResult;
 import edu.stanford.bmir.protege.web.shared.event.EventList;
 import edu.stanford.bmir.protege.web.shared.event.EventTag;
-import edu.stanford.bmir.protege.web.shared.event.ProjectEvent;
-import org.semanticweb.owlapi.model.OWLClass;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.semanticweb.owlapi.model.IRI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
 import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import static com.google.common.base.Preconditions.checkNotNull;
 import static edu.stanford.bmir.protege.web.shared.access.BuiltInAction.EDIT_ONTOLOGY;
 import static java.util.Collections.singletonList;
 
@@ -31,8 +37,21 @@ import static java.util.Collections.singletonList;
  * Stanford University<br>
  * Bio-Medical Informatics Research Group<br>
  * Date: 31/05/2013
+ * <p>
+ * Imports a CSV file into a project.  The file is streamed rather than being read into memory in one go.  Rows
+ * are imported in chunks, and the changes for each chunk are applied as a separate revision.  This bounds the
+ * size of the change lists that are generated, and it means that the project is not locked for the whole import.
+ * If a chunk cannot be imported then the chunks that were imported before it remain in the project.
+ * </p>
  */
-public class ImportCSVFileActionHandler extends AbstractProjectChangeHandler<Integer,ImportCSVFileAction, ImportCSVFileResult> {
+public class ImportCSVFileActionHandler extends AbstractProjectActionHandler<ImportCSVFileAction, ImportCSVFileResult> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportCSVFileActionHandler.class);
+
+    private static final int CHUNK_SIZE = 2_000;
+
+    @Nonnull
+    private final HasApplyChanges applyChanges;
 
     @Nonnull
     private final File uploadsDirectory;
@@ -42,13 +61,13 @@ public class ImportCSVFileActionHandler extends AbstractProjectChangeHandler<Int
 
     @Inject
     public ImportCSVFileActionHandler(@Nonnull AccessManager accessManager,
-                                      @Nonnull EventManager<ProjectEvent<?>> eventManager,
                                       @Nonnull HasApplyChanges applyChanges,
                                       @Nonnull @UploadsDirectory File uploadsDirectory,
                                       @Nonnull ImportCSVFileChangeListGeneratorFactory factory) {
-        super(accessManager, eventManager, applyChanges);
-        this.uploadsDirectory = uploadsDirectory;
-        this.factory = factory;
+        super(accessManager);
+        this.applyChanges = checkNotNull(applyChanges);
+        this.uploadsDirectory = checkNotNull(uploadsDirectory);
+        this.factory = checkNotNull(factory);
     }
 
     @Nonnull
@@ -57,38 +76,20 @@ public class ImportCSVFileActionHandler extends AbstractProjectChangeHandler<Int
         return ImportCSVFileAction.class;
     }
 
+    @Nonnull
     @Override
-    protected ChangeListGenerator<Integer> getChangeListGenerator(ImportCSVFileAction action,
-                                                                  ExecutionContext executionContext) {
-        CSVGrid csvGrid = parseCSVGrid(action);
-        var rootClass = action.getImportRootClass();
-        var csvImportDescriptor = action.getDescriptor();
-        return factory.create(rootClass,
-                              csvGrid,
-                              csvImportDescriptor);
-    }
-
-    private CSVGrid parseCSVGrid(ImportCSVFileAction action) {
-        try {
-            CSVGridParser parser = new CSVGridParser();
-            final File file = new File(uploadsDirectory, action.getDocumentId().getDocumentId());
-            final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file),
-                                                                                   Charsets.UTF_8));
-            CSVGrid grid = parser.readAll(reader);
-            reader.close();
-            return grid;
+    public ImportCSVFileResult execute(@Nonnull ImportCSVFileAction action,
+                                       @Nonnull ExecutionContext executionContext) {
+        var importer = new ChunkedImporter(action, executionContext.getUserId());
+        var file = new File(uploadsDirectory, action.getDocumentId().getDocumentId());
+        try (var reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), Charsets.UTF_8))) {
+            new CSVGridParser().readRows(reader, importer::handleRow);
+            importer.importChunk();
         }
         catch (IOException e) {
             throw new RuntimeException(e);
         }
-    }
-
-    @Override
-    protected ImportCSVFileResult createActionResult(ChangeApplicationResult<Integer> changeApplicationResult,
-                                                     ImportCSVFileAction action,
-                                                     ExecutionContext executionContext,
-                                                     EventList<ProjectEvent<?>> eventList) {
-        return new ImportCSVFileResult(new EventList<>(EventTag.get(0), EventTag.get(1)), changeApplicationResult.getSubject());
+        return new ImportCSVFileResult(new EventList<>(EventTag.get(0), EventTag.get(1)), importer.importedRowCount);
     }
 
     @Nonnull
@@ -96,4 +97,64 @@ public class ImportCSVFileActionHandler extends AbstractProjectChangeHandler<Int
     protected Iterable<BuiltInAction> getRequiredExecutableBuiltInActions() {
         return singletonList(EDIT_ONTOLOGY);
     }
+
+    /**
+     * Collects rows into chunks and imports each chunk when it is full.
+     */
+    private class ChunkedImporter {
+
+        private final ImportCSVFileAction action;
+
+        private final UserId userId;
+
+        private final List<CSVRow> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        /**
+         * The IRIs of entities that have been created by importing earlier chunks.  These are used so that a
+         * name that appears in several chunks only gives rise to one entity.
+         */
+        private final Map<IRI, IRI> importedEntityIris = new HashMap<>();
+
+        private final Stopwatch stopwatch = Stopwatch.createStarted();
+
+        private int importedRowCount = 0;
+
+        private int chunkCount = 0;
+
+        private ChunkedImporter(ImportCSVFileAction action, UserId userId) {
+            this.action = action;
+            this.userId = userId;
+        }
+
+        private void handleRow(CSVRow row) {
+            chunk.add(row);
+            if(chunk.size() == CHUNK_SIZE) {
+                importChunk();
+            }
+        }
+
+        private void importChunk() {
+            if(chunk.isEmpty()) {
+                return;
+            }
+            var gridBuilder = CSVGrid.builder();
+            chunk.forEach(gridBuilder::addRow);
+            var generator = factory.create(action.getImportRootClass(),
+                                           gridBuilder.build(),
+                                           action.getDescriptor(),
+                                           importedEntityIris);
+            var result = applyChanges.applyChanges(userId, generator);
+            generator.getFreshEntities()
+                     .forEach(freshEntity -> importedEntityIris.put(freshEntity.getIRI(),
+                                                                    result.getRenamedEntity(freshEntity).getIRI()));
+            importedRowCount += result.getSubject();
+            chunkCount++;
+            chunk.clear();
+            logger.info("{} Imported {} rows from CSV file in {} revisions ({} ms)",
+                        action.getProjectId(),
+                        importedRowCount,
+                        chunkCount,
+                        stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        }
+    }
 }
@@ -11,7 +11,10 @@ import org.semanticweb.owlapi.model.*;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.semanticweb.owlapi.model.EntityType.CLASS;
@@ -44,12 +47,23 @@ public class ImportCSVFileChangeListGenerator implements ChangeListGenerator<Int
     @Nonnull
     private final DefaultOntologyIdManager defaultOntologyIdManager;
 
+    @Nonnull
+    private final Map<IRI, IRI> importedEntityIris;
+
+    private final Set<OWLEntity> freshEntities = new HashSet<>();
+
 
+    /**
+     * @param importedEntityIris A map from fresh entity IRIs to the IRIs of entities that were created when
+     *                           earlier rows of the same CSV file were imported.  Rows that refer to these entities
+     *                           use the existing entities rather than creating fresh entities.
+     */
     @AutoFactory
     @Inject
     public ImportCSVFileChangeListGenerator(@Nonnull OWLClass importRootClass,
                                             @Nonnull CSVGrid csvGrid,
                                             @Nonnull CSVImportDescriptor descriptor,
+                                            @Nonnull Map<IRI, IRI> importedEntityIris,
                                             @Provided @Nonnull OWLDataFactory dataFactory,
                                             @Provided @Nonnull OntologyChangeFactory changeFactory,
                                             @Provided @Nonnull DefaultOntologyIdManager defaultOntologyIdManager) {
@@ -59,10 +73,20 @@ public class ImportCSVFileChangeListGenerator implements ChangeListGenerator<Int
         this.dataFactory = checkNotNull(dataFactory);
         this.changeFactory = changeFactory;
         this.defaultOntologyIdManager = defaultOntologyIdManager;
+        this.importedEntityIris = checkNotNull(importedEntityIris);
+    }
+
+    /**
+     * Gets the fresh entities that are referred to by the most recently generated changes
+     */
+    @Nonnull
+    public Set<OWLEntity> getFreshEntities() {
+        return new HashSet<>(freshEntities);
     }
 
     @Override
     public OntologyChangeList<Integer> generateChanges(ChangeGenerationContext context) {
+        freshEntities.clear();
         var rootOntology = defaultOntologyIdManager.getDefaultOntologyId();
         OntologyChangeList.Builder<Integer> changesBuilder = new OntologyChangeList.Builder<>();
         for (CSVRow row : csvGrid.getRows()) {
@@ -97,9 +121,12 @@ public class ImportCSVFileChangeListGenerator implements ChangeListGenerator<Int
                             OWLAnnotationProperty property = (OWLAnnotationProperty) columnDescriptor.getColumnProperty();
                             final Optional<? extends OWLAnnotationValue> annotationValue = getColumnValueAsAnnotationValue(value, columnType);
                             if (annotationValue.isPresent()) {
-                                final IRI rowIRI = DataFactory.getFreshOWLEntityIRI(displayName);
+                                final IRI rowIRI = getRowEntity(displayName).getIRI();
                                 var addAxiom = changeFactory.createAddAxiom(rootOntology, dataFactory.getOWLAnnotationAssertionAxiom(property, rowIRI, annotationValue.get()));
                                 changesBuilder.add(addAxiom);
+                                if (annotationValue.get() instanceof IRI) {
+                                    addDeclarationIfFresh((IRI) annotationValue.get(), columnType, rootOntology, changesBuilder);
+                                }
                             }
                         }
                     }
@@ -115,25 +142,65 @@ public class ImportCSVFileChangeListGenerator implements ChangeListGenerator<Int
     private OWLAxiom getPlacementAxiom(String displayName) {
         OWLAxiom placementAxiom;
         if(descriptor.getRowImportType() == CSVRowImportType.CLASS) {
-            placementAxiom = dataFactory.getOWLSubClassOfAxiom(DataFactory.getFreshOWLEntity(CLASS, displayName, Optional.empty()), importRootClass);
+            placementAxiom = dataFactory.getOWLSubClassOfAxiom(getEntity(CLASS, displayName), importRootClass);
         }
         else {
-            placementAxiom = dataFactory.getOWLClassAssertionAxiom(importRootClass, DataFactory.getFreshOWLEntity(EntityType.NAMED_INDIVIDUAL, displayName, Optional.empty()));
+            placementAxiom = dataFactory.getOWLClassAssertionAxiom(importRootClass, getEntity(EntityType.NAMED_INDIVIDUAL, displayName));
         }
         return placementAxiom;
     }
 
+    /**
+     * Gets the entity with the specified name.  This is an entity that was created by an earlier import of rows
+     * from the same file, or otherwise a fresh entity.
+     */
+    private <E extends OWLEntity> E getEntity(EntityType<E> entityType, String name) {
+        IRI freshIri = DataFactory.getFreshOWLEntityIRI(name);
+        IRI importedIri = importedEntityIris.get(freshIri);
+        if(importedIri != null) {
+            return dataFactory.getOWLEntity(entityType, importedIri);
+        }
+        E freshEntity = DataFactory.getFreshOWLEntity(entityType, name, Optional.empty());
+        freshEntities.add(freshEntity);
+        return freshEntity;
+    }
+
+    private OWLEntity getRowEntity(String displayName) {
+        if(descriptor.getRowImportType() == CSVRowImportType.CLASS) {
+            return getEntity(CLASS, displayName);
+        }
+        else {
+            return getEntity(EntityType.NAMED_INDIVIDUAL, displayName);
+        }
+    }
+
+    /**
+     * Entities that are only referred to by annotation values are not in the signature of the changes, so they
+     * are declared.  Otherwise IRIs would not be minted for them, and later imports from the same file would
+     * not be able to refer to them.
+     */
+    private void addDeclarationIfFresh(IRI iri,
+                                       ColumnType columnType,
+                                       OWLOntologyID rootOntology,
+                                       OntologyChangeList.Builder<Integer> changesBuilder) {
+        var entityType = columnType == ColumnType.CLASS ? CLASS : EntityType.NAMED_INDIVIDUAL;
+        var entity = dataFactory.getOWLEntity(entityType, iri);
+        if(DataFactory.isFreshEntity(entity)) {
+            changesBuilder.add(changeFactory.createAddAxiom(rootOntology, dataFactory.getOWLDeclarationAxiom(entity)));
+        }
+    }
+
     private Optional<OWLClassExpression> getColumnValueAsClassExpression(String value, OWLObjectProperty columnProperty, ColumnType columnType) {
         if(value.trim().isEmpty()) {
             return Optional.empty();
         }
         OWLClassExpression superCls;
         if (columnType == ColumnType.CLASS) {
-            final OWLClass filler = DataFactory.getFreshOWLEntity(CLASS, value, Optional.empty());
+            final OWLClass filler = getEntity(CLASS, value);
             superCls = dataFactory.getOWLObjectSomeValuesFrom(columnProperty, filler);
         }
         else if (columnType == ColumnType.NAMED_INDIVIDUAL) {
-            final OWLNamedIndividual filler = DataFactory.getFreshOWLEntity(EntityType.NAMED_INDIVIDUAL, value, Optional.empty());
+            final OWLNamedIndividual filler = getEntity(EntityType.NAMED_INDIVIDUAL, value);
             superCls = dataFactory.getOWLObjectHasValue(columnProperty, filler);
         }
         else {
@@ -145,10 +212,10 @@ public class ImportCSVFileChangeListGenerator implements ChangeListGenerator<Int
     private Optional<? extends OWLAnnotationValue> getColumnValueAsAnnotationValue(String value, ColumnType columnType) {
         Optional<? extends OWLAnnotationValue> annotationValue;
         if (columnType == ColumnType.CLASS) {
-            annotationValue = Optional.of(DataFactory.getFreshOWLEntityIRI(value));
+            annotationValue = Optional.of(getEntity(CLASS, value).getIRI());
         }
         else if (columnType == ColumnType.NAMED_INDIVIDUAL) {
-            annotationValue = Optional.of(DataFactory.getFreshOWLEntityIRI(value));
+            annotationValue = Optional.of(getEntity(EntityType.NAMED_INDIVIDUAL, value).getIRI());
         }
         else {
             annotationValue = getColumnValueAsLiteral(value, columnType);
@@ -181,11 +248,11 @@ public class ImportCSVFileChangeListGenerator implements ChangeListGenerator<Int
 
     private OWLAxiom getAxiom(String rowEntityDisplayName, CSVColumnDescriptor columnDescriptor, OWLClassExpression superCls) {
         if (descriptor.getRowImportType() == CSVRowImportType.CLASS) {
-            OWLClass rowCls = DataFactory.getFreshOWLEntity(CLASS, rowEntityDisplayName, Optional.empty());
+            OWLClass rowCls = getEntity(CLASS, rowEntityDisplayName);
             return dataFactory.getOWLSubClassOfAxiom(rowCls, superCls);
         }
         else {
-            OWLNamedIndividual rowInd = DataFactory.getFreshOWLEntity(EntityType.NAMED_INDIVIDUAL, rowEntityDisplayName, Optional.empty());
+            OWLNamedIndividual rowInd = getEntity(EntityType.NAMED_INDIVIDUAL, rowEntityDisplayName);
             return dataFactory.getOWLClassAssertionAxiom(superCls, rowInd);
         }
     }
@@ -36,4 +36,14 @@ public interface ActionHandler<A extends Action<R>, R extends Result> {
     @Nonnull
     R execute(@Nonnull A action, @Nonnull ExecutionContext executionContext);
 
+    /**
+     * Determines whether this handler only reads state.  Actions that are handled by read-only handlers do not
+     * modify projects, settings or any other server side state, and do not depend upon the order in which they
+     * are executed relative to other read-only actions.  Read-only actions in a batch may be executed
+     * concurrently.
+     * @return true if this handler is read-only, otherwise false.  By default, handlers are not read-only.
+     */
+    default boolean isReadOnly() {
+        return false;
+    }
 }
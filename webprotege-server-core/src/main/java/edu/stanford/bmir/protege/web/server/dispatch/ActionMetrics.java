@@ -0,0 +1,114 @@
+package edu.stanford.bmir.protege.web.server.dispatch;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for the actions that have been executed for a single action type or a single project.  Durations
+ * are recorded in a histogram with fixed buckets.  Counters are {@link LongAdder}s so that recording is cheap
+ * and does not contend when many actions complete at the same time.
+ */
+class ActionMetrics {
+
+    /**
+     * The upper bounds, in seconds, of the duration histogram buckets.  There is an implicit last bucket that
+     * has no upper bound.
+     */
+    static final double[] DURATION_BUCKET_BOUNDS_SECONDS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private static final long[] DURATION_BUCKET_BOUNDS_NANOS = new long[DURATION_BUCKET_BOUNDS_SECONDS.length];
+
+    static {
+        for(int i = 0; i < DURATION_BUCKET_BOUNDS_SECONDS.length; i++) {
+            DURATION_BUCKET_BOUNDS_NANOS[i] = (long) (DURATION_BUCKET_BOUNDS_SECONDS[i] * TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    private final LongAdder callCount = new LongAdder();
+
+    private final LongAdder errorCount = new LongAdder();
+
+    private final LongAdder totalDurationNanos = new LongAdder();
+
+    private final AtomicLong maxDurationNanos = new AtomicLong();
+
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    private final LongAdder lockWaitNanos = new LongAdder();
+
+    /**
+     * Non-cumulative bucket counts.  The last bucket counts durations greater than the largest bound.
+     */
+    private final LongAdder[] durationBuckets = new LongAdder[DURATION_BUCKET_BOUNDS_NANOS.length + 1];
+
+    ActionMetrics() {
+        for(int i = 0; i < durationBuckets.length; i++) {
+            durationBuckets[i] = new LongAdder();
+        }
+    }
+
+    void record(long durationNanos, long allocatedBytes, boolean failed) {
+        callCount.increment();
+        if(failed) {
+            errorCount.increment();
+        }
+        totalDurationNanos.add(durationNanos);
+        if(durationNanos > maxDurationNanos.get()) {
+            maxDurationNanos.accumulateAndGet(durationNanos, Math::max);
+        }
+        this.allocatedBytes.add(allocatedBytes);
+        durationBuckets[getBucketIndex(durationNanos)].increment();
+    }
+
+    void recordLockWait(long waitNanos) {
+        lockWaitNanos.add(waitNanos);
+    }
+
+    private static int getBucketIndex(long durationNanos) {
+        for(int i = 0; i < DURATION_BUCKET_BOUNDS_NANOS.length; i++) {
+            if(durationNanos <= DURATION_BUCKET_BOUNDS_NANOS[i]) {
+                return i;
+            }
+        }
+        return DURATION_BUCKET_BOUNDS_NANOS.length;
+    }
+
+    long getCallCount() {
+        return callCount.sum();
+    }
+
+    long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    long getTotalDurationNanos() {
+        return totalDurationNanos.sum();
+    }
+
+    long getMaxDurationNanos() {
+        return maxDurationNanos.get();
+    }
+
+    long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    long getLockWaitNanos() {
+        return lockWaitNanos.sum();
+    }
+
+    /**
+     * Gets the cumulative bucket counts.  Element i is the number of durations that are less than or equal to
+     * bound i.  The last element is the total number of durations.
+     */
+    long[] getCumulativeDurationBucketCounts() {
+        var counts = new long[durationBuckets.length];
+        var total = 0L;
+        for(int i = 0; i < durationBuckets.length; i++) {
+            total += durationBuckets[i].sum();
+            counts[i] = total;
+        }
+        return counts;
+    }
+}
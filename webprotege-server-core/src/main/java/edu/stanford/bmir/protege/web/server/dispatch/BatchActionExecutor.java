@@ -0,0 +1,14 @@
+package edu.stanford.bmir.protege.web.server.dispatch;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Qualifies the executor that is used to execute the read-only actions in a batch concurrently.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface BatchActionExecutor {
+
+}
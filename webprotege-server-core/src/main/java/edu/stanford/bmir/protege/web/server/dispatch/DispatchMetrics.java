@@ -0,0 +1,139 @@
+package edu.stanford.bmir.protege.web.server.dispatch;
+
+import com.google.common.collect.ImmutableMap;
+import edu.stanford.bmir.protege.web.server.project.chg.ProjectLockMetrics;
+import edu.stanford.bmir.protege.web.shared.inject.ApplicationSingleton;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Records the latency, throughput, errors and allocation of the actions that are executed by the dispatch
+ * layer, both by action type and by project.  The time that project actions spend waiting for the project
+ * change locks is also recorded by project.  Metrics are only recorded for projects that are loaded.
+ */
+@ApplicationSingleton
+public class DispatchMetrics implements ProjectLockMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(DispatchMetrics.class);
+
+    private static final long ALLOCATION_NOT_SUPPORTED = -1;
+
+    private final ConcurrentHashMap<String, ActionMetrics> metricsByActionType = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<ProjectId, ActionMetrics> metricsByProject = new ConcurrentHashMap<>();
+
+    @Nonnull
+    private final AllocationCounter allocationCounter;
+
+    @Inject
+    public DispatchMetrics() {
+        this(createAllocationCounter());
+    }
+
+    DispatchMetrics(@Nonnull AllocationCounter allocationCounter) {
+        this.allocationCounter = checkNotNull(allocationCounter);
+    }
+
+    /**
+     * Gets the number of bytes that have been allocated by the current thread, or -1 if this is not supported
+     * by the JVM.  The difference between two readings on the same thread is the allocation in between them.
+     */
+    public long getCurrentThreadAllocatedBytes() {
+        return allocationCounter.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Records the execution of an action.
+     * @param actionType The action type.  This is the simple name of the action class.
+     * @param projectId The project that the action was executed against, or {@code null} if the action is
+     *                  not a project action.
+     * @param durationNanos The time that it took to execute the action.
+     * @param allocatedBytesBefore The allocated bytes for the executing thread before the action was executed.
+     * @param allocatedBytesAfter The allocated bytes for the executing thread after the action was executed.
+     * @param failed true if the action failed with an exception, otherwise false.
+     */
+    public void recordAction(@Nonnull String actionType,
+                             @Nullable ProjectId projectId,
+                             long durationNanos,
+                             long allocatedBytesBefore,
+                             long allocatedBytesAfter,
+                             boolean failed) {
+        var allocatedBytes = allocatedBytesBefore == ALLOCATION_NOT_SUPPORTED
+                ? 0
+                : Math.max(0, allocatedBytesAfter - allocatedBytesBefore);
+        metricsByActionType.computeIfAbsent(actionType, t -> new ActionMetrics())
+                           .record(durationNanos, allocatedBytes, failed);
+        if(projectId != null) {
+            var projectMetrics = metricsByProject.get(projectId);
+            if(projectMetrics != null) {
+                projectMetrics.record(durationNanos, allocatedBytes, failed);
+            }
+        }
+    }
+
+    /**
+     * Records the time spent waiting to acquire a project lock.  The wait is ignored if the project is not loaded.
+     */
+    @Override
+    public void recordLockWait(@Nonnull ProjectId projectId, long waitNanos) {
+        var projectMetrics = metricsByProject.get(projectId);
+        if(projectMetrics != null) {
+            projectMetrics.recordLockWait(waitNanos);
+        }
+    }
+
+    /**
+     * Starts recording metrics for a project.  This should be called when a project is loaded.
+     */
+    public void addProjectMetrics(@Nonnull ProjectId projectId) {
+        metricsByProject.putIfAbsent(checkNotNull(projectId), new ActionMetrics());
+    }
+
+    /**
+     * Removes the metrics for a project.  This should be called when a project is unloaded so that metrics do
+     * not accumulate for projects that are no longer in use.
+     */
+    public void removeProjectMetrics(@Nonnull ProjectId projectId) {
+        metricsByProject.remove(projectId);
+    }
+
+    @Nonnull
+    ImmutableMap<String, ActionMetrics> getMetricsByActionType() {
+        return ImmutableMap.copyOf(metricsByActionType);
+    }
+
+    @Nonnull
+    ImmutableMap<ProjectId, ActionMetrics> getMetricsByProject() {
+        return ImmutableMap.copyOf(metricsByProject);
+    }
+
+    @Nonnull
+    private static AllocationCounter createAllocationCounter() {
+        var threadMXBean = ManagementFactory.getThreadMXBean();
+        if(threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            var sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if(sunThreadMXBean.isThreadAllocatedMemorySupported()) {
+                if(!sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+                    sunThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+                }
+                return () -> sunThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        logger.info("Thread allocated memory measurement is not supported.  Action allocations will not be recorded.");
+        return () -> ALLOCATION_NOT_SUPPORTED;
+    }
+
+    interface AllocationCounter {
+
+        long getCurrentThreadAllocatedBytes();
+    }
+}
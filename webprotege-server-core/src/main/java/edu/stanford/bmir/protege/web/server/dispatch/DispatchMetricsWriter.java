@@ -0,0 +1,132 @@
+package edu.stanford.bmir.protege.web.server.dispatch;
+
+import com.google.common.collect.ImmutableMap;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Writes {@link DispatchMetrics} in the Prometheus text exposition format.
+ */
+public class DispatchMetricsWriter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Nonnull
+    private final DispatchMetrics dispatchMetrics;
+
+    @Inject
+    public DispatchMetricsWriter(@Nonnull DispatchMetrics dispatchMetrics) {
+        this.dispatchMetrics = checkNotNull(dispatchMetrics);
+    }
+
+    public void write(@Nonnull Writer writer) throws IOException {
+        var byActionType = dispatchMetrics.getMetricsByActionType();
+        writeMetrics(writer, "webprotege_action", "action", byActionType);
+        var byProject = dispatchMetrics.getMetricsByProject();
+        var byProjectId = ImmutableMap.<String, ActionMetrics>builder();
+        byProject.forEach((projectId, metrics) -> byProjectId.put(projectId.getId(), metrics));
+        var projectMetrics = byProjectId.build();
+        writeMetrics(writer, "webprotege_project_action", "project", projectMetrics);
+        writeHeader(writer, "webprotege_project_lock_wait_seconds_total",
+                    "counter",
+                    "Time spent waiting to acquire project change locks");
+        for(var entry : projectMetrics.entrySet()) {
+            writeSample(writer,
+                        "webprotege_project_lock_wait_seconds_total",
+                        label("project", entry.getKey()),
+                        toSeconds(entry.getValue().getLockWaitNanos()));
+        }
+        writer.flush();
+    }
+
+    private static void writeMetrics(@Nonnull Writer writer,
+                                     @Nonnull String prefix,
+                                     @Nonnull String labelName,
+                                     @Nonnull Map<String, ActionMetrics> metrics) throws IOException {
+        var durationName = prefix + "_duration_seconds";
+        writeHeader(writer, durationName, "histogram", "Action execution time");
+        for(var entry : metrics.entrySet()) {
+            var labels = label(labelName, entry.getKey());
+            var bucketCounts = entry.getValue().getCumulativeDurationBucketCounts();
+            var bounds = ActionMetrics.DURATION_BUCKET_BOUNDS_SECONDS;
+            for(int i = 0; i < bounds.length; i++) {
+                writeSample(writer,
+                            durationName + "_bucket",
+                            labels + "," + label("le", Double.toString(bounds[i])),
+                            bucketCounts[i]);
+            }
+            writeSample(writer, durationName + "_bucket", labels + "," + label("le", "+Inf"), bucketCounts[bounds.length]);
+            writeSample(writer, durationName + "_sum", labels, toSeconds(entry.getValue().getTotalDurationNanos()));
+            writeSample(writer, durationName + "_count", labels, entry.getValue().getCallCount());
+        }
+        writeMaxDurations(writer, prefix + "_duration_seconds_max", labelName, metrics);
+        writeCounters(writer, prefix + "_errors_total", "Actions that failed with an error", labelName, metrics, ActionMetrics::getErrorCount);
+        writeCounters(writer, prefix + "_allocated_bytes_total", "Bytes allocated by executing threads", labelName, metrics, ActionMetrics::getAllocatedBytes);
+    }
+
+    private static void writeMaxDurations(@Nonnull Writer writer,
+                                          @Nonnull String name,
+                                          @Nonnull String labelName,
+                                          @Nonnull Map<String, ActionMetrics> metrics) throws IOException {
+        writeHeader(writer, name, "gauge", "Longest action execution time");
+        for(var entry : metrics.entrySet()) {
+            writeSample(writer, name, label(labelName, entry.getKey()), toSeconds(entry.getValue().getMaxDurationNanos()));
+        }
+    }
+
+    private static void writeCounters(@Nonnull Writer writer,
+                                      @Nonnull String name,
+                                      @Nonnull String help,
+                                      @Nonnull String labelName,
+                                      @Nonnull Map<String, ActionMetrics> metrics,
+                                      @Nonnull ToLongFunction<ActionMetrics> counter) throws IOException {
+        writeHeader(writer, name, "counter", help);
+        for(var entry : metrics.entrySet()) {
+            writeSample(writer, name, label(labelName, entry.getKey()), counter.applyAsLong(entry.getValue()));
+        }
+    }
+
+    private static void writeHeader(@Nonnull Writer writer,
+                                    @Nonnull String name,
+                                    @Nonnull String type,
+                                    @Nonnull String help) throws IOException {
+        writer.write("# HELP " + name + " " + help + "\n");
+        writer.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static void writeSample(@Nonnull Writer writer,
+                                    @Nonnull String name,
+                                    @Nonnull String labels,
+                                    long value) throws IOException {
+        writer.write(name + "{" + labels + "} " + value + "\n");
+    }
+
+    private static void writeSample(@Nonnull Writer writer,
+                                    @Nonnull String name,
+                                    @Nonnull String labels,
+                                    double value) throws IOException {
+        writer.write(name + "{" + labels + "} " + value + "\n");
+    }
+
+    private static double toSeconds(long nanos) {
+        return nanos / NANOS_PER_SECOND;
+    }
+
+    @Nonnull
+    private static String label(@Nonnull String name, @Nonnull String value) {
+        var escapedValue = value.replace("\\", "\\\\")
+                                .replace("\"", "\\\"")
+                                .replace("\n", "\\n");
+        return name + "=\"" + escapedValue + "\"";
+    }
+}
@@ -2,7 +2,7 @@ package edu.stanford.bmir.protege.web.server.dispatch.handlers;
 
 import edu.stanford.bmir.protege.web.server.access.AccessManager;
 import edu.stanford.bmir.protege.web.server.access.ProjectResource;
-import edu.stanford.bmir.protege.web.server.access.Subject;
+import edu.stanford.bmir.protege.web.server.access.Resource;
 import edu.stanford.bmir.protege.web.server.dispatch.ApplicationActionHandler;
 import edu.stanford.bmir.protege.web.server.dispatch.ExecutionContext;
 import edu.stanford.bmir.protege.web.server.dispatch.RequestContext;
@@ -11,18 +11,22 @@ import edu.stanford.bmir.protege.web.server.dispatch.validators.NullValidator;
 import edu.stanford.bmir.protege.web.server.permissions.ProjectPermissionsManager;
 import edu.stanford.bmir.protege.web.server.user.UserActivityManager;
 import edu.stanford.bmir.protege.web.server.user.UserActivityRecord;
+import edu.stanford.bmir.protege.web.shared.access.ActionId;
 import edu.stanford.bmir.protege.web.shared.project.AvailableProject;
 import edu.stanford.bmir.protege.web.shared.project.GetAvailableProjectsAction;
 import edu.stanford.bmir.protege.web.shared.project.GetAvailableProjectsResult;
+import edu.stanford.bmir.protege.web.shared.project.ProjectDetails;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import edu.stanford.bmir.protege.web.shared.user.UserId;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static edu.stanford.bmir.protege.web.server.access.Subject.forUser;
 import static edu.stanford.bmir.protege.web.shared.access.BuiltInAction.DOWNLOAD_PROJECT;
@@ -71,17 +75,22 @@ public class GetAvailableProjectsHandler implements ApplicationActionHandler<Get
                                              record.getRecentProjects()
                                                    .forEach(recent ->
                                                                     lastOpenedMap.put(recent.getProjectId(), recent.getTimestamp())));
-        List<AvailableProject> availableProjects = projectPermissionsManager.getReadableProjects(userId).stream()
-                                                                            .map(details -> {
-                                                                                Subject user = forUser(userId);
-                                                                                ProjectResource projectResource = new ProjectResource(details.getProjectId());
-                                                                                boolean downloadable = accessManager.hasPermission(user, projectResource, DOWNLOAD_PROJECT);
-                                                                                boolean trashable = details.getOwner().equals(userId)
-                                                                                        || accessManager.hasPermission(user, projectResource, MOVE_ANY_PROJECT_TO_TRASH);
-                                                                                long lastOpened = lastOpenedMap.getOrDefault(details.getProjectId(), 0L);
-                                                                                return AvailableProject.get(details, downloadable, trashable, lastOpened);
-                                                                            })
-                                                                            .collect(toList());
+        List<ProjectDetails> readableProjects = projectPermissionsManager.getReadableProjects(userId);
+        // Resolve the permissions for all projects at once rather than querying per project and action
+        List<ProjectResource> projectResources = readableProjects.stream()
+                                                                 .map(details -> new ProjectResource(details.getProjectId()))
+                                                                 .collect(toList());
+        Map<Resource, Set<ActionId>> actionClosures = accessManager.getActionClosures(forUser(userId), projectResources);
+        List<AvailableProject> availableProjects = readableProjects.stream()
+                                                                   .map(details -> {
+                                                                       Set<ActionId> actionClosure = actionClosures.getOrDefault(new ProjectResource(details.getProjectId()), Collections.emptySet());
+                                                                       boolean downloadable = actionClosure.contains(DOWNLOAD_PROJECT.getActionId());
+                                                                       boolean trashable = details.getOwner().equals(userId)
+                                                                               || actionClosure.contains(MOVE_ANY_PROJECT_TO_TRASH.getActionId());
+                                                                       long lastOpened = lastOpenedMap.getOrDefault(details.getProjectId(), 0L);
+                                                                       return AvailableProject.get(details, downloadable, trashable, lastOpened);
+                                                                   })
+                                                                   .collect(toList());
         return new GetAvailableProjectsResult(availableProjects);
     }
 }
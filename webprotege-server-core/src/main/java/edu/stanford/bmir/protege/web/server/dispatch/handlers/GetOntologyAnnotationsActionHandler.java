@@ -59,6 +59,11 @@ public class GetOntologyAnnotationsActionHandler extends AbstractProjectActionHa
         return GetOntologyAnnotationsAction.class;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Nullable
     @Override
     protected BuiltInAction getRequiredExecutableBuiltInAction() {
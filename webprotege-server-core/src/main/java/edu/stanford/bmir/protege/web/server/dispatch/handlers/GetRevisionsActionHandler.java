@@ -15,7 +15,6 @@ import edu.stanford.bmir.protege.web.shared.access.BuiltInAction;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
-import java.util.function.Predicate;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -54,16 +53,14 @@ public class GetRevisionsActionHandler extends AbstractProjectActionHandler<GetR
     @Override
     public GetRevisionsResult execute(@Nonnull GetRevisionsAction action,
                                       @Nonnull ExecutionContext executionContext) {
-        long fromIndex = action.getFrom().getValue() - 1;
-        long skip = fromIndex;
-        long limit = action.getTo().getValue() - fromIndex;
-        Predicate<Revision> byAuthor = rev -> !action.getAuthor().isPresent() || action.getAuthor().get().equals(rev.getUserId());
-        ImmutableList<RevisionDetails> revisionDetails = revisionManager.getRevisions().stream()
-                                                                        .skip(skip)
-                                                                        .limit(limit)
-                                                                        .filter(byAuthor)
-                                                                        .map(extractor::extractRevisionDetails)
-                                                                        .collect(ImmutableList.toImmutableList());
+        var from = action.getFrom();
+        var to = action.getTo();
+        ImmutableList<Revision> revisions = action.getAuthor()
+                                                  .map(author -> revisionManager.getRevisionsByAuthor(author, from, to))
+                                                  .orElseGet(() -> revisionManager.getRevisions(from, to));
+        ImmutableList<RevisionDetails> revisionDetails = revisions.stream()
+                                                                  .map(extractor::extractRevisionDetails)
+                                                                  .collect(ImmutableList.toImmutableList());
         return new GetRevisionsResult(revisionDetails,
                                       revisionManager.getCurrentRevision());
     }
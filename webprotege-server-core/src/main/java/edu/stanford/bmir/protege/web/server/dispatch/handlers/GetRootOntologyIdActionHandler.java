@@ -49,6 +49,11 @@ public class GetRootOntologyIdActionHandler extends AbstractProjectActionHandler
         return GetRootOntologyIdAction.class;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Nullable
     @Override
     protected BuiltInAction getRequiredExecutableBuiltInAction() {
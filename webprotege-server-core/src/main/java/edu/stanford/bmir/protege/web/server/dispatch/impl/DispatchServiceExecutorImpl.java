@@ -1,6 +1,7 @@
 package edu.stanford.bmir.protege.web.server.dispatch.impl;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Uninterruptibles;
 import edu.stanford.bmir.protege.web.server.app.UserInSessionFactory;
 import edu.stanford.bmir.protege.web.server.dispatch.*;
 import edu.stanford.bmir.protege.web.server.project.ProjectManager;
@@ -15,6 +16,14 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -28,6 +37,11 @@ public class DispatchServiceExecutorImpl implements DispatchServiceExecutor {
 
     private static final Logger logger = LoggerFactory.getLogger(DispatchServiceExecutorImpl.class.getName());
 
+    /**
+     * The maximum number of actions from a single batch that are executed at the same time
+     */
+    private static final int MAX_CONCURRENT_ACTIONS_PER_BATCH = 4;
+
     @Nonnull
     private final ApplicationActionHandlerRegistry handlerRegistry;
 
@@ -37,13 +51,23 @@ public class DispatchServiceExecutorImpl implements DispatchServiceExecutor {
     @Nonnull
     private final UserInSessionFactory userInSessionFactory;
 
+    @Nonnull
+    private final ExecutorService batchActionExecutor;
+
+    @Nonnull
+    private final DispatchMetrics dispatchMetrics;
+
     @Inject
     public DispatchServiceExecutorImpl(@Nonnull ApplicationActionHandlerRegistry handlerRegistry,
                                        @Nonnull ProjectManager projectManager,
-                                       @Nonnull UserInSessionFactory userInSessionFactory) {
+                                       @Nonnull UserInSessionFactory userInSessionFactory,
+                                       @Nonnull @BatchActionExecutor ExecutorService batchActionExecutor,
+                                       @Nonnull DispatchMetrics dispatchMetrics) {
         this.handlerRegistry = checkNotNull(handlerRegistry);
         this.projectManager = checkNotNull(projectManager);
         this.userInSessionFactory = userInSessionFactory;
+        this.batchActionExecutor = checkNotNull(batchActionExecutor);
+        this.dispatchMetrics = checkNotNull(dispatchMetrics);
     }
 
     /**
@@ -90,40 +114,130 @@ public class DispatchServiceExecutorImpl implements DispatchServiceExecutor {
         }
     }
 
+    /**
+     * Executes the actions in a batch.  Runs of consecutive read-only actions are executed concurrently.  Other
+     * actions are executed one at a time, in order, after the actions that precede them have completed.  The
+     * results are in the same order as the actions.
+     */
     private DispatchServiceResultContainer execBatchAction(BatchAction batchAction, RequestContext requestContext, ExecutionContext executionContext) {
-        ImmutableList.Builder<ActionExecutionResult> executionResultBuilder = ImmutableList.builder();
-        for (Action<?> action : batchAction.getActions()) {
-            ActionExecutionResult executionResult;
+        List<Action<?>> actions = batchAction.getActions();
+        ActionExecutionResult[] results = new ActionExecutionResult[actions.size()];
+        int index = 0;
+        while (index < actions.size()) {
+            int end = index;
+            while (end < actions.size() && isReadOnly(actions.get(end))) {
+                end++;
+            }
+            if (end - index > 1) {
+                execConcurrently(actions, index, end, results, requestContext, executionContext);
+                index = end;
+            }
+            else {
+                results[index] = execBatchedAction(actions.get(index), requestContext, executionContext);
+                index++;
+            }
+        }
+        return new DispatchServiceResultContainer(BatchResult.get(ImmutableList.copyOf(results)));
+    }
+
+    private boolean isReadOnly(Action<?> action) {
+        try {
+            return getActionHandler(action).isReadOnly();
+        } catch (RuntimeException e) {
+            // The failure will be reported when the action is executed
+            return false;
+        }
+    }
+
+    /**
+     * Executes the actions in the specified range concurrently.  The current thread executes actions along with
+     * at most {@link #MAX_CONCURRENT_ACTIONS_PER_BATCH} - 1 helper tasks.  Helpers that have not started by the
+     * time the current thread runs out of actions are cancelled, so a busy executor never holds up the batch.
+     */
+    private void execConcurrently(List<Action<?>> actions,
+                                  int from,
+                                  int to,
+                                  ActionExecutionResult[] results,
+                                  RequestContext requestContext,
+                                  ExecutionContext executionContext) {
+        AtomicInteger nextIndex = new AtomicInteger(from);
+        Runnable worker = () -> {
+            int i;
+            while ((i = nextIndex.getAndIncrement()) < to) {
+                results[i] = execBatchedAction(actions.get(i), requestContext, executionContext);
+            }
+        };
+        int helperCount = Math.min(MAX_CONCURRENT_ACTIONS_PER_BATCH, to - from) - 1;
+        List<AtomicBoolean> helperStarts = new ArrayList<>(helperCount);
+        List<Future<?>> helpers = new ArrayList<>(helperCount);
+        try {
+            for (int i = 0; i < helperCount; i++) {
+                AtomicBoolean started = new AtomicBoolean();
+                helpers.add(batchActionExecutor.submit(() -> {
+                    if (started.compareAndSet(false, true)) {
+                        worker.run();
+                    }
+                }));
+                helperStarts.add(started);
+            }
+        } catch (RejectedExecutionException e) {
+            logger.warn("Could not execute batched actions concurrently: {}", e.getMessage());
+        }
+        RuntimeException failure = null;
+        try {
+            worker.run();
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for (int i = 0; i < helpers.size(); i++) {
+            Future<?> helper = helpers.get(i);
+            if (helperStarts.get(i).compareAndSet(false, true)) {
+                // The helper has not started, and now it never will
+                helper.cancel(false);
+                continue;
+            }
             try {
-                DispatchServiceResultContainer container = execAction(action, requestContext, executionContext);
-                Result result = container.getResult();
-                executionResult = ActionExecutionResult.get(new DispatchServiceResultContainer(result));
-            } catch (ActionExecutionException e) {
-                executionResult = ActionExecutionResult.get(e);
-            } catch (PermissionDeniedException e) {
-                executionResult = ActionExecutionResult.get(e);
+                Uninterruptibles.getUninterruptibly(helper);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+                }
             }
-            executionResultBuilder.add(executionResult);
         }
-        ImmutableList<ActionExecutionResult> results = executionResultBuilder.build();
-        return new DispatchServiceResultContainer(BatchResult.get(results));
+        if (failure != null) {
+            throw failure;
+        }
     }
 
-    private <A extends Action<R>, R extends Result> DispatchServiceResultContainer execAction(A action, RequestContext requestContext, ExecutionContext executionContext) {
-        final ActionHandler<A, R> actionHandler;
-        final Thread thread = Thread.currentThread();
-        String threadName = thread.getName();
+    private ActionExecutionResult execBatchedAction(Action<?> action, RequestContext requestContext, ExecutionContext executionContext) {
+        try {
+            DispatchServiceResultContainer container = execAction(action, requestContext, executionContext);
+            Result result = container.getResult();
+            return ActionExecutionResult.get(new DispatchServiceResultContainer(result));
+        } catch (ActionExecutionException e) {
+            return ActionExecutionResult.get(e);
+        } catch (PermissionDeniedException e) {
+            return ActionExecutionResult.get(e);
+        }
+    }
+
+    private <A extends Action<R>, R extends Result> ActionHandler<A, R> getActionHandler(A action) {
         if (action instanceof ProjectAction) {
-            ProjectAction projectAction = (ProjectAction) action;
-            ProjectId projectId = projectAction.getProjectId();
-            setTemporaryThreadName(thread, action, projectId);
+            ProjectId projectId = ((ProjectAction<?>) action).getProjectId();
             ProjectActionHandlerRegistry actionHanderRegistry = projectManager.getActionHandlerRegistry(projectId);
-            actionHandler = actionHanderRegistry.getActionHandler(action);
+            return actionHanderRegistry.getActionHandler(action);
         }
         else {
-            setTemporaryThreadName(thread, action, null);
-            actionHandler = handlerRegistry.getActionHandler(action);
+            return handlerRegistry.getActionHandler(action);
         }
+    }
+
+    private <A extends Action<R>, R extends Result> DispatchServiceResultContainer execAction(A action, RequestContext requestContext, ExecutionContext executionContext) {
+        final Thread thread = Thread.currentThread();
+        String threadName = thread.getName();
+        ProjectId projectId = action instanceof ProjectAction ? ((ProjectAction<?>) action).getProjectId() : null;
+        setTemporaryThreadName(thread, action, projectId);
+        final ActionHandler<A, R> actionHandler = getActionHandler(action);
 
         RequestValidator validator = actionHandler.getRequestValidator(action, requestContext);
         RequestValidationResult validationResult = validator.validateAction();
@@ -132,15 +246,25 @@ public class DispatchServiceExecutorImpl implements DispatchServiceExecutor {
                                                validationResult);
         }
 
+        long allocatedBytesBefore = dispatchMetrics.getCurrentThreadAllocatedBytes();
+        long startTime = System.nanoTime();
+        boolean failed = false;
         try {
             R result = actionHandler.execute(action, executionContext);
             return new DispatchServiceResultContainer(result);
         } catch (PermissionDeniedException e) {
             throw e;
         } catch (Exception e) {
+            failed = true;
             logger.error("An error occurred whilst executing an action", e);
             throw new ActionExecutionException(e);
         } finally {
+            dispatchMetrics.recordAction(action.getClass().getSimpleName(),
+                                         projectId,
+                                         System.nanoTime() - startTime,
+                                         allocatedBytesBefore,
+                                         dispatchMetrics.getCurrentThreadAllocatedBytes(),
+                                         failed);
             thread.setName(threadName);
         }
     }
@@ -36,8 +36,8 @@ public class UserIsDicussionThreadCreatorValidator implements RequestValidator {
 
     @Override
     public RequestValidationResult validateAction() {
-        return repository.getThread(threadId)
-                         .map(t -> t.isCreatedBy(userId))
+        return repository.getThreadCreator(threadId)
+                         .map(creator -> creator.equals(userId))
                          .map(b -> b ?
                                  RequestValidationResult.getValid() :
                                  RequestValidationResult.getInvalid("Only thread owners can close discussion threads."))
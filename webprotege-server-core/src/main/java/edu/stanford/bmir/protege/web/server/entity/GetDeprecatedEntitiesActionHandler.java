@@ -54,6 +54,11 @@ public class GetDeprecatedEntitiesActionHandler extends AbstractProjectActionHan
         return GetDeprecatedEntitiesAction.class;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Nullable
     @Override
     protected BuiltInAction getRequiredExecutableBuiltInAction() {
@@ -7,7 +7,6 @@ import edu.stanford.bmir.protege.web.server.change.OntologyChangeSubjectProvider
 import edu.stanford.bmir.protege.web.server.revision.Revision;
 import edu.stanford.bmir.protege.web.server.tag.TagsManager;
 import edu.stanford.bmir.protege.web.shared.event.ProjectEvent;
-import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import edu.stanford.bmir.protege.web.shared.tag.EntityTagsChangedEvent;
 import edu.stanford.bmir.protege.web.shared.tag.Tag;
@@ -26,7 +25,6 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * Stanford Center for Biomedical Informatics Research
  * 19 Jun 2018
  */
-@ProjectSingleton
 public class EntityTagsChangedEventComputer implements EventTranslator {
 
     @Nonnull
@@ -50,6 +48,7 @@ public class EntityTagsChangedEventComputer implements EventTranslator {
 
     @Override
     public void prepareForOntologyChanges(List<OWLOntologyChange> submittedChanges) {
+        beforeChangesTags.clear();
         submittedChanges.forEach(chg -> {
             provider.getChangeSubjects(chg).forEach(entity -> {
                 beforeChangesTags.putAll(entity, tagsManager.getTags(entity));
@@ -11,6 +11,10 @@ import java.util.List;
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
  * 22/05/15
+ *
+ * A fresh set of translators is used for each set of changes, so a translator may keep the state that it captures
+ * in {@link #prepareForOntologyChanges(List)}.  The changes are translated after the project has been unlocked, so
+ * later changes might already have been applied when a translator reads the state of the project.
  */
 public interface EventTranslator {
 
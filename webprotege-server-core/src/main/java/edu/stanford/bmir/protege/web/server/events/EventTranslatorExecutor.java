@@ -0,0 +1,15 @@
+package edu.stanford.bmir.protege.web.server.events;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Qualifies the executor that is used to run {@link EventTranslator}s in parallel after changes have been applied
+ * to a project.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface EventTranslatorExecutor {
+
+}
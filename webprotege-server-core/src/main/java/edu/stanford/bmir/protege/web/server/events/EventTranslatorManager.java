@@ -1,38 +1,87 @@
 package edu.stanford.bmir.protege.web.server.events;
 
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
 import edu.stanford.bmir.protege.web.server.change.ChangeApplicationResult;
 import edu.stanford.bmir.protege.web.server.revision.Revision;
 import edu.stanford.bmir.protege.web.shared.event.ProjectEvent;
 import org.semanticweb.owlapi.model.OWLOntologyChange;
 
+import javax.annotation.Nonnull;
 import javax.inject.Inject;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
  * 22/05/15
+ *
+ * Runs the event translators for a set of changes.  The translators are independent of each other, so they are run
+ * in parallel.  Each translator writes to its own list of events and the lists are concatenated in translator order,
+ * so that the events that are generated do not depend upon the order in which translators finish.
  */
 public class EventTranslatorManager {
 
-    private Collection<EventTranslator> eventTranslators;
+    private final Collection<EventTranslator> eventTranslators;
+
+    private final ExecutorService executorService;
 
     @Inject
-    public EventTranslatorManager(Set<EventTranslator> eventTranslators) {
-        this.eventTranslators = eventTranslators;
+    public EventTranslatorManager(@Nonnull Set<EventTranslator> eventTranslators,
+                                  @Nonnull @EventTranslatorExecutor ExecutorService executorService) {
+        this.eventTranslators = ImmutableList.copyOf(eventTranslators);
+        this.executorService = checkNotNull(executorService);
     }
 
+    /**
+     * Prepares the translators for the specified changes.  This blocks until all translators are prepared.
+     */
     public void prepareForOntologyChanges(List<OWLOntologyChange> submittedChanges) {
+        var futures = new ArrayList<CompletableFuture<Void>>(eventTranslators.size());
         for(EventTranslator eventTranslator : eventTranslators) {
-            eventTranslator.prepareForOntologyChanges(submittedChanges);
+            futures.add(CompletableFuture.runAsync(() -> eventTranslator.prepareForOntologyChanges(submittedChanges),
+                                                   executorService));
         }
+        join(CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])));
     }
 
-    public void translateOntologyChanges(Revision revision, ChangeApplicationResult<?> appliedChanges, List<ProjectEvent<?>> projectEventList) {
+    /**
+     * Translates the applied changes into high level events.  This does not block.
+     * @return A future that completes with the events from all translators, in translator order
+     */
+    @Nonnull
+    public CompletableFuture<ImmutableList<ProjectEvent<?>>> translateOntologyChanges(Revision revision,
+                                                                                      ChangeApplicationResult<?> appliedChanges) {
+        var futures = new ArrayList<CompletableFuture<List<ProjectEvent<?>>>>(eventTranslators.size());
         for(EventTranslator eventTranslator : eventTranslators) {
-            eventTranslator.translateOntologyChanges(revision, appliedChanges, projectEventList);
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                var translatorEvents = new ArrayList<ProjectEvent<?>>();
+                eventTranslator.translateOntologyChanges(revision, appliedChanges, translatorEvents);
+                return translatorEvents;
+            }, executorService));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                                .thenApply(ignored -> {
+                                    var events = ImmutableList.<ProjectEvent<?>>builder();
+                                    futures.forEach(future -> events.addAll(future.join()));
+                                    return events.build();
+                                });
+    }
+
+    private static void join(CompletableFuture<?> future) {
+        try {
+            future.join();
+        } catch(CompletionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw e;
         }
     }
 }
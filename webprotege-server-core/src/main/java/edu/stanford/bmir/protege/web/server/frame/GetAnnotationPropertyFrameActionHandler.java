@@ -71,4 +71,9 @@ public class GetAnnotationPropertyFrameActionHandler extends AbstractProjectActi
     public Class<GetAnnotationPropertyFrameAction> getActionClass() {
         return GetAnnotationPropertyFrameAction.class;
     }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
 }
@@ -52,6 +52,11 @@ public class GetClassFrameActionHandler extends AbstractProjectActionHandler<Get
         return GetClassFrameAction.class;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Nullable
     @Override
     protected BuiltInAction getRequiredExecutableBuiltInAction() {
@@ -72,4 +72,9 @@ public class GetDataPropertyFrameActionHandler extends AbstractProjectActionHand
     public Class<GetDataPropertyFrameAction> getActionClass() {
         return GetDataPropertyFrameAction.class;
     }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
 }
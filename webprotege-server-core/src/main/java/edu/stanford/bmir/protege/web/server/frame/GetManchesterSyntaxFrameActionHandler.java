@@ -70,4 +70,9 @@ public class GetManchesterSyntaxFrameActionHandler extends AbstractProjectAction
     public Class<GetManchesterSyntaxFrameAction> getActionClass() {
         return GetManchesterSyntaxFrameAction.class;
     }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
 }
@@ -12,6 +12,7 @@ import edu.stanford.bmir.protege.web.server.index.ProjectOntologiesIndex;
 import edu.stanford.bmir.protege.web.server.mansyntax.ManchesterSyntaxFrameParser;
 import edu.stanford.bmir.protege.web.server.renderer.ManchesterSyntaxKeywords;
 import edu.stanford.bmir.protege.web.server.shortform.DictionaryManager;
+import edu.stanford.bmir.protege.web.server.shortform.ShortFormMatch;
 import edu.stanford.bmir.protege.web.server.shortform.WebProtegeOntologyIRIShortFormProvider;
 import edu.stanford.bmir.protege.web.shared.frame.GetManchesterSyntaxFrameCompletionsAction;
 import edu.stanford.bmir.protege.web.shared.frame.GetManchesterSyntaxFrameCompletionsResult;
@@ -24,8 +25,8 @@ import org.semanticweb.owlapi.model.OWLEntity;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
-import javax.inject.Provider;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static edu.stanford.bmir.protege.web.server.shortform.SearchString.parseSearchString;
 import static edu.stanford.bmir.protege.web.server.shortform.ShortFormQuotingUtils.getQuotedShortForm;
@@ -54,19 +55,19 @@ public class GetManchesterSyntaxFrameCompletionsActionHandler
     private final WebProtegeOntologyIRIShortFormProvider ontologyIRIShortFormProvider;
 
     @Nonnull
-    private final Provider<ManchesterSyntaxFrameParser> manchesterSyntaxFrameParserProvider;
+    private final ManchesterSyntaxCompletionParseCache parseCache;
 
     @Inject
     public GetManchesterSyntaxFrameCompletionsActionHandler(@Nonnull AccessManager accessManager,
                                                             @Nonnull ProjectOntologiesIndex projectOntologiesIndex,
                                                             @Nonnull DictionaryManager dictionaryManager,
                                                             @Nonnull WebProtegeOntologyIRIShortFormProvider ontologyIRIShortFormProvider,
-                                                            @Nonnull Provider<ManchesterSyntaxFrameParser> manchesterSyntaxFrameParserProvider) {
+                                                            @Nonnull ManchesterSyntaxCompletionParseCache parseCache) {
         super(accessManager);
         this.projectOntologiesIndex = projectOntologiesIndex;
         this.dictionaryManager = dictionaryManager;
         this.ontologyIRIShortFormProvider = ontologyIRIShortFormProvider;
-        this.manchesterSyntaxFrameParserProvider = manchesterSyntaxFrameParserProvider;
+        this.parseCache = parseCache;
     }
 
     @Nonnull
@@ -74,22 +75,13 @@ public class GetManchesterSyntaxFrameCompletionsActionHandler
     public GetManchesterSyntaxFrameCompletionsResult execute(@Nonnull GetManchesterSyntaxFrameCompletionsAction action, @Nonnull ExecutionContext executionContext) {
         String syntax = action.getSyntax();
         int from = action.getFrom();
-        String triggerText = syntax.substring(0, from) + "\u0000";
-        ManchesterSyntaxFrameParser parser = manchesterSyntaxFrameParserProvider.get();
-        try {
-            parser.parse(triggerText, action);
-        } catch (ParserException e) {
-//            ManchesterOWLSyntaxTokenizer tokenizer = new ManchesterOWLSyntaxTokenizer(syntax);
-//            List<ManchesterOWLSyntaxTokenizer.Token> tokens = tokenizer.tokenize();
-//            ManchesterOWLSyntaxTokenizer.Token intersectingToken;
-//            for(ManchesterOWLSyntaxTokenizer.Token token : tokens) {
-//                int tokenPos = token.getPos();
-//                if(tokenPos <= from && from <= tokenPos + token.getToken().length()) {
-//                    intersectingToken = token;
-//                    break;
-//                }
-//            }
-            int lastWordStartIndex = getLastWordIndex(syntax, from);
+        int lastWordStartIndex = Math.max(getLastWordIndex(syntax, from), 0);
+        // What is expected at the position of the word being completed only depends on the text before the word.
+        // This text does not change as the word is typed, so the parse is cached.
+        Optional<ParserException> parseError = parseCache.getParseError(action,
+                                                                        syntax.substring(0, lastWordStartIndex));
+        if (parseError.isPresent()) {
+            ParserException e = parseError.get();
             int lastWordEndIndex = getWordEnd(syntax, from);
 
             int fromLineNumber = action.getFromPos().getLineNumber();
@@ -125,16 +117,21 @@ public class GetManchesterSyntaxFrameCompletionsActionHandler
         EntityNameMatcher entityNameMatcher = new EntityNameMatcher(lastWordPrefix);
 
         Set<OWLEntity> candidateEntities = new HashSet<>();
-        return dictionaryManager.getShortFormsContaining(singletonList(parseSearchString(lastWordPrefix)),
-                                                         expectedEntityTypes)
-                                // Don't show duplicate entities with different short forms.
-                                .filter(match -> !candidateEntities.contains(match.getEntity()))
-                                .peek(match -> candidateEntities.add(match.getEntity()))
-                                // This is a bit arbitrary - however, the user will need to type more characters
-                                // to find the match they want in any case, because we only display around 20
-                                // choices in the auto completer box.  Note that we will process up to this
-                                // limit as we perform a sort further down in this pipeline.
-                                .limit(SEARCH_LIMIT)
+        List<ShortFormMatch> candidateMatches = new ArrayList<>();
+        if (!lastWordPrefix.isEmpty()) {
+            // Matches at word starts are the best matches.  These are looked up in the dictionary's prefix index.
+            addCandidateMatches(dictionaryManager.getShortFormsWithWordPrefix(lastWordPrefix, expectedEntityTypes),
+                                candidateEntities,
+                                candidateMatches);
+        }
+        if (candidateMatches.size() < action.getEntityTypeSuggestLimit()) {
+            // Fall back to scanning for short forms that contain the prefix anywhere
+            addCandidateMatches(dictionaryManager.getShortFormsContaining(singletonList(parseSearchString(lastWordPrefix)),
+                                                                          expectedEntityTypes),
+                                candidateEntities,
+                                candidateMatches);
+        }
+        return candidateMatches.stream()
                                 // Map to an AutoCompletionChoice because this allows proper sorting for
                                 // better results
                                 .map(match -> {
@@ -155,6 +152,20 @@ public class GetManchesterSyntaxFrameCompletionsActionHandler
                                 .collect(toList());
     }
 
+    private static void addCandidateMatches(@Nonnull Stream<ShortFormMatch> matches,
+                                            @Nonnull Set<OWLEntity> candidateEntities,
+                                            @Nonnull List<ShortFormMatch> candidateMatches) {
+        matches
+                // Don't show duplicate entities with different short forms.
+                .filter(match -> candidateEntities.add(match.getEntity()))
+                // This is a bit arbitrary - however, the user will need to type more characters
+                // to find the match they want in any case, because we only display around 20
+                // choices in the auto completer box.  Note that we will process up to this
+                // limit as we perform a sort on the candidates.
+                .limit(SEARCH_LIMIT - candidateMatches.size())
+                .forEach(candidateMatches::add);
+    }
+
     private List<AutoCompletionChoice> getNameOntologyAutocompletionChoices(ParserException e,
                                                                             EditorPosition fromPos,
                                                                             EditorPosition toPos,
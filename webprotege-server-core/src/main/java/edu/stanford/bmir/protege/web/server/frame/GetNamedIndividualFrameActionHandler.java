@@ -54,6 +54,11 @@ public class GetNamedIndividualFrameActionHandler extends AbstractProjectActionH
         return GetNamedIndividualFrameAction.class;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Nullable
     @Override
     protected BuiltInAction getRequiredExecutableBuiltInAction() {
@@ -70,4 +70,9 @@ public class GetObjectPropertyFrameActionHandler extends AbstractProjectActionHa
     public Class<GetObjectPropertyFrameAction> getActionClass() {
         return GetObjectPropertyFrameAction.class;
     }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
 }
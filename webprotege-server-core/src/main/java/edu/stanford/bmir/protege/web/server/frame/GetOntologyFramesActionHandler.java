@@ -90,4 +90,9 @@ public class GetOntologyFramesActionHandler extends AbstractProjectActionHandler
     public Class<GetOntologyFramesAction> getActionClass() {
         return GetOntologyFramesAction.class;
     }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
 }
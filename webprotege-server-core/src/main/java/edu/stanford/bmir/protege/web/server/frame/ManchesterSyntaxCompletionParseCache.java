@@ -0,0 +1,130 @@
+package edu.stanford.bmir.protege.web.server.frame;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.stanford.bmir.protege.web.server.mansyntax.ManchesterSyntaxFrameParser;
+import edu.stanford.bmir.protege.web.server.revision.RevisionManager;
+import edu.stanford.bmir.protege.web.shared.entity.OWLEntityData;
+import edu.stanford.bmir.protege.web.shared.frame.GetManchesterSyntaxFrameCompletionsAction;
+import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import org.semanticweb.owlapi.manchestersyntax.renderer.ParserException;
+import org.semanticweb.owlapi.model.OWLEntity;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Caches the parse errors that are used to compute auto-completions for Manchester syntax frames.  The expected
+ * tokens at the position of the word being completed only depend on the text that precedes that word.  While a
+ * user types the characters of a word this text does not change, so the frame is parsed once per word rather than
+ * once per keystroke.  Parse errors are cached against the project revision, because the entities that are
+ * mentioned in a frame, and their types, can change when the project changes.
+ */
+@ProjectSingleton
+public class ManchesterSyntaxCompletionParseCache {
+
+    private static final int MAX_CACHED_PARSES = 256;
+
+    private static final Duration CACHE_EXPIRATION_DURATION = Duration.ofMinutes(5);
+
+    /**
+     * The parser expects input after the text that precedes the word being completed
+     */
+    private static final String PARSE_TERMINATOR = "\u0000";
+
+    @Nonnull
+    private final Provider<ManchesterSyntaxFrameParser> parserProvider;
+
+    @Nonnull
+    private final RevisionManager revisionManager;
+
+    private final Cache<ParseKey, Optional<ParserException>> parseErrors = Caffeine.newBuilder()
+                                                                                  .maximumSize(MAX_CACHED_PARSES)
+                                                                                  .expireAfterAccess(CACHE_EXPIRATION_DURATION)
+                                                                                  .build();
+
+    @Inject
+    public ManchesterSyntaxCompletionParseCache(@Nonnull Provider<ManchesterSyntaxFrameParser> parserProvider,
+                                                @Nonnull RevisionManager revisionManager) {
+        this.parserProvider = checkNotNull(parserProvider);
+        this.revisionManager = checkNotNull(revisionManager);
+    }
+
+    /**
+     * Gets the parse error for the specified text.
+     * @param action The completions action that the text belongs to.  This provides the frame subject and
+     *               fresh entities for parsing.
+     * @param precedingText The text that precedes the word that is being completed.
+     * @return The parse error that describes what is expected after the preceding text, or empty if the text
+     * could be parsed.
+     */
+    @Nonnull
+    public Optional<ParserException> getParseError(@Nonnull GetManchesterSyntaxFrameCompletionsAction action,
+                                                   @Nonnull String precedingText) {
+        var key = new ParseKey(revisionManager.getCurrentRevision(),
+                               action.getSubject(),
+                               action.getFreshEntities(),
+                               precedingText);
+        return parseErrors.get(key, k -> parse(action, precedingText));
+    }
+
+    @Nonnull
+    private Optional<ParserException> parse(@Nonnull GetManchesterSyntaxFrameCompletionsAction action,
+                                            @Nonnull String precedingText) {
+        try {
+            parserProvider.get().parse(precedingText + PARSE_TERMINATOR, action);
+            return Optional.empty();
+        } catch(ParserException e) {
+            return Optional.of(e);
+        }
+    }
+
+    private static final class ParseKey {
+
+        private final RevisionNumber revisionNumber;
+
+        private final OWLEntity subject;
+
+        private final Set<OWLEntityData> freshEntities;
+
+        private final String precedingText;
+
+        private ParseKey(RevisionNumber revisionNumber,
+                         OWLEntity subject,
+                         Set<OWLEntityData> freshEntities,
+                         String precedingText) {
+            this.revisionNumber = revisionNumber;
+            this.subject = subject;
+            this.freshEntities = freshEntities;
+            this.precedingText = precedingText;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(revisionNumber, subject, freshEntities, precedingText);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(obj == this) {
+                return true;
+            }
+            if(!(obj instanceof ParseKey)) {
+                return false;
+            }
+            ParseKey other = (ParseKey) obj;
+            return this.revisionNumber.equals(other.revisionNumber)
+                    && Objects.equals(this.subject, other.subject)
+                    && Objects.equals(this.freshEntities, other.freshEntities)
+                    && this.precedingText.equals(other.precedingText);
+        }
+    }
+}
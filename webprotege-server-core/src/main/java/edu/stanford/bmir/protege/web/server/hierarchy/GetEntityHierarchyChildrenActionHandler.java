@@ -62,6 +62,11 @@ public class GetEntityHierarchyChildrenActionHandler extends AbstractProjectActi
         return GetHierarchyChildrenAction.class;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Nullable
     @Override
     protected BuiltInAction getRequiredExecutableBuiltInAction() {
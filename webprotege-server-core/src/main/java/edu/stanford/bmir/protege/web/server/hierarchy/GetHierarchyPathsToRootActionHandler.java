@@ -49,6 +49,11 @@ public class GetHierarchyPathsToRootActionHandler extends AbstractProjectActionH
         return GetHierarchyPathsToRootAction.class;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Nullable
     @Override
     protected BuiltInAction getRequiredExecutableBuiltInAction() {
@@ -49,6 +49,11 @@ public class GetHierarchyRootsActionHandler extends AbstractProjectActionHandler
         return GetHierarchyRootsAction.class;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Nullable
     @Override
     protected BuiltInAction getRequiredExecutableBuiltInAction() {
@@ -52,6 +52,11 @@ public class GetHierarchySiblingsActionHandler extends AbstractProjectActionHand
         return GetHierarchySiblingsAction.class;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Nullable
     @Override
     protected BuiltInAction getRequiredExecutableBuiltInAction() {
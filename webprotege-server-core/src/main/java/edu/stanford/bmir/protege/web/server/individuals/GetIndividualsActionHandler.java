@@ -101,4 +101,9 @@ public class GetIndividualsActionHandler extends AbstractProjectActionHandler<Ge
     public Class<GetIndividualsAction> getActionClass() {
         return GetIndividualsAction.class;
     }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
 }
@@ -18,14 +18,18 @@ import edu.stanford.bmir.protege.web.server.auth.AuthenticationManagerImpl;
 import edu.stanford.bmir.protege.web.server.collection.CollectionItemDataRepository;
 import edu.stanford.bmir.protege.web.server.collection.CollectionItemDataRepositoryImpl;
 import edu.stanford.bmir.protege.web.server.dispatch.ActionHandlerRegistry;
+import edu.stanford.bmir.protege.web.server.dispatch.BatchActionExecutor;
+import edu.stanford.bmir.protege.web.server.dispatch.DispatchMetrics;
 import edu.stanford.bmir.protege.web.server.dispatch.DispatchServiceExecutor;
 import edu.stanford.bmir.protege.web.server.dispatch.impl.ActionHandlerRegistryImpl;
 import edu.stanford.bmir.protege.web.server.dispatch.impl.DispatchServiceExecutorImpl;
 import edu.stanford.bmir.protege.web.server.download.DownloadGeneratorExecutor;
 import edu.stanford.bmir.protege.web.server.download.FileTransferExecutor;
+import edu.stanford.bmir.protege.web.server.events.EventTranslatorExecutor;
 import edu.stanford.bmir.protege.web.server.jackson.ObjectMapperProvider;
 import edu.stanford.bmir.protege.web.server.mail.*;
 import edu.stanford.bmir.protege.web.server.mansyntax.render.*;
+import edu.stanford.bmir.protege.web.server.match.MatchingExecutor;
 import edu.stanford.bmir.protege.web.server.permissions.ProjectPermissionsManager;
 import edu.stanford.bmir.protege.web.server.permissions.ProjectPermissionsManagerImpl;
 import edu.stanford.bmir.protege.web.server.perspective.PerspectiveLayoutStore;
@@ -33,8 +37,13 @@ import edu.stanford.bmir.protege.web.server.perspective.PerspectiveLayoutStoreIm
 import edu.stanford.bmir.protege.web.server.perspective.PerspectivesManager;
 import edu.stanford.bmir.protege.web.server.perspective.PerspectivesManagerImpl;
 import edu.stanford.bmir.protege.web.server.project.*;
+import edu.stanford.bmir.protege.web.server.project.chg.ProjectLockMetrics;
+import edu.stanford.bmir.protege.web.server.revision.ChangeLogWriterSettings;
+import edu.stanford.bmir.protege.web.server.revision.RevisionCacheExecutor;
+import edu.stanford.bmir.protege.web.server.revision.RevisionCacheSettings;
 import edu.stanford.bmir.protege.web.server.sharing.ProjectSharingSettingsManager;
 import edu.stanford.bmir.protege.web.server.sharing.ProjectSharingSettingsManagerImpl;
+import edu.stanford.bmir.protege.web.server.tag.CriteriaTagsExecutor;
 import edu.stanford.bmir.protege.web.server.upload.UploadedOntologiesCache;
 import edu.stanford.bmir.protege.web.server.upload.UploadedOntologiesProcessor;
 import edu.stanford.bmir.protege.web.server.user.*;
@@ -81,6 +90,12 @@ public class ApplicationModule {
         return impl;
     }
 
+    @Provides
+    @ApplicationSingleton
+    public ProjectLockMetrics provideProjectLockMetrics(DispatchMetrics impl) {
+        return impl;
+    }
+
     @Provides
     @ApplicationSingleton
     public ProjectDetailsManager provideProjectDetailsManager(ProjectDetailsManagerImpl impl) {
@@ -235,6 +250,61 @@ public class ApplicationModule {
         });
     }
 
+    @Provides
+    @ApplicationSingleton
+    @MatchingExecutor
+    public ExecutorService provideMatchingExecutorService() {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(r);
+            thread.setName(thread.getName().replace("thread", "Matching-Evaluator"));
+            return thread;
+        });
+    }
+
+    @Provides
+    @ApplicationSingleton
+    @CriteriaTagsExecutor
+    public ExecutorService provideCriteriaTagsExecutorService() {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(r);
+            thread.setName(thread.getName().replace("thread", "Criteria-Tags-Evaluator"));
+            return thread;
+        });
+    }
+
+    @Provides
+    @ApplicationSingleton
+    @EventTranslatorExecutor
+    public ExecutorService provideEventTranslatorExecutorService() {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(r);
+            thread.setName(thread.getName().replace("thread", "Event-Translator"));
+            return thread;
+        });
+    }
+
+    @Provides
+    @ApplicationSingleton
+    @RevisionCacheExecutor
+    public ExecutorService provideRevisionCacheExecutorService() {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(r);
+            thread.setName(thread.getName().replace("thread", "Revision-Cache-Loader"));
+            return thread;
+        });
+    }
+
+    @Provides
+    @ApplicationSingleton
+    @BatchActionExecutor
+    public ExecutorService provideBatchActionExecutorService() {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(r);
+            thread.setName(thread.getName().replace("thread", "Batch-Action-Executor"));
+            return thread;
+        });
+    }
+
     @Provides
     public WebhookRepository providesWebhookRepository(WebhookRepositoryImpl impl) {
         return impl;
@@ -310,6 +380,30 @@ public class ApplicationModule {
         return properties.getProjectDormantTime();
     }
 
+    @Provides
+    @ApplicationSingleton
+    ChangeLogWriterSettings provideChangeLogWriterSettings(WebProtegeProperties properties) {
+        return ChangeLogWriterSettings.get(properties.getChangeLogSyncPolicy(),
+                                           properties.getChangeLogSyncInterval(),
+                                           properties.getChangeLogMaxPendingRevisions(),
+                                           properties.getChangeLogCompression());
+    }
+
+    @Provides
+    @ApplicationSingleton
+    MemoryPressureSettings provideMemoryPressureSettings(WebProtegeProperties properties) {
+        return MemoryPressureSettings.get(properties.getMemoryPressureShedCachesFreePercent(),
+                                          properties.getMemoryPressureUnloadProjectsFreePercent(),
+                                          properties.getMemoryPressureUnloadMinIdleTime());
+    }
+
+    @Provides
+    @ApplicationSingleton
+    RevisionCacheSettings provideRevisionCacheSettings(WebProtegeProperties properties) {
+        return RevisionCacheSettings.getInMegabytes(properties.getRevisionCacheMaxSizeMB(),
+                                                    properties.getRevisionCacheProjectQuotaMB());
+    }
+
     @Provides
     Ticker provideTicker() {
         return Ticker.systemTicker();
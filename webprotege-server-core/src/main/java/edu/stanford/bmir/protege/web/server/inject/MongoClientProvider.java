@@ -1,9 +1,11 @@
 package edu.stanford.bmir.protege.web.server.inject;
 
 import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
 import com.mongodb.MongoCredential;
 import com.mongodb.ServerAddress;
 import edu.stanford.bmir.protege.web.server.app.ApplicationDisposablesManager;
+import edu.stanford.bmir.protege.web.server.persistence.MongoCommandMetrics;
 import edu.stanford.bmir.protege.web.shared.inject.ApplicationSingleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,35 +42,50 @@ public class MongoClientProvider implements Provider<MongoClient> {
     @Nonnull
     private ApplicationDisposablesManager disposableObjectManager;
 
+    @Nonnull
+    private final MongoCommandMetrics commandMetrics;
+
     @Inject
     public MongoClientProvider(@DbHost String dbHost,
                                @DbPort Integer dbPort,
                                @Nonnull Optional<MongoCredential> mongoCredential,
-                               @Nonnull ApplicationDisposablesManager disposableObjectManager) {
+                               @Nonnull ApplicationDisposablesManager disposableObjectManager,
+                               @Nonnull MongoCommandMetrics commandMetrics) {
         this.host = checkNotNull(dbHost);
         this.port = checkNotNull(dbPort);
         this.mongoCredential = checkNotNull(mongoCredential);
         this.disposableObjectManager = checkNotNull(disposableObjectManager);
+        this.commandMetrics = checkNotNull(commandMetrics);
     }
 
     @Override
     public MongoClient get() {
         var serverAddress = new ServerAddress(host, port);
+        var options = MongoClientOptions.builder()
+                                        .addCommandListener(commandMetrics)
+                                        .build();
         var mongoClient = mongoCredential
                 .map(Collections::singletonList)
                 .map(credentials -> {
                     logger.info("Creating MongoClient database connection with credentials for authentication");
-                    return new MongoClient(serverAddress, credentials);
+                    return new MongoClient(serverAddress, credentials, options);
                 })
                 .orElseGet(() -> {
                     logger.info("Created MongoClient database connection without credentials for authentication");
-                    return new MongoClient(serverAddress);
+                    return new MongoClient(serverAddress, options);
                 });
         logger.info("Created MongoClient database connection");
         disposableObjectManager.register(() -> {
             logger.info("Closing MongoClient database connection");
             mongoClient.close();
-            logger.info("Closed MongoClient database connection");
+            var statistics = commandMetrics.getStatistics();
+            logger.info("Closed MongoClient database connection.  Executed {} database commands ({} failed, " +
+                                "mean duration {} ms, max duration {} ms): {}",
+                        statistics.getCommandCount(),
+                        statistics.getFailedCommandCount(),
+                        String.format("%.1f", statistics.getMeanDurationMs()),
+                        statistics.getMaxDurationMs(),
+                        statistics.getCommandCountsByName());
         });
         return mongoClient;
     }
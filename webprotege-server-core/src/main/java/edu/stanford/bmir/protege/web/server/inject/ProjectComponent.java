@@ -4,6 +4,7 @@ import dagger.Subcomponent;
 import edu.stanford.bmir.protege.web.server.dispatch.impl.ProjectActionHandlerRegistry;
 import edu.stanford.bmir.protege.web.server.events.EventManager;
 import edu.stanford.bmir.protege.web.server.inject.project.ProjectModule;
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryAccountant;
 import edu.stanford.bmir.protege.web.server.project.chg.OntologyStoreModule;
 import edu.stanford.bmir.protege.web.server.project.ProjectDisposablesManager;
 import edu.stanford.bmir.protege.web.server.revision.RevisionManager;
@@ -36,5 +37,7 @@ public interface ProjectComponent {
     ProjectActionHandlerRegistry getActionHandlerRegistry();
 
     RevisionManager getRevisionManager();
+
+    ProjectMemoryAccountant getMemoryAccountant();
 }
 
@@ -30,6 +30,7 @@ import edu.stanford.bmir.protege.web.server.mansyntax.ShellOntologyChecker;
 import edu.stanford.bmir.protege.web.server.mansyntax.render.*;
 import edu.stanford.bmir.protege.web.server.match.MatchingEngine;
 import edu.stanford.bmir.protege.web.server.match.MatchingEngineImpl;
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryAccountant;
 import edu.stanford.bmir.protege.web.server.object.OWLObjectComparatorImpl;
 import edu.stanford.bmir.protege.web.server.obo.OBONamespaceCache;
 import edu.stanford.bmir.protege.web.server.obo.OBONamespaceCacheFactory;
@@ -137,7 +138,8 @@ public class ProjectModule {
     @Provides
     @RootOntology
     @ProjectSingleton
-    public OWLOntology provideRootOntology(RootOntologyProvider provider) {
+    public OWLOntology provideRootOntology(RootOntologyProvider provider, ProjectMemoryAccountant memoryAccountant) {
+        memoryAccountant.register(provider);
         return provider.get();
     }
 
@@ -534,7 +536,10 @@ public class ProjectModule {
     }
 
     @Provides
-    MultiLingualDictionary provideDictionary(MultiLingualDictionaryImpl dictionary, LanguageManager languageManager) {
+    MultiLingualDictionary provideDictionary(MultiLingualDictionaryImpl dictionary,
+                                             LanguageManager languageManager,
+                                             ProjectMemoryAccountant memoryAccountant) {
+        memoryAccountant.register(dictionary);
         // Preload existing languages to avoid delays after loading in the UI
         dictionary.loadLanguages(languageManager.getActiveLanguages());
         return dictionary;
@@ -569,16 +574,17 @@ public class ProjectModule {
     }
 
     @Provides
-    EntityTagsRepository provideEntityTagsRepository(EntityTagsRepositoryImpl impl) {
-        impl.ensureIndexes();
+    EntityTagsRepository provideEntityTagsRepository(EntityTagsRepositoryCachingImpl impl) {
         return impl;
     }
 
     @ProjectSingleton
     @Provides
-    EntityTagsRepositoryCachingImpl provideEntityTagsRepositoryCachingImpl(EntityTagsRepositoryImpl impl) {
+    EntityTagsRepositoryCachingImpl provideEntityTagsRepositoryCachingImpl(EntityTagsRepositoryImpl impl,
+                                                                           ProjectDisposablesManager disposablesManager) {
         EntityTagsRepositoryCachingImpl rep = new EntityTagsRepositoryCachingImpl(impl);
-        rep.preloadCache();
+        rep.ensureIndexes();
+        disposablesManager.register(rep);
         return rep;
     }
 
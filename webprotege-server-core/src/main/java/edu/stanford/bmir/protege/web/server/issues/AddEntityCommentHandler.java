@@ -107,17 +107,17 @@ public class AddEntityCommentHandler implements ProjectActionHandler<AddEntityCo
                                       rawComment,
                                       renderedComment);
         ThreadId threadId = action.getThreadId();
-        repository.addCommentToThread(threadId, comment);
+        Optional<EntityDiscussionThread> thread = repository.addCommentToThread(threadId, comment);
         EventTag startTag = eventManager.getCurrentTag();
-        postCommentPostedEvent(threadId, comment);
+        thread.ifPresent(t -> postCommentPostedEvent(t, comment));
         EventList<ProjectEvent<?>> eventList = eventManager.getEventsFromTag(startTag);
-        sendOutNotifications(threadId, comment);
+        thread.ifPresent(t -> sendOutNotifications(t, comment));
         return new AddEntityCommentResult(action.getProjectId(), threadId, comment, renderedComment, eventList);
 
     }
 
-    private void sendOutNotifications(ThreadId threadId, Comment comment) {
-        Thread t = new Thread(() -> repository.getThread(threadId).ifPresent(thread -> {
+    private void sendOutNotifications(EntityDiscussionThread thread, Comment comment) {
+        Thread t = new Thread(() -> {
             notificationsEmailer.sendCommentPostedNotification(projectId,
                                                                renderer.getRendering(thread.getEntity()),
                                                                thread,
@@ -127,7 +127,7 @@ public class AddEntityCommentHandler implements ProjectActionHandler<AddEntityCo
                                                             ProjectDetails::getDisplayName).orElse("Project"),
                                                     renderer.getRendering(thread.getEntity()),
                                                     comment);
-        }));
+        });
         t.start();
     }
 
@@ -135,25 +135,20 @@ public class AddEntityCommentHandler implements ProjectActionHandler<AddEntityCo
     /**
      * Post a {@link CommentPostedEvent} to the project event bus.
      *
-     * @param threadId The thread that the comment was added to.
+     * @param thread The thread that the comment was added to.
      * @param comment  The comment that was added.
      */
-    private void postCommentPostedEvent(@Nonnull ThreadId threadId,
+    private void postCommentPostedEvent(@Nonnull EntityDiscussionThread thread,
                                         @Nonnull Comment comment) {
-        Optional<EntityDiscussionThread> thread = repository.getThread(threadId);
-        thread.ifPresent(t -> {
-            OWLEntityData entityData = renderer.getRendering(t.getEntity());
-            int commentCount = repository.getCommentsCount(projectId, t.getEntity());
-            int openCommentCount = repository.getOpenCommentsCount(projectId, t.getEntity());
-            CommentPostedEvent event = new CommentPostedEvent(projectId,
-                                                              threadId,
-                                                              comment,
-                                                              Optional.of(entityData),
-                                                              commentCount,
-                                                              openCommentCount);
-            eventManager.postEvent(event);
-
-        });
+        OWLEntityData entityData = renderer.getRendering(thread.getEntity());
+        CommentCounts commentCounts = repository.getCommentCounts(projectId, thread.getEntity());
+        CommentPostedEvent event = new CommentPostedEvent(projectId,
+                                                          thread.getId(),
+                                                          comment,
+                                                          Optional.of(entityData),
+                                                          commentCounts.getCommentCount(),
+                                                          commentCounts.getOpenCommentCount());
+        eventManager.postEvent(event);
     }
 
 }
@@ -0,0 +1,18 @@
+package edu.stanford.bmir.protege.web.server.issues;
+
+import com.google.auto.value.AutoValue;
+
+/**
+ * The number of comments, and the number of comments in open threads, for an entity.
+ */
+@AutoValue
+public abstract class CommentCounts {
+
+    public static CommentCounts get(int commentCount, int openCommentCount) {
+        return new AutoValue_CommentCounts(commentCount, openCommentCount);
+    }
+
+    public abstract int getCommentCount();
+
+    public abstract int getOpenCommentCount();
+}
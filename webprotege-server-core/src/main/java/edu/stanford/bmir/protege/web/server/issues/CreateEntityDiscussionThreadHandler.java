@@ -111,15 +111,14 @@ public class CreateEntityDiscussionThreadHandler extends AbstractProjectActionHa
         repository.saveThread(thread);
         EventTag startTag = eventManager.getCurrentTag();
         eventManager.postEvent(new DiscussionThreadCreatedEvent(thread));
-        int commentCount = repository.getCommentsCount(projectId, entity);
-        int openCommentCount = repository.getOpenCommentsCount(projectId, entity);
+        CommentCounts commentCounts = repository.getCommentCounts(projectId, entity);
         Optional<OWLEntityData> rendering = Optional.of(renderer.getRendering(entity));
         eventManager.postEvent(new CommentPostedEvent(projectId,
                                                       thread.getId(),
                                                       comment,
                                                       rendering,
-                                                      commentCount,
-                                                      openCommentCount));
+                                                      commentCounts.getCommentCount(),
+                                                      commentCounts.getOpenCommentCount()));
         EventList<ProjectEvent<?>> eventList = eventManager.getEventsFromTag(startTag);
         setOutNotifications(thread, comment);
 
@@ -1,9 +1,15 @@
 package edu.stanford.bmir.protege.web.server.issues;
 
+import com.mongodb.AggregationOptions;
 import com.mongodb.BasicDBObject;
+import com.mongodb.Cursor;
+import com.mongodb.DBObject;
 import edu.stanford.bmir.protege.web.shared.issues.*;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
 import org.mongodb.morphia.Datastore;
+import org.mongodb.morphia.FindAndModifyOptions;
+import org.mongodb.morphia.query.ArraySlice;
 import org.mongodb.morphia.query.Query;
 import org.mongodb.morphia.query.UpdateOperations;
 import org.mongodb.morphia.query.UpdateResults;
@@ -16,6 +22,8 @@ import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static edu.stanford.bmir.protege.web.shared.issues.EntityDiscussionThread.*;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 
 /**
  * Matthew Horridge
@@ -26,6 +34,10 @@ public class EntityDiscussionThreadRepository {
 
     public static final String MATCHED_COMMENT_PATH = "comments.$";
 
+    private static final String COMMENT_COUNT = "commentCount";
+
+    private static final String OPEN_COMMENT_COUNT = "openCommentCount";
+
     @Nonnull
     private final Datastore datastore;
 
@@ -48,42 +60,79 @@ public class EntityDiscussionThreadRepository {
 
     public int getCommentsCount(@Nonnull ProjectId projectId,
                                 @Nonnull OWLEntity entity) {
-        return findThreads(projectId, entity).stream()
-                                             .map(thread -> thread.getComments().size())
-                                             .reduce((left, right) -> left + right)
-                                             .orElse(0);
+        return getCommentCounts(projectId, entity).getCommentCount();
     }
 
     public int getOpenCommentsCount(@Nonnull ProjectId projectId,
                                     @Nonnull OWLEntity entity) {
-        return datastore.createQuery(EntityDiscussionThread.class)
-                        .disableValidation()
-                        .field(PROJECT_ID).equal(projectId)
-                        .field(ENTITY).equal(entity)
-                        .field(STATUS).equal(Status.OPEN)
-                        .asList()
-                        .stream().map(thread -> thread.getComments().size())
-                        .reduce((left, right) -> left + right)
-                        .orElse(0);
+        return getCommentCounts(projectId, entity).getOpenCommentCount();
+    }
+
+    /**
+     * Gets the number of comments, and the number of comments in open threads, for the specified entity.  The
+     * comments are counted by the database with an aggregation, so threads are not loaded.
+     */
+    @Nonnull
+    public CommentCounts getCommentCounts(@Nonnull ProjectId projectId,
+                                          @Nonnull OWLEntity entity) {
+        Query<EntityDiscussionThread> query = datastore.createQuery(EntityDiscussionThread.class)
+                                                       .disableValidation()
+                                                       .field(PROJECT_ID).equal(projectId)
+                                                       .field(ENTITY).equal(entity);
+        DBObject commentCount = new BasicDBObject("$size",
+                                                  new BasicDBObject("$ifNull", asList("$" + COMMENTS, emptyList())));
+        DBObject isOpen = new BasicDBObject("$eq", asList("$" + STATUS, Status.OPEN.name()));
+        DBObject group = new BasicDBObject("_id", null)
+                .append(COMMENT_COUNT, new BasicDBObject("$sum", commentCount))
+                .append(OPEN_COMMENT_COUNT, new BasicDBObject("$sum",
+                                                              new BasicDBObject("$cond", asList(isOpen, commentCount, 0))));
+        List<DBObject> pipeline = asList(new BasicDBObject("$match", query.getQueryObject()),
+                                         new BasicDBObject("$group", group));
+        Cursor cursor = datastore.getCollection(EntityDiscussionThread.class)
+                                 .aggregate(pipeline, AggregationOptions.builder().build());
+        try {
+            if(!cursor.hasNext()) {
+                return CommentCounts.get(0, 0);
+            }
+            DBObject counts = cursor.next();
+            return CommentCounts.get(((Number) counts.get(COMMENT_COUNT)).intValue(),
+                                     ((Number) counts.get(OPEN_COMMENT_COUNT)).intValue());
+        } finally {
+            cursor.close();
+        }
     }
 
     public void saveThread(@Nonnull EntityDiscussionThread thread) {
         datastore.save(thread);
     }
 
-    public void addCommentToThread(@Nonnull ThreadId threadId,
-                                   @Nonnull Comment comment) {
+    /**
+     * Adds a comment to the specified thread.
+     * @return The updated thread, or empty if the thread does not exist.
+     */
+    public Optional<EntityDiscussionThread> addCommentToThread(@Nonnull ThreadId threadId,
+                                                               @Nonnull Comment comment) {
         Query<EntityDiscussionThread> query = createQueryForThread(threadId);
         UpdateOperations<EntityDiscussionThread> ops = getUpdateOperations().push(COMMENTS, comment);
-        datastore.update(query, ops, false);
+        return updateAndGet(query, ops);
     }
 
+    /**
+     * Sets the status of the specified thread.
+     * @return The updated thread, or empty if the thread does not exist.
+     */
     public Optional<EntityDiscussionThread> setThreadStatus(@Nonnull ThreadId threadId,
                                                             @Nonnull Status status) {
-        datastore.updateFirst(createQueryForThread(threadId), getUpdateOperations().set(STATUS, status));
-        return Optional.ofNullable(datastore.get(EntityDiscussionThread.class, threadId));
+        return updateAndGet(createQueryForThread(threadId), getUpdateOperations().set(STATUS, status));
     }
 
+    /**
+     * Updates a thread and returns the updated thread in a single round trip.
+     */
+    private Optional<EntityDiscussionThread> updateAndGet(@Nonnull Query<EntityDiscussionThread> query,
+                                                          @Nonnull UpdateOperations<EntityDiscussionThread> ops) {
+        return Optional.ofNullable(datastore.findAndModify(query, ops, new FindAndModifyOptions().returnNew(true)));
+    }
 
     public Optional<EntityDiscussionThread> getThread(@Nonnull ThreadId id) {
         return Optional.ofNullable(datastore.find(EntityDiscussionThread.class)
@@ -91,6 +140,22 @@ public class EntityDiscussionThreadRepository {
                                             .get());
     }
 
+    /**
+     * Gets the user that created the specified thread.  Only the first comment in the thread is loaded.
+     */
+    public Optional<UserId> getThreadCreator(@Nonnull ThreadId id) {
+        EntityDiscussionThread thread = createQueryForThread(id)
+                .project(COMMENTS, new ArraySlice(1))
+                .get();
+        if(thread == null) {
+            return Optional.empty();
+        }
+        return thread.getComments()
+                     .stream()
+                     .findFirst()
+                     .map(Comment::getCreatedBy);
+    }
+
     public void replaceEntity(ProjectId projectId, OWLEntity entity, OWLEntity withEntity) {
         Query<EntityDiscussionThread> query = datastore.find(EntityDiscussionThread.class)
                                                        .field(PROJECT_ID).equal(projectId)
@@ -50,6 +50,11 @@ public class GetEntityDiscussionThreadsHandler implements ProjectActionHandler<G
         return GetEntityDiscussionThreadsAction.class;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Nonnull
     @Override
     public RequestValidator getRequestValidator(@Nonnull GetEntityDiscussionThreadsAction action, @Nonnull RequestContext requestContext) {
@@ -41,6 +41,11 @@ public class GetEntityRenderingActionHandler extends AbstractProjectActionHandle
         return GetEntityRenderingAction.class;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Nullable
     @Override
     protected BuiltInAction getRequiredExecutableBuiltInAction() {
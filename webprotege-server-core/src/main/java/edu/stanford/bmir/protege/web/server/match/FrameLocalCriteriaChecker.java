@@ -0,0 +1,194 @@
+package edu.stanford.bmir.protege.web.server.match;
+
+import edu.stanford.bmir.protege.web.shared.match.criteria.*;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Determines whether criteria are frame local.  Whether or not an entity matches frame local criteria
+ * only depends upon the entity itself and the axioms that have the entity as their subject (the frame
+ * of the entity).  Criteria that are not frame local, such as {@link SubClassOfCriteria}, may start or
+ * stop matching an entity when the frames of other entities change.
+ */
+public class FrameLocalCriteriaChecker {
+
+    private FrameLocalCriteriaChecker() {
+    }
+
+    public static boolean isFrameLocal(@Nonnull RootCriteria criteria) {
+        return criteria.accept(new RootCriteriaVisitor<Boolean>() {
+            @Nonnull
+            @Override
+            public Boolean visit(@Nonnull CompositeRootCriteria criteria) {
+                return criteria.getRootCriteria()
+                               .stream()
+                               .allMatch(FrameLocalCriteriaChecker::isFrameLocal);
+            }
+
+            @Nonnull
+            @Override
+            public Boolean visit(@Nonnull EntityAnnotationCriteria criteria) {
+                return criteria.getAnnotationCriteria()
+                               .accept(annotationCriteria -> isFrameLocal(annotationCriteria.getAnnotationValueCriteria()));
+            }
+
+            @Nonnull
+            @Override
+            public Boolean visit(@Nonnull EntityIsDeprecatedCriteria criteria) {
+                return true;
+            }
+
+            @Nonnull
+            @Override
+            public Boolean visit(@Nonnull EntityIsNotDeprecatedCriteria criteria) {
+                return true;
+            }
+
+            @Nonnull
+            @Override
+            public Boolean visit(@Nonnull EntityHasNonUniqueLangTagsCriteria criteria) {
+                return true;
+            }
+
+            @Nonnull
+            @Override
+            public Boolean visit(@Nonnull EntityTypeIsOneOfCriteria criteria) {
+                return true;
+            }
+
+            @Nonnull
+            @Override
+            public Boolean visit(@Nonnull EntityHasConflictingBooleanAnnotationValuesCriteria criteria) {
+                return true;
+            }
+
+            @Nonnull
+            @Override
+            public Boolean visit(@Nonnull EntityAnnotationValuesAreNotDisjointCriteria criteria) {
+                return true;
+            }
+
+            @Nonnull
+            @Override
+            public Boolean visit(@Nonnull IsNotBuiltInEntityCriteria criteria) {
+                return true;
+            }
+
+            @Nonnull
+            @Override
+            public Boolean visit(@Nonnull SubClassOfCriteria criteria) {
+                // Depends on the frames of the ancestors
+                return false;
+            }
+
+            @Nonnull
+            @Override
+            public Boolean visit(@Nonnull InstanceOfCriteria instanceOfCriteria) {
+                // Depends on the class hierarchy
+                return false;
+            }
+        });
+    }
+
+    private static boolean isFrameLocal(@Nonnull AnnotationValueCriteria criteria) {
+        return criteria.accept(new AnnotationValueCriteriaVisitor<Boolean>() {
+            @Override
+            public Boolean visit(@Nonnull AnyAnnotationValueCriteria criteria) {
+                return true;
+            }
+
+            @Override
+            public Boolean visit(@Nonnull IriEqualsCriteria criteria) {
+                return true;
+            }
+
+            @Override
+            public Boolean visit(@Nonnull IriHasAnnotationCriteria criteria) {
+                // Depends on the annotations of the entities that annotation values refer to
+                return false;
+            }
+
+            @Override
+            public Boolean visit(@Nonnull CompositeAnnotationValueCriteria criteria) {
+                return criteria.getAnnotationValueCriteria()
+                               .stream()
+                               .allMatch(FrameLocalCriteriaChecker::isFrameLocal);
+            }
+
+            @Override
+            public Boolean visit(@Nonnull StringStartsWithCriteria criteria) {
+                return true;
+            }
+
+            @Override
+            public Boolean visit(@Nonnull StringEndsWithCriteria criteria) {
+                return true;
+            }
+
+            @Override
+            public Boolean visit(@Nonnull StringContainsCriteria criteria) {
+                return true;
+            }
+
+            @Override
+            public Boolean visit(@Nonnull StringEqualsCriteria criteria) {
+                return true;
+            }
+
+            @Override
+            public Boolean visit(@Nonnull NumericValueCriteria criteria) {
+                return true;
+            }
+
+            @Override
+            public Boolean visit(@Nonnull StringContainsRepeatedSpacesCriteria criteria) {
+                return true;
+            }
+
+            @Override
+            public Boolean visit(@Nonnull StringHasUntrimmedSpaceCriteria criteria) {
+                return true;
+            }
+
+            @Override
+            public Boolean visit(@Nonnull StringContainsRegexMatchCriteria criteria) {
+                return true;
+            }
+
+            @Override
+            public Boolean visit(@Nonnull StringDoesNotContainRegexMatchCriteria criteria) {
+                return true;
+            }
+
+            @Override
+            public Boolean visit(@Nonnull DateIsBeforeCriteria criteria) {
+                return true;
+            }
+
+            @Override
+            public Boolean visit(@Nonnull DateIsAfterCriteria criteria) {
+                return true;
+            }
+
+            @Override
+            public Boolean visit(@Nonnull LiteralLexicalValueNotInDatatypeLexicalSpaceCriteria criteria) {
+                return true;
+            }
+
+            @Override
+            public Boolean visit(@Nonnull LangTagMatchesCriteria criteria) {
+                return true;
+            }
+
+            @Override
+            public Boolean visit(@Nonnull LangTagIsEmptyCriteria criteria) {
+                return true;
+            }
+
+            @Override
+            public Boolean visit(@Nonnull AnyLangTagOrEmptyLangTagCriteria criteria) {
+                return true;
+            }
+        });
+    }
+}
@@ -1,6 +1,9 @@
 package edu.stanford.bmir.protege.web.server.match;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
 import edu.stanford.bmir.protege.web.shared.match.criteria.*;
 import org.apache.commons.lang.StringUtils;
 import org.semanticweb.owlapi.model.OWLAnnotation;
@@ -20,9 +23,18 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
  * 11 Jun 2018
+ *
+ * Compiles criteria into matchers.  Compiled matchers are cached, so that repeatedly matching the same criteria
+ * does not require them to be compiled each time.  Matchers for criteria that refer to the class hierarchy are
+ * not cached because these matchers take a snapshot of the hierarchy and are not safe for concurrent use.
  */
+@ProjectSingleton
 public class MatcherFactory {
 
+    private static final int MAX_COMPILED_MATCHERS = 256;
+
+    private static final int MAX_COMPILED_PATTERNS = 1024;
+
     @Nonnull
     private final SubClassOfMatcherFactory subClassOfMatcherFactory;
 
@@ -47,6 +59,14 @@ public class MatcherFactory {
     @Nonnull
     private final IriAnnotationsMatcherFactory iriAnnotationsMatcherFactory;
 
+    private final Cache<RootCriteria, Matcher<OWLEntity>> compiledMatchers = Caffeine.newBuilder()
+                                                                                     .maximumSize(MAX_COMPILED_MATCHERS)
+                                                                                     .build();
+
+    private final Cache<String, Pattern> compiledPatterns = Caffeine.newBuilder()
+                                                                    .maximumSize(MAX_COMPILED_PATTERNS)
+                                                                    .build();
+
     @Inject
     public MatcherFactory(@Nonnull SubClassOfMatcherFactory subClassOfMatcherFactory,
                           @Nonnull InstanceOfMatcherFactory instanceOfMatcherFactory, @Nonnull ConflictingBooleanValuesMatcherFactory conflictingBooleanValuesMatcherFactory,
@@ -66,6 +86,16 @@ public class MatcherFactory {
     }
 
     public Matcher<OWLEntity> getMatcher(@Nonnull RootCriteria criteria) {
+        checkNotNull(criteria);
+        if(isCacheable(criteria)) {
+            return compiledMatchers.get(criteria, this::compileMatcher);
+        }
+        else {
+            return compileMatcher(criteria);
+        }
+    }
+
+    private Matcher<OWLEntity> compileMatcher(@Nonnull RootCriteria criteria) {
         return criteria.accept(new RootCriteriaVisitor<Matcher<OWLEntity>>() {
 
             @Nonnull
@@ -155,6 +185,85 @@ public class MatcherFactory {
         });
     }
 
+    /**
+     * Gets an interned compiled pattern
+     */
+    private Pattern getPattern(@Nonnull String regex, int flags) {
+        return compiledPatterns.get(flags + ":" + regex, key -> Pattern.compile(regex, flags));
+    }
+
+    private static boolean isCacheable(@Nonnull RootCriteria criteria) {
+        return criteria.accept(new RootCriteriaVisitor<Boolean>() {
+            @Nonnull
+            @Override
+            public Boolean visit(@Nonnull CompositeRootCriteria criteria) {
+                return criteria.getRootCriteria()
+                               .stream()
+                               .allMatch(MatcherFactory::isCacheable);
+            }
+
+            @Nonnull
+            @Override
+            public Boolean visit(@Nonnull EntityAnnotationCriteria criteria) {
+                return true;
+            }
+
+            @Nonnull
+            @Override
+            public Boolean visit(@Nonnull EntityIsDeprecatedCriteria criteria) {
+                return true;
+            }
+
+            @Nonnull
+            @Override
+            public Boolean visit(@Nonnull EntityIsNotDeprecatedCriteria criteria) {
+                return true;
+            }
+
+            @Nonnull
+            @Override
+            public Boolean visit(@Nonnull EntityHasNonUniqueLangTagsCriteria criteria) {
+                return true;
+            }
+
+            @Nonnull
+            @Override
+            public Boolean visit(@Nonnull EntityTypeIsOneOfCriteria criteria) {
+                return true;
+            }
+
+            @Nonnull
+            @Override
+            public Boolean visit(@Nonnull EntityHasConflictingBooleanAnnotationValuesCriteria criteria) {
+                return true;
+            }
+
+            @Nonnull
+            @Override
+            public Boolean visit(@Nonnull EntityAnnotationValuesAreNotDisjointCriteria criteria) {
+                return true;
+            }
+
+            @Nonnull
+            @Override
+            public Boolean visit(@Nonnull IsNotBuiltInEntityCriteria criteria) {
+                return true;
+            }
+
+            @Nonnull
+            @Override
+            public Boolean visit(@Nonnull SubClassOfCriteria criteria) {
+                return false;
+            }
+
+            @Nonnull
+            @Override
+            public Boolean visit(@Nonnull InstanceOfCriteria instanceOfCriteria) {
+                return false;
+            }
+        });
+    }
+
     private Matcher<OWLAnnotation> getAnnotationMatcher(AnnotationCriteria annotationCriteria) {
         return annotationCriteria.accept(new AnnotationCriteriaVisitor<Matcher<OWLAnnotation>>() {
             @Nonnull
@@ -304,7 +413,7 @@ public class MatcherFactory {
                 if(criteria.isIgnoreCase()) {
                     flags |= Pattern.CASE_INSENSITIVE;
                 }
-                Pattern pattern = Pattern.compile(criteria.getPattern(), flags);
+                Pattern pattern = getPattern(criteria.getPattern(), flags);
                 return LiteralAnnotationValueMatcher.forLexicalValueMatcher(
                         new StringContainsRegexMatchMatcher(pattern)
                 );
@@ -313,7 +422,7 @@ public class MatcherFactory {
             @Override
             public Matcher<OWLAnnotationValue> visit(@Nonnull StringDoesNotContainRegexMatchCriteria criteria) {
                 return LiteralAnnotationValueMatcher.forLexicalValueMatcher(
-                        new NotMatcher<>(new StringContainsRegexMatchMatcher(Pattern.compile(criteria.getPattern())))
+                        new NotMatcher<>(new StringContainsRegexMatchMatcher(getPattern(criteria.getPattern(), 0)))
                 );
             }
 
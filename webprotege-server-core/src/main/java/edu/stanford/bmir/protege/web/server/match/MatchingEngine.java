@@ -30,4 +30,10 @@ public interface MatchingEngine {
     boolean matches(@Nonnull OWLEntity entity, @Nonnull Criteria criteria);
 
     boolean matchesAny(@Nonnull OWLEntity entity, @Nonnull ImmutableList<? extends Criteria> criteria);
+
+    /**
+     * Gets the plan that is used to find the entities that match the specified criteria
+     */
+    @Nonnull
+    MatchingQueryPlan explain(@Nonnull Criteria criteria);
 }
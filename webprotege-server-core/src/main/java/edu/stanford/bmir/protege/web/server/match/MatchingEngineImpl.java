@@ -1,17 +1,29 @@
 package edu.stanford.bmir.protege.web.server.match;
 
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
-import edu.stanford.bmir.protege.web.server.index.ProjectSignatureIndex;
+import com.google.common.collect.Lists;
+import edu.stanford.bmir.protege.web.shared.match.criteria.CompositeRootCriteria;
 import edu.stanford.bmir.protege.web.shared.match.criteria.Criteria;
+import edu.stanford.bmir.protege.web.shared.match.criteria.MultiMatchType;
 import edu.stanford.bmir.protege.web.shared.match.criteria.RootCriteria;
 import org.semanticweb.owlapi.model.OWLEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.stream.Collectors.toList;
 
 /**
  * Matthew Horridge
@@ -20,34 +32,45 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
  */
 public class MatchingEngineImpl implements MatchingEngine {
 
+    private static final Logger logger = LoggerFactory.getLogger(MatchingEngineImpl.class);
+
+    /**
+     * Candidates are evaluated in parallel, in partitions of this size, if there are more candidates than this
+     */
+    private static final int PARTITION_SIZE = 5_000;
+
     @Nonnull
-    private final ProjectSignatureIndex projectSignatureIndex;
+    private final MatchingQueryPlanner queryPlanner;
 
     @Nonnull
     private final MatcherFactory matcherFactory;
 
+    @Nonnull
+    private final ExecutorService executorService;
+
     @Inject
-    public MatchingEngineImpl(@Nonnull ProjectSignatureIndex projectSignatureIndex,
-                              @Nonnull MatcherFactory matcherFactory) {
-        this.projectSignatureIndex = projectSignatureIndex;
+    public MatchingEngineImpl(@Nonnull MatchingQueryPlanner queryPlanner,
+                              @Nonnull MatcherFactory matcherFactory,
+                              @Nonnull @MatchingExecutor ExecutorService executorService) {
+        this.queryPlanner = checkNotNull(queryPlanner);
         this.matcherFactory = checkNotNull(matcherFactory);
+        this.executorService = checkNotNull(executorService);
     }
 
     @Override
     public Stream<OWLEntity> match(@Nonnull Criteria criteria) {
-        Matcher<OWLEntity> matcher = getMatcher(criteria);
-        return projectSignatureIndex.getSignature()
-                                    .filter(matcher::matches);
+        return evaluate(queryPlanner.plan((RootCriteria) criteria), () -> getMatcher(criteria));
     }
 
     @Override
     public Stream<OWLEntity> matchAny(@Nonnull ImmutableList<? extends Criteria> criteria) {
-        ImmutableList<Matcher<OWLEntity>> matchers = criteria.stream()
-                                                             .map(this::getMatcher)
-                                                             .collect(toImmutableList());
-        OrMatcher<OWLEntity> orMatcher = new OrMatcher<>(matchers);
-        return projectSignatureIndex.getSignature()
-                                    .filter(orMatcher::matches);
+        var plan = queryPlanner.plan(toDisjunction(criteria));
+        return evaluate(plan, () -> {
+            ImmutableList<Matcher<OWLEntity>> matchers = criteria.stream()
+                                                                 .map(this::getMatcher)
+                                                                 .collect(toImmutableList());
+            return new OrMatcher<>(matchers);
+        });
     }
 
     @Override
@@ -57,9 +80,79 @@ public class MatchingEngineImpl implements MatchingEngine {
 
     @Override
     public boolean matchesAny(@Nonnull OWLEntity entity, @Nonnull ImmutableList<? extends Criteria> criteria) {
-        return criteria.stream()
-                       .map(this::getMatcher)
-                       .anyMatch(c -> c.matches(entity));
+        // Called for single entities on hot paths, so avoid streams
+        for(var c : criteria) {
+            if(getMatcher(c).matches(entity)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Nonnull
+    @Override
+    public MatchingQueryPlan explain(@Nonnull Criteria criteria) {
+        return queryPlanner.plan((RootCriteria) criteria);
+    }
+
+    private static RootCriteria toDisjunction(@Nonnull ImmutableList<? extends Criteria> criteria) {
+        var rootCriteria = criteria.stream()
+                                   .map(c -> (RootCriteria) c)
+                                   .collect(toImmutableList());
+        return CompositeRootCriteria.get(rootCriteria, MultiMatchType.ANY);
+    }
+
+    /**
+     * Evaluates matchers against the candidates of the specified plan.
+     * @param matcherSupplier A supplier of matchers.  Matchers may lazily compute and cache state, so each partition
+     *                        of the candidates that is evaluated in parallel gets its own matcher.
+     */
+    private Stream<OWLEntity> evaluate(@Nonnull MatchingQueryPlan plan,
+                                       @Nonnull Supplier<Matcher<OWLEntity>> matcherSupplier) {
+        var stopwatch = Stopwatch.createStarted();
+        var candidateStream = plan.getCandidates();
+        if(!plan.isFullScan()) {
+            // Index lookups can produce the same entity more than once
+            candidateStream = candidateStream.distinct();
+        }
+        var candidates = candidateStream.collect(toList());
+        var partitions = Lists.partition(candidates, PARTITION_SIZE);
+        var matches = new ArrayList<OWLEntity>();
+        if(partitions.size() < 2) {
+            partitions.forEach(partition -> matches.addAll(evaluatePartition(partition, matcherSupplier.get())));
+        }
+        else {
+            var futures = new ArrayList<Future<List<OWLEntity>>>(partitions.size());
+            try {
+                for(var partition : partitions) {
+                    futures.add(executorService.submit(() -> evaluatePartition(partition, matcherSupplier.get())));
+                }
+                for(var future : futures) {
+                    matches.addAll(future.get());
+                }
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted whilst matching entities", e);
+            } catch(ExecutionException e) {
+                throw new RuntimeException("Error whilst matching entities", e.getCause());
+            } finally {
+                futures.forEach(future -> future.cancel(true));
+            }
+        }
+        logger.debug("{}: Matched {} of {} candidates in {} partitions in {} ms",
+                     plan.explain(),
+                     matches.size(),
+                     candidates.size(),
+                     partitions.size(),
+                     stopwatch.elapsed().toMillis());
+        return matches.stream();
+    }
+
+    private static List<OWLEntity> evaluatePartition(@Nonnull List<OWLEntity> partition,
+                                                     @Nonnull Matcher<OWLEntity> matcher) {
+        return partition.stream()
+                        .filter(matcher::matches)
+                        .collect(toList());
     }
 
     private Matcher<OWLEntity> getMatcher(@Nonnull Criteria rootCriteria) {
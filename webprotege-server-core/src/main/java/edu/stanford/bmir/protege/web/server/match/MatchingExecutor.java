@@ -0,0 +1,14 @@
+package edu.stanford.bmir.protege.web.server.match;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Qualifies the executor that is used to evaluate criteria over large sets of candidate entities in parallel.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MatchingExecutor {
+
+}
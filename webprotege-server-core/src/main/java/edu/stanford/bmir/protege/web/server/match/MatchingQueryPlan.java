@@ -0,0 +1,87 @@
+package edu.stanford.bmir.protege.web.server.match;
+
+import org.semanticweb.owlapi.model.OWLEntity;
+
+import javax.annotation.Nonnull;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A plan for evaluating criteria.  A plan specifies the candidate entities that the criteria are evaluated
+ * against.  The candidates are a superset of the entities that match the criteria.  Either they are the
+ * entities in the project signature (a full scan), or they are retrieved from an index using the most
+ * selective indexed criterion.
+ */
+public class MatchingQueryPlan {
+
+    @Nonnull
+    private final String candidateSource;
+
+    private final boolean fullScan;
+
+    @Nonnull
+    private final Supplier<Stream<OWLEntity>> candidates;
+
+    private MatchingQueryPlan(@Nonnull String candidateSource,
+                              boolean fullScan,
+                              @Nonnull Supplier<Stream<OWLEntity>> candidates) {
+        this.candidateSource = checkNotNull(candidateSource);
+        this.fullScan = fullScan;
+        this.candidates = checkNotNull(candidates);
+    }
+
+    @Nonnull
+    public static MatchingQueryPlan fullScan(@Nonnull Supplier<Stream<OWLEntity>> signature) {
+        return new MatchingQueryPlan("Project signature", true, signature);
+    }
+
+    /**
+     * Creates a plan that uses an index to retrieve candidates.
+     * @param candidateSource A human readable description of the index lookup.
+     * @param candidates A supplier of the candidates.  The candidates must all be in the project signature, and
+     *                   may contain duplicates.
+     */
+    @Nonnull
+    public static MatchingQueryPlan indexed(@Nonnull String candidateSource,
+                                            @Nonnull Supplier<Stream<OWLEntity>> candidates) {
+        return new MatchingQueryPlan(candidateSource, false, candidates);
+    }
+
+    /**
+     * Determines whether this plan scans the whole project signature.
+     */
+    public boolean isFullScan() {
+        return fullScan;
+    }
+
+    /**
+     * Gets a description of where the candidates come from
+     */
+    @Nonnull
+    public String getCandidateSource() {
+        return candidateSource;
+    }
+
+    /**
+     * Retrieves the candidates.  Each call performs the retrieval again.
+     */
+    @Nonnull
+    public Stream<OWLEntity> getCandidates() {
+        return candidates.get();
+    }
+
+    /**
+     * Gets a human readable explanation of this plan
+     */
+    @Nonnull
+    public String explain() {
+        return (fullScan ? "Full scan: " : "Index lookup: ") + candidateSource;
+    }
+
+    @Override
+    public String toString() {
+        return "MatchingQueryPlan(" + explain() + ")";
+    }
+}
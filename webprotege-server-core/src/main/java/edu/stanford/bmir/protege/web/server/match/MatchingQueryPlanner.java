@@ -0,0 +1,294 @@
+package edu.stanford.bmir.protege.web.server.match;
+
+import edu.stanford.bmir.protege.web.server.hierarchy.ClassHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.index.*;
+import edu.stanford.bmir.protege.web.shared.match.AnnotationPresence;
+import edu.stanford.bmir.protege.web.shared.match.criteria.*;
+import org.semanticweb.owlapi.model.*;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Plans the evaluation of criteria.  Rather than evaluating criteria against every entity in the project
+ * signature, the planner looks for criteria that can be answered, or over-approximated, by an index lookup and uses
+ * the most selective of these to retrieve candidate entities.  The full criteria still have to be evaluated against
+ * each candidate.
+ *
+ * The indexed criteria are, from most to least selective: direct sub classes and direct instances of a class;
+ * entities that have an annotation with a specific property (including deprecated entities); all sub classes and
+ * instances of a class; entities of a given type.  For conjunctions the most selective indexed conjunct is used.
+ * Disjunctions can only be indexed if all of the disjuncts can be indexed.
+ */
+public class MatchingQueryPlanner {
+
+    private static final int DIRECT_HIERARCHY_SELECTIVITY = 0;
+
+    private static final int ANNOTATION_PROPERTY_SELECTIVITY = 1;
+
+    private static final int HIERARCHY_SELECTIVITY = 2;
+
+    private static final int ENTITY_TYPE_SELECTIVITY = 3;
+
+    @Nonnull
+    private final ProjectSignatureIndex projectSignatureIndex;
+
+    @Nonnull
+    private final ProjectSignatureByTypeIndex projectSignatureByTypeIndex;
+
+    @Nonnull
+    private final ProjectOntologiesIndex projectOntologiesIndex;
+
+    @Nonnull
+    private final AxiomsByEntityReferenceIndex axiomsByEntityReferenceIndex;
+
+    @Nonnull
+    private final ClassAssertionAxiomsByClassIndex classAssertionAxiomsByClassIndex;
+
+    @Nonnull
+    private final EntitiesInProjectSignatureByIriIndex entitiesInProjectSignatureByIriIndex;
+
+    @Nonnull
+    private final ClassHierarchyProvider classHierarchyProvider;
+
+    @Nonnull
+    private final OWLDataFactory dataFactory;
+
+    @Inject
+    public MatchingQueryPlanner(@Nonnull ProjectSignatureIndex projectSignatureIndex,
+                                @Nonnull ProjectSignatureByTypeIndex projectSignatureByTypeIndex,
+                                @Nonnull ProjectOntologiesIndex projectOntologiesIndex,
+                                @Nonnull AxiomsByEntityReferenceIndex axiomsByEntityReferenceIndex,
+                                @Nonnull ClassAssertionAxiomsByClassIndex classAssertionAxiomsByClassIndex,
+                                @Nonnull EntitiesInProjectSignatureByIriIndex entitiesInProjectSignatureByIriIndex,
+                                @Nonnull ClassHierarchyProvider classHierarchyProvider,
+                                @Nonnull OWLDataFactory dataFactory) {
+        this.projectSignatureIndex = checkNotNull(projectSignatureIndex);
+        this.projectSignatureByTypeIndex = checkNotNull(projectSignatureByTypeIndex);
+        this.projectOntologiesIndex = checkNotNull(projectOntologiesIndex);
+        this.axiomsByEntityReferenceIndex = checkNotNull(axiomsByEntityReferenceIndex);
+        this.classAssertionAxiomsByClassIndex = checkNotNull(classAssertionAxiomsByClassIndex);
+        this.entitiesInProjectSignatureByIriIndex = checkNotNull(entitiesInProjectSignatureByIriIndex);
+        this.classHierarchyProvider = checkNotNull(classHierarchyProvider);
+        this.dataFactory = checkNotNull(dataFactory);
+    }
+
+    /**
+     * Plans the evaluation of the specified criteria
+     */
+    @Nonnull
+    public MatchingQueryPlan plan(@Nonnull RootCriteria criteria) {
+        return getIndexedCandidates(criteria)
+                .map(candidates -> MatchingQueryPlan.indexed(candidates.description, candidates.supplier))
+                .orElseGet(() -> MatchingQueryPlan.fullScan(projectSignatureIndex::getSignature));
+    }
+
+    private Optional<IndexedCandidates> getIndexedCandidates(@Nonnull RootCriteria criteria) {
+        return criteria.accept(new RootCriteriaVisitor<>() {
+            @Nonnull
+            @Override
+            public Optional<IndexedCandidates> visit(@Nonnull CompositeRootCriteria criteria) {
+                var childCandidates = criteria.getRootCriteria()
+                                              .stream()
+                                              .map(MatchingQueryPlanner.this::getIndexedCandidates)
+                                              .collect(toList());
+                if(criteria.getMatchType() == MultiMatchType.ALL) {
+                    return childCandidates.stream()
+                                          .flatMap(Optional::stream)
+                                          .min(Comparator.comparingInt(candidates -> candidates.selectivity));
+                }
+                else {
+                    if(childCandidates.isEmpty() || !childCandidates.stream().allMatch(Optional::isPresent)) {
+                        return Optional.empty();
+                    }
+                    return Optional.of(union(childCandidates.stream()
+                                                            .map(Optional::get)
+                                                            .collect(toList())));
+                }
+            }
+
+            @Nonnull
+            @Override
+            public Optional<IndexedCandidates> visit(@Nonnull EntityAnnotationCriteria criteria) {
+                if(criteria.getAnnotationPresence() != AnnotationPresence.AT_LEAST_ONE) {
+                    return Optional.empty();
+                }
+                return criteria.getAnnotationCriteria()
+                               .accept(annotationCriteria -> getAnnotationPropertyIri(annotationCriteria.getAnnotationPropertyCriteria()))
+                               .map(iri -> getAnnotatedEntities(dataFactory.getOWLAnnotationProperty(iri)));
+            }
+
+            @Nonnull
+            @Override
+            public Optional<IndexedCandidates> visit(@Nonnull EntityIsDeprecatedCriteria criteria) {
+                return Optional.of(getAnnotatedEntities(dataFactory.getOWLDeprecated()));
+            }
+
+            @Nonnull
+            @Override
+            public Optional<IndexedCandidates> visit(@Nonnull EntityIsNotDeprecatedCriteria criteria) {
+                return Optional.empty();
+            }
+
+            @Nonnull
+            @Override
+            public Optional<IndexedCandidates> visit(@Nonnull EntityHasNonUniqueLangTagsCriteria criteria) {
+                return Optional.empty();
+            }
+
+            @Nonnull
+            @Override
+            public Optional<IndexedCandidates> visit(@Nonnull EntityTypeIsOneOfCriteria criteria) {
+                var entityTypes = criteria.getEntityTypes();
+                if(entityTypes.containsAll(EntityType.values())) {
+                    return Optional.empty();
+                }
+                return Optional.of(new IndexedCandidates(
+                        ENTITY_TYPE_SELECTIVITY,
+                        "Entities of type " + entityTypes.stream()
+                                                         .map(EntityType::getName)
+                                                         .sorted()
+                                                         .collect(joining(", ")),
+                        () -> entityTypes.stream()
+                                         .flatMap(projectSignatureByTypeIndex::getSignature)));
+            }
+
+            @Nonnull
+            @Override
+            public Optional<IndexedCandidates> visit(@Nonnull EntityHasConflictingBooleanAnnotationValuesCriteria criteria) {
+                return Optional.empty();
+            }
+
+            @Nonnull
+            @Override
+            public Optional<IndexedCandidates> visit(@Nonnull EntityAnnotationValuesAreNotDisjointCriteria criteria) {
+                return Optional.empty();
+            }
+
+            @Nonnull
+            @Override
+            public Optional<IndexedCandidates> visit(@Nonnull IsNotBuiltInEntityCriteria criteria) {
+                return Optional.empty();
+            }
+
+            @Nonnull
+            @Override
+            public Optional<IndexedCandidates> visit(@Nonnull SubClassOfCriteria criteria) {
+                var target = criteria.getTarget();
+                if(criteria.getFilterType() == HierarchyFilterType.DIRECT) {
+                    return Optional.of(new IndexedCandidates(DIRECT_HIERARCHY_SELECTIVITY,
+                                                             "Direct sub classes of " + target.getIRI(),
+                                                             () -> classHierarchyProvider.getChildren(target)
+                                                                                         .stream()
+                                                                                         .map(cls -> cls)));
+                }
+                else {
+                    return Optional.of(new IndexedCandidates(HIERARCHY_SELECTIVITY,
+                                                             "Sub classes of " + target.getIRI(),
+                                                             () -> classHierarchyProvider.getDescendants(target)
+                                                                                         .stream()
+                                                                                         .map(cls -> cls)));
+                }
+            }
+
+            @Nonnull
+            @Override
+            public Optional<IndexedCandidates> visit(@Nonnull InstanceOfCriteria criteria) {
+                var target = criteria.getTarget();
+                if(criteria.getFilterType() == HierarchyFilterType.DIRECT) {
+                    return Optional.of(new IndexedCandidates(DIRECT_HIERARCHY_SELECTIVITY,
+                                                             "Direct instances of " + target.getIRI(),
+                                                             () -> getAssertedInstances(Stream.of(target))));
+                }
+                else if(target.isOWLThing()) {
+                    return Optional.of(new IndexedCandidates(ENTITY_TYPE_SELECTIVITY,
+                                                             "Entities of type NamedIndividual",
+                                                             () -> projectSignatureByTypeIndex.getSignature(EntityType.NAMED_INDIVIDUAL)
+                                                                                              .map(ind -> ind)));
+                }
+                else {
+                    return Optional.of(new IndexedCandidates(HIERARCHY_SELECTIVITY,
+                                                             "Instances of " + target.getIRI(),
+                                                             () -> getAssertedInstances(Stream.concat(
+                                                                     Stream.of(target),
+                                                                     classHierarchyProvider.getDescendants(target).stream()))));
+                }
+            }
+        });
+    }
+
+    private static Optional<IRI> getAnnotationPropertyIri(@Nonnull AnnotationPropertyCriteria criteria) {
+        return criteria.accept(new AnnotationPropertyCriteriaVisitor<>() {
+            @Nonnull
+            @Override
+            public Optional<IRI> visit(@Nonnull AnyAnnotationPropertyCriteria criteria) {
+                return Optional.empty();
+            }
+
+            @Nonnull
+            @Override
+            public Optional<IRI> visit(@Nonnull IriEqualsCriteria criteria) {
+                return Optional.of(criteria.getIri());
+            }
+        });
+    }
+
+    private IndexedCandidates getAnnotatedEntities(@Nonnull OWLAnnotationProperty property) {
+        return new IndexedCandidates(ANNOTATION_PROPERTY_SELECTIVITY,
+                                     "Entities annotated with " + property.getIRI(),
+                                     () -> projectOntologiesIndex.getOntologyIds()
+                                                                 .flatMap(ontId -> axiomsByEntityReferenceIndex.getReferencingAxioms(property, ontId))
+                                                                 .filter(ax -> ax instanceof OWLAnnotationAssertionAxiom)
+                                                                 .map(ax -> (OWLAnnotationAssertionAxiom) ax)
+                                                                 .filter(ax -> ax.getProperty().equals(property))
+                                                                 .map(OWLAnnotationAssertionAxiom::getSubject)
+                                                                 .filter(subject -> subject instanceof IRI)
+                                                                 .flatMap(subject -> entitiesInProjectSignatureByIriIndex.getEntityInSignature((IRI) subject)));
+    }
+
+    private Stream<OWLEntity> getAssertedInstances(@Nonnull Stream<OWLClass> types) {
+        return types.flatMap(type -> projectOntologiesIndex.getOntologyIds()
+                                                           .flatMap(ontId -> classAssertionAxiomsByClassIndex.getClassAssertionAxioms(type, ontId)))
+                    .map(OWLClassAssertionAxiom::getIndividual)
+                    .filter(OWLIndividual::isNamed)
+                    .map(OWLIndividual::asOWLNamedIndividual);
+    }
+
+    private static IndexedCandidates union(@Nonnull List<IndexedCandidates> candidates) {
+        var selectivity = candidates.stream()
+                                    .mapToInt(c -> c.selectivity)
+                                    .max()
+                                    .orElse(ENTITY_TYPE_SELECTIVITY);
+        var description = candidates.stream()
+                                    .map(c -> c.description)
+                                    .collect(joining(" or ", "(", ")"));
+        return new IndexedCandidates(selectivity,
+                                     description,
+                                     () -> candidates.stream()
+                                                     .flatMap(c -> c.supplier.get()));
+    }
+
+    private static class IndexedCandidates {
+
+        private final int selectivity;
+
+        private final String description;
+
+        private final Supplier<Stream<OWLEntity>> supplier;
+
+        private IndexedCandidates(int selectivity, String description, Supplier<Stream<OWLEntity>> supplier) {
+            this.selectivity = selectivity;
+            this.description = description;
+            this.supplier = supplier;
+        }
+    }
+}
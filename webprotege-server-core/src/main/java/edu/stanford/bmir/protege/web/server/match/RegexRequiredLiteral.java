@@ -0,0 +1,215 @@
+package edu.stanford.bmir.protege.web.server.match;
+
+import javax.annotation.Nonnull;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts a literal string that must be contained in any string in which a regular expression finds a match.
+ * Checking for the literal is much cheaper than running the regular expression, so it can be used to reject
+ * most strings before the regular expression is run.  The extraction is conservative.  For patterns that it
+ * does not understand, such as patterns with alternation or embedded flags, no literal is extracted.
+ */
+public class RegexRequiredLiteral {
+
+    private static final String META_CHARACTERS = "\\^$.|?*+()[]{}";
+
+    private static final int UNSUPPORTED_FLAGS = Pattern.COMMENTS | Pattern.LITERAL | Pattern.CANON_EQ;
+
+    private RegexRequiredLiteral() {
+    }
+
+    /**
+     * Determines whether the specified pattern only matches its own text.  That is, it does not contain any
+     * meta characters and it is not affected by any flags.
+     */
+    public static boolean isPlainLiteral(@Nonnull Pattern pattern) {
+        if(pattern.flags() != 0) {
+            return false;
+        }
+        var regex = pattern.pattern();
+        for(int i = 0; i < regex.length(); i++) {
+            if(META_CHARACTERS.indexOf(regex.charAt(i)) != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the longest literal that must appear in any string that the specified pattern finds a match in.
+     * If the pattern is case insensitive then the literal must appear, ignoring case.
+     * @return The literal, or an empty optional if there is no such literal or it could not be determined.
+     */
+    @Nonnull
+    public static Optional<String> getRequiredLiteral(@Nonnull Pattern pattern) {
+        if((pattern.flags() & UNSUPPORTED_FLAGS) != 0) {
+            return Optional.empty();
+        }
+        var regex = pattern.pattern();
+        if(regex.indexOf('|') != -1 || regex.contains("(?") || regex.contains("\\Q")) {
+            return Optional.empty();
+        }
+        var longest = "";
+        var run = new StringBuilder();
+        var groupDepth = 0;
+        for(int i = 0; i < regex.length(); i++) {
+            var c = regex.charAt(i);
+            switch(c) {
+                case '\\':
+                    // The escape might be a character class such as \d, or a multi-character escape such as \x41
+                    longest = longer(longest, run);
+                    i = getEscapeEnd(regex, i);
+                    if(i == -1) {
+                        return Optional.empty();
+                    }
+                    break;
+                case '[':
+                    longest = longer(longest, run);
+                    i = skipCharacterClass(regex, i);
+                    if(i == -1) {
+                        return Optional.empty();
+                    }
+                    break;
+                case '(':
+                    longest = longer(longest, run);
+                    groupDepth++;
+                    break;
+                case ')':
+                    longest = longer(longest, run);
+                    groupDepth--;
+                    break;
+                case '?':
+                case '*':
+                case '{':
+                    // The preceding character is optional
+                    if(run.length() > 0) {
+                        run.setLength(run.length() - 1);
+                    }
+                    longest = longer(longest, run);
+                    if(c == '{') {
+                        i = regex.indexOf('}', i);
+                        if(i == -1) {
+                            return Optional.empty();
+                        }
+                    }
+                    break;
+                case '+':
+                case '.':
+                case '^':
+                case '$':
+                case '}':
+                    longest = longer(longest, run);
+                    break;
+                default:
+                    // Characters in groups are ignored because the group might be optional
+                    if(groupDepth == 0) {
+                        run.append(c);
+                    }
+            }
+        }
+        longest = longer(longest, run);
+        return longest.isEmpty() ? Optional.empty() : Optional.of(longest);
+    }
+
+    private static String longer(String longest, StringBuilder run) {
+        var result = run.length() > longest.length() ? run.toString() : longest;
+        run.setLength(0);
+        return result;
+    }
+
+    /**
+     * Skips a character class
+     * @param regex The regex
+     * @param start The position of the opening bracket
+     * @return The position of the closing bracket, or -1 if the class is not closed or contains nested classes
+     */
+    private static int skipCharacterClass(String regex, int start) {
+        var i = start + 1;
+        if(i < regex.length() && regex.charAt(i) == '^') {
+            i++;
+        }
+        if(i < regex.length() && regex.charAt(i) == ']') {
+            // A leading close bracket is a literal
+            i++;
+        }
+        for(; i < regex.length(); i++) {
+            var c = regex.charAt(i);
+            if(c == '\\') {
+                i = getEscapeEnd(regex, i);
+                if(i == -1) {
+                    return -1;
+                }
+            }
+            else if(c == '[') {
+                return -1;
+            }
+            else if(c == ']') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the end of an escape sequence
+     * @param regex The regex
+     * @param start The position of the backslash
+     * @return The position of the last character of the escape sequence, or -1 if the end could not be found
+     */
+    private static int getEscapeEnd(String regex, int start) {
+        var i = start + 1;
+        if(i >= regex.length()) {
+            return -1;
+        }
+        switch(regex.charAt(i)) {
+            case 'x':
+                // \xhh or \x{h...h}
+                if(i + 1 < regex.length() && regex.charAt(i + 1) == '{') {
+                    return regex.indexOf('}', i);
+                }
+                return inBounds(regex, i + 2);
+            case 'u':
+                // Four hexadecimal digits
+                return inBounds(regex, i + 4);
+            case 'c':
+                // \cx
+                return inBounds(regex, i + 1);
+            case '0':
+                // \0n, \0nn or \0mnn, where m is at most 3
+                var maxDigits = i + 1 < regex.length() && regex.charAt(i + 1) <= '3' ? 3 : 2;
+                var digits = 0;
+                while(digits < maxDigits && i + digits + 1 < regex.length() && isOctalDigit(regex.charAt(i + digits + 1))) {
+                    digits++;
+                }
+                return i + digits;
+            case 'k':
+                // \k<name>
+                return regex.indexOf('>', i);
+            case 'p':
+            case 'P':
+            case 'N':
+                // \pL, \p{name} or \N{name}
+                if(i + 1 < regex.length() && regex.charAt(i + 1) == '{') {
+                    return regex.indexOf('}', i);
+                }
+                return inBounds(regex, i + 1);
+            default:
+                if(Character.isDigit(regex.charAt(i))) {
+                    // A back reference.  Trailing digits might be literals but it is safe to skip them.
+                    while(i + 1 < regex.length() && Character.isDigit(regex.charAt(i + 1))) {
+                        i++;
+                    }
+                }
+                return i;
+        }
+    }
+
+    private static int inBounds(String regex, int i) {
+        return i < regex.length() ? i : -1;
+    }
+
+    private static boolean isOctalDigit(char c) {
+        return c >= '0' && c <= '7';
+    }
+}
@@ -1,6 +1,9 @@
 package edu.stanford.bmir.protege.web.server.match;
 
+import org.apache.commons.lang.StringUtils;
+
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.regex.Pattern;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -15,12 +18,34 @@ public class StringContainsRegexMatchMatcher implements Matcher<String> {
     @Nonnull
     private final Pattern pattern;
 
+    /**
+     * A literal that any matching string must contain.  This is checked before the pattern is run.
+     */
+    @Nullable
+    private final String requiredLiteral;
+
+    private final boolean ignoreCase;
+
+    private final boolean plainLiteral;
+
     public StringContainsRegexMatchMatcher(@Nonnull Pattern pattern) {
         this.pattern = checkNotNull(pattern);
+        this.requiredLiteral = RegexRequiredLiteral.getRequiredLiteral(pattern).orElse(null);
+        this.ignoreCase = (pattern.flags() & Pattern.CASE_INSENSITIVE) != 0;
+        this.plainLiteral = RegexRequiredLiteral.isPlainLiteral(pattern);
     }
 
     @Override
     public boolean matches(@Nonnull String value) {
+        if(plainLiteral) {
+            return value.contains(pattern.pattern());
+        }
+        if(requiredLiteral != null) {
+            var containsLiteral = ignoreCase ? StringUtils.containsIgnoreCase(value, requiredLiteral) : value.contains(requiredLiteral);
+            if(!containsLiteral) {
+                return false;
+            }
+        }
         return pattern.matcher(value).find();
     }
 }
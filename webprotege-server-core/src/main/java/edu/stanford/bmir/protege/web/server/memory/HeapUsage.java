@@ -0,0 +1,91 @@
+package edu.stanford.bmir.protege.web.server.memory;
+
+import com.google.auto.value.AutoValue;
+
+import javax.annotation.Nonnull;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * A snapshot of the usage of the tenured (old generation) heap pool.  The used bytes are the usage of the pool
+ * immediately after it was last collected, rather than its current usage, so that garbage that is waiting to be
+ * collected does not look like memory pressure.  The figure is an estimate of the long lived data in the heap.
+ */
+@AutoValue
+public abstract class HeapUsage {
+
+    @Nonnull
+    public static HeapUsage get(long maxBytes, long usedBytes, long collectionCount) {
+        return new AutoValue_HeapUsage(maxBytes, usedBytes, collectionCount);
+    }
+
+    /**
+     * Gets the current heap usage.  If the tenured pool cannot be identified then the whole heap is used.
+     */
+    @Nonnull
+    public static HeapUsage current() {
+        return getTenuredPool().map(HeapUsage::getTenuredPoolUsage)
+                               .orElseGet(HeapUsage::getWholeHeapUsage);
+    }
+
+    /**
+     * Gets the pool that holds long lived objects.  This is the heap pool that supports both usage thresholds and
+     * collection usage thresholds.  The eden and survivor spaces do not support usage thresholds.
+     */
+    @Nonnull
+    private static Optional<MemoryPoolMXBean> getTenuredPool() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                                .filter(MemoryPoolMXBean::isValid)
+                                .filter(MemoryPoolMXBean::isUsageThresholdSupported)
+                                .filter(MemoryPoolMXBean::isCollectionUsageThresholdSupported)
+                                .findFirst();
+    }
+
+    @Nonnull
+    private static HeapUsage getTenuredPoolUsage(@Nonnull MemoryPoolMXBean tenuredPool) {
+        var usage = tenuredPool.getUsage();
+        var collectionUsage = tenuredPool.getCollectionUsage();
+        var usedBytes = collectionUsage != null ? collectionUsage.getUsed() : usage.getUsed();
+        var maxBytes = usage.getMax() != -1 ? usage.getMax() : Runtime.getRuntime().maxMemory();
+        // Only collections of the tenured pool can change its collection usage
+        var collectionCount = 0L;
+        for(var collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if(Arrays.asList(collector.getMemoryPoolNames()).contains(tenuredPool.getName())) {
+                collectionCount += Math.max(0, collector.getCollectionCount());
+            }
+        }
+        return get(maxBytes, usedBytes, collectionCount);
+    }
+
+    @Nonnull
+    private static HeapUsage getWholeHeapUsage() {
+        var runtime = Runtime.getRuntime();
+        var collectionCount = 0L;
+        for(var collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collectionCount += Math.max(0, collector.getCollectionCount());
+        }
+        return get(runtime.maxMemory(), runtime.totalMemory() - runtime.freeMemory(), collectionCount);
+    }
+
+    public abstract long getMaxBytes();
+
+    public abstract long getUsedBytes();
+
+    /**
+     * Gets the total number of garbage collections that have taken place.  This can be used to tell whether
+     * usage figures reflect memory that has been released since an earlier snapshot.
+     */
+    public abstract long getCollectionCount();
+
+    public long getFreeBytes() {
+        return Math.max(0, getMaxBytes() - getUsedBytes());
+    }
+
+    public double getFreePercent() {
+        return 100.0 * getFreeBytes() / getMaxBytes();
+    }
+}
@@ -0,0 +1,68 @@
+package edu.stanford.bmir.protege.web.server.memory;
+
+import com.google.common.collect.ImmutableMap;
+import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.util.EnumMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Keeps track of the objects that hold project data in memory so that the memory used by a project can be
+ * estimated, and so that caches can be discarded when memory runs low.
+ */
+@ProjectSingleton
+public class ProjectMemoryAccountant {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectMemoryAccountant.class);
+
+    @Nonnull
+    private final ProjectId projectId;
+
+    private final Set<ProjectMemoryConsumer> consumers = ConcurrentHashMap.newKeySet();
+
+    @Inject
+    public ProjectMemoryAccountant(@Nonnull ProjectId projectId) {
+        this.projectId = checkNotNull(projectId);
+    }
+
+    /**
+     * Registers a consumer.  Registering a consumer that is already registered has no effect.
+     */
+    public void register(@Nonnull ProjectMemoryConsumer consumer) {
+        consumers.add(checkNotNull(consumer));
+    }
+
+    @Nonnull
+    public ProjectMemoryUsage getEstimatedUsage() {
+        var estimatedSizes = new EnumMap<ProjectMemoryCategory, Long>(ProjectMemoryCategory.class);
+        for(var consumer : consumers) {
+            estimatedSizes.merge(consumer.getMemoryCategory(), consumer.getEstimatedSizeInBytes(), Long::sum);
+        }
+        return ProjectMemoryUsage.get(ImmutableMap.copyOf(estimatedSizes));
+    }
+
+    /**
+     * Discards the data held by sheddable consumers
+     * @return The estimated number of bytes that were released
+     */
+    public long shed() {
+        var released = 0L;
+        for(var consumer : consumers) {
+            if(consumer.isSheddable()) {
+                var sizeBefore = consumer.getEstimatedSizeInBytes();
+                consumer.shed();
+                released += Math.max(0, sizeBefore - consumer.getEstimatedSizeInBytes());
+            }
+        }
+        logger.info("{} Shed project caches.  Released an estimated {} KB", projectId, released / 1024);
+        return released;
+    }
+}
@@ -0,0 +1,54 @@
+package edu.stanford.bmir.protege.web.server.memory;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The kinds of project data whose memory usage is accounted for.
+ */
+public enum ProjectMemoryCategory {
+
+    /**
+     * The project ontologies, along with the indexes over them.  Entity hierarchies are computed from these
+     * indexes, so they are accounted for here.
+     */
+    ONTOLOGIES("ontologies"),
+
+    /**
+     * The revisions that make up the project change history
+     */
+    REVISIONS("revisions"),
+
+    /**
+     * The multilingual short form dictionaries
+     */
+    DICTIONARIES("dictionaries"),
+
+    /**
+     * The cache of change records, by revision and subject, that is used to render project changes
+     */
+    PROJECT_CHANGES_CACHE("project_changes_cache"),
+
+    /**
+     * The cache of entities that are changed in each revision
+     */
+    ENTITIES_BY_REVISION_CACHE("entities_by_revision_cache"),
+
+    /**
+     * The cache of entity neighbourhoods that is used to build entity graphs
+     */
+    ENTITY_GRAPH_CACHE("entity_graph_cache");
+
+    private final String name;
+
+    ProjectMemoryCategory(@Nonnull String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the name of this category, as it appears in metrics
+     */
+    @Nonnull
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,34 @@
+package edu.stanford.bmir.protege.web.server.memory;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An object that holds a significant amount of project data in memory.  Consumers register themselves with the
+ * {@link ProjectMemoryAccountant} for their project.
+ */
+public interface ProjectMemoryConsumer {
+
+    @Nonnull
+    ProjectMemoryCategory getMemoryCategory();
+
+    /**
+     * Gets an estimate of the number of bytes that are retained by this consumer.  Estimates are based on element
+     * counts and are intended to compare projects and categories with each other, rather than to be exact.  This
+     * method should be cheap to call.
+     */
+    long getEstimatedSizeInBytes();
+
+    /**
+     * Determines whether this consumer holds data that can be discarded and recomputed on demand.
+     */
+    default boolean isSheddable() {
+        return false;
+    }
+
+    /**
+     * Discards data that can be recomputed on demand.  This does nothing if this consumer is not sheddable.
+     */
+    default void shed() {
+
+    }
+}
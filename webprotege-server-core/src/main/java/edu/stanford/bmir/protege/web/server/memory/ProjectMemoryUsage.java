@@ -0,0 +1,27 @@
+package edu.stanford.bmir.protege.web.server.memory;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableMap;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The estimated memory usage of a project, broken down by category.
+ */
+@AutoValue
+public abstract class ProjectMemoryUsage {
+
+    @Nonnull
+    public static ProjectMemoryUsage get(@Nonnull ImmutableMap<ProjectMemoryCategory, Long> estimatedSizes) {
+        var total = estimatedSizes.values().stream().mapToLong(Long::longValue).sum();
+        return new AutoValue_ProjectMemoryUsage(estimatedSizes, total);
+    }
+
+    /**
+     * Gets the estimated size in bytes of each category.  Categories that have no consumers are not present.
+     */
+    @Nonnull
+    public abstract ImmutableMap<ProjectMemoryCategory, Long> getEstimatedSizes();
+
+    public abstract long getTotalEstimatedSize();
+}
@@ -1,7 +1,10 @@
 package edu.stanford.bmir.protege.web.server.owlapi;
 
+import com.google.common.collect.Sets;
 import org.semanticweb.binaryowl.owlapi.BinaryOWLOntologyDocumentParserFactory;
 import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLImportsDeclaration;
+import org.semanticweb.owlapi.model.OWLOntologyLoaderConfiguration;
 import org.semanticweb.owlapi.model.OWLOntologyManager;
 import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
 import uk.ac.manchester.cs.owl.owlapi.OWLOntologyFactoryImpl;
@@ -35,6 +38,27 @@ public class WebProtegeOWLManager {
         return manager;
     }
 
+    /**
+     * Creates a manager that does not load imported ontologies.  Ontologies that are loaded by this manager
+     * retain their imports declarations, but the imported ontologies themselves are never loaded.  This is
+     * intended for parsing documents in isolation, so that imports can be resolved afterwards.
+     */
+    public static OWLOntologyManager createImportsIgnoringOWLOntologyManager() {
+        var template = OWLManager.createOWLOntologyManager();
+        var manager = new OWLOntologyManagerImpl(new OWLDataFactoryImpl(), new NoOpReadWriteLock()) {
+            @Override
+            public void makeLoadImportRequest(OWLImportsDeclaration declaration,
+                                              OWLOntologyLoaderConfiguration configuration) {
+                // Imports are not loaded
+            }
+        };
+        manager.setOntologyParsers(Sets.newHashSet(template.getOntologyParsers()));
+        manager.setOntologyStorers(Sets.newHashSet(template.getOntologyStorers()));
+        manager.setOntologyFactories(Sets.newHashSet(template.getOntologyFactories()));
+        augmentManager(manager, new NoOpReadWriteLock());
+        return manager;
+    }
+
     private static void augmentManager(OWLOntologyManager manager,
                                        ReadWriteLock readWriteLock) {
         var nonConcurrentBuilder = new NonConcurrentOWLOntologyBuilder();
@@ -39,6 +39,11 @@ public class GetProjectPermissionsActionHandler implements ApplicationActionHand
         return GetProjectPermissionsAction.class;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Nonnull
     @Override
     public RequestValidator getRequestValidator(@Nonnull GetProjectPermissionsAction action, @Nonnull RequestContext requestContext) {
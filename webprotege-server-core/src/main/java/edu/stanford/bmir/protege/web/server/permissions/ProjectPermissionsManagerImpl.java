@@ -4,6 +4,7 @@ import edu.stanford.bmir.protege.web.server.access.AccessManager;
 import edu.stanford.bmir.protege.web.server.access.Resource;
 import edu.stanford.bmir.protege.web.server.project.ProjectDetailsRepository;
 import edu.stanford.bmir.protege.web.shared.project.ProjectDetails;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import edu.stanford.bmir.protege.web.shared.user.UserId;
 
 import javax.annotation.Nonnull;
@@ -11,10 +12,12 @@ import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import static edu.stanford.bmir.protege.web.server.access.Subject.forUser;
 import static edu.stanford.bmir.protege.web.shared.access.BuiltInAction.VIEW_PROJECT;
+import static java.util.stream.Collectors.toList;
 
 /**
  * Matthew Horridge Stanford Center for Biomedical Informatics Research 06/02/15
@@ -35,16 +38,14 @@ public class ProjectPermissionsManagerImpl implements ProjectPermissionsManager
 
     @Override
     public List<ProjectDetails> getReadableProjects(UserId userId) {
-        Set<ProjectDetails> result = new HashSet<>();
-        accessManager.getResourcesAccessibleToSubject(forUser(userId), VIEW_PROJECT.getActionId())
+        List<ProjectId> projectIds = accessManager.getResourcesAccessibleToSubject(forUser(userId), VIEW_PROJECT.getActionId())
                      .stream()
                      .filter(Resource::isProject)
-                     .forEach(
-                             resource ->
-                                     resource.getProjectId().ifPresent(
-                                             projectId -> projectDetailsRepository
-                                                     .findOne(projectId)
-                                                     .ifPresent(result::add)));
+                     .map(Resource::getProjectId)
+                     .flatMap(Optional::stream)
+                     .collect(toList());
+        // Look up all of the details at once rather than one project at a time
+        Set<ProjectDetails> result = new HashSet<>(projectDetailsRepository.findByProjectIds(projectIds).values());
         // Always add owned in case permissions are screwed up - yes?
         // It will be obvious that the permissions are screwed up because the
         // user won't be able to open their own project.
@@ -0,0 +1,106 @@
+package edu.stanford.bmir.protege.web.server.persistence;
+
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Collects writes to a collection and sends them to the database as unordered bulk writes, rather than as one
+ * round trip per write.  Writes are sent when the number of collected writes reaches the maximum batch size and
+ * when the batch is flushed.  A batch is not thread safe.
+ */
+public class BulkWriteBatch {
+
+    private static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+
+    @Nonnull
+    private final DBCollection collection;
+
+    private final int maxBatchSize;
+
+    @Nullable
+    private BulkWriteOperation operation = null;
+
+    private int pendingWriteCount = 0;
+
+    private int executedWriteCount = 0;
+
+    private BulkWriteBatch(@Nonnull DBCollection collection, int maxBatchSize) {
+        checkArgument(maxBatchSize > 0, "The maximum batch size must be greater than zero");
+        this.collection = checkNotNull(collection);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Nonnull
+    public static BulkWriteBatch create(@Nonnull DBCollection collection) {
+        return new BulkWriteBatch(collection, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    @Nonnull
+    public static BulkWriteBatch create(@Nonnull DBCollection collection, int maxBatchSize) {
+        return new BulkWriteBatch(collection, maxBatchSize);
+    }
+
+    /**
+     * Replaces the document that matches the specified query, or inserts the document if no document matches.
+     */
+    public void replaceOrInsert(@Nonnull DBObject query, @Nonnull DBObject document) {
+        getOperation().find(query).upsert().replaceOne(document);
+        handleAdded();
+    }
+
+    /**
+     * Updates the first document that matches the specified query.
+     * @param update The update, which contains update operators, for example $set.
+     */
+    public void updateOne(@Nonnull DBObject query, @Nonnull DBObject update) {
+        getOperation().find(query).updateOne(update);
+        handleAdded();
+    }
+
+    /**
+     * Updates the first document that matches the specified query, or inserts a document if no document matches.
+     * @param update The update, which contains update operators, for example $set.
+     */
+    public void updateOrInsert(@Nonnull DBObject query, @Nonnull DBObject update) {
+        getOperation().find(query).upsert().updateOne(update);
+        handleAdded();
+    }
+
+    /**
+     * Sends the collected writes to the database.
+     * @return The number of writes that have been sent by this batch since it was created.
+     */
+    public int flush() {
+        if(operation != null) {
+            var currentOperation = operation;
+            var writeCount = pendingWriteCount;
+            operation = null;
+            pendingWriteCount = 0;
+            currentOperation.execute();
+            executedWriteCount += writeCount;
+        }
+        return executedWriteCount;
+    }
+
+    @Nonnull
+    private BulkWriteOperation getOperation() {
+        if(operation == null) {
+            operation = collection.initializeUnorderedBulkOperation();
+        }
+        return operation;
+    }
+
+    private void handleAdded() {
+        pendingWriteCount++;
+        if(pendingWriteCount >= maxBatchSize) {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package edu.stanford.bmir.protege.web.server.persistence;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import edu.stanford.bmir.protege.web.shared.inject.ApplicationSingleton;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the commands that are sent to the database by all repositories.  This is registered with the
+ * Mongo client, so every round trip to the database is counted, including round trips made by Morphia.
+ */
+@ApplicationSingleton
+public class MongoCommandMetrics implements CommandListener {
+
+    private final ConcurrentHashMap<String, CommandNameCounters> countersByName = new ConcurrentHashMap<>();
+
+    private final LongAdder commandCount = new LongAdder();
+
+    private final LongAdder failedCommandCount = new LongAdder();
+
+    private final LongAdder totalDurationMs = new LongAdder();
+
+    private final AtomicLong maxDurationMs = new AtomicLong();
+
+    @Inject
+    public MongoCommandMetrics() {
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        record(event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), false);
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        failedCommandCount.increment();
+        record(event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), true);
+    }
+
+    private void record(String commandName, long durationNanos, boolean failed) {
+        var durationMs = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        commandCount.increment();
+        totalDurationMs.add(durationMs);
+        maxDurationMs.accumulateAndGet(durationMs, Math::max);
+        countersByName.computeIfAbsent(commandName, name -> new CommandNameCounters()).record(durationNanos, failed);
+    }
+
+    @Nonnull
+    public MongoCommandStatistics getStatistics() {
+        var counts = new TreeMap<String, Long>();
+        countersByName.forEach((name, counters) -> counts.put(name, counters.commandCount.sum()));
+        return MongoCommandStatistics.get(commandCount.sum(),
+                                          failedCommandCount.sum(),
+                                          totalDurationMs.sum(),
+                                          maxDurationMs.get(),
+                                          ImmutableMap.copyOf(counts));
+    }
+
+    /**
+     * Gets the statistics for each command name, for example, "find" or "update".
+     * @return The statistics keyed by command name, in command name order.
+     */
+    @Nonnull
+    public ImmutableSortedMap<String, MongoCommandNameStatistics> getStatisticsByCommandName() {
+        var statistics = ImmutableSortedMap.<String, MongoCommandNameStatistics>naturalOrder();
+        countersByName.forEach((name, counters) -> statistics.put(name, counters.getStatistics()));
+        return statistics.build();
+    }
+
+    private static class CommandNameCounters {
+
+        private final LongAdder commandCount = new LongAdder();
+
+        private final LongAdder failedCommandCount = new LongAdder();
+
+        private final LongAdder totalDurationNanos = new LongAdder();
+
+        private final AtomicLong maxDurationNanos = new AtomicLong();
+
+        private void record(long durationNanos, boolean failed) {
+            commandCount.increment();
+            if(failed) {
+                failedCommandCount.increment();
+            }
+            totalDurationNanos.add(durationNanos);
+            maxDurationNanos.accumulateAndGet(durationNanos, Math::max);
+        }
+
+        private MongoCommandNameStatistics getStatistics() {
+            return MongoCommandNameStatistics.get(commandCount.sum(),
+                                                  failedCommandCount.sum(),
+                                                  totalDurationNanos.sum(),
+                                                  maxDurationNanos.get());
+        }
+    }
+}
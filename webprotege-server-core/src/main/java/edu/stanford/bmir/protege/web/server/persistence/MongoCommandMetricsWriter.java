@@ -0,0 +1,79 @@
+package edu.stanford.bmir.protege.web.server.persistence;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Writes the {@link MongoCommandMetrics} for each database command in the Prometheus text exposition format.
+ */
+public class MongoCommandMetricsWriter {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Nonnull
+    private final MongoCommandMetrics commandMetrics;
+
+    @Inject
+    public MongoCommandMetricsWriter(@Nonnull MongoCommandMetrics commandMetrics) {
+        this.commandMetrics = checkNotNull(commandMetrics);
+    }
+
+    public void write(@Nonnull Writer writer) throws IOException {
+        var byCommandName = commandMetrics.getStatisticsByCommandName();
+        var durationName = "webprotege_mongo_command_duration_seconds";
+        writeHeader(writer, durationName, "summary", "Database command execution time");
+        for(var entry : byCommandName.entrySet()) {
+            writeSample(writer, durationName + "_sum", entry.getKey(), toSeconds(entry.getValue().getTotalDurationNanos()));
+            writeSample(writer, durationName + "_count", entry.getKey(), entry.getValue().getCommandCount());
+        }
+        writeHeader(writer, durationName + "_max", "gauge", "Longest database command execution time");
+        for(var entry : byCommandName.entrySet()) {
+            writeSample(writer, durationName + "_max", entry.getKey(), toSeconds(entry.getValue().getMaxDurationNanos()));
+        }
+        var failuresName = "webprotege_mongo_command_failures_total";
+        writeHeader(writer, failuresName, "counter", "Database commands that failed");
+        for(var entry : byCommandName.entrySet()) {
+            writeSample(writer, failuresName, entry.getKey(), entry.getValue().getFailedCommandCount());
+        }
+        writer.flush();
+    }
+
+    private static void writeHeader(@Nonnull Writer writer,
+                                    @Nonnull String name,
+                                    @Nonnull String type,
+                                    @Nonnull String help) throws IOException {
+        writer.write("# HELP " + name + " " + help + "\n");
+        writer.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static void writeSample(@Nonnull Writer writer,
+                                    @Nonnull String name,
+                                    @Nonnull String commandName,
+                                    long value) throws IOException {
+        writer.write(name + "{" + label(commandName) + "} " + value + "\n");
+    }
+
+    private static void writeSample(@Nonnull Writer writer,
+                                    @Nonnull String name,
+                                    @Nonnull String commandName,
+                                    double value) throws IOException {
+        writer.write(name + "{" + label(commandName) + "} " + value + "\n");
+    }
+
+    private static double toSeconds(long nanos) {
+        return nanos / NANOS_PER_SECOND;
+    }
+
+    @Nonnull
+    private static String label(@Nonnull String commandName) {
+        var escapedValue = commandName.replace("\\", "\\\\")
+                                      .replace("\"", "\\\"")
+                                      .replace("\n", "\\n");
+        return "command=\"" + escapedValue + "\"";
+    }
+}
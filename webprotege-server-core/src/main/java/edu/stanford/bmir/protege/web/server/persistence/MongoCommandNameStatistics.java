@@ -0,0 +1,32 @@
+package edu.stanford.bmir.protege.web.server.persistence;
+
+import com.google.auto.value.AutoValue;
+
+/**
+ * A snapshot of the commands with a given name, for example, "find" or "update", that have been sent to the
+ * database.
+ */
+@AutoValue
+public abstract class MongoCommandNameStatistics {
+
+    public static MongoCommandNameStatistics get(long commandCount,
+                                                 long failedCommandCount,
+                                                 long totalDurationNanos,
+                                                 long maxDurationNanos) {
+        return new AutoValue_MongoCommandNameStatistics(commandCount,
+                                                        failedCommandCount,
+                                                        totalDurationNanos,
+                                                        maxDurationNanos);
+    }
+
+    /**
+     * Gets the number of commands that have completed, either successfully or unsuccessfully.
+     */
+    public abstract long getCommandCount();
+
+    public abstract long getFailedCommandCount();
+
+    public abstract long getTotalDurationNanos();
+
+    public abstract long getMaxDurationNanos();
+}
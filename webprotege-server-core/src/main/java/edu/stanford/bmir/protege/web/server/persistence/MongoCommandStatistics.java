@@ -0,0 +1,49 @@
+package edu.stanford.bmir.protege.web.server.persistence;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableMap;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A snapshot of the commands that have been sent to the database.
+ */
+@AutoValue
+public abstract class MongoCommandStatistics {
+
+    public static MongoCommandStatistics get(long commandCount,
+                                             long failedCommandCount,
+                                             long totalDurationMs,
+                                             long maxDurationMs,
+                                             @Nonnull ImmutableMap<String, Long> commandCountsByName) {
+        return new AutoValue_MongoCommandStatistics(commandCount,
+                                                    failedCommandCount,
+                                                    totalDurationMs,
+                                                    maxDurationMs,
+                                                    commandCountsByName);
+    }
+
+    /**
+     * Gets the number of commands (round trips) that have completed, either successfully or unsuccessfully.
+     */
+    public abstract long getCommandCount();
+
+    public abstract long getFailedCommandCount();
+
+    public abstract long getTotalDurationMs();
+
+    public abstract long getMaxDurationMs();
+
+    /**
+     * Gets the number of commands that have completed, keyed by command name, for example, "find" or "update".
+     */
+    @Nonnull
+    public abstract ImmutableMap<String, Long> getCommandCountsByName();
+
+    public double getMeanDurationMs() {
+        if(getCommandCount() == 0) {
+            return 0;
+        }
+        return (double) getTotalDurationMs() / getCommandCount();
+    }
+}
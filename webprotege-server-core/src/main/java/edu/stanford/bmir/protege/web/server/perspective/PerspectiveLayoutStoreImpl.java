@@ -1,5 +1,7 @@
 package edu.stanford.bmir.protege.web.server.perspective;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.base.Charsets;
 import com.google.common.io.Files;
 import edu.stanford.bmir.protege.web.shared.perspective.PerspectiveId;
@@ -12,23 +14,45 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.Objects;
 import java.util.Optional;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 /**
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
  * 17/02/16
+ *
+ * Parsed layouts are cached, including the absence of a layout, so that switching perspectives does not
+ * repeatedly stat and parse layout files.  User layouts are only written through this store, which keeps
+ * the cache up to date.  Project and default layouts are not written at runtime.
  */
 public class PerspectiveLayoutStoreImpl implements PerspectiveLayoutStore {
 
+    private static final int MAX_CACHED_LAYOUTS = 10_000;
+
+    private static final Duration CACHE_EXPIRATION_DURATION = Duration.ofMinutes(30);
+
     private final PerspectiveFileManager perspectiveFileManager;
 
     private static final Logger logger = LoggerFactory.getLogger(PerspectiveLayoutStoreImpl.class);
 
+    /**
+     * The root nodes of layouts.  Keys without a user are for the project default, which in turn falls back
+     * to the application default.  Keys with a user are for the user's own layout only.
+     */
+    private final Cache<LayoutKey, Optional<Node>> layouts = Caffeine.newBuilder()
+                                                                     .maximumSize(MAX_CACHED_LAYOUTS)
+                                                                     .expireAfterAccess(CACHE_EXPIRATION_DURATION)
+                                                                     .build();
+
     @Inject
     public PerspectiveLayoutStoreImpl(PerspectiveFileManager perspectiveFileManager) {
         this.perspectiveFileManager = perspectiveFileManager;
@@ -37,41 +61,42 @@ public class PerspectiveLayoutStoreImpl implements PerspectiveLayoutStore {
     @Nonnull
     @Override
     public PerspectiveLayout getPerspectiveLayout(@Nonnull ProjectId projectId, @Nonnull UserId userId, @Nonnull PerspectiveId perspectiveId) {
-        File layoutFile = getPerspectiveFile(projectId, userId, perspectiveId);
-        return getPerspectiveLayoutFromFile(perspectiveId, layoutFile);
+        Optional<Node> userNode = layouts.get(new LayoutKey(projectId, userId, perspectiveId), key -> {
+            File userFile = perspectiveFileManager.getPerspectiveLayoutForUser(projectId, perspectiveId, userId);
+            return readRootNode(userFile);
+        });
+        if(userNode.isPresent()) {
+            return new PerspectiveLayout(perspectiveId, userNode);
+        }
+        return getPerspectiveLayout(projectId, perspectiveId);
     }
 
     @Nonnull
     @Override
     public PerspectiveLayout getPerspectiveLayout(@Nonnull ProjectId projectId, @Nonnull PerspectiveId perspectiveId) {
-        File layoutFile = getPerspectiveFile(projectId, perspectiveId);
-        return getPerspectiveLayoutFromFile(perspectiveId, layoutFile);
+        Optional<Node> projectNode = layouts.get(new LayoutKey(projectId, null, perspectiveId), key -> {
+            File layoutFile = getPerspectiveFile(projectId, perspectiveId);
+            return readRootNode(layoutFile);
+        });
+        return new PerspectiveLayout(perspectiveId, projectNode);
     }
 
-    private PerspectiveLayout getPerspectiveLayoutFromFile(PerspectiveId perspectiveId, File layoutFile) {
+    private static Optional<Node> readRootNode(File layoutFile) {
         try {
             if(layoutFile.exists()) {
                 String serialization = Files.toString(layoutFile, Charset.forName("utf-8"));
                 Node node = new JsonNodeSerializer().deserialize(serialization);
-                return new PerspectiveLayout(perspectiveId, Optional.of(node));
+                return Optional.of(node);
             }
             else {
-                return new PerspectiveLayout(perspectiveId, Optional.empty());
+                return Optional.empty();
             }
 
         } catch (IOException e) {
-            return new PerspectiveLayout(perspectiveId, Optional.empty());
+            return Optional.empty();
         }
     }
 
-    private File getPerspectiveFile(ProjectId projectId, UserId userId, PerspectiveId perspectiveId) {
-        File userFile = perspectiveFileManager.getPerspectiveLayoutForUser(projectId, perspectiveId, userId);
-        if(userFile.exists()) {
-            return userFile;
-        }
-        return getPerspectiveFile(projectId, perspectiveId);
-    }
-
     private File getPerspectiveFile(ProjectId projectId, PerspectiveId perspectiveId) {
         File projectFile = perspectiveFileManager.getDefaultPerspectiveLayoutForProject(projectId, perspectiveId);
         if(projectFile.exists()) {
@@ -96,6 +121,7 @@ public class PerspectiveLayoutStoreImpl implements PerspectiveLayoutStore {
         else {
             file.delete();
         }
+        layouts.invalidate(new LayoutKey(projectId, userId, layout.getPerspectiveId()));
     }
 
     @Override
@@ -104,5 +130,41 @@ public class PerspectiveLayoutStoreImpl implements PerspectiveLayoutStore {
         if (file.exists()) {
             file.delete();
         }
+        layouts.invalidate(new LayoutKey(projectId, userId, perspectiveId));
+    }
+
+    private static final class LayoutKey {
+
+        private final ProjectId projectId;
+
+        @Nullable
+        private final UserId userId;
+
+        private final PerspectiveId perspectiveId;
+
+        private LayoutKey(ProjectId projectId, @Nullable UserId userId, PerspectiveId perspectiveId) {
+            this.projectId = checkNotNull(projectId);
+            this.userId = userId;
+            this.perspectiveId = checkNotNull(perspectiveId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(projectId, userId, perspectiveId);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(obj == this) {
+                return true;
+            }
+            if(!(obj instanceof LayoutKey)) {
+                return false;
+            }
+            LayoutKey other = (LayoutKey) obj;
+            return this.projectId.equals(other.projectId)
+                    && Objects.equals(this.userId, other.userId)
+                    && this.perspectiveId.equals(other.perspectiveId);
+        }
     }
 }
@@ -35,6 +35,11 @@ public class GetProjectDetailsActionHandler implements ApplicationActionHandler<
         return GetProjectDetailsAction.class;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Nonnull
     @Override
     public RequestValidator getRequestValidator(@Nonnull GetProjectDetailsAction action, @Nonnull RequestContext requestContext) {
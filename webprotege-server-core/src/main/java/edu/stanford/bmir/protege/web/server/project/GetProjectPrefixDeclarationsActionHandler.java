@@ -40,6 +40,11 @@ public class GetProjectPrefixDeclarationsActionHandler extends AbstractProjectAc
         return GetProjectPrefixDeclarationsAction.class;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Nullable
     @Override
     protected BuiltInAction getRequiredExecutableBuiltInAction() {
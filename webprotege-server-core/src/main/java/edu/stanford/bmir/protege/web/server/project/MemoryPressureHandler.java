@@ -0,0 +1,137 @@
+package edu.stanford.bmir.protege.web.server.project;
+
+import edu.stanford.bmir.protege.web.server.memory.HeapUsage;
+import edu.stanford.bmir.protege.web.shared.inject.ApplicationSingleton;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Responds to low memory before the heap is exhausted.  When the free tenured heap falls below the shed caches
+ * watermark the caches of all loaded projects are discarded.  If the free heap is still expected to be below the
+ * unload projects watermark then idle projects are unloaded until the free heap is expected to be back above the
+ * shed caches watermark.  The projects that have been idle for longest are unloaded first, with larger projects
+ * first among projects that have been idle for the same time.  Projects that have been accessed within the minimum
+ * idle time are never unloaded, however large they are.
+ * <p>
+ * Memory is only released by garbage collection, so after responding to low memory no further action is taken
+ * until there has been a collection.
+ */
+@ApplicationSingleton
+public class MemoryPressureHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemoryPressureHandler.class);
+
+    private static final long NO_COLLECTION = -1;
+
+    @Nonnull
+    private final ProjectCache projectCache;
+
+    @Nonnull
+    private final MemoryPressureSettings settings;
+
+    @Nonnull
+    private final Supplier<HeapUsage> heapUsageSupplier;
+
+    private final AtomicLong cacheShedCount = new AtomicLong();
+
+    private final AtomicLong projectUnloadCount = new AtomicLong();
+
+    private long collectionCountAtLastResponse = NO_COLLECTION;
+
+    @Inject
+    public MemoryPressureHandler(@Nonnull ProjectCache projectCache,
+                                 @Nonnull MemoryPressureSettings settings) {
+        this(projectCache, settings, HeapUsage::current);
+    }
+
+    MemoryPressureHandler(@Nonnull ProjectCache projectCache,
+                          @Nonnull MemoryPressureSettings settings,
+                          @Nonnull Supplier<HeapUsage> heapUsageSupplier) {
+        this.projectCache = checkNotNull(projectCache);
+        this.settings = checkNotNull(settings);
+        this.heapUsageSupplier = checkNotNull(heapUsageSupplier);
+    }
+
+    /**
+     * Checks the free heap against the watermarks and responds if it is low
+     */
+    public synchronized void checkMemoryPressure() {
+        var heapUsage = heapUsageSupplier.get();
+        if(heapUsage.getCollectionCount() == collectionCountAtLastResponse) {
+            // Nothing has been released since we last responded
+            return;
+        }
+        var freeBytes = heapUsage.getFreeBytes();
+        var shedCachesWatermarkBytes = toBytes(heapUsage, settings.getShedCachesFreePercent());
+        if(freeBytes >= shedCachesWatermarkBytes) {
+            return;
+        }
+        collectionCountAtLastResponse = heapUsage.getCollectionCount();
+        logger.warn("Low Memory: {} MB free of {} MB ({}%).  Discarding project caches.",
+                    toMB(freeBytes),
+                    toMB(heapUsage.getMaxBytes()),
+                    String.format("%.2f", heapUsage.getFreePercent()));
+        var expectedFreeBytes = freeBytes + projectCache.shedProjectCaches();
+        cacheShedCount.incrementAndGet();
+        var unloadProjectsWatermarkBytes = toBytes(heapUsage, settings.getUnloadProjectsFreePercent());
+        if(expectedFreeBytes >= unloadProjectsWatermarkBytes) {
+            return;
+        }
+        var estimatedUsage = projectCache.getEstimatedMemoryUsage();
+        var currentTime = System.currentTimeMillis();
+        var idleTimes = new HashMap<ProjectId, Long>();
+        for(var projectId : estimatedUsage.keySet()) {
+            var idleTime = currentTime - projectCache.getLastAccessTime(projectId);
+            if(idleTime >= settings.getUnloadMinIdleTime()) {
+                idleTimes.put(projectId, idleTime);
+            }
+        }
+        var projectIds = new ArrayList<>(idleTimes.keySet());
+        projectIds.sort(Comparator.comparingLong((ProjectId projectId) -> idleTimes.get(projectId))
+                                  .thenComparingLong(projectId -> estimatedUsage.get(projectId).getTotalEstimatedSize())
+                                  .reversed());
+        for(var projectId : projectIds) {
+            if(expectedFreeBytes >= shedCachesWatermarkBytes) {
+                break;
+            }
+            var projectBytes = estimatedUsage.get(projectId).getTotalEstimatedSize();
+            logger.warn("Low Memory: Unloading {}, which is using an estimated {} MB", projectId, toMB(projectBytes));
+            projectCache.purge(projectId);
+            projectUnloadCount.incrementAndGet();
+            expectedFreeBytes += projectBytes;
+        }
+    }
+
+    /**
+     * Gets the number of times that project caches have been discarded
+     */
+    public long getCacheShedCount() {
+        return cacheShedCount.get();
+    }
+
+    /**
+     * Gets the number of projects that have been unloaded
+     */
+    public long getProjectUnloadCount() {
+        return projectUnloadCount.get();
+    }
+
+    private static long toBytes(@Nonnull HeapUsage heapUsage, int percent) {
+        return heapUsage.getMaxBytes() / 100 * percent;
+    }
+
+    private static long toMB(long bytes) {
+        return bytes / (1024 * 1024);
+    }
+}
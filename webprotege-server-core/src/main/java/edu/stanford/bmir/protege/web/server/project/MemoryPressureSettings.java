@@ -0,0 +1,41 @@
+package edu.stanford.bmir.protege.web.server.project;
+
+import com.google.auto.value.AutoValue;
+
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The free heap watermarks at which the {@link MemoryPressureHandler} responds to low memory, and the time for
+ * which a project must have been idle before it may be unloaded.
+ */
+@AutoValue
+public abstract class MemoryPressureSettings {
+
+    /**
+     * @param shedCachesFreePercent The percentage of the maximum heap that must be free.  Below this, project
+     *                              caches are discarded.
+     * @param unloadProjectsFreePercent The percentage of the maximum heap that must be free.  Below this, projects
+     *                                  are unloaded.  This must not be greater than the shed caches percentage.
+     * @param unloadMinIdleTime The time, in milliseconds, since a project was last accessed before it may be
+     *                          unloaded.  Projects that are in use are never unloaded.
+     */
+    @Nonnull
+    public static MemoryPressureSettings get(int shedCachesFreePercent,
+                                             int unloadProjectsFreePercent,
+                                             long unloadMinIdleTime) {
+        checkArgument(shedCachesFreePercent >= 0 && shedCachesFreePercent <= 100,
+                      "shedCachesFreePercent must be between 0 and 100");
+        checkArgument(unloadProjectsFreePercent >= 0 && unloadProjectsFreePercent <= shedCachesFreePercent,
+                      "unloadProjectsFreePercent must be between 0 and shedCachesFreePercent");
+        checkArgument(unloadMinIdleTime >= 0, "unloadMinIdleTime must not be negative");
+        return new AutoValue_MemoryPressureSettings(shedCachesFreePercent, unloadProjectsFreePercent, unloadMinIdleTime);
+    }
+
+    public abstract int getShedCachesFreePercent();
+
+    public abstract int getUnloadProjectsFreePercent();
+
+    public abstract long getUnloadMinIdleTime();
+}
@@ -0,0 +1,148 @@
+package edu.stanford.bmir.protege.web.server.project;
+
+import com.google.common.base.Stopwatch;
+import edu.stanford.bmir.protege.web.server.owlapi.WebProtegeOWLManager;
+import org.semanticweb.owlapi.io.OWLOntologyDocumentSource;
+import org.semanticweb.owlapi.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Parses a set of ontology documents concurrently on a bounded pool of threads.  Each document is
+ * parsed in isolation, in its own manager, and imports are NOT followed.  Imports are left for the caller
+ * to resolve once all of the documents have been parsed.
+ *
+ * The number of documents that are parsed at any one time is limited by the number of threads and
+ * also by a memory budget, which is based on the size of the documents being parsed.
+ */
+public class ParallelOntologyDocumentParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelOntologyDocumentParser.class);
+
+    /**
+     * A rough estimate of the amount of heap that is needed, per byte of document, while a document is parsed.
+     */
+    private static final int ESTIMATED_PARSE_BYTES_PER_DOCUMENT_BYTE = 10;
+
+    private static final int MAX_PARSER_THREADS = 4;
+
+    private final int threadCount;
+
+    private final long memoryBudgetBytes;
+
+    public ParallelOntologyDocumentParser(int threadCount, long memoryBudgetBytes) {
+        checkArgument(threadCount > 0, "threadCount must be greater than zero");
+        checkArgument(memoryBudgetBytes > 0, "memoryBudgetBytes must be greater than zero");
+        this.threadCount = threadCount;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    /**
+     * Creates a parser that uses at most {@link #MAX_PARSER_THREADS} threads and half of the maximum heap size
+     * for parsing.
+     */
+    public static ParallelOntologyDocumentParser createDefault() {
+        var threadCount = Math.min(Runtime.getRuntime().availableProcessors(), MAX_PARSER_THREADS);
+        var memoryBudget = Runtime.getRuntime().maxMemory() / 2;
+        return new ParallelOntologyDocumentParser(threadCount, memoryBudget);
+    }
+
+    /**
+     * Parses the specified documents.
+     * @param documentSources The documents to parse.
+     * @param loaderConfig The loader configuration that should be used to parse each document.
+     * @return A map of document IRIs to parsed ontologies.  The ontologies are each owned by their own manager
+     * and the iteration order of the map is the order of the specified document sources.
+     * @throws OWLOntologyCreationException if any one of the documents could not be parsed.
+     */
+    @Nonnull
+    public Map<IRI, OWLOntology> parseDocuments(@Nonnull List<OWLOntologyDocumentSource> documentSources,
+                                                @Nonnull OWLOntologyLoaderConfiguration loaderConfig) throws OWLOntologyCreationException {
+        checkNotNull(documentSources);
+        checkNotNull(loaderConfig);
+        var stopwatch = Stopwatch.createStarted();
+        var executor = Executors.newFixedThreadPool(threadCount, r -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(r);
+            thread.setName(thread.getName().replace("thread", "Ontology-Document-Parser"));
+            return thread;
+        });
+        var budgetKb = toPermits(memoryBudgetBytes);
+        var memoryBudget = new Semaphore(budgetKb);
+        var parsedCount = new AtomicInteger();
+        var total = documentSources.size();
+        try {
+            logger.info("Parsing {} ontology documents using {} threads", total, threadCount);
+            var futures = new ArrayList<Future<OWLOntology>>(total);
+            for(var documentSource : documentSources) {
+                var permits = Math.min(budgetKb, toPermits(getEstimatedParseBytes(documentSource)));
+                memoryBudget.acquireUninterruptibly(permits);
+                futures.add(executor.submit(() -> {
+                    try {
+                        var ontology = parseDocument(documentSource, loaderConfig);
+                        logger.info("Parsed {} of {} ontology documents ({} axioms in {})",
+                                    parsedCount.incrementAndGet(),
+                                    total,
+                                    ontology.getAxiomCount(),
+                                    documentSource.getDocumentIRI());
+                        return ontology;
+                    } finally {
+                        memoryBudget.release(permits);
+                    }
+                }));
+            }
+            var result = new LinkedHashMap<IRI, OWLOntology>();
+            for(int i = 0; i < total; i++) {
+                result.put(documentSources.get(i).getDocumentIRI(), getParsedOntology(futures.get(i)));
+            }
+            logger.info("Parsed {} ontology documents in {} ms", total, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static OWLOntology parseDocument(OWLOntologyDocumentSource documentSource,
+                                             OWLOntologyLoaderConfiguration loaderConfig) throws OWLOntologyCreationException {
+        var documentManager = WebProtegeOWLManager.createImportsIgnoringOWLOntologyManager();
+        return documentManager.loadOntologyFromOntologyDocument(documentSource, loaderConfig);
+    }
+
+    private static OWLOntology getParsedOntology(Future<OWLOntology> future) throws OWLOntologyCreationException {
+        try {
+            return future.get();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OWLOntologyCreationException("Interrupted whilst parsing ontology documents", e);
+        } catch(ExecutionException e) {
+            var cause = e.getCause();
+            if(cause instanceof OWLOntologyCreationException) {
+                throw (OWLOntologyCreationException) cause;
+            }
+            throw new OWLOntologyCreationException(cause);
+        }
+    }
+
+    private static long getEstimatedParseBytes(OWLOntologyDocumentSource documentSource) {
+        var documentIri = documentSource.getDocumentIRI();
+        if(!"file".equalsIgnoreCase(documentIri.getScheme())) {
+            return 0;
+        }
+        return new File(documentIri.toURI()).length() * ESTIMATED_PARSE_BYTES_PER_DOCUMENT_BYTE;
+    }
+
+    private static int toPermits(long bytes) {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, bytes / 1024));
+    }
+}
@@ -1,11 +1,15 @@
 package edu.stanford.bmir.protege.web.server.project;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Interner;
 import com.google.common.collect.Interners;
+import edu.stanford.bmir.protege.web.server.dispatch.DispatchMetrics;
 import edu.stanford.bmir.protege.web.server.dispatch.impl.ProjectActionHandlerRegistry;
 import edu.stanford.bmir.protege.web.server.events.EventManager;
 import edu.stanford.bmir.protege.web.server.inject.ProjectComponent;
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryUsage;
+import edu.stanford.bmir.protege.web.server.revision.RevisionCache;
 import edu.stanford.bmir.protege.web.server.revision.RevisionManager;
 import edu.stanford.bmir.protege.web.shared.HasDispose;
 import edu.stanford.bmir.protege.web.shared.csv.DocumentId;
@@ -68,12 +72,20 @@ public class ProjectCache implements HasDispose {
 
     private final ProjectComponentFactory projectComponentFactory;
 
+    private final DispatchMetrics dispatchMetrics;
+
+    private final RevisionCache revisionCache;
+
     @Inject
     public ProjectCache(@Nonnull ProjectComponentFactory projectComponentFactory,
                         @Nonnull ProjectImporterFactory projectImporterFactory,
-                        @DormantProjectTime  long dormantProjectTime) {
+                        @DormantProjectTime  long dormantProjectTime,
+                        @Nonnull DispatchMetrics dispatchMetrics,
+                        @Nonnull RevisionCache revisionCache) {
         this.projectComponentFactory = checkNotNull(projectComponentFactory);
         this.projectImporterFactory = checkNotNull(projectImporterFactory);
+        this.dispatchMetrics = checkNotNull(dispatchMetrics);
+        this.revisionCache = checkNotNull(revisionCache);
         projectIdInterner = Interners.newWeakInterner();
         this.dormantProjectTime = dormantProjectTime;
         logger.info("Dormant project time: {} milliseconds", dormantProjectTime);
@@ -184,6 +196,7 @@ public class ProjectCache implements HasDispose {
                         projectId,
                         stopwatch.elapsed(TimeUnit.MILLISECONDS));
             projectId2ProjectComponent.put(projectId, projectComponent);
+            dispatchMetrics.addProjectMetrics(projectId);
         }
         return projectComponent;
     }
@@ -218,6 +231,8 @@ public class ProjectCache implements HasDispose {
                 projectDisposableObjectManager.dispose();
             }
             lastAccessMap.remove(projectId);
+            dispatchMetrics.removeProjectMetrics(projectId);
+            revisionCache.invalidate(projectId);
         }
         finally {
             final int projectsBeingAccessed = lastAccessMap.size();
@@ -227,6 +242,30 @@ public class ProjectCache implements HasDispose {
         }
     }
 
+    /**
+     * Gets the estimated memory usage of each loaded project
+     */
+    @Nonnull
+    public ImmutableMap<ProjectId, ProjectMemoryUsage> getEstimatedMemoryUsage() {
+        var result = ImmutableMap.<ProjectId, ProjectMemoryUsage>builder();
+        projectId2ProjectComponent.forEach((projectId, projectComponent) -> {
+            result.put(projectId, projectComponent.getMemoryAccountant().getEstimatedUsage());
+        });
+        return result.build();
+    }
+
+    /**
+     * Discards the caches that can be recomputed on demand for all loaded projects
+     * @return The estimated number of bytes that were released
+     */
+    public long shedProjectCaches() {
+        var released = 0L;
+        for(var projectComponent : projectId2ProjectComponent.values()) {
+            released += projectComponent.getMemoryAccountant().shed();
+        }
+        return released;
+    }
+
     public boolean isActive(ProjectId projectId) {
         try {
             readLock.lock();
@@ -243,7 +282,7 @@ public class ProjectCache implements HasDispose {
      * @return The time stamp of the last access of the specified project from the cache.  This time stamp will be 0
      *         if the project does not exist.
      */
-    private long getLastAccessTime(ProjectId projectId) {
+    long getLastAccessTime(ProjectId projectId) {
         Long timestamp;
         try {
             lastAccessLock.readLock().lock();
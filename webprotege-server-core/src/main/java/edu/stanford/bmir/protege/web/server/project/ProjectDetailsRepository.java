@@ -1,11 +1,13 @@
 package edu.stanford.bmir.protege.web.server.project;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.UpdateOptions;
 import com.mongodb.client.model.Updates;
 import edu.stanford.bmir.protege.web.server.api.TimestampSerializer;
@@ -24,7 +26,10 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -69,7 +74,17 @@ public class ProjectDetailsRepository implements Repository {
         this.cache = Caffeine
                 .newBuilder()
                 .maximumSize(MAX_CACHE_SIZE)
-                .build(this::findOneFromDbOrNull);
+                .build(new CacheLoader<>() {
+                    @Override
+                    public ProjectDetails load(@Nonnull ProjectId projectId) {
+                        return findOneFromDbOrNull(projectId);
+                    }
+
+                    @Override
+                    public Map<ProjectId, ProjectDetails> loadAll(@Nonnull Iterable<? extends ProjectId> projectIds) {
+                        return findFromDb(projectIds);
+                    }
+                });
         this.displayLanguagesCache = Caffeine
                 .newBuilder()
                 .maximumSize(MAX_CACHE_SIZE)
@@ -107,6 +122,37 @@ public class ProjectDetailsRepository implements Repository {
                 .map(d -> objectMapper.convertValue(d, ProjectDetails.class));
     }
 
+    /**
+     * Finds the project details for projects that are not in the cache with a single query.
+     */
+    private Map<ProjectId, ProjectDetails> findFromDb(@Nonnull Iterable<? extends ProjectId> projectIds) {
+        var ids = new ArrayList<String>();
+        projectIds.forEach(projectId -> ids.add(projectId.getId()));
+        var found = new ArrayList<ProjectDetails>();
+        collection.find(Filters.in(PROJECT_ID, ids))
+                  .map(d -> objectMapper.convertValue(d, ProjectDetails.class))
+                  .into(found);
+        var result = new HashMap<ProjectId, ProjectDetails>();
+        found.forEach(details -> result.put(details.getProjectId(), details));
+        return result;
+    }
+
+    /**
+     * Finds the project details for the specified projects.  Details that are not cached are retrieved with a
+     * single query.
+     * @param projectIds The project ids.
+     * @return A map from project id to project details.  Projects that do not exist are not in the map.
+     */
+    @Nonnull
+    public Map<ProjectId, ProjectDetails> findByProjectIds(@Nonnull Collection<ProjectId> projectIds) {
+        try {
+            readLock.lock();
+            return cache.getAll(projectIds);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
     public Optional<ProjectDetails> findOne(@Nonnull ProjectId projectId) {
         try {
             readLock.lock();
@@ -89,6 +89,7 @@ public class ProjectImporter {
         memoryMonitor.logMemoryUsage();
         logger.info("{} Writing change log", projectId);
         generateInitialChanges(owner, rootOntologyManager);
+        revisionStore.dispose();
         deleteSourceFile(uploadedFile);
         logger.info("{} Project creation from sources complete in {} ms", projectId, stopwatch.elapsed(TimeUnit.MILLISECONDS));
         memoryMonitor.logMemoryUsage();
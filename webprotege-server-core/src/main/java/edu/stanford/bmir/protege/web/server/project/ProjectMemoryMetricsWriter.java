@@ -0,0 +1,68 @@
+package edu.stanford.bmir.protege.web.server.project;
+
+import edu.stanford.bmir.protege.web.server.memory.HeapUsage;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.Writer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Writes the estimated memory usage of loaded projects, along with heap usage and the responses of the
+ * {@link MemoryPressureHandler}, in the Prometheus text exposition format.
+ */
+public class ProjectMemoryMetricsWriter {
+
+    @Nonnull
+    private final ProjectCache projectCache;
+
+    @Nonnull
+    private final MemoryPressureHandler memoryPressureHandler;
+
+    @Inject
+    public ProjectMemoryMetricsWriter(@Nonnull ProjectCache projectCache,
+                                      @Nonnull MemoryPressureHandler memoryPressureHandler) {
+        this.projectCache = checkNotNull(projectCache);
+        this.memoryPressureHandler = checkNotNull(memoryPressureHandler);
+    }
+
+    public void write(@Nonnull Writer writer) throws IOException {
+        var heapUsage = HeapUsage.current();
+        writeHeader(writer, "webprotege_heap_max_bytes", "gauge", "The maximum size of the tenured heap");
+        writer.write("webprotege_heap_max_bytes " + heapUsage.getMaxBytes() + "\n");
+        writeHeader(writer, "webprotege_heap_used_bytes", "gauge", "Tenured heap usage after the last collection");
+        writer.write("webprotege_heap_used_bytes " + heapUsage.getUsedBytes() + "\n");
+        writeHeader(writer, "webprotege_project_memory_estimated_bytes", "gauge", "Estimated memory usage of loaded projects");
+        for(var entry : projectCache.getEstimatedMemoryUsage().entrySet()) {
+            var projectLabel = label("project", entry.getKey().getId());
+            for(var size : entry.getValue().getEstimatedSizes().entrySet()) {
+                writer.write("webprotege_project_memory_estimated_bytes{"
+                                     + projectLabel + "," + label("category", size.getKey().getName()) + "} "
+                                     + size.getValue() + "\n");
+            }
+        }
+        writeHeader(writer, "webprotege_memory_pressure_cache_sheds_total", "counter", "Times that project caches were discarded because memory was low");
+        writer.write("webprotege_memory_pressure_cache_sheds_total " + memoryPressureHandler.getCacheShedCount() + "\n");
+        writeHeader(writer, "webprotege_memory_pressure_project_unloads_total", "counter", "Projects that were unloaded because memory was low");
+        writer.write("webprotege_memory_pressure_project_unloads_total " + memoryPressureHandler.getProjectUnloadCount() + "\n");
+        writer.flush();
+    }
+
+    private static void writeHeader(@Nonnull Writer writer,
+                                    @Nonnull String name,
+                                    @Nonnull String type,
+                                    @Nonnull String help) throws IOException {
+        writer.write("# HELP " + name + " " + help + "\n");
+        writer.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    @Nonnull
+    private static String label(@Nonnull String name, @Nonnull String value) {
+        var escapedValue = value.replace("\\", "\\\\")
+                                .replace("\"", "\\\"")
+                                .replace("\n", "\\n");
+        return name + "=\"" + escapedValue + "\"";
+    }
+}
@@ -5,6 +5,7 @@ import org.semanticweb.owlapi.model.OWLOntologyIRIMapper;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
 
 /**
  * @author Matthew Horridge,
@@ -20,6 +21,17 @@ public interface RawProjectSources {
      */
     Collection<OWLOntologyDocumentSource> getDocumentSources();
 
+    /**
+     * Gets the document sources for all of the ontology documents that are contained in these sources.  Documents
+     * in this collection may be imported (directly or indirectly) by the documents returned by
+     * {@link #getDocumentSources()}.  They can be parsed independently of each other, before imports are resolved.
+     * @return The document sources.  Not {@code null}.  By default this is empty, which indicates that only the
+     * documents returned by {@link #getDocumentSources()} are known up front.
+     */
+    default Collection<OWLOntologyDocumentSource> getContainedDocumentSources() {
+        return Collections.emptyList();
+    }
+
     /**
      * Gets an ontology IRI mapper, which should be used during loading so that imports etc. are loaded
      * correctly.
@@ -1,10 +1,12 @@
 package edu.stanford.bmir.protege.web.server.project;
 
 import org.semanticweb.owlapi.io.OWLOntologyDocumentSource;
-import org.semanticweb.owlapi.model.OWLOntology;
-import org.semanticweb.owlapi.model.OWLOntologyCreationException;
-import org.semanticweb.owlapi.model.OWLOntologyLoaderConfiguration;
-import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.model.parameters.OntologyCopy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
 
 /**
  * @author Matthew Horridge,
@@ -14,26 +16,181 @@ import org.semanticweb.owlapi.model.OWLOntologyManager;
  */
 public class RawProjectSourcesImporter {
 
+    private static final Logger logger = LoggerFactory.getLogger(RawProjectSourcesImporter.class);
+
     private OWLOntologyManager manager;
 
     private OWLOntologyLoaderConfiguration loaderConfig;
 
+    private ParallelOntologyDocumentParser documentParser;
+
     public RawProjectSourcesImporter(OWLOntologyManager manager, OWLOntologyLoaderConfiguration loaderConfig) {
+        this(manager, loaderConfig, ParallelOntologyDocumentParser.createDefault());
+    }
+
+    public RawProjectSourcesImporter(OWLOntologyManager manager,
+                                     OWLOntologyLoaderConfiguration loaderConfig,
+                                     ParallelOntologyDocumentParser documentParser) {
         this.manager = manager;
         this.loaderConfig = loaderConfig;
+        this.documentParser = documentParser;
     }
 
     public OWLOntology importRawProjectSources(RawProjectSources projectSources) throws OWLOntologyCreationException {
+        OWLOntologyIRIMapper iriMapper = projectSources.getOntologyIRIMapper();
         try {
-            manager.getIRIMappers().add(projectSources.getOntologyIRIMapper());
-            OWLOntology ontology = null;
-            for (OWLOntologyDocumentSource documentSource : projectSources.getDocumentSources()) {
-                ontology = manager.loadOntologyFromOntologyDocument(documentSource, loaderConfig);
+            manager.getIRIMappers().add(iriMapper);
+            Map<IRI, OWLOntologyDocumentSource> documentSources = getDocumentSourcesByIri(projectSources);
+            if(documentSources.size() > 1) {
+                return importDocumentsInParallel(projectSources, documentSources);
+            }
+            else {
+                return importDocumentsSequentially(projectSources);
             }
-            return ontology;
         } finally {
-            manager.getIRIMappers().remove(projectSources.getOntologyIRIMapper());
+            manager.getIRIMappers().remove(iriMapper);
+        }
+    }
+
+    private OWLOntology importDocumentsSequentially(RawProjectSources projectSources) throws OWLOntologyCreationException {
+        OWLOntology ontology = null;
+        for (OWLOntologyDocumentSource documentSource : projectSources.getDocumentSources()) {
+            ontology = manager.loadOntologyFromOntologyDocument(documentSource, loaderConfig);
+        }
+        return ontology;
+    }
+
+    /**
+     * Parses the documents in the imports closure of the root documents concurrently and then resolves imports,
+     * starting from the root documents, once all of these documents have been parsed.  Documents are parsed in
+     * waves: first the root documents and then, in each following wave, the contained documents that are imported
+     * by the documents in the previous wave.  Contained documents that are not imported are never parsed, which
+     * mirrors what happens when documents are loaded sequentially.  If more than one document contains an ontology
+     * with the same id then only one of them is kept.  As with sequential loading, the root documents win, followed
+     * by the document that the IRI mapper resolves the ontology IRI to.
+     */
+    private OWLOntology importDocumentsInParallel(RawProjectSources projectSources,
+                                                  Map<IRI, OWLOntologyDocumentSource> documentSources) throws OWLOntologyCreationException {
+        Set<IRI> rootDocumentIris = new LinkedHashSet<>();
+        for(OWLOntologyDocumentSource rootDocumentSource : projectSources.getDocumentSources()) {
+            rootDocumentIris.add(rootDocumentSource.getDocumentIRI());
+        }
+        OWLOntologyIRIMapper iriMapper = projectSources.getOntologyIRIMapper();
+        Map<IRI, OWLOntology> parsedOntologies = parseImportsClosure(rootDocumentIris, documentSources, iriMapper);
+        List<IRI> documentIris = new ArrayList<>(parsedOntologies.keySet());
+        documentIris.sort(Comparator.comparing((IRI documentIri) -> !rootDocumentIris.contains(documentIri))
+                                    .thenComparing(documentIri -> !isMappedDocument(documentIri,
+                                                                                    parsedOntologies.get(documentIri),
+                                                                                    iriMapper)));
+        // The ontology in the manager for each document.  For a duplicate this is the ontology that was kept.
+        Map<IRI, OWLOntology> movedOntologies = new LinkedHashMap<>();
+        for(IRI documentIri : documentIris) {
+            OWLOntology parsedOntology = parsedOntologies.get(documentIri);
+            OWLOntologyID ontologyId = parsedOntology.getOntologyID();
+            OWLOntology existingOntology = manager.getOntology(ontologyId);
+            if(existingOntology != null) {
+                logger.info("Discarding {}, which contains the same ontology as another document ({})",
+                            documentIri,
+                            ontologyId);
+                movedOntologies.put(documentIri, existingOntology);
+            }
+            else {
+                movedOntologies.put(documentIri, manager.copyOntology(parsedOntology, OntologyCopy.MOVE));
+            }
+        }
+        List<OWLOntology> rootOntologies = new ArrayList<>();
+        for(IRI rootDocumentIri : rootDocumentIris) {
+            OWLOntology rootOntology = movedOntologies.get(rootDocumentIri);
+            if(rootOntology == null) {
+                throw new OWLOntologyCreationException("Root document was not parsed: " + rootDocumentIri);
+            }
+            rootOntologies.add(rootOntology);
+        }
+        Set<OWLOntology> importsClosure = resolveImports(rootOntologies);
+        for(OWLOntology ontology : new LinkedHashSet<>(movedOntologies.values())) {
+            if(!importsClosure.contains(ontology)) {
+                logger.info("Discarding {}, which is not imported by the root ontology", ontology.getOntologyID());
+                manager.removeOntology(ontology);
+            }
+        }
+        return rootOntologies.get(rootOntologies.size() - 1);
+    }
+
+    /**
+     * Parses the root documents and the contained documents that are in their imports closure
+     * @return A map of document IRIs to parsed ontologies, in the order that they were parsed.
+     */
+    private Map<IRI, OWLOntology> parseImportsClosure(Set<IRI> rootDocumentIris,
+                                                      Map<IRI, OWLOntologyDocumentSource> documentSources,
+                                                      OWLOntologyIRIMapper iriMapper) throws OWLOntologyCreationException {
+        Map<IRI, OWLOntology> parsedOntologies = new LinkedHashMap<>();
+        Map<IRI, OWLOntologyDocumentSource> wave = new LinkedHashMap<>();
+        for(IRI rootDocumentIri : rootDocumentIris) {
+            wave.put(rootDocumentIri, documentSources.get(rootDocumentIri));
+        }
+        while(!wave.isEmpty()) {
+            Map<IRI, OWLOntology> waveOntologies = documentParser.parseDocuments(new ArrayList<>(wave.values()),
+                                                                                 loaderConfig);
+            parsedOntologies.putAll(waveOntologies);
+            Map<IRI, OWLOntologyDocumentSource> nextWave = new LinkedHashMap<>();
+            for(OWLOntology ontology : waveOntologies.values()) {
+                for(OWLImportsDeclaration importsDeclaration : ontology.getImportsDeclarations()) {
+                    IRI documentIri = getImportedDocumentIri(importsDeclaration.getIRI(), iriMapper);
+                    OWLOntologyDocumentSource documentSource = documentSources.get(documentIri);
+                    // Imports of documents that are not contained in the sources are resolved later by the manager
+                    if(documentSource != null && !parsedOntologies.containsKey(documentIri)) {
+                        nextWave.putIfAbsent(documentIri, documentSource);
+                    }
+                }
+            }
+            wave = nextWave;
+        }
+        int skippedCount = documentSources.size() - parsedOntologies.size();
+        if(skippedCount > 0) {
+            logger.info("Skipped {} documents that are not imported by the root ontology", skippedCount);
+        }
+        return parsedOntologies;
+    }
+
+    private static IRI getImportedDocumentIri(IRI importedOntologyIri, OWLOntologyIRIMapper iriMapper) {
+        IRI documentIri = iriMapper.getDocumentIRI(importedOntologyIri);
+        return documentIri != null ? documentIri : importedOntologyIri;
+    }
+
+    private static boolean isMappedDocument(IRI documentIri, OWLOntology ontology, OWLOntologyIRIMapper iriMapper) {
+        OWLOntologyID ontologyId = ontology.getOntologyID();
+        if(ontologyId.isAnonymous()) {
+            return false;
+        }
+        return documentIri.equals(iriMapper.getDocumentIRI(ontologyId.getOntologyIRI().get()));
+    }
+
+    private Set<OWLOntology> resolveImports(List<OWLOntology> rootOntologies) {
+        Set<OWLOntology> importsClosure = new HashSet<>(rootOntologies);
+        Deque<OWLOntology> queue = new ArrayDeque<>(rootOntologies);
+        while(!queue.isEmpty()) {
+            OWLOntology ontology = queue.poll();
+            for(OWLImportsDeclaration importsDeclaration : ontology.getImportsDeclarations()) {
+                // A no-op if the imported ontology was one of the parsed documents
+                manager.makeLoadImportRequest(importsDeclaration, loaderConfig);
+                OWLOntology importedOntology = manager.getImportedOntology(importsDeclaration);
+                if(importedOntology != null && importsClosure.add(importedOntology)) {
+                    queue.add(importedOntology);
+                }
+            }
+        }
+        return importsClosure;
+    }
+
+    private static Map<IRI, OWLOntologyDocumentSource> getDocumentSourcesByIri(RawProjectSources projectSources) {
+        Map<IRI, OWLOntologyDocumentSource> documentSourcesByIri = new LinkedHashMap<>();
+        for(OWLOntologyDocumentSource documentSource : projectSources.getDocumentSources()) {
+            documentSourcesByIri.putIfAbsent(documentSource.getDocumentIRI(), documentSource);
+        }
+        for(OWLOntologyDocumentSource documentSource : projectSources.getContainedDocumentSources()) {
+            documentSourcesByIri.putIfAbsent(documentSource.getDocumentIRI(), documentSource);
         }
+        return documentSourcesByIri;
     }
 
 }
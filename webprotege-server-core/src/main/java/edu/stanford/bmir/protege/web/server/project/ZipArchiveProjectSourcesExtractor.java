@@ -7,6 +7,7 @@ import edu.stanford.bmir.protege.web.server.util.ZipFileExtractor;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.TrueFileFilter;
 import org.semanticweb.owlapi.io.FileDocumentSource;
+import org.semanticweb.owlapi.io.IRIDocumentSource;
 import org.semanticweb.owlapi.io.OWLOntologyDocumentSource;
 import org.semanticweb.owlapi.model.OWLOntologyIRIMapper;
 import org.semanticweb.owlapi.util.AutoIRIMapper;
@@ -18,6 +19,8 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.Optional;
 
+import static java.util.stream.Collectors.toList;
+
 /**
  * @author Matthew Horridge,
  *         Stanford University,
@@ -72,6 +75,8 @@ public class ZipArchiveProjectSourcesExtractor implements RawProjectSourcesExtra
 
         private File baseDirectory;
 
+        private AutoIRIMapper iriMapper;
+
         private ExtractedZipArchiveProjectSources(File rootOntologyDocument, File baseDirectory) {
             this.rootOntologyDocument = rootOntologyDocument;
             this.baseDirectory = baseDirectory;
@@ -82,9 +87,28 @@ public class ZipArchiveProjectSourcesExtractor implements RawProjectSourcesExtra
             return Lists.newArrayList(new FileDocumentSource(rootOntologyDocument));
         }
 
+        @Override
+        public Collection<OWLOntologyDocumentSource> getContainedDocumentSources() {
+            AutoIRIMapper mapper = getAutoIRIMapper();
+            return mapper.getOntologyIRIs()
+                         .stream()
+                         .map(mapper::getDocumentIRI)
+                         .distinct()
+                         .map(IRIDocumentSource::new)
+                         .collect(toList());
+        }
+
         @Override
         public OWLOntologyIRIMapper getOntologyIRIMapper() {
-            return new AutoIRIMapper(baseDirectory, true);
+            return getAutoIRIMapper();
+        }
+
+        private synchronized AutoIRIMapper getAutoIRIMapper() {
+            // The mapper scans the whole directory, so we only want to do this once
+            if(iriMapper == null) {
+                iriMapper = new AutoIRIMapper(baseDirectory, true);
+            }
+            return iriMapper;
         }
 
         @Override
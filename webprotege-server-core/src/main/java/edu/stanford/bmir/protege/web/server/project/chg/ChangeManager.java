@@ -1,11 +1,14 @@
 package edu.stanford.bmir.protege.web.server.project.chg;
 
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
 import edu.stanford.bmir.protege.web.server.access.AccessManager;
 import edu.stanford.bmir.protege.web.server.access.ProjectResource;
 import edu.stanford.bmir.protege.web.server.app.UserInSessionFactory;
 import edu.stanford.bmir.protege.web.server.change.HasApplyChanges;
 import edu.stanford.bmir.protege.web.server.change.*;
 import edu.stanford.bmir.protege.web.server.crud.*;
+import edu.stanford.bmir.protege.web.server.crud.obo.OBOIdAllocationIndex;
 import edu.stanford.bmir.protege.web.server.events.EventManager;
 import edu.stanford.bmir.protege.web.server.events.EventTranslatorManager;
 import edu.stanford.bmir.protege.web.server.hierarchy.ClassHierarchyProvider;
@@ -25,6 +28,7 @@ import edu.stanford.bmir.protege.web.server.revision.Revision;
 import edu.stanford.bmir.protege.web.server.revision.RevisionManager;
 import edu.stanford.bmir.protege.web.server.shortform.DictionaryManager;
 import edu.stanford.bmir.protege.web.server.shortform.DictionaryUpdatesProcessor;
+import edu.stanford.bmir.protege.web.server.tag.CriteriaBasedTagsIndex;
 import edu.stanford.bmir.protege.web.server.webhook.ProjectChangedWebhookInvoker;
 import edu.stanford.bmir.protege.web.shared.DataFactory;
 import edu.stanford.bmir.protege.web.shared.crud.EntityCrudKitSuffixSettings;
@@ -41,6 +45,8 @@ import javax.annotation.Nonnull;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -125,6 +131,13 @@ public class ChangeManager implements HasApplyChanges {
     @Nonnull
     private final Lock changeProcesssingLock = new ReentrantLock();
 
+    /**
+     * Posts the high level events for revisions in revision order.  Revisions are submitted whilst the change
+     * processing lock is held, so they are submitted in the order that they were applied.
+     */
+    @Nonnull
+    private final RevisionEventSequencer eventSequencer;
+
     @Nonnull
     private final RenameMapFactory renameMapFactory;
 
@@ -140,6 +153,15 @@ public class ChangeManager implements HasApplyChanges {
     @Nonnull
     private final OntologyStore ontologyStore;
 
+    @Nonnull
+    private final CriteriaBasedTagsIndex criteriaBasedTagsIndex;
+
+    @Nonnull
+    private final OBOIdAllocationIndex oboIdAllocationIndex;
+
+    @Nonnull
+    private final ProjectLockMetrics lockMetrics;
+
     @Inject
     public ChangeManager(@Nonnull ProjectId projectId,
                          @Nonnull DictionaryUpdatesProcessor dictionaryUpdatesProcessor,
@@ -164,7 +186,10 @@ public class ChangeManager implements HasApplyChanges {
                          @Nonnull BuiltInPrefixDeclarations builtInPrefixDeclarations,
                          @Nonnull IndexUpdater indexUpdater,
                          @Nonnull DefaultOntologyIdManager defaultOntologyIdManager,
-                         @Nonnull OntologyStore ontologyStore) {
+                         @Nonnull OntologyStore ontologyStore,
+                         @Nonnull CriteriaBasedTagsIndex criteriaBasedTagsIndex,
+                         @Nonnull OBOIdAllocationIndex oboIdAllocationIndex,
+                         @Nonnull ProjectLockMetrics lockMetrics) {
         this.projectId = projectId;
         this.dictionaryUpdatesProcessor = dictionaryUpdatesProcessor;
         this.activeLanguagesManager = activeLanguagesManager;
@@ -189,6 +214,10 @@ public class ChangeManager implements HasApplyChanges {
         this.indexUpdater = indexUpdater;
         this.defaultOntologyIdManager = defaultOntologyIdManager;
         this.ontologyStore = ontologyStore;
+        this.criteriaBasedTagsIndex = criteriaBasedTagsIndex;
+        this.oboIdAllocationIndex = oboIdAllocationIndex;
+        this.lockMetrics = lockMetrics;
+        this.eventSequencer = new RevisionEventSequencer(projectId);
     }
 
     /**
@@ -204,6 +233,7 @@ public class ChangeManager implements HasApplyChanges {
      *                            {@link ChangeListGenerator#generateChanges(ChangeGenerationContext)}
      *                            method being called and the changes being applied.
      * @return A {@link ChangeApplicationResult} that describes the changes which took place an any renaminings.
+     * The high level events for the changes have been posted when this method returns.
      * @throws NullPointerException      if any parameters are {@code null}.
      * @throws PermissionDeniedException if the user identified by {@code userId} does not have permssion to write to
      *                                   ontologies in this project.
@@ -219,6 +249,8 @@ public class ChangeManager implements HasApplyChanges {
 
         final ChangeApplicationResult<R> changeApplicationResult;
 
+        final CompletableFuture<Void> eventsPosted;
+
 
         var crudContext = getEntityCrudContext(userId);
 
@@ -228,7 +260,7 @@ public class ChangeManager implements HasApplyChanges {
         try {
             // Compute the changes that need to take place.  We don't allow any other writes here because the
             // generation of the changes may depend upon the state of the project
-            changeProcesssingLock.lock();
+            lockAndRecordWait(changeProcesssingLock);
 
             var changeList = changeListGenerator.generateChanges(new ChangeGenerationContext(userId));
 
@@ -287,7 +319,7 @@ public class ChangeManager implements HasApplyChanges {
             // we apply the changes
             final Optional<Revision> revision;
             try {
-                projectChangeWriteLock.lock();
+                lockAndRecordWait(projectChangeWriteLock);
                 var appliedChanges = ontologyStore.applyChanges(minimisedChanges);
                 var renameMap = renameMapFactory.create(tempIri2MintedIri);
                 var renamedResult = getRenamedResult(changeListGenerator, changeList.getResult(), renameMap);
@@ -305,15 +337,28 @@ public class ChangeManager implements HasApplyChanges {
                 projectChangeWriteLock.unlock();
             }
 
-            generateAndDispatchHighLevelEvents(userId, changeListGenerator, changeApplicationResult, eventTranslatorManager, revision);
+            // The changes are translated on the event translator executor, so that the next changes can be applied
+            // in the meantime.  They are submitted under the change processing lock so that the events are posted in
+            // revision order.
+            eventsPosted = generateAndDispatchHighLevelEvents(userId, changeListGenerator, changeApplicationResult, eventTranslatorManager, revision);
 
         } finally {
             changeProcesssingLock.unlock();
         }
-
+        // Callers read the events for their changes as soon as the changes have been applied
+        awaitHighLevelEvents(eventsPosted);
         return changeApplicationResult;
     }
 
+    /**
+     * Acquires the specified lock and records the time spent waiting for it against this project.
+     */
+    private void lockAndRecordWait(@Nonnull Lock lock) {
+        var waitStart = System.nanoTime();
+        lock.lock();
+        lockMetrics.recordLockWait(projectId, System.nanoTime() - waitStart);
+    }
+
     private void throwEditPermissionDeniedIfNecessary(UserId userId) {
         var subject = forUser(userId);
         var projectResource = new ProjectResource(projectId);
@@ -501,6 +546,7 @@ public class ChangeManager implements HasApplyChanges {
                 .map(OWLOntologyChange::getChangeRecord)
                 .collect(toList());
         indexUpdater.propagateOntologyChanges(changeRecords);
+        oboIdAllocationIndex.handleChanges(changes);
 
 
         // Update the rendering first so that a proper change message is generated
@@ -517,28 +563,55 @@ public class ChangeManager implements HasApplyChanges {
         objectPropertyHierarchyProvider.handleChanges(changeRecords);
         dataPropertyHierarchyProvider.handleChanges(changeRecords);
         annotationPropertyHierarchyProvider.handleChanges(changeRecords);
+
+        // Must be updated before events are generated so that entity tags changed events are correct
+        criteriaBasedTagsIndex.handleChanges(changes);
         return revision;
     }
 
-    private <R> void generateAndDispatchHighLevelEvents(UserId userId,
-                                                        ChangeListGenerator<R> changeListGenerator,
-                                                        ChangeApplicationResult<R> finalResult,
-                                                        EventTranslatorManager eventTranslatorManager,
-                                                        Optional<Revision> revision) {
-        if(changeListGenerator instanceof SilentChangeListGenerator) {
-            return;
+    /**
+     * Translates the applied changes into high level events, on the event translator executor, and posts them once
+     * the events for all earlier revisions have been posted.  This does not block.  The translators read the current
+     * state of the project, which might already include later revisions by the time that they run.  Their events are
+     * still posted in revision order, so clients end up with the state of the latest revision.
+     * @return A future that completes when the events have been posted
+     */
+    private <R> CompletableFuture<Void> generateAndDispatchHighLevelEvents(UserId userId,
+                                                                           ChangeListGenerator<R> changeListGenerator,
+                                                                           ChangeApplicationResult<R> finalResult,
+                                                                           EventTranslatorManager eventTranslatorManager,
+                                                                           Optional<Revision> revision) {
+        if(!revision.isPresent() || changeListGenerator instanceof SilentChangeListGenerator) {
+            return CompletableFuture.completedFuture(null);
         }
-        revision.ifPresent(rev -> {
-            var highLevelEvents = new ArrayList<ProjectEvent<?>>();
-            eventTranslatorManager.translateOntologyChanges(rev, finalResult, highLevelEvents);
-            if(changeListGenerator instanceof HasHighLevelEvents) {
-                highLevelEvents.addAll(((HasHighLevelEvents) changeListGenerator).getHighLevelEvents());
-            }
+        var rev = revision.get();
+        var generatorEvents = ImmutableList.<ProjectEvent<?>>of();
+        if(changeListGenerator instanceof HasHighLevelEvents) {
+            generatorEvents = ImmutableList.copyOf(((HasHighLevelEvents) changeListGenerator).getHighLevelEvents());
+        }
+        var capturedGeneratorEvents = generatorEvents;
+        var translatedEvents = eventTranslatorManager.translateOntologyChanges(rev, finalResult);
+        return eventSequencer.submit(rev.getRevisionNumber(), translatedEvents, events -> {
+            var highLevelEvents = new ArrayList<ProjectEvent<?>>(events);
+            highLevelEvents.addAll(capturedGeneratorEvents);
             projectEventManager.postEvents(highLevelEvents);
             projectChangedWebhookInvoker.invoke(userId, rev.getRevisionNumber(), rev.getTimestamp());
         });
     }
 
+    /**
+     * Waits for the events for applied changes to be posted.  A failure to translate or post the events is reported
+     * to the user who applied the changes.
+     */
+    private static void awaitHighLevelEvents(CompletableFuture<Void> eventsPosted) {
+        try {
+            eventsPosted.join();
+        } catch(CompletionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw e;
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private <E extends OWLEntity> Optional<E> getEntityOfTypeIfPresent(EntityType<E> entityType,
                                                                        String shortName) {
@@ -0,0 +1,18 @@
+package edu.stanford.bmir.protege.web.server.project.chg;
+
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Receives the time that is spent waiting to acquire the change locks of a project.
+ */
+public interface ProjectLockMetrics {
+
+    /**
+     * Records the time spent waiting to acquire a project lock.
+     * @param projectId The project whose lock was acquired.
+     * @param waitNanos The time spent waiting for the lock.
+     */
+    void recordLockWait(@Nonnull ProjectId projectId, long waitNanos);
+}
@@ -0,0 +1,73 @@
+package edu.stanford.bmir.protege.web.server.project.chg;
+
+import edu.stanford.bmir.protege.web.shared.event.ProjectEvent;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Posts the events for the revisions of a project in revision order.  The events for a revision may still be being
+ * translated whilst later revisions are applied and translated, but they are posted one revision at a time, and only
+ * once the events for all earlier revisions have been posted.
+ */
+class RevisionEventSequencer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevisionEventSequencer.class);
+
+    @Nonnull
+    private final ProjectId projectId;
+
+    @Nullable
+    private RevisionNumber lastRevisionNumber = null;
+
+    /**
+     * Completes when the events for the last submitted revision have been posted, or have failed to be posted.
+     */
+    @Nonnull
+    private CompletableFuture<Void> lastRevisionPosted = CompletableFuture.completedFuture(null);
+
+    RevisionEventSequencer(@Nonnull ProjectId projectId) {
+        this.projectId = checkNotNull(projectId);
+    }
+
+    /**
+     * Submits the events for a revision.  Revisions must be submitted in increasing revision number order.
+     * @param revisionNumber The revision number of the revision that the events were generated for.
+     * @param events A future that completes with the events for the revision.
+     * @param poster Posts the events.  This is called once the events have been generated and the events for all
+     *               previously submitted revisions have been posted.
+     * @return A future that completes when the events have been posted.  A failure to generate or post the events is
+     * logged and does not prevent the events for later revisions from being posted.
+     * @throws IllegalArgumentException if the revision number is not greater than the revision number of the last
+     * submitted revision.
+     */
+    @Nonnull
+    synchronized CompletableFuture<Void> submit(@Nonnull RevisionNumber revisionNumber,
+                                                @Nonnull CompletableFuture<? extends List<ProjectEvent<?>>> events,
+                                                @Nonnull Consumer<List<ProjectEvent<?>>> poster) {
+        checkNotNull(events);
+        checkNotNull(poster);
+        checkArgument(lastRevisionNumber == null || revisionNumber.compareTo(lastRevisionNumber) > 0,
+                      "Revision %s was submitted after revision %s", revisionNumber, lastRevisionNumber);
+        lastRevisionNumber = revisionNumber;
+        var posted = lastRevisionPosted.thenCombine(events, (ignored, revisionEvents) -> revisionEvents)
+                                       .thenAccept(poster);
+        lastRevisionPosted = posted.handle((result, throwable) -> {
+            if(throwable != null) {
+                logger.error("{} Could not post the events for revision {}", projectId, revisionNumber, throwable);
+            }
+            return null;
+        });
+        return posted;
+    }
+}
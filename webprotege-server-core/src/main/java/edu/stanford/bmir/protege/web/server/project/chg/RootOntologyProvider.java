@@ -1,5 +1,7 @@
 package edu.stanford.bmir.protege.web.server.project.chg;
 
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryCategory;
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryConsumer;
 import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
 import org.semanticweb.owlapi.model.OWLOntology;
 
@@ -15,12 +17,18 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * 04/03/15
  */
 @ProjectSingleton
-public class RootOntologyProvider implements Provider<OWLOntology> {
+public class RootOntologyProvider implements Provider<OWLOntology>, ProjectMemoryConsumer {
+
+    /**
+     * An estimate of the memory retained per axiom, taking into account the axiom objects themselves, the internal
+     * indexes of the ontologies and the project indexes.
+     */
+    private static final long ESTIMATED_BYTES_PER_AXIOM = 600;
 
     @Nonnull
     private final RootOntologyLoader loader;
 
-    private OWLOntology rootOntology = null;
+    private volatile OWLOntology rootOntology = null;
 
     @Inject
     public RootOntologyProvider(RootOntologyLoader loader) {
@@ -36,5 +44,23 @@ public class RootOntologyProvider implements Provider<OWLOntology> {
         return rootOntology;
     }
 
+    @Nonnull
+    @Override
+    public ProjectMemoryCategory getMemoryCategory() {
+        return ProjectMemoryCategory.ONTOLOGIES;
+    }
+
+    @Override
+    public long getEstimatedSizeInBytes() {
+        // Not synchronized so that estimates do not wait for the ontology to load
+        var ontology = rootOntology;
+        if(ontology == null) {
+            return 0;
+        }
+        return ontology.getImportsClosure()
+                       .stream()
+                       .mapToLong(OWLOntology::getAxiomCount)
+                       .sum() * ESTIMATED_BYTES_PER_AXIOM;
+    }
 
 }
@@ -43,6 +43,11 @@ public class GetProjectSettingsActionHandler extends AbstractProjectActionHandle
         return GetProjectSettingsAction.class;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Nullable
     @Override
     protected BuiltInAction getRequiredExecutableBuiltInAction() {
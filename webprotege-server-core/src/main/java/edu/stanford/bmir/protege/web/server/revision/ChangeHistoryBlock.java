@@ -0,0 +1,114 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An entry in the block index of a change history that is stored in the block format.  The entry
+ * identifies the range of revisions in a block and where the (possibly compressed) data for the block
+ * is stored in the file.
+ */
+public class ChangeHistoryBlock {
+
+    private final RevisionNumber firstRevisionNumber;
+
+    private final RevisionNumber lastRevisionNumber;
+
+    private final int revisionCount;
+
+    private final ChangeHistoryCompression compression;
+
+    private final long dataPosition;
+
+    private final int storedLength;
+
+    private final int uncompressedLength;
+
+    private final int checksum;
+
+    private final byte[] dictionary;
+
+    public ChangeHistoryBlock(@Nonnull RevisionNumber firstRevisionNumber,
+                              @Nonnull RevisionNumber lastRevisionNumber,
+                              int revisionCount,
+                              @Nonnull ChangeHistoryCompression compression,
+                              long dataPosition,
+                              int storedLength,
+                              int uncompressedLength,
+                              int checksum,
+                              @Nonnull byte[] dictionary) {
+        this.firstRevisionNumber = checkNotNull(firstRevisionNumber);
+        this.lastRevisionNumber = checkNotNull(lastRevisionNumber);
+        this.revisionCount = revisionCount;
+        this.compression = checkNotNull(compression);
+        this.dataPosition = dataPosition;
+        this.storedLength = storedLength;
+        this.uncompressedLength = uncompressedLength;
+        this.checksum = checksum;
+        this.dictionary = checkNotNull(dictionary);
+    }
+
+    @Nonnull
+    public RevisionNumber getFirstRevisionNumber() {
+        return firstRevisionNumber;
+    }
+
+    @Nonnull
+    public RevisionNumber getLastRevisionNumber() {
+        return lastRevisionNumber;
+    }
+
+    public int getRevisionCount() {
+        return revisionCount;
+    }
+
+    @Nonnull
+    public ChangeHistoryCompression getCompression() {
+        return compression;
+    }
+
+    /**
+     * Gets the position in the file of the stored data for this block.
+     */
+    public long getDataPosition() {
+        return dataPosition;
+    }
+
+    public int getStoredLength() {
+        return storedLength;
+    }
+
+    public int getUncompressedLength() {
+        return uncompressedLength;
+    }
+
+    /**
+     * Gets the CRC32 checksum of the stored data.
+     */
+    public int getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Gets the dictionary of the segment that contains this block.  The array is shared and must not be modified.
+     */
+    @Nonnull
+    byte[] getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("ChangeHistoryBlock")
+                .add("firstRevisionNumber", firstRevisionNumber.getValue())
+                .add("lastRevisionNumber", lastRevisionNumber.getValue())
+                .add("compression", compression)
+                .add("storedLength", storedLength)
+                .add("uncompressedLength", uncompressedLength)
+                .toString();
+    }
+}
@@ -0,0 +1,222 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import org.semanticweb.binaryowl.BinaryOWLOntologyChangeLog;
+import org.semanticweb.owlapi.model.IRI;
+
+import javax.annotation.Nonnull;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The block format for change history files.  A file in this format consists of a header followed by a sequence
+ * of segments.  Each segment starts with a dictionary and is followed by a sequence of blocks.  A block contains
+ * one or more consecutive revisions, serialized in the same way as in the original (binary OWL change log) format,
+ * that are optionally compressed, using the dictionary of the segment as a preset dictionary.  The dictionary
+ * holds frequently changed IRIs so that the IRIs that are repeated across revisions compress well, even in small
+ * blocks.
+ *
+ * Each block records the range of revision numbers that it contains along with its length, so that a
+ * block index can be built by skipping over the block data, and so that blocks can be read independently
+ * of each other.
+ */
+public final class ChangeHistoryBlockFormat {
+
+    static final int MAGIC_NUMBER = 0x57504348;
+
+    static final int VERSION = 2;
+
+    static final int HEADER_LENGTH = 8;
+
+    static final int SEGMENT_RECORD = 1;
+
+    static final int BLOCK_RECORD = 2;
+
+    /**
+     * The length of a block record, excluding the stored data.
+     */
+    static final int BLOCK_RECORD_HEADER_LENGTH = 34;
+
+    /**
+     * The maximum size of a segment dictionary.  Deflate cannot make use of more than this.
+     */
+    public static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+
+    /**
+     * Revisions are grouped into blocks of roughly this size when a complete history is written
+     */
+    private static final int TARGET_BLOCK_SIZE = 1024 * 1024;
+
+    private static final int MAX_REVISIONS_PER_BLOCK = 256;
+
+    private ChangeHistoryBlockFormat() {
+    }
+
+    /**
+     * Determines whether the specified file is a change history file in the block format.
+     * @return true if the file starts with the block format header, otherwise false.  Empty and
+     * non-existent files are not in the block format.
+     */
+    public static boolean isBlockFormat(@Nonnull File file) throws IOException {
+        if(file.length() < HEADER_LENGTH) {
+            return false;
+        }
+        try(var in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC_NUMBER;
+        }
+    }
+
+    public static void writeHeader(@Nonnull DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC_NUMBER);
+        out.writeInt(VERSION);
+    }
+
+    /**
+     * Writes the start of a new segment.
+     * @param dictionary The dictionary for the segment.  Blocks that follow are compressed using this dictionary.
+     */
+    public static void writeSegment(@Nonnull byte[] dictionary, @Nonnull DataOutputStream out) throws IOException {
+        checkArgument(dictionary.length <= MAX_DICTIONARY_SIZE, "Dictionary is too large");
+        out.writeByte(SEGMENT_RECORD);
+        out.writeInt(dictionary.length);
+        out.write(dictionary);
+    }
+
+    /**
+     * Writes the specified revisions as a single block.
+     * @param revisions The revisions.  Must not be empty.
+     * @param compression The compression to apply to the block.
+     * @param dictionary The dictionary of the current segment.
+     */
+    public static void writeBlock(@Nonnull List<Revision> revisions,
+                                  @Nonnull ChangeHistoryCompression compression,
+                                  @Nonnull byte[] dictionary,
+                                  @Nonnull DataOutputStream out) throws IOException {
+        checkArgument(!revisions.isEmpty(), "A block must contain at least one revision");
+        writeBlock(revisions.get(0),
+                   revisions.get(revisions.size() - 1),
+                   revisions.size(),
+                   serializeRevisions(revisions),
+                   compression,
+                   dictionary,
+                   out);
+    }
+
+    private static void writeBlock(Revision firstRevision,
+                                   Revision lastRevision,
+                                   int revisionCount,
+                                   byte[] serializedRevisions,
+                                   ChangeHistoryCompression compression,
+                                   byte[] dictionary,
+                                   DataOutputStream out) throws IOException {
+        var stored = compression.compress(serializedRevisions, dictionary);
+        var crc = new CRC32();
+        crc.update(stored);
+        out.writeByte(BLOCK_RECORD);
+        out.writeLong(firstRevision.getRevisionNumber().getValue());
+        out.writeLong(lastRevision.getRevisionNumber().getValue());
+        out.writeInt(revisionCount);
+        out.writeByte(compression.getCode());
+        out.writeInt(serializedRevisions.length);
+        out.writeInt(stored.length);
+        out.writeInt((int) crc.getValue());
+        out.write(stored);
+    }
+
+    /**
+     * Writes a complete change history, containing the specified revisions, to the specified file.  The revisions
+     * are written in a single segment.
+     */
+    public static void writeChangeHistory(@Nonnull File file,
+                                          @Nonnull List<Revision> revisions,
+                                          @Nonnull ChangeHistoryCompression compression,
+                                          @Nonnull byte[] dictionary) throws IOException {
+        checkNotNull(file);
+        checkNotNull(revisions);
+        try(var out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            writeHeader(out);
+            writeSegment(dictionary, out);
+            var changeLog = new BinaryOWLOntologyChangeLog();
+            var blockData = new ByteArrayOutputStream();
+            var blockRevisions = new ArrayList<Revision>();
+            for(var revision : revisions) {
+                changeLog.appendChanges(RevisionSerializationTask.createChangeRecordList(revision), blockData);
+                blockRevisions.add(revision);
+                if(blockData.size() >= TARGET_BLOCK_SIZE || blockRevisions.size() == MAX_REVISIONS_PER_BLOCK) {
+                    writeBlock(blockRevisions.get(0), revision, blockRevisions.size(), blockData.toByteArray(), compression, dictionary, out);
+                    blockData.reset();
+                    blockRevisions.clear();
+                }
+            }
+            if(!blockRevisions.isEmpty()) {
+                writeBlock(blockRevisions.get(0), blockRevisions.get(blockRevisions.size() - 1), blockRevisions.size(), blockData.toByteArray(), compression, dictionary, out);
+            }
+        }
+    }
+
+    /**
+     * Creates a segment dictionary from the specified IRIs.
+     * @param iris The IRIs, most important first.  As many IRIs as will fit are included in the dictionary.
+     */
+    @Nonnull
+    public static byte[] createDictionary(@Nonnull List<IRI> iris) {
+        var included = getDictionaryEntries(iris);
+        var size = included.stream().mapToInt(bytes -> bytes.length).sum();
+        // Deflate favours matches that are close, so the most important IRIs go at the end
+        var dictionary = new ByteArrayOutputStream(size);
+        for(int i = included.size() - 1; i >= 0; i--) {
+            dictionary.writeBytes(included.get(i));
+        }
+        return dictionary.toByteArray();
+    }
+
+    /**
+     * Gets the proportion of the dictionary that would be created from the specified IRIs that is already
+     * contained in an existing dictionary.
+     * @param dictionary The existing dictionary.
+     * @param iris The IRIs, most important first.
+     * @return The proportion, by size, of the IRIs that would be included in a new dictionary that are also in the
+     * existing dictionary.  This is 1 if a new dictionary would be empty.
+     */
+    public static double getDictionaryCoverage(@Nonnull byte[] dictionary, @Nonnull List<IRI> iris) {
+        // ISO-8859-1 maps each byte to one char, so that byte sequences can be searched for as strings
+        var existingDictionary = new String(dictionary, StandardCharsets.ISO_8859_1);
+        var totalSize = 0;
+        var coveredSize = 0;
+        for(var bytes : getDictionaryEntries(iris)) {
+            totalSize += bytes.length;
+            if(existingDictionary.contains(new String(bytes, StandardCharsets.ISO_8859_1))) {
+                coveredSize += bytes.length;
+            }
+        }
+        return totalSize == 0 ? 1.0 : (double) coveredSize / totalSize;
+    }
+
+    private static List<byte[]> getDictionaryEntries(List<IRI> iris) {
+        var included = new ArrayList<byte[]>();
+        var size = 0;
+        for(var iri : iris) {
+            var bytes = iri.toString().getBytes(StandardCharsets.UTF_8);
+            if(size + bytes.length > MAX_DICTIONARY_SIZE) {
+                break;
+            }
+            included.add(bytes);
+            size += bytes.length;
+        }
+        return included;
+    }
+
+    private static byte[] serializeRevisions(List<Revision> revisions) throws IOException {
+        var changeLog = new BinaryOWLOntologyChangeLog();
+        var out = new ByteArrayOutputStream();
+        for(var revision : revisions) {
+            changeLog.appendChanges(RevisionSerializationTask.createChangeRecordList(revision), out);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,48 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nonnull;
+import java.util.Optional;
+
+/**
+ * The blocks in a change history file, in the order that they appear in the file.
+ */
+@AutoValue
+public abstract class ChangeHistoryBlockIndex {
+
+    @Nonnull
+    public static ChangeHistoryBlockIndex get(@Nonnull ImmutableList<ChangeHistoryBlock> blocks,
+                                              @Nonnull Optional<byte[]> lastSegmentDictionary,
+                                              long validLength,
+                                              long fileLength) {
+        return new AutoValue_ChangeHistoryBlockIndex(blocks, lastSegmentDictionary, validLength, fileLength);
+    }
+
+    @Nonnull
+    public abstract ImmutableList<ChangeHistoryBlock> getBlocks();
+
+    /**
+     * Gets the dictionary of the last segment that is within the valid length of the file.  Blocks that are
+     * appended to the file are compressed with this dictionary unless a new segment is started.
+     * @return The dictionary, or empty if the file does not contain any complete segments.
+     */
+    @Nonnull
+    public abstract Optional<byte[]> getLastSegmentDictionary();
+
+    /**
+     * Gets the length of the file up to the end of the last complete record.
+     */
+    public abstract long getValidLength();
+
+    public abstract long getFileLength();
+
+    /**
+     * Determines whether the file ends with a partially written record, for example because of a crash
+     * whilst the record was being written.
+     */
+    public boolean hasTruncatedTail() {
+        return getValidLength() < getFileLength();
+    }
+}
@@ -0,0 +1,338 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import org.semanticweb.binaryowl.BinaryOWLChangeLogHandler;
+import org.semanticweb.binaryowl.BinaryOWLOntologyChangeLog;
+import org.semanticweb.binaryowl.BinaryOWLParseException;
+import org.semanticweb.binaryowl.change.OntologyChangeRecordList;
+import org.semanticweb.binaryowl.chunk.SkipSetting;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+
+import javax.annotation.Nonnull;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static edu.stanford.bmir.protege.web.server.revision.ChangeHistoryBlockFormat.*;
+
+/**
+ * Reads change history files that are in the {@link ChangeHistoryBlockFormat}.  Reading is done in two passes.
+ * The first pass reads the block headers, skipping the block data, to build a {@link ChangeHistoryBlockIndex}.
+ * In the second pass the data for each block is mapped into memory and decoded.  Blocks are independent of each
+ * other so they can be decoded in parallel.
+ */
+public class ChangeHistoryBlockReader {
+
+    private final File file;
+
+    public ChangeHistoryBlockReader(@Nonnull File file) {
+        this.file = checkNotNull(file);
+    }
+
+    /**
+     * Reads the block index for the file.  The data for each block is skipped, so this is much cheaper
+     * than reading the revisions.
+     * @throws IOException if the file is not in the block format or is corrupt.  A partially written record
+     * at the end of the file is not regarded as corruption.  Neither is a final block whose data does not match
+     * its checksum, which is what a write that was torn by a crash can leave behind.  These are reported in
+     * the returned index, and the blocks are not included in it.  However, if an intact block follows the
+     * damaged record then the damage is not at the end of the file and an IOException is thrown.
+     */
+    @Nonnull
+    public ChangeHistoryBlockIndex readBlockIndex() throws IOException {
+        var fileLength = file.length();
+        try(var counter = new CountingInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            var in = new DataInputStream(counter);
+            if(fileLength < HEADER_LENGTH || in.readInt() != MAGIC_NUMBER) {
+                throw new IOException("Not a change history block file: " + file.getAbsolutePath());
+            }
+            var version = in.readInt();
+            if(version != VERSION) {
+                throw new IOException("Unsupported change history version: " + version);
+            }
+            var blocks = new ArrayList<ChangeHistoryBlock>();
+            var dictionary = new byte[0];
+            var segmentRead = false;
+            var validLength = counter.getCount();
+            var lastBlockPosition = validLength;
+            try {
+                int recordType;
+                while((recordType = in.read()) != -1) {
+                    if(recordType == SEGMENT_RECORD) {
+                        var dictionaryLength = in.readInt();
+                        if(dictionaryLength < 0 || dictionaryLength > MAX_DICTIONARY_SIZE) {
+                            throw new IOException("Corrupt segment at position " + validLength);
+                        }
+                        // Don't replace the dictionary with a partially read one
+                        var segmentDictionary = new byte[dictionaryLength];
+                        in.readFully(segmentDictionary);
+                        dictionary = segmentDictionary;
+                        segmentRead = true;
+                    }
+                    else if(recordType == BLOCK_RECORD) {
+                        var block = readBlockHeader(in, counter, dictionary, validLength);
+                        ByteStreams.skipFully(in, block.getStoredLength());
+                        if(counter.getCount() > fileLength) {
+                            // Skipping past the end of the file does not fail
+                            throw new EOFException();
+                        }
+                        blocks.add(block);
+                        lastBlockPosition = validLength;
+                    }
+                    else {
+                        throw new IOException("Corrupt change history.  Unknown record type " + recordType + " at position " + validLength);
+                    }
+                    validLength = counter.getCount();
+                }
+            } catch(EOFException e) {
+                // Partially written record at the end of the file
+            }
+            if(!blocks.isEmpty() && !hasValidChecksum(blocks.get(blocks.size() - 1))) {
+                // The final block was torn.  Any segment that follows it is discarded along with it.
+                dictionary = blocks.remove(blocks.size() - 1).getDictionary();
+                validLength = lastBlockPosition;
+            }
+            if(validLength < fileLength) {
+                var intactBlockPosition = findIntactBlock(validLength + 1, fileLength);
+                if(intactBlockPosition != -1) {
+                    throw new IOException("Corrupt change history.  The record at position " + validLength +
+                                                  " is damaged but is followed by an intact block at position " + intactBlockPosition);
+                }
+            }
+            var lastSegmentDictionary = segmentRead ? Optional.of(dictionary) : Optional.<byte[]>empty();
+            return ChangeHistoryBlockIndex.get(ImmutableList.copyOf(blocks), lastSegmentDictionary, validLength, fileLength);
+        }
+    }
+
+    /**
+     * Finds the position of the first intact block record that starts at or after the specified position.
+     * @return The position or -1 if there is no intact block record.
+     */
+    private long findIntactBlock(long fromPosition, long fileLength) throws IOException {
+        var length = fileLength - fromPosition;
+        if(length < BLOCK_RECORD_HEADER_LENGTH) {
+            return -1;
+        }
+        if(length > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt change history.  The record at position " + (fromPosition - 1) + " is damaged");
+        }
+        try(var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            var data = channel.map(FileChannel.MapMode.READ_ONLY, fromPosition, length);
+            for(int i = 0; i + BLOCK_RECORD_HEADER_LENGTH <= length; i++) {
+                if(data.get(i) == BLOCK_RECORD && isIntactBlock(data, i)) {
+                    return fromPosition + i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static boolean isIntactBlock(ByteBuffer data, int recordPosition) {
+        // Record type (1), first and last revision numbers (8 + 8), revision count (4), compression (1),
+        // uncompressed length (4), stored length (4), checksum (4)
+        var revisionCount = data.getInt(recordPosition + 17);
+        var compressionCode = data.get(recordPosition + 21) & 0xFF;
+        var uncompressedLength = data.getInt(recordPosition + 22);
+        var storedLength = data.getInt(recordPosition + 26);
+        var checksum = data.getInt(recordPosition + 30);
+        var dataPosition = recordPosition + BLOCK_RECORD_HEADER_LENGTH;
+        if(revisionCount < 1 || uncompressedLength < 0 || storedLength < 1 || storedLength > data.limit() - dataPosition) {
+            return false;
+        }
+        if(Arrays.stream(ChangeHistoryCompression.values()).noneMatch(c -> c.getCode() == compressionCode)) {
+            return false;
+        }
+        var stored = data.duplicate();
+        stored.position(dataPosition);
+        stored.limit(dataPosition + storedLength);
+        return isChecksumValid(stored, checksum);
+    }
+
+    private boolean hasValidChecksum(ChangeHistoryBlock block) throws IOException {
+        try(var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return isChecksumValid(mapBlock(channel, block), block.getChecksum());
+        }
+    }
+
+    private static boolean isChecksumValid(ByteBuffer stored, int checksum) {
+        var crc = new CRC32();
+        crc.update(stored.duplicate());
+        return (int) crc.getValue() == checksum;
+    }
+
+    /**
+     * Reads the revisions in a single block.
+     */
+    public void readRevisions(@Nonnull ChangeHistoryBlock block,
+                              @Nonnull OWLDataFactory dataFactory,
+                              @Nonnull BinaryOWLChangeLogHandler handler) throws IOException, BinaryOWLParseException {
+        try(var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            readRevisions(mapBlock(channel, block), block, dataFactory, handler);
+        }
+    }
+
+    /**
+     * Reads the revisions in all of the specified blocks.  Each block is decoded as a separate task on the
+     * specified executor.
+     * @param blocks The blocks.  These would typically be the blocks from the block index of the file.
+     * @param dataFactory The data factory used to create the changes.  This must be safe to use from multiple threads.
+     * @param revisionFactory A function that creates a revision from the change records of a revision.  This
+     *                        must be safe to call from multiple threads.
+     * @param executor The executor that is used to decode the blocks.
+     * @return The revisions in the order in which they are stored in the file.
+     */
+    @Nonnull
+    public <R> ImmutableList<R> readRevisions(@Nonnull List<ChangeHistoryBlock> blocks,
+                                              @Nonnull OWLDataFactory dataFactory,
+                                              @Nonnull Function<OntologyChangeRecordList, R> revisionFactory,
+                                              @Nonnull ExecutorService executor) throws IOException, BinaryOWLParseException {
+        checkNotNull(blocks);
+        checkNotNull(dataFactory);
+        checkNotNull(revisionFactory);
+        checkNotNull(executor);
+        try(var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // Blocks are often small, so rather than mapping each block we map the whole file once and slice it,
+            // unless it is too big to map in one go
+            var fileMapping = channel.size() <= Integer.MAX_VALUE ? channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()) : null;
+            var futures = new ArrayList<Future<List<R>>>(blocks.size());
+            for(var block : blocks) {
+                futures.add(executor.submit(() -> {
+                    var blockRevisions = new ArrayList<R>(block.getRevisionCount());
+                    var stored = fileMapping != null ? sliceBlock(fileMapping, block) : mapBlock(channel, block);
+                    readRevisions(stored, block, dataFactory, (list, skipSetting, position) ->
+                            blockRevisions.add(revisionFactory.apply(list)));
+                    return blockRevisions;
+                }));
+            }
+            var revisions = ImmutableList.<R>builder();
+            try {
+                for(var future : futures) {
+                    revisions.addAll(getBlockRevisions(future));
+                }
+            } finally {
+                futures.forEach(future -> future.cancel(true));
+            }
+            return revisions.build();
+        }
+    }
+
+    private static <R> List<R> getBlockRevisions(Future<List<R>> future) throws IOException, BinaryOWLParseException {
+        try {
+            return future.get();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted whilst reading change history");
+        } catch(ExecutionException e) {
+            var cause = e.getCause();
+            if(cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if(cause instanceof BinaryOWLParseException) {
+                throw (BinaryOWLParseException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static ChangeHistoryBlock readBlockHeader(DataInputStream in,
+                                                      CountingInputStream counter,
+                                                      byte[] dictionary,
+                                                      long recordPosition) throws IOException {
+        var firstRevisionNumber = RevisionNumber.getRevisionNumber(in.readLong());
+        var lastRevisionNumber = RevisionNumber.getRevisionNumber(in.readLong());
+        var revisionCount = in.readInt();
+        var compression = ChangeHistoryCompression.fromCode(in.readUnsignedByte());
+        var uncompressedLength = in.readInt();
+        var storedLength = in.readInt();
+        var checksum = in.readInt();
+        if(revisionCount < 1 || uncompressedLength < 0 || storedLength < 0) {
+            throw new IOException("Corrupt block at position " + recordPosition);
+        }
+        return new ChangeHistoryBlock(firstRevisionNumber,
+                                      lastRevisionNumber,
+                                      revisionCount,
+                                      compression,
+                                      counter.getCount(),
+                                      storedLength,
+                                      uncompressedLength,
+                                      checksum,
+                                      dictionary);
+    }
+
+    private static ByteBuffer mapBlock(FileChannel channel, ChangeHistoryBlock block) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, block.getDataPosition(), block.getStoredLength());
+    }
+
+    private static ByteBuffer sliceBlock(ByteBuffer fileMapping, ChangeHistoryBlock block) {
+        // Each slice has its own position and limit so slices can be read concurrently
+        var slice = fileMapping.duplicate();
+        slice.position((int) block.getDataPosition());
+        slice.limit((int) block.getDataPosition() + block.getStoredLength());
+        return slice.slice();
+    }
+
+    /**
+     * Reads the revisions from the stored data of a block.  Mapping avoids copying the stored data into the heap,
+     * and uncompressed blocks are parsed directly from the mapping.
+     */
+    private static void readRevisions(ByteBuffer stored,
+                                      ChangeHistoryBlock block,
+                                      OWLDataFactory dataFactory,
+                                      BinaryOWLChangeLogHandler handler) throws IOException, BinaryOWLParseException {
+        if(!isChecksumValid(stored, block.getChecksum())) {
+            throw new IOException("Corrupt change history.  Checksum mismatch for " + block);
+        }
+        var data = block.getCompression().decompress(stored, block.getUncompressedLength(), block.getDictionary());
+        var changeLog = new BinaryOWLOntologyChangeLog();
+        changeLog.readChanges(new ByteBufferInputStream(data), dataFactory, handler, SkipSetting.SKIP_NONE);
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            if(!buffer.hasRemaining()) {
+                return -1;
+            }
+            return buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(@Nonnull byte[] bytes, int off, int len) {
+            if(len == 0) {
+                return 0;
+            }
+            if(!buffer.hasRemaining()) {
+                return -1;
+            }
+            var count = Math.min(len, buffer.remaining());
+            buffer.get(bytes, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The compression that is applied to blocks of revisions in the change history.
+ */
+public enum ChangeHistoryCompression {
+
+    /**
+     * Blocks are stored uncompressed.
+     */
+    NONE(0) {
+        @Override
+        public byte[] compress(byte[] data, byte[] dictionary) {
+            return data;
+        }
+
+        @Override
+        public ByteBuffer decompress(ByteBuffer data, int uncompressedLength, byte[] dictionary) throws IOException {
+            if(data.remaining() != uncompressedLength) {
+                throw new IOException("Unexpected block length.  Expected " + uncompressedLength + " bytes but found " + data.remaining() + " bytes");
+            }
+            return data;
+        }
+    },
+
+    /**
+     * Blocks are compressed using Deflate, with the segment dictionary as the preset dictionary.
+     */
+    DEFLATE(1) {
+        @Override
+        public byte[] compress(byte[] data, byte[] dictionary) {
+            var deflater = new Deflater();
+            try {
+                if(dictionary.length > 0) {
+                    deflater.setDictionary(dictionary);
+                }
+                deflater.setInput(data);
+                deflater.finish();
+                var out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+                var buffer = new byte[BUFFER_SIZE];
+                while(!deflater.finished()) {
+                    var count = deflater.deflate(buffer);
+                    out.write(buffer, 0, count);
+                }
+                return out.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        @Override
+        public ByteBuffer decompress(ByteBuffer data, int uncompressedLength, byte[] dictionary) throws IOException {
+            var inflater = new Inflater();
+            try {
+                inflater.setInput(data);
+                var result = new byte[uncompressedLength];
+                var offset = 0;
+                while(offset < uncompressedLength) {
+                    var count = inflater.inflate(result, offset, uncompressedLength - offset);
+                    if(count == 0) {
+                        if(inflater.needsDictionary()) {
+                            inflater.setDictionary(dictionary);
+                        }
+                        else if(inflater.finished() || inflater.needsInput()) {
+                            break;
+                        }
+                    }
+                    offset += count;
+                }
+                if(offset != uncompressedLength) {
+                    throw new IOException("Unexpected block length.  Expected " + uncompressedLength + " bytes but found " + offset + " bytes");
+                }
+                return ByteBuffer.wrap(result);
+            } catch(DataFormatException e) {
+                throw new IOException("Corrupt block: " + e.getMessage(), e);
+            } finally {
+                inflater.end();
+            }
+        }
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final int code;
+
+    ChangeHistoryCompression(int code) {
+        this.code = code;
+    }
+
+    /**
+     * Gets the code that identifies this compression in the change history file.
+     */
+    public int getCode() {
+        return code;
+    }
+
+    public abstract byte[] compress(byte[] data, byte[] dictionary);
+
+    /**
+     * Decompresses the specified data.
+     * @param data The data.  This may be a direct (for example, memory mapped) buffer.
+     * @param uncompressedLength The expected length of the decompressed data.
+     * @param dictionary The dictionary that was used to compress the data.
+     * @return The decompressed data.  When there is no compression this is the specified buffer, so that
+     * the data is not copied.
+     */
+    public abstract ByteBuffer decompress(ByteBuffer data, int uncompressedLength, byte[] dictionary) throws IOException;
+
+    public static ChangeHistoryCompression fromCode(int code) throws IOException {
+        for(var compression : values()) {
+            if(compression.code == code) {
+                return compression;
+            }
+        }
+        throw new IOException("Unknown change history compression: " + code);
+    }
+}
@@ -0,0 +1,23 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+/**
+ * Specifies when changes that have been written to the change log are forced (fsync'd) to disk.
+ */
+public enum ChangeLogSyncPolicy {
+
+    /**
+     * Written changes are never explicitly forced to disk, other than when the change log is closed.
+     * It is left up to the operating system to decide when to write them.
+     */
+    NONE,
+
+    /**
+     * Written changes are forced to disk after each batch of revisions has been written.
+     */
+    EVERY_BATCH,
+
+    /**
+     * Written changes are forced to disk at most once every sync interval.
+     */
+    PERIODIC
+}
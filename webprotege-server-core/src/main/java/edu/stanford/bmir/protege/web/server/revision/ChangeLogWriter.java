@@ -0,0 +1,580 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.io.CountingOutputStream;
+import com.google.common.util.concurrent.Uninterruptibles;
+import edu.stanford.bmir.protege.web.shared.HasDispose;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import org.semanticweb.binaryowl.BinaryOWLOntologyChangeLog;
+import org.semanticweb.owlapi.model.IRI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Appends revisions to the change history file.  Revisions are queued and written by a single writer thread,
+ * which writes all of the revisions that are pending at the time of writing as one batch, through a
+ * {@link FileChannel} that is kept open for the lifetime of the writer.  Each batch is written as one block
+ * in the {@link ChangeHistoryBlockFormat}.  When the writer opens the file it carries on with the last segment in the
+ * file, unless a dictionary created from the current dictionary subjects would be materially different from the
+ * dictionary of that segment, in which case it starts a new segment.
+ * Written revisions are forced to disk according to the {@link ChangeLogSyncPolicy} in the settings.  If a batch
+ * cannot be written then whatever was written of it is truncated, so that the next batch is not appended after a
+ * partial record, and the batch is retried.  Nothing more is written until the truncation has succeeded.  If the
+ * batch still cannot be written then the writer fails: the batch, and any revisions that are queued after it, are
+ * failed and further revisions are rejected, so that the change log never has a gap in it.
+ *
+ * If the existing change history is in the original format (because it could not be migrated) then revisions
+ * are appended in the original format.
+ *
+ * The queue of pending revisions is bounded.  When it is full, callers of {@link #append(Revision, RevisionIndexEntry)}
+ * are blocked until the writer has caught up.
+ */
+public class ChangeLogWriter implements HasDispose {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeLogWriter.class);
+
+    private static final long SLOW_FLUSH_THRESHOLD_MS = 1000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private static final long RETRY_BACKOFF_MS = 100;
+
+    /**
+     * The last segment is carried on with if its dictionary contains at least this proportion of a new dictionary
+     */
+    private static final double MIN_SEGMENT_DICTIONARY_COVERAGE = 0.8;
+
+    private static final PendingRevision END_OF_LOG = new PendingRevision(null, null);
+
+    private final ProjectId projectId;
+
+    private final File changeHistoryFile;
+
+    private final RevisionIndexFile revisionIndexFile;
+
+    private final ChangeLogWriterSettings settings;
+
+    private final Supplier<List<IRI>> segmentDictionarySubjectsSupplier;
+
+    private final ChannelOpener channelOpener;
+
+    private final BlockingQueue<PendingRevision> pendingRevisions;
+
+    private final ExecutorService writerExecutor;
+
+    private final AtomicLong flushCount = new AtomicLong();
+
+    private final AtomicLong flushedRevisionCount = new AtomicLong();
+
+    private final AtomicLong flushedByteCount = new AtomicLong();
+
+    private final AtomicLong lastFlushLatencyMs = new AtomicLong();
+
+    private final AtomicLong maxFlushLatencyMs = new AtomicLong();
+
+    private final AtomicLong totalFlushLatencyMs = new AtomicLong();
+
+    private volatile boolean disposed = false;
+
+    /**
+     * The cause of the failure of the writer, or null if the writer has not failed
+     */
+    @Nullable
+    private volatile Throwable failure = null;
+
+    /*
+     * The following fields are only accessed by the writer thread
+     */
+
+    private final BinaryOWLOntologyChangeLog changeLog = new BinaryOWLOntologyChangeLog();
+
+    @Nullable
+    private FileChannel channel = null;
+
+    /**
+     * The dictionary for the current segment, or null if a new segment must be started.
+     */
+    @Nullable
+    private byte[] segmentDictionary = null;
+
+    private boolean originalFormat = false;
+
+    /**
+     * The length that the file must be truncated to before anything else is written to it, or -1 if
+     * the file does not need to be repaired.
+     */
+    private long repairLength = -1;
+
+    private boolean unsyncedWrites = false;
+
+    private long lastSyncTime = 0;
+
+    public ChangeLogWriter(@Nonnull ProjectId projectId,
+                           @Nonnull File changeHistoryFile,
+                           @Nonnull RevisionIndexFile revisionIndexFile,
+                           @Nonnull ChangeLogWriterSettings settings,
+                           @Nonnull Supplier<List<IRI>> segmentDictionarySubjectsSupplier) {
+        this(projectId, changeHistoryFile, revisionIndexFile, settings, segmentDictionarySubjectsSupplier, file ->
+                FileChannel.open(file.toPath(),
+                                 StandardOpenOption.CREATE,
+                                 StandardOpenOption.WRITE,
+                                 StandardOpenOption.APPEND));
+    }
+
+    ChangeLogWriter(@Nonnull ProjectId projectId,
+                    @Nonnull File changeHistoryFile,
+                    @Nonnull RevisionIndexFile revisionIndexFile,
+                    @Nonnull ChangeLogWriterSettings settings,
+                    @Nonnull Supplier<List<IRI>> segmentDictionarySubjectsSupplier,
+                    @Nonnull ChannelOpener channelOpener) {
+        this.projectId = checkNotNull(projectId);
+        this.changeHistoryFile = checkNotNull(changeHistoryFile);
+        this.revisionIndexFile = checkNotNull(revisionIndexFile);
+        this.settings = checkNotNull(settings);
+        this.segmentDictionarySubjectsSupplier = checkNotNull(segmentDictionarySubjectsSupplier);
+        this.channelOpener = checkNotNull(channelOpener);
+        this.pendingRevisions = new LinkedBlockingQueue<>(settings.getMaxPendingRevisions());
+        this.writerExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+            thread.setName(thread.getName().replace("thread", "change-log-writer-thread"));
+            return thread;
+        });
+        writerExecutor.submit(this::processPendingRevisions);
+    }
+
+    /**
+     * Queues the specified revision so that it is appended to the change log.  Revisions are written in the
+     * order in which they are queued.  If the queue of pending revisions is full then this method blocks until
+     * there is space in the queue.
+     * @param revision The revision.
+     * @param indexEntry The index entry for the revision.  This is appended to the revision index file after
+     *                   the revision has been written.
+     * @return A future that completes when the revision has been written (and forced to disk, if the sync
+     * policy is {@link ChangeLogSyncPolicy#EVERY_BATCH}).
+     * @throws IllegalStateException if the writer has been disposed or if it has failed.
+     */
+    @Nonnull
+    public CompletableFuture<Void> append(@Nonnull Revision revision,
+                                          @Nonnull RevisionIndexEntry indexEntry) {
+        checkNotNull(revision);
+        checkNotNull(indexEntry);
+        checkState(!disposed, "The change log writer has been disposed");
+        checkNotFailed();
+        var pendingRevision = new PendingRevision(revision, indexEntry);
+        if(!pendingRevisions.offer(pendingRevision)) {
+            logger.warn("{} The change log has {} revisions waiting to be written.  Waiting for the backlog to clear.",
+                        projectId,
+                        pendingRevisions.size());
+            var stopwatch = Stopwatch.createStarted();
+            putUninterruptibly(pendingRevision);
+            logger.info("{} Waited {} ms to queue revision {} for writing",
+                        projectId,
+                        stopwatch.elapsed(TimeUnit.MILLISECONDS),
+                        revision.getRevisionNumber().getValue());
+        }
+        return pendingRevision.written;
+    }
+
+    /**
+     * Checks that the writer has not failed.  Once the writer has failed no further revisions can be written.
+     * @throws IllegalStateException if the writer has failed.
+     */
+    public void checkNotFailed() {
+        var cause = failure;
+        if(cause != null) {
+            throw new IllegalStateException("The change log writer has failed.  Cause: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * The revision has already been added in memory so we cannot drop it if we are interrupted.
+     */
+    private void putUninterruptibly(PendingRevision pendingRevision) {
+        var interrupted = false;
+        while(true) {
+            try {
+                pendingRevisions.put(pendingRevision);
+                break;
+            } catch(InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if(interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Nonnull
+    public ChangeLogWriterStatistics getStatistics() {
+        return ChangeLogWriterStatistics.get(pendingRevisions.size(),
+                                             flushCount.get(),
+                                             flushedRevisionCount.get(),
+                                             flushedByteCount.get(),
+                                             lastFlushLatencyMs.get(),
+                                             maxFlushLatencyMs.get(),
+                                             totalFlushLatencyMs.get());
+    }
+
+    private void processPendingRevisions() {
+        var batch = new ArrayList<PendingRevision>();
+        var endOfLog = false;
+        while(!endOfLog) {
+            try {
+                var next = pendingRevisions.poll(settings.getSyncIntervalMs(), TimeUnit.MILLISECONDS);
+                if(next == null) {
+                    // Idle.  Make sure that nothing is left unsynced for longer than the sync interval.
+                    if(settings.getSyncPolicy() == ChangeLogSyncPolicy.PERIODIC) {
+                        syncIfNecessary();
+                    }
+                    continue;
+                }
+                batch.add(next);
+                pendingRevisions.drainTo(batch);
+                var endOfLogIndex = batch.indexOf(END_OF_LOG);
+                if(endOfLogIndex != -1) {
+                    endOfLog = true;
+                    batch.subList(endOfLogIndex, batch.size()).clear();
+                }
+                if(!batch.isEmpty()) {
+                    flush(batch);
+                }
+                batch.clear();
+            } catch(InterruptedException e) {
+                logger.warn("{} Change log writer interrupted", projectId);
+                break;
+            } catch(Throwable t) {
+                // The writer thread must keep running, otherwise callers of append and dispose would block forever
+                fail(batch, t);
+                batch.clear();
+            }
+        }
+        closeChannel();
+    }
+
+    private void flush(List<PendingRevision> batch) {
+        var cause = failure;
+        if(cause != null) {
+            // Writing these revisions would leave a gap in the change log
+            failBatch(batch, cause);
+            return;
+        }
+        var stopwatch = Stopwatch.createStarted();
+        for(int attempt = 1; ; attempt++) {
+            try {
+                var byteCount = writeBatch(batch);
+                recordFlush(batch.size(), byteCount, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+                appendIndexEntries(batch);
+                batch.forEach(pendingRevision -> pendingRevision.written.complete(null));
+                return;
+            } catch(Throwable t) {
+                if(attempt == MAX_WRITE_ATTEMPTS) {
+                    fail(batch, t);
+                    return;
+                }
+                var backoffMs = RETRY_BACKOFF_MS << (attempt - 1);
+                logger.warn("{} An error occurred whilst writing {} revisions to the change log.  Retrying in {} ms.  Cause: {}.",
+                            projectId,
+                            batch.size(),
+                            backoffMs,
+                            t.getMessage(),
+                            t);
+                Uninterruptibles.sleepUninterruptibly(backoffMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Writes the batch to the change log.  If the batch cannot be written then whatever was written of it is
+     * removed and the channel is closed, so that it is reopened for the next attempt.
+     * @return The number of bytes written.
+     */
+    private long writeBatch(List<PendingRevision> batch) throws IOException {
+        var startLength = -1L;
+        try {
+            var fileChannel = getChannel();
+            repairIfNecessary(fileChannel);
+            startLength = fileChannel.size();
+            var byteCount = originalFormat ? writeOriginalFormat(batch, fileChannel) : writeBlock(batch, fileChannel);
+            unsyncedWrites = true;
+            switch(settings.getSyncPolicy()) {
+                case EVERY_BATCH:
+                    sync();
+                    break;
+                case PERIODIC:
+                    syncIfNecessary();
+                    break;
+                case NONE:
+                    break;
+            }
+            return byteCount;
+        } catch(Throwable t) {
+            if(startLength != -1) {
+                discardPartialWrite(startLength);
+            }
+            closeChannel();
+            throw t;
+        }
+    }
+
+    /**
+     * Fails the writer.  The batch is failed, as is every revision that is queued after it, and no further
+     * revisions are accepted.
+     */
+    private void fail(List<PendingRevision> batch, Throwable cause) {
+        if(failure == null) {
+            failure = cause;
+        }
+        logger.error("{} Could not write {} revisions to the change log.  The change log writer has failed and " +
+                             "no further changes will be saved until the project is reloaded.  Cause: {}.",
+                     projectId,
+                     batch.size(),
+                     cause.getMessage(),
+                     cause);
+        failBatch(batch, cause);
+    }
+
+    private static void failBatch(List<PendingRevision> batch, Throwable cause) {
+        batch.forEach(pendingRevision -> pendingRevision.written.completeExceptionally(cause));
+    }
+
+    /**
+     * Removes whatever was written of a batch that failed.  If this fails then the file is repaired before
+     * the next batch is written.
+     */
+    private void discardPartialWrite(long startLength) {
+        repairLength = startLength;
+        try {
+            repairIfNecessary(channel);
+        } catch(IOException e) {
+            logger.error("{} Could not remove a partially written batch from the change log.  The change log will be repaired before anything else is written to it.  Cause: {}.",
+                         projectId,
+                         e.getMessage(),
+                         e);
+        }
+    }
+
+    private void repairIfNecessary(@Nullable FileChannel fileChannel) throws IOException {
+        if(repairLength == -1 || fileChannel == null) {
+            return;
+        }
+        if(fileChannel.size() > repairLength) {
+            logger.info("{} Truncating the change log to {} bytes to remove a partially written batch", projectId, repairLength);
+            fileChannel.truncate(repairLength);
+            fileChannel.force(false);
+        }
+        repairLength = -1;
+    }
+
+    private long writeBlock(List<PendingRevision> batch, FileChannel fileChannel) throws IOException {
+        var buffer = new ByteArrayOutputStream();
+        var out = new DataOutputStream(buffer);
+        if(segmentDictionary == null) {
+            segmentDictionary = ChangeHistoryBlockFormat.createDictionary(segmentDictionarySubjectsSupplier.get());
+            ChangeHistoryBlockFormat.writeSegment(segmentDictionary, out);
+        }
+        var revisions = batch.stream()
+                             .map(pendingRevision -> pendingRevision.revision)
+                             .collect(toList());
+        ChangeHistoryBlockFormat.writeBlock(revisions, settings.getCompression(), segmentDictionary, out);
+        out.flush();
+        var bytes = ByteBuffer.wrap(buffer.toByteArray());
+        while(bytes.hasRemaining()) {
+            fileChannel.write(bytes);
+        }
+        return buffer.size();
+    }
+
+    private long writeOriginalFormat(List<PendingRevision> batch, FileChannel fileChannel) throws IOException {
+        // Don't close the output stream, as this would close the channel
+        var out = new CountingOutputStream(new BufferedOutputStream(Channels.newOutputStream(fileChannel), BUFFER_SIZE));
+        for(var pendingRevision : batch) {
+            changeLog.appendChanges(RevisionSerializationTask.createChangeRecordList(pendingRevision.revision), out);
+        }
+        out.flush();
+        return out.getCount();
+    }
+
+    private void recordFlush(int revisionCount, long byteCount, long latencyMs) {
+        flushCount.incrementAndGet();
+        flushedRevisionCount.addAndGet(revisionCount);
+        flushedByteCount.addAndGet(byteCount);
+        lastFlushLatencyMs.set(latencyMs);
+        maxFlushLatencyMs.accumulateAndGet(latencyMs, Math::max);
+        totalFlushLatencyMs.addAndGet(latencyMs);
+        if(latencyMs > SLOW_FLUSH_THRESHOLD_MS) {
+            logger.warn("{} Slow change log write.  Wrote {} revisions ({} bytes) in {} ms.  {} revisions are waiting to be written.",
+                        projectId,
+                        revisionCount,
+                        byteCount,
+                        latencyMs,
+                        pendingRevisions.size());
+        }
+    }
+
+    private void appendIndexEntries(List<PendingRevision> batch) {
+        try {
+            revisionIndexFile.append(batch.stream()
+                                          .map(pendingRevision -> pendingRevision.indexEntry)
+                                          .collect(toList()));
+        } catch(IOException | RuntimeException e) {
+            // The index will be repaired the next time that the project is loaded
+            logger.error("{} An error occurred whilst saving the revision index.  Cause: {}.", projectId, e.getMessage(), e);
+        }
+    }
+
+    private FileChannel getChannel() throws IOException {
+        if(channel == null) {
+            channel = channelOpener.open(changeHistoryFile);
+            // The last segment must be read from the repaired file
+            repairIfNecessary(channel);
+            if(channel.size() == 0) {
+                var header = new ByteArrayOutputStream();
+                ChangeHistoryBlockFormat.writeHeader(new DataOutputStream(header));
+                channel.write(ByteBuffer.wrap(header.toByteArray()));
+                originalFormat = false;
+            }
+            else {
+                originalFormat = !ChangeHistoryBlockFormat.isBlockFormat(changeHistoryFile);
+                if(!originalFormat) {
+                    segmentDictionary = getReusableSegmentDictionary();
+                }
+            }
+        }
+        return channel;
+    }
+
+    /**
+     * Gets the dictionary of the last segment in the file if blocks can carry on being written in that segment.
+     * Starting a new segment means writing a new dictionary, of up to
+     * {@link ChangeHistoryBlockFormat#MAX_DICTIONARY_SIZE} bytes, so this is only done if the dictionary would
+     * change materially.
+     * @return The dictionary, or null if a new segment should be started.
+     */
+    @Nullable
+    private byte[] getReusableSegmentDictionary() {
+        try {
+            var lastSegmentDictionary = new ChangeHistoryBlockReader(changeHistoryFile).readBlockIndex()
+                                                                                       .getLastSegmentDictionary();
+            if(lastSegmentDictionary.isEmpty()) {
+                return null;
+            }
+            var coverage = ChangeHistoryBlockFormat.getDictionaryCoverage(lastSegmentDictionary.get(),
+                                                                          segmentDictionarySubjectsSupplier.get());
+            if(coverage < MIN_SEGMENT_DICTIONARY_COVERAGE) {
+                logger.info("{} Starting a new change log segment.  The last segment's dictionary covers {}% of the current dictionary subjects.",
+                            projectId,
+                            Math.round(coverage * 100));
+                return null;
+            }
+            return lastSegmentDictionary.get();
+        } catch(IOException e) {
+            logger.warn("{} Could not read the last change log segment.  Starting a new segment.  Cause: {}.",
+                        projectId,
+                        e.getMessage(),
+                        e);
+            return null;
+        }
+    }
+
+    private void syncIfNecessary() {
+        if(unsyncedWrites && System.currentTimeMillis() - lastSyncTime >= settings.getSyncIntervalMs()) {
+            try {
+                sync();
+            } catch(IOException | RuntimeException e) {
+                logger.error("{} An error occurred whilst syncing the change log.  Cause: {}.", projectId, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void sync() throws IOException {
+        if(channel != null) {
+            channel.force(false);
+        }
+        unsyncedWrites = false;
+        lastSyncTime = System.currentTimeMillis();
+    }
+
+    private void closeChannel() {
+        if(channel == null) {
+            return;
+        }
+        try {
+            sync();
+            channel.close();
+        } catch(IOException | RuntimeException e) {
+            logger.error("{} An error occurred whilst closing the change log.  Cause: {}.", projectId, e.getMessage(), e);
+        }
+        channel = null;
+        // The segment may have been truncated, so the dictionary is read back from the file when it is reopened
+        segmentDictionary = null;
+    }
+
+    /**
+     * Writes any pending revisions and then closes the change log.
+     */
+    @Override
+    public void dispose() {
+        if(disposed) {
+            return;
+        }
+        disposed = true;
+        putUninterruptibly(END_OF_LOG);
+        writerExecutor.shutdown();
+        try {
+            if(!writerExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warn("{} Timed out waiting for pending revisions to be written to the change log", projectId);
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        var statistics = getStatistics();
+        logger.info("{} Closed change log.  Wrote {} revisions in {} batches (mean write time {} ms, max write time {} ms).",
+                    projectId,
+                    statistics.getFlushedRevisionCount(),
+                    statistics.getFlushCount(),
+                    String.format("%.1f", statistics.getMeanFlushLatencyMs()),
+                    statistics.getMaxFlushLatencyMs());
+    }
+
+    interface ChannelOpener {
+
+        FileChannel open(File file) throws IOException;
+    }
+
+    private static class PendingRevision {
+
+        private final Revision revision;
+
+        private final RevisionIndexEntry indexEntry;
+
+        private final CompletableFuture<Void> written = new CompletableFuture<>();
+
+        private PendingRevision(Revision revision, RevisionIndexEntry indexEntry) {
+            this.revision = revision;
+            this.indexEntry = indexEntry;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.auto.value.AutoValue;
+
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+@AutoValue
+public abstract class ChangeLogWriterSettings {
+
+    public static final int DEFAULT_MAX_PENDING_REVISIONS = 1000;
+
+    public static final long DEFAULT_SYNC_INTERVAL_MS = 1000;
+
+    /**
+     * @param syncPolicy The policy that determines when written revisions are forced to disk.
+     * @param syncIntervalMs The interval used by the {@link ChangeLogSyncPolicy#PERIODIC} policy.
+     * @param maxPendingRevisions The maximum number of revisions that may be waiting to be written.  Once this
+     *                            number is reached, adding a revision blocks until there is space in the queue.
+     * @param compression The compression that is applied to each block of revisions that is written.
+     */
+    @Nonnull
+    public static ChangeLogWriterSettings get(@Nonnull ChangeLogSyncPolicy syncPolicy,
+                                              long syncIntervalMs,
+                                              int maxPendingRevisions,
+                                              @Nonnull ChangeHistoryCompression compression) {
+        checkArgument(syncIntervalMs > 0, "syncIntervalMs must be greater than zero");
+        checkArgument(maxPendingRevisions > 0, "maxPendingRevisions must be greater than zero");
+        return new AutoValue_ChangeLogWriterSettings(syncPolicy, syncIntervalMs, maxPendingRevisions, compression);
+    }
+
+    @Nonnull
+    public static ChangeLogWriterSettings getDefault() {
+        return get(ChangeLogSyncPolicy.EVERY_BATCH,
+                   DEFAULT_SYNC_INTERVAL_MS,
+                   DEFAULT_MAX_PENDING_REVISIONS,
+                   ChangeHistoryCompression.DEFLATE);
+    }
+
+    @Nonnull
+    public abstract ChangeLogSyncPolicy getSyncPolicy();
+
+    public abstract long getSyncIntervalMs();
+
+    public abstract int getMaxPendingRevisions();
+
+    @Nonnull
+    public abstract ChangeHistoryCompression getCompression();
+}
@@ -0,0 +1,56 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.auto.value.AutoValue;
+
+/**
+ * A snapshot of the state of a {@link ChangeLogWriter}.
+ */
+@AutoValue
+public abstract class ChangeLogWriterStatistics {
+
+    public static ChangeLogWriterStatistics get(int queueDepth,
+                                                long flushCount,
+                                                long flushedRevisionCount,
+                                                long flushedByteCount,
+                                                long lastFlushLatencyMs,
+                                                long maxFlushLatencyMs,
+                                                long totalFlushLatencyMs) {
+        return new AutoValue_ChangeLogWriterStatistics(queueDepth,
+                                                       flushCount,
+                                                       flushedRevisionCount,
+                                                       flushedByteCount,
+                                                       lastFlushLatencyMs,
+                                                       maxFlushLatencyMs,
+                                                       totalFlushLatencyMs);
+    }
+
+    /**
+     * Gets the number of revisions that are waiting to be written.
+     */
+    public abstract int getQueueDepth();
+
+    /**
+     * Gets the number of batches that have been written.
+     */
+    public abstract long getFlushCount();
+
+    public abstract long getFlushedRevisionCount();
+
+    public abstract long getFlushedByteCount();
+
+    /**
+     * Gets the time taken to write (and sync, if applicable) the most recent batch.
+     */
+    public abstract long getLastFlushLatencyMs();
+
+    public abstract long getMaxFlushLatencyMs();
+
+    public abstract long getTotalFlushLatencyMs();
+
+    public double getMeanFlushLatencyMs() {
+        if(getFlushCount() == 0) {
+            return 0;
+        }
+        return (double) getTotalFlushLatencyMs() / getFlushCount();
+    }
+}
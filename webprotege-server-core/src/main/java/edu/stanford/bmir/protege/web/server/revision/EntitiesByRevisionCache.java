@@ -1,7 +1,13 @@
 package edu.stanford.bmir.protege.web.server.revision;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import edu.stanford.bmir.protege.web.server.axiom.AxiomSubjectProvider;
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryAccountant;
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryCategory;
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryConsumer;
+import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
 import org.semanticweb.owlapi.change.AxiomChangeData;
 import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
@@ -9,17 +15,29 @@ import org.semanticweb.owlapi.model.*;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 /**
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
  * 27/05/15
  */
-public class EntitiesByRevisionCache {
+@ProjectSingleton
+public class EntitiesByRevisionCache implements ProjectMemoryConsumer {
+
+    /**
+     * An estimate of the memory retained by each cached revision and by each entity in a cached revision.  The
+     * entities themselves are shared with the ontologies.
+     */
+    private static final long ESTIMATED_BYTES_PER_REVISION = 100;
+
+    private static final long ESTIMATED_BYTES_PER_ENTITY = 12;
+
+    private final ProjectId projectId;
 
     private final AxiomSubjectProvider axiomSubjectProvider;
 
@@ -27,15 +45,21 @@ public class EntitiesByRevisionCache {
 
     private final OWLDataFactory dataFactory;
 
-    private final Map<RevisionNumber, ImmutableSet<OWLEntity>> entity2Revisions = new HashMap<>();
+    private final RevisionCache revisionCache;
 
     @Inject
-    public EntitiesByRevisionCache(@Nonnull AxiomSubjectProvider axiomSubjectProvider,
+    public EntitiesByRevisionCache(@Nonnull ProjectId projectId,
+                                   @Nonnull AxiomSubjectProvider axiomSubjectProvider,
                                    @Nonnull HasContainsEntityInSignature hasContainsEntityInSignature,
-                                   @Nonnull OWLDataFactory dataFactory) {
-        this.axiomSubjectProvider = axiomSubjectProvider;
-        this.hasContainsEntityInSignature = hasContainsEntityInSignature;
-        this.dataFactory = dataFactory;
+                                   @Nonnull OWLDataFactory dataFactory,
+                                   @Nonnull RevisionCache revisionCache,
+                                   @Nonnull ProjectMemoryAccountant memoryAccountant) {
+        this.projectId = checkNotNull(projectId);
+        this.axiomSubjectProvider = checkNotNull(axiomSubjectProvider);
+        this.hasContainsEntityInSignature = checkNotNull(hasContainsEntityInSignature);
+        this.dataFactory = checkNotNull(dataFactory);
+        this.revisionCache = checkNotNull(revisionCache);
+        memoryAccountant.register(this);
     }
 
     public boolean containsEntity(Revision revision, OWLEntity entity) {
@@ -43,13 +67,48 @@ public class EntitiesByRevisionCache {
     }
 
     public ImmutableSet<OWLEntity> getEntities(Revision revision) {
-        ImmutableSet<OWLEntity> cachedEntities = entity2Revisions.get(revision.getRevisionNumber());
-        if(cachedEntities != null) {
-            return cachedEntities;
-        }
-        ImmutableSet<OWLEntity> entitiesToCache = getEntitiesInternal(revision);
-        entity2Revisions.put(revision.getRevisionNumber(), entitiesToCache);
-        return entitiesToCache;
+        return revisionCache.get(projectId,
+                                 ProjectMemoryCategory.ENTITIES_BY_REVISION_CACHE,
+                                 revision,
+                                 this::getEntitiesInternal,
+                                 EntitiesByRevisionCache::estimateSize);
+    }
+
+    /**
+     * Gets the entities for several revisions.  The entities for revisions that are not cached are computed in
+     * parallel.
+     */
+    public ImmutableMap<RevisionNumber, ImmutableSet<OWLEntity>> getEntities(Collection<Revision> revisions) {
+        return revisionCache.getAll(projectId,
+                                    ProjectMemoryCategory.ENTITIES_BY_REVISION_CACHE,
+                                    revisions,
+                                    this::getEntitiesInternal,
+                                    EntitiesByRevisionCache::estimateSize);
+    }
+
+    private static long estimateSize(ImmutableSet<OWLEntity> entities) {
+        return ESTIMATED_BYTES_PER_REVISION + entities.size() * ESTIMATED_BYTES_PER_ENTITY;
+    }
+
+    @Nonnull
+    @Override
+    public ProjectMemoryCategory getMemoryCategory() {
+        return ProjectMemoryCategory.ENTITIES_BY_REVISION_CACHE;
+    }
+
+    @Override
+    public long getEstimatedSizeInBytes() {
+        return revisionCache.getEstimatedSize(projectId, ProjectMemoryCategory.ENTITIES_BY_REVISION_CACHE);
+    }
+
+    @Override
+    public boolean isSheddable() {
+        return true;
+    }
+
+    @Override
+    public void shed() {
+        revisionCache.invalidate(projectId, ProjectMemoryCategory.ENTITIES_BY_REVISION_CACHE);
     }
 
     private ImmutableSet<OWLEntity> getEntitiesInternal(Revision revision) {
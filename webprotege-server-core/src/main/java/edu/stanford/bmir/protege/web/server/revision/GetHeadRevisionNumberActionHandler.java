@@ -36,6 +36,11 @@ public class GetHeadRevisionNumberActionHandler extends AbstractProjectActionHan
         return GetHeadRevisionNumberAction.class;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Nullable
     @Override
     protected BuiltInAction getRequiredExecutableBuiltInAction() {
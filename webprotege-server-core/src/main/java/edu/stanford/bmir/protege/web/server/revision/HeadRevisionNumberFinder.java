@@ -50,6 +50,14 @@ public class HeadRevisionNumberFinder {
         File projectDir = projectDirectoryFactory.getProjectDirectory(projectId);
         ChangeHistoryFileProvider changeHistoryFileProvider = new ChangeHistoryFileProvider(projectDir);
         File changeHistoryFile = changeHistoryFileProvider.get();
+        if(ChangeHistoryBlockFormat.isBlockFormat(changeHistoryFile)) {
+            // Only the block headers need to be read
+            var blocks = new ChangeHistoryBlockReader(changeHistoryFile).readBlockIndex().getBlocks();
+            if(blocks.isEmpty()) {
+                return RevisionNumber.getRevisionNumber(0);
+            }
+            return blocks.get(blocks.size() - 1).getLastRevisionNumber();
+        }
         try (BufferedInputStream bufferedInputStream = new BufferedInputStream(Files.newInputStream(changeHistoryFile.toPath()))) {
             BinaryOWLOntologyChangeLog log = new BinaryOWLOntologyChangeLog();
             RevisionExtractor extractor = new RevisionExtractor();
@@ -6,6 +6,9 @@ import com.google.gwt.safehtml.shared.SafeHtml;
 import edu.stanford.bmir.protege.web.server.axiom.AxiomIRISubjectProvider;
 import edu.stanford.bmir.protege.web.server.diff.DiffElementRenderer;
 import edu.stanford.bmir.protege.web.server.diff.Revision2DiffElementsTranslator;
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryAccountant;
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryCategory;
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryConsumer;
 import edu.stanford.bmir.protege.web.server.renderer.RenderingManager;
 import edu.stanford.bmir.protege.web.shared.change.ProjectChange;
 import edu.stanford.bmir.protege.web.shared.diff.DiffElement;
@@ -27,6 +30,7 @@ import javax.annotation.Nonnull;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
@@ -39,12 +43,25 @@ import java.util.function.Function;
  * 27/05/15
  */
 @ProjectSingleton
-public class ProjectChangesManager {
+public class ProjectChangesManager implements ProjectMemoryConsumer {
 
     private static final Logger logger = LoggerFactory.getLogger(ProjectChangesManager.class);
 
     public static final int DEFAULT_CHANGE_LIMIT = 50;
 
+    /**
+     * An estimate of the memory retained by each subject in a cached revision, excluding the change records,
+     * which are shared with the revisions
+     */
+    private static final long ESTIMATED_BYTES_PER_CACHED_SUBJECT = 120;
+
+    private static final long ESTIMATED_BYTES_PER_CACHED_CHANGE_REFERENCE = 8;
+
+    /**
+     * Stateless, so it can be shared by all threads
+     */
+    private static final AxiomIRISubjectProvider subjectProvider = new AxiomIRISubjectProvider(IRI::compareTo);
+
     private final ProjectId projectId;
 
     private final RevisionManager revisionManager;
@@ -55,25 +72,40 @@ public class ProjectChangesManager {
 
     private final Provider<Revision2DiffElementsTranslator> revision2DiffElementsTranslatorProvider;
 
-    private final Table<RevisionNumber, Optional<IRI>, ImmutableList<OWLOntologyChangeRecord>> cache = HashBasedTable.create();
+    private final RevisionCache revisionCache;
 
     @Inject
     public ProjectChangesManager(ProjectId projectId,
                                  @Nonnull RevisionManager revisionManager,
                                  @Nonnull RenderingManager browserTextProvider,
                                  @Nonnull Comparator<OWLOntologyChangeRecord> changeRecordComparator,
-                                 @Nonnull Provider<Revision2DiffElementsTranslator> revision2DiffElementsTranslatorProvider) {
+                                 @Nonnull Provider<Revision2DiffElementsTranslator> revision2DiffElementsTranslatorProvider,
+                                 @Nonnull RevisionCache revisionCache,
+                                 @Nonnull ProjectMemoryAccountant memoryAccountant) {
         this.projectId = projectId;
         this.revisionManager = revisionManager;
         this.browserTextProvider = browserTextProvider;
         this.changeRecordComparator = changeRecordComparator;
         this.revision2DiffElementsTranslatorProvider = revision2DiffElementsTranslatorProvider;
+        this.revisionCache = revisionCache;
+        memoryAccountant.register(this);
+    }
+
+    private ImmutableListMultimap<Optional<IRI>, OWLOntologyChangeRecord> getChangeRecordsBySubjectInternal(Revision revision) {
+        logger.debug("{} Grouping changes in revision {} by subject", projectId, revision.getRevisionNumber().getValue());
+        var stopwatch = Stopwatch.createStarted();
+        var results = ImmutableListMultimap.<Optional<IRI>, OWLOntologyChangeRecord>builder();
+        for(var record : revision.getChanges()) {
+            results.put(getSubject(record), record);
+        }
+        var changeRecordsBySubject = results.build();
+        logger.debug("{} Grouped changes in revision {} in {} ms", projectId, revision.getRevisionNumber().getValue(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        return changeRecordsBySubject;
     }
 
-    private static Multimap<Optional<IRI>, OWLOntologyChangeRecord> getChangeRecordsBySubject(Revision revision) {
-        Multimap<Optional<IRI>, OWLOntologyChangeRecord> results = HashMultimap.create();
-        revision.getChanges().forEach(record -> results.put(getSubject(record), record));
-        return results;
+    private static long estimateSize(ImmutableListMultimap<Optional<IRI>, OWLOntologyChangeRecord> changeRecordsBySubject) {
+        return changeRecordsBySubject.keySet().size() * ESTIMATED_BYTES_PER_CACHED_SUBJECT
+                + changeRecordsBySubject.size() * ESTIMATED_BYTES_PER_CACHED_CHANGE_REFERENCE;
     }
 
     private static Optional<IRI> getSubject(OWLOntologyChangeRecord rec) {
@@ -88,32 +120,33 @@ public class ProjectChangesManager {
     }
 
     private static Optional<IRI> getSubject(OWLAxiom axiom) {
-        AxiomIRISubjectProvider subjectProvider = new AxiomIRISubjectProvider(IRI::compareTo);
         return subjectProvider.getSubject(axiom);
     }
 
     public Page<ProjectChange> getProjectChanges(Optional<OWLEntity> subject,
                                                  PageRequest pageRequest) {
-        ImmutableList<Revision> revisions = revisionManager.getRevisions();
         if (subject.isPresent()) {
-            // We need to scan revisions to find the ones containing a particular subject
-            // We ignore the page request here.
-            // This needs reworking really, but the number of changes per entity is usually small
-            // so this works for now.
+            // The revision index gives us the revisions containing a particular subject.
+            // We ignore the page request here because the number of changes per entity is usually small.
             ImmutableList.Builder<ProjectChange> changes = ImmutableList.builder();
+            var revisions = revisionManager.getRevisionsBySubject(subject.get().getIRI());
+            var changeRecordsByRevision = getChangeRecordsBySubject(revisions);
+            var subjectIri = subject.map(OWLEntity::getIRI);
             for (Revision revision : revisions) {
-                getProjectChangesForRevision(revision, subject, changes);
+                var changeRecords = changeRecordsByRevision.get(revision.getRevisionNumber()).get(subjectIri);
+                getProjectChangesForRevision(revision, subject, changeRecords, changes);
             }
             ImmutableList<ProjectChange> theChanges = changes.build();
             return new Page<>(1, 1, theChanges, theChanges.size());
         }
         else {
             // Pages are in reverse order
+            ImmutableList<Revision> revisions = revisionManager.getRevisions();
             ImmutableList.Builder<ProjectChange> changes = ImmutableList.builder();
             revisions.reverse().stream()
                     .skip(pageRequest.getSkip())
                     .limit(pageRequest.getPageSize())
-                    .forEach(revision -> getProjectChangesForRevision(revision, subject, changes));
+                    .forEach(revision -> getProjectChangesForRevision(revision, subject, ImmutableList.of(), changes));
             ImmutableList<ProjectChange> changeList = changes.build();
             int pageCount = (revisions.size() / pageRequest.getPageSize()) + 1;
             return new Page<>(pageRequest.getPageNumber(),
@@ -124,32 +157,27 @@ public class ProjectChangesManager {
 
     public ImmutableList<ProjectChange> getProjectChangesForSubjectInRevision(OWLEntity subject, Revision revision) {
         ImmutableList.Builder<ProjectChange> resultBuilder = ImmutableList.builder();
-        getProjectChangesForRevision(revision, Optional.of(subject), resultBuilder);
+        var changeRecords = getChangeRecordsBySubject(revision).get(Optional.of(subject.getIRI()));
+        getProjectChangesForRevision(revision, Optional.of(subject), changeRecords, resultBuilder);
         return resultBuilder.build();
     }
 
+    /**
+     * @param subjectChangeRecords The change records for the subject in the revision, if a subject is specified
+     */
     private void getProjectChangesForRevision(Revision revision,
                                               Optional<OWLEntity> subject,
+                                              ImmutableList<OWLOntologyChangeRecord> subjectChangeRecords,
                                               ImmutableList.Builder<ProjectChange> changesBuilder) {
-        if(!cache.containsRow(revision.getRevisionNumber())) {
-            logger.debug("{} Building cache for revision {}", projectId, revision.getRevisionNumber().getValue());
-            var stopwatch = Stopwatch.createStarted();
-            var changeRecordsBySubject = getChangeRecordsBySubject(revision);
-            changeRecordsBySubject.asMap().forEach((subj, records) -> {
-                cache.put(revision.getRevisionNumber(), subj, ImmutableList.copyOf(records));
-            });
-            logger.debug("{} Cached revision {} in {} ms", projectId, revision.getRevisionNumber().getValue(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
-        }
         List<OWLOntologyChangeRecord> limitedRecords = new ArrayList<>();
         final int totalChanges;
         if (subject.isPresent()) {
-            List<OWLOntologyChangeRecord> records = cache.get(revision.getRevisionNumber(), subject.map(OWLEntity::getIRI));
-            if (records == null) {
+            if (subjectChangeRecords.isEmpty()) {
                 // Nothing in this revision that changes the subject
                 return;
             }
-            totalChanges = records.size();
-            limitedRecords.addAll(records);
+            totalChanges = subjectChangeRecords.size();
+            limitedRecords.addAll(subjectChangeRecords);
         }
         else {
             totalChanges = revision.getSize();
@@ -188,6 +216,50 @@ public class ProjectChangesManager {
         changesBuilder.add(projectChange);
     }
 
+    /**
+     * Gets the change records in the specified revision, grouped by subject
+     */
+    private ImmutableListMultimap<Optional<IRI>, OWLOntologyChangeRecord> getChangeRecordsBySubject(Revision revision) {
+        return revisionCache.get(projectId,
+                                 ProjectMemoryCategory.PROJECT_CHANGES_CACHE,
+                                 revision,
+                                 this::getChangeRecordsBySubjectInternal,
+                                 ProjectChangesManager::estimateSize);
+    }
+
+    /**
+     * Gets the change records in the specified revisions, grouped by subject.  Revisions that are not cached are
+     * grouped in parallel.
+     */
+    private ImmutableMap<RevisionNumber, ImmutableListMultimap<Optional<IRI>, OWLOntologyChangeRecord>> getChangeRecordsBySubject(Collection<Revision> revisions) {
+        return revisionCache.getAll(projectId,
+                                    ProjectMemoryCategory.PROJECT_CHANGES_CACHE,
+                                    revisions,
+                                    this::getChangeRecordsBySubjectInternal,
+                                    ProjectChangesManager::estimateSize);
+    }
+
+    @Nonnull
+    @Override
+    public ProjectMemoryCategory getMemoryCategory() {
+        return ProjectMemoryCategory.PROJECT_CHANGES_CACHE;
+    }
+
+    @Override
+    public long getEstimatedSizeInBytes() {
+        return revisionCache.getEstimatedSize(projectId, ProjectMemoryCategory.PROJECT_CHANGES_CACHE);
+    }
+
+    @Override
+    public boolean isSheddable() {
+        return true;
+    }
+
+    @Override
+    public void shed() {
+        revisionCache.invalidate(projectId, ProjectMemoryCategory.PROJECT_CHANGES_CACHE);
+    }
+
     private List<DiffElement<String, SafeHtml>> renderDiffElements(List<DiffElement<String, OWLOntologyChangeRecord>> axiomDiffElements) {
 
         List<DiffElement<String, SafeHtml>> diffElements = new ArrayList<>();
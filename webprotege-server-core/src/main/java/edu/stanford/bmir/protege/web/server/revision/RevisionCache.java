@@ -0,0 +1,302 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheWriter;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryCategory;
+import edu.stanford.bmir.protege.web.shared.inject.ApplicationSingleton;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A cache of data that is derived from project revisions, such as the entities that a revision changes.  The cache
+ * is shared by all loaded projects and is bounded by the estimated size of the data that it holds.  Each project
+ * also has a quota, so that browsing the history of one large project cannot evict the data for every other
+ * project.  Data that would take a project over its quota is computed but not cached.
+ * <p>
+ * Data is keyed by project, category and revision number.  Callers must always use the same type of data for a
+ * given category.
+ */
+@ApplicationSingleton
+public class RevisionCache {
+
+    private static final Duration CACHE_EXPIRATION_DURATION = Duration.ofMinutes(10);
+
+    private static final int CATEGORY_COUNT = ProjectMemoryCategory.values().length;
+
+    @Nonnull
+    private final RevisionCacheSettings settings;
+
+    @Nonnull
+    private final ExecutorService executorService;
+
+    /**
+     * The estimated size of the cached data for each project, indexed by category ordinal.  Maintained by the
+     * cache writer, which is called synchronously as entries are added and removed.
+     */
+    private final ConcurrentHashMap<ProjectId, AtomicLongArray> projectSizes = new ConcurrentHashMap<>();
+
+    private final AtomicLong quotaRejectionCount = new AtomicLong();
+
+    private final Cache<CacheKey, CacheEntry> cache;
+
+    @Inject
+    public RevisionCache(@Nonnull RevisionCacheSettings settings,
+                         @Nonnull @RevisionCacheExecutor ExecutorService executorService) {
+        this.settings = checkNotNull(settings);
+        this.executorService = checkNotNull(executorService);
+        this.cache = Caffeine.newBuilder()
+                             .maximumWeight(settings.getMaxSize())
+                             .weigher((CacheKey key, CacheEntry entry) -> entry.size)
+                             .expireAfterAccess(CACHE_EXPIRATION_DURATION)
+                             .writer(new SizeTracker())
+                             .recordStats()
+                             .build();
+    }
+
+    /**
+     * Gets the data for the specified revision, computing it if it is not cached.
+     * @param projectId The project that the revision belongs to.
+     * @param category The category of the data.
+     * @param revision The revision.
+     * @param loader A function that computes the data for a revision.
+     * @param sizeEstimator A function that estimates the size of the data, in bytes.
+     */
+    @Nonnull
+    public <V> V get(@Nonnull ProjectId projectId,
+                     @Nonnull ProjectMemoryCategory category,
+                     @Nonnull Revision revision,
+                     @Nonnull Function<Revision, V> loader,
+                     @Nonnull ToLongFunction<? super V> sizeEstimator) {
+        var key = new CacheKey(projectId, category, revision.getRevisionNumber());
+        V cachedValue = getIfPresent(key);
+        if(cachedValue != null) {
+            return cachedValue;
+        }
+        var value = loader.apply(revision);
+        return put(key, value, sizeEstimator);
+    }
+
+    /**
+     * Gets the data for the specified revisions.  The data for revisions that are not cached is computed in
+     * parallel.
+     * @return A map from revision number to data, in the order of the specified revisions.
+     * @see #get(ProjectId, ProjectMemoryCategory, Revision, Function, ToLongFunction)
+     */
+    @Nonnull
+    public <V> ImmutableMap<RevisionNumber, V> getAll(@Nonnull ProjectId projectId,
+                                                     @Nonnull ProjectMemoryCategory category,
+                                                     @Nonnull Collection<Revision> revisions,
+                                                     @Nonnull Function<Revision, V> loader,
+                                                     @Nonnull ToLongFunction<? super V> sizeEstimator) {
+        var values = new LinkedHashMap<RevisionNumber, V>(revisions.size() * 2);
+        var missingRevisions = new ArrayList<Revision>();
+        for(var revision : revisions) {
+            var revisionNumber = revision.getRevisionNumber();
+            if(values.containsKey(revisionNumber)) {
+                continue;
+            }
+            V cachedValue = getIfPresent(new CacheKey(projectId, category, revisionNumber));
+            values.put(revisionNumber, cachedValue);
+            if(cachedValue == null) {
+                missingRevisions.add(revision);
+            }
+        }
+        if(missingRevisions.size() == 1) {
+            var revision = missingRevisions.get(0);
+            var key = new CacheKey(projectId, category, revision.getRevisionNumber());
+            values.put(revision.getRevisionNumber(), put(key, loader.apply(revision), sizeEstimator));
+        }
+        else if(!missingRevisions.isEmpty()) {
+            var futures = new ArrayList<CompletableFuture<V>>(missingRevisions.size());
+            for(var revision : missingRevisions) {
+                futures.add(CompletableFuture.supplyAsync(() -> loader.apply(revision), executorService));
+            }
+            for(int i = 0; i < missingRevisions.size(); i++) {
+                var revisionNumber = missingRevisions.get(i).getRevisionNumber();
+                var key = new CacheKey(projectId, category, revisionNumber);
+                values.put(revisionNumber, put(key, join(futures.get(i)), sizeEstimator));
+            }
+        }
+        return ImmutableMap.copyOf(values);
+    }
+
+    /**
+     * Gets the estimated size, in bytes, of the cached data in the specified category for the specified project
+     */
+    public long getEstimatedSize(@Nonnull ProjectId projectId, @Nonnull ProjectMemoryCategory category) {
+        var sizes = projectSizes.get(projectId);
+        return sizes == null ? 0 : sizes.get(category.ordinal());
+    }
+
+    /**
+     * Gets the estimated size, in bytes, of all of the cached data for the specified project
+     */
+    public long getEstimatedSize(@Nonnull ProjectId projectId) {
+        var sizes = projectSizes.get(projectId);
+        if(sizes == null) {
+            return 0;
+        }
+        var size = 0L;
+        for(int i = 0; i < CATEGORY_COUNT; i++) {
+            size += sizes.get(i);
+        }
+        return size;
+    }
+
+    /**
+     * Gets the estimated size, in bytes, of all of the cached data
+     */
+    public long getEstimatedSize() {
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    @Nonnull
+    public RevisionCacheSettings getSettings() {
+        return settings;
+    }
+
+    @Nonnull
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Gets the number of times that data was not cached because it would have taken a project over its quota
+     */
+    public long getQuotaRejectionCount() {
+        return quotaRejectionCount.get();
+    }
+
+    /**
+     * Discards the cached data in the specified category for the specified project
+     */
+    public void invalidate(@Nonnull ProjectId projectId, @Nonnull ProjectMemoryCategory category) {
+        checkNotNull(category);
+        cache.asMap().keySet().removeIf(key -> key.projectId.equals(projectId) && key.category == category);
+    }
+
+    /**
+     * Discards all of the cached data for the specified project
+     */
+    public void invalidate(@Nonnull ProjectId projectId) {
+        checkNotNull(projectId);
+        cache.asMap().keySet().removeIf(key -> key.projectId.equals(projectId));
+        projectSizes.remove(projectId);
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private <V> V getIfPresent(@Nonnull CacheKey key) {
+        var entry = cache.getIfPresent(key);
+        return entry == null ? null : (V) entry.value;
+    }
+
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    private <V> V put(@Nonnull CacheKey key, @Nonnull V value, @Nonnull ToLongFunction<? super V> sizeEstimator) {
+        var size = sizeEstimator.applyAsLong(value);
+        if(size > Integer.MAX_VALUE || getEstimatedSize(key.projectId) + size > settings.getProjectQuota()) {
+            quotaRejectionCount.incrementAndGet();
+            return value;
+        }
+        // Keep the first value if another thread got there first, so that all callers see the same data
+        var existingEntry = cache.asMap().putIfAbsent(key, new CacheEntry(value, (int) size));
+        return existingEntry == null ? value : (V) existingEntry.value;
+    }
+
+    private static <V> V join(@Nonnull CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch(CompletionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw e;
+        }
+    }
+
+    private class SizeTracker implements CacheWriter<CacheKey, CacheEntry> {
+
+        @Override
+        public void write(@Nonnull CacheKey key, @Nonnull CacheEntry entry) {
+            projectSizes.computeIfAbsent(key.projectId, projectId -> new AtomicLongArray(CATEGORY_COUNT))
+                        .addAndGet(key.category.ordinal(), entry.size);
+        }
+
+        @Override
+        public void delete(@Nonnull CacheKey key, @Nullable CacheEntry entry, @Nonnull RemovalCause cause) {
+            var sizes = projectSizes.get(key.projectId);
+            if(sizes != null && entry != null) {
+                sizes.addAndGet(key.category.ordinal(), -entry.size);
+            }
+        }
+    }
+
+    private static final class CacheKey {
+
+        private final ProjectId projectId;
+
+        private final ProjectMemoryCategory category;
+
+        private final RevisionNumber revisionNumber;
+
+        private CacheKey(ProjectId projectId, ProjectMemoryCategory category, RevisionNumber revisionNumber) {
+            this.projectId = checkNotNull(projectId);
+            this.category = checkNotNull(category);
+            this.revisionNumber = checkNotNull(revisionNumber);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(projectId, category, revisionNumber);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(obj == this) {
+                return true;
+            }
+            if(!(obj instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) obj;
+            return this.projectId.equals(other.projectId)
+                    && this.category == other.category
+                    && this.revisionNumber.equals(other.revisionNumber);
+        }
+    }
+
+    private static final class CacheEntry {
+
+        private final Object value;
+
+        private final int size;
+
+        private CacheEntry(Object value, int size) {
+            this.value = value;
+            this.size = size;
+        }
+    }
+}
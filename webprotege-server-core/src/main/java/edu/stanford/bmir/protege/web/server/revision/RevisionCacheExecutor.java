@@ -0,0 +1,14 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Qualifies the executor that is used to compute the {@link RevisionCache} data for several revisions in parallel.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RevisionCacheExecutor {
+
+}
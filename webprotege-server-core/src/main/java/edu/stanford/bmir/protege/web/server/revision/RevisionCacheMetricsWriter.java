@@ -0,0 +1,52 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.Writer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Writes the size and effectiveness of the {@link RevisionCache} in the Prometheus text exposition format.  The
+ * sizes of the data cached for individual projects are reported with the project memory metrics.
+ */
+public class RevisionCacheMetricsWriter {
+
+    @Nonnull
+    private final RevisionCache revisionCache;
+
+    @Inject
+    public RevisionCacheMetricsWriter(@Nonnull RevisionCache revisionCache) {
+        this.revisionCache = checkNotNull(revisionCache);
+    }
+
+    public void write(@Nonnull Writer writer) throws IOException {
+        var stats = revisionCache.getStats();
+        writeMetric(writer, "webprotege_revision_cache_estimated_bytes", "gauge",
+                    "Estimated size of the data in the revision cache", revisionCache.getEstimatedSize());
+        writeMetric(writer, "webprotege_revision_cache_max_bytes", "gauge",
+                    "Maximum estimated size of the data in the revision cache", revisionCache.getSettings().getMaxSize());
+        writeMetric(writer, "webprotege_revision_cache_project_quota_bytes", "gauge",
+                    "Maximum estimated size of the revision cache data for any one project", revisionCache.getSettings().getProjectQuota());
+        writeMetric(writer, "webprotege_revision_cache_hits_total", "counter",
+                    "Revision cache lookups that found cached data", stats.hitCount());
+        writeMetric(writer, "webprotege_revision_cache_misses_total", "counter",
+                    "Revision cache lookups that did not find cached data", stats.missCount());
+        writeMetric(writer, "webprotege_revision_cache_evictions_total", "counter",
+                    "Entries evicted from the revision cache because it was full", stats.evictionCount());
+        writeMetric(writer, "webprotege_revision_cache_quota_rejections_total", "counter",
+                    "Entries that were not cached because they would have taken a project over its quota", revisionCache.getQuotaRejectionCount());
+        writer.flush();
+    }
+
+    private static void writeMetric(@Nonnull Writer writer,
+                                    @Nonnull String name,
+                                    @Nonnull String type,
+                                    @Nonnull String help,
+                                    long value) throws IOException {
+        writer.write("# HELP " + name + " " + help + "\n");
+        writer.write("# TYPE " + name + " " + type + "\n");
+        writer.write(name + " " + value + "\n");
+    }
+}
@@ -0,0 +1,37 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.auto.value.AutoValue;
+
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The bounds of the {@link RevisionCache}.  Sizes are estimates in bytes.
+ */
+@AutoValue
+public abstract class RevisionCacheSettings {
+
+    private static final long BYTES_PER_MB = 1024 * 1024;
+
+    /**
+     * @param maxSize The maximum estimated size of the data in the cache, for all projects.
+     * @param projectQuota The maximum estimated size of the data in the cache for any one project.  This must
+     *                     not be greater than the maximum size.
+     */
+    @Nonnull
+    public static RevisionCacheSettings get(long maxSize, long projectQuota) {
+        checkArgument(maxSize >= 0, "maxSize must not be negative");
+        checkArgument(projectQuota >= 0 && projectQuota <= maxSize, "projectQuota must be between 0 and maxSize");
+        return new AutoValue_RevisionCacheSettings(maxSize, projectQuota);
+    }
+
+    @Nonnull
+    public static RevisionCacheSettings getInMegabytes(int maxSizeMB, int projectQuotaMB) {
+        return get(maxSizeMB * BYTES_PER_MB, projectQuotaMB * BYTES_PER_MB);
+    }
+
+    public abstract long getMaxSize();
+
+    public abstract long getProjectQuota();
+}
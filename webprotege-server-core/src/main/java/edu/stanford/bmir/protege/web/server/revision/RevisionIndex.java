@@ -0,0 +1,219 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.common.collect.*;
+import edu.stanford.bmir.protege.web.server.axiom.AxiomIRISubjectProvider;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.semanticweb.owlapi.change.AxiomChangeData;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.IRI;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A secondary index over the revisions in a change history.  The index maps revision numbers to positions
+ * in the history, timestamps to revision numbers, and has postings (lists of revision numbers in ascending order)
+ * for authors and for change subjects.  Change subjects are computed in the same way that they are computed
+ * by the {@link ProjectChangesManager}.
+ */
+public class RevisionIndex {
+
+    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+
+    private final Lock readLock = readWriteLock.readLock();
+
+    private final Lock writeLock = readWriteLock.writeLock();
+
+    private final List<RevisionNumber> revisionNumbers = new ArrayList<>();
+
+    private final NavigableMap<Long, List<RevisionNumber>> revisionNumbersByTimestamp = new TreeMap<>();
+
+    private final ListMultimap<UserId, RevisionNumber> revisionNumbersByAuthor = ArrayListMultimap.create();
+
+    private final ListMultimap<IRI, RevisionNumber> revisionNumbersBySubject = ArrayListMultimap.create();
+
+    /**
+     * Gets the subjects of the changes in the specified revision.
+     * @param revision The revision.
+     * @return The distinct change subjects.
+     */
+    @Nonnull
+    public static ImmutableSet<IRI> getChangeSubjects(@Nonnull Revision revision) {
+        var subjectProvider = new AxiomIRISubjectProvider(IRI::compareTo);
+        var subjects = ImmutableSet.<IRI>builder();
+        for(OWLOntologyChangeRecord record : revision) {
+            if(record.getData() instanceof AxiomChangeData) {
+                var axiom = ((AxiomChangeData) record.getData()).getAxiom();
+                subjectProvider.getSubject(axiom).ifPresent(subjects::add);
+            }
+        }
+        return subjects.build();
+    }
+
+    /**
+     * Adds an entry to this index.  Entries must be added in ascending revision number order.
+     * @param entry The entry to add.
+     * @throws IllegalArgumentException if the revision number of the entry is not greater than the
+     * revision number of the last entry in this index.
+     */
+    public void add(@Nonnull RevisionIndexEntry entry) {
+        checkNotNull(entry);
+        try {
+            writeLock.lock();
+            var revisionNumber = entry.getRevisionNumber();
+            if(!revisionNumbers.isEmpty() && revisionNumber.compareTo(getLastRevisionNumber()) <= 0) {
+                throw new IllegalArgumentException("Revisions must be indexed in ascending order.  Found " + revisionNumber + " after " + getLastRevisionNumber());
+            }
+            revisionNumbers.add(revisionNumber);
+            revisionNumbersByTimestamp.computeIfAbsent(entry.getTimestamp(), t -> new ArrayList<>(1))
+                                      .add(revisionNumber);
+            revisionNumbersByAuthor.put(entry.getAuthor(), revisionNumber);
+            entry.getSubjects().forEach(subject -> revisionNumbersBySubject.put(subject, revisionNumber));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Clears this index.
+     */
+    public void clear() {
+        try {
+            writeLock.lock();
+            revisionNumbers.clear();
+            revisionNumbersByTimestamp.clear();
+            revisionNumbersByAuthor.clear();
+            revisionNumbersBySubject.clear();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public int size() {
+        try {
+            readLock.lock();
+            return revisionNumbers.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the position of the specified revision in the change history.
+     * @param revisionNumber The revision number.
+     * @return The position of the revision or a negative value if the revision is not in this index.  The
+     * head revision number is translated to the position of the last revision.
+     */
+    public int getPosition(@Nonnull RevisionNumber revisionNumber) {
+        try {
+            readLock.lock();
+            if(revisionNumbers.isEmpty()) {
+                return -1;
+            }
+            if(revisionNumber.isHead()) {
+                return revisionNumbers.size() - 1;
+            }
+            return Collections.binarySearch(revisionNumbers, revisionNumber);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the position of the first revision whose revision number is greater than or equal to the
+     * specified revision number.
+     */
+    public int getLowerBoundPosition(@Nonnull RevisionNumber revisionNumber) {
+        try {
+            readLock.lock();
+            var pos = Collections.binarySearch(revisionNumbers, revisionNumber);
+            return pos >= 0 ? pos : -(pos + 1);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the revision numbers of the revisions authored by the specified user.
+     * @return The revision numbers in ascending order.
+     */
+    @Nonnull
+    public ImmutableList<RevisionNumber> getRevisionNumbersByAuthor(@Nonnull UserId author) {
+        try {
+            readLock.lock();
+            return ImmutableList.copyOf(revisionNumbersByAuthor.get(author));
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the revision numbers of the revisions that contain changes whose subject is the specified IRI.
+     * @return The revision numbers in ascending order.
+     */
+    @Nonnull
+    public ImmutableList<RevisionNumber> getRevisionNumbersBySubject(@Nonnull IRI subject) {
+        try {
+            readLock.lock();
+            return ImmutableList.copyOf(revisionNumbersBySubject.get(subject));
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the revision numbers of the revisions that have a timestamp within the specified range.
+     * @param fromTimestamp The start of the range (inclusive).
+     * @param toTimestamp The end of the range (exclusive).
+     * @return The revision numbers in ascending order.
+     */
+    @Nonnull
+    public ImmutableList<RevisionNumber> getRevisionNumbersByTimestamp(long fromTimestamp, long toTimestamp) {
+        try {
+            readLock.lock();
+            if(toTimestamp <= fromTimestamp) {
+                return ImmutableList.of();
+            }
+            return revisionNumbersByTimestamp.subMap(fromTimestamp, true, toTimestamp, false)
+                                             .values()
+                                             .stream()
+                                             .flatMap(Collection::stream)
+                                             .sorted()
+                                             .collect(ImmutableList.toImmutableList());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the subjects that have been changed in the most revisions.
+     * @param limit The maximum number of subjects to return.
+     * @return The subjects, most frequently changed first.
+     */
+    @Nonnull
+    public ImmutableList<IRI> getMostFrequentSubjects(int limit) {
+        try {
+            readLock.lock();
+            return revisionNumbersBySubject.asMap()
+                                           .entrySet()
+                                           .stream()
+                                           .sorted(Comparator.comparingInt((Map.Entry<IRI, Collection<RevisionNumber>> e) -> e.getValue().size())
+                                                             .reversed())
+                                           .limit(limit)
+                                           .map(Map.Entry::getKey)
+                                           .collect(ImmutableList.toImmutableList());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private RevisionNumber getLastRevisionNumber() {
+        return revisionNumbers.get(revisionNumbers.size() - 1);
+    }
+}
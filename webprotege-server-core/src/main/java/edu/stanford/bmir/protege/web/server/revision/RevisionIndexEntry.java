@@ -0,0 +1,46 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.semanticweb.owlapi.model.IRI;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The indexed information for a single revision.
+ */
+@AutoValue
+public abstract class RevisionIndexEntry {
+
+    @Nonnull
+    public static RevisionIndexEntry get(@Nonnull RevisionNumber revisionNumber,
+                                         long timestamp,
+                                         @Nonnull UserId author,
+                                         @Nonnull ImmutableSet<IRI> subjects) {
+        return new AutoValue_RevisionIndexEntry(revisionNumber, timestamp, author, subjects);
+    }
+
+    /**
+     * Creates an index entry for the specified revision.
+     */
+    @Nonnull
+    public static RevisionIndexEntry get(@Nonnull Revision revision) {
+        return get(revision.getRevisionNumber(),
+                   revision.getTimestamp(),
+                   revision.getUserId(),
+                   RevisionIndex.getChangeSubjects(revision));
+    }
+
+    @Nonnull
+    public abstract RevisionNumber getRevisionNumber();
+
+    public abstract long getTimestamp();
+
+    @Nonnull
+    public abstract UserId getAuthor();
+
+    @Nonnull
+    public abstract ImmutableSet<IRI> getSubjects();
+}
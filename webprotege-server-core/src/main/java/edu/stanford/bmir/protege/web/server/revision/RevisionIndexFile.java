@@ -0,0 +1,145 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.semanticweb.owlapi.model.IRI;
+
+import javax.annotation.Nonnull;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Persists {@link RevisionIndexEntry}s next to the change history so that the {@link RevisionIndex} does
+ * not have to be recomputed from the changes in every revision when a project is loaded.  The file is a
+ * header followed by a sequence of entries.  New entries are appended to the end of the file.
+ */
+public class RevisionIndexFile {
+
+    private static final int MAGIC_NUMBER = 0x57505249;
+
+    private static final int VERSION = 1;
+
+    private static final int ENTRY_MARKER = 1;
+
+    private final File file;
+
+    public RevisionIndexFile(@Nonnull File file) {
+        this.file = checkNotNull(file);
+    }
+
+    /**
+     * Gets the index file that is stored next to the specified change history file.
+     */
+    @Nonnull
+    public static RevisionIndexFile forChangeHistoryFile(@Nonnull File changeHistoryFile) {
+        var fileName = changeHistoryFile.getName().replaceFirst("\\.binary$", "") + ".index";
+        return new RevisionIndexFile(new File(changeHistoryFile.getParentFile(), fileName));
+    }
+
+    @Nonnull
+    public File getFile() {
+        return file;
+    }
+
+    public boolean exists() {
+        return file.exists();
+    }
+
+    /**
+     * Reads all of the entries in the file.
+     * @return The entries, in the order in which they were written.
+     * @throws IOException if the file does not exist, is not an index file or is corrupt (for example, if the
+     * last entry was only partially written).
+     */
+    @Nonnull
+    public ImmutableList<RevisionIndexEntry> read() throws IOException {
+        try(var in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if(in.readInt() != MAGIC_NUMBER) {
+                throw new IOException("Not a revision index file: " + file.getAbsolutePath());
+            }
+            var version = in.readInt();
+            if(version != VERSION) {
+                throw new IOException("Unsupported revision index version: " + version);
+            }
+            var entries = ImmutableList.<RevisionIndexEntry>builder();
+            int marker;
+            while((marker = in.read()) != -1) {
+                if(marker != ENTRY_MARKER) {
+                    throw new IOException("Corrupt revision index file: " + file.getAbsolutePath());
+                }
+                entries.add(readEntry(in));
+            }
+            return entries.build();
+        }
+    }
+
+    /**
+     * Replaces the contents of the file with the specified entries.  The file is replaced atomically.
+     */
+    public void write(@Nonnull List<RevisionIndexEntry> entries) throws IOException {
+        var tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try(var out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            writeHeader(out);
+            for(var entry : entries) {
+                writeEntry(entry, out);
+            }
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Appends the specified entry to the end of the file.  The file is created if it does not exist.
+     */
+    public void append(@Nonnull RevisionIndexEntry entry) throws IOException {
+        append(List.of(entry));
+    }
+
+    /**
+     * Appends the specified entries to the end of the file.  The file is created if it does not exist.
+     */
+    public void append(@Nonnull List<RevisionIndexEntry> entries) throws IOException {
+        var newFile = !file.exists();
+        try(var out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)))) {
+            if(newFile) {
+                writeHeader(out);
+            }
+            for(var entry : entries) {
+                writeEntry(entry, out);
+            }
+        }
+    }
+
+    private static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC_NUMBER);
+        out.writeInt(VERSION);
+    }
+
+    private static void writeEntry(RevisionIndexEntry entry, DataOutputStream out) throws IOException {
+        out.write(ENTRY_MARKER);
+        out.writeLong(entry.getRevisionNumber().getValue());
+        out.writeLong(entry.getTimestamp());
+        out.writeUTF(entry.getAuthor().getUserName());
+        out.writeInt(entry.getSubjects().size());
+        for(var subject : entry.getSubjects()) {
+            out.writeUTF(subject.toString());
+        }
+    }
+
+    private static RevisionIndexEntry readEntry(DataInputStream in) throws IOException {
+        var revisionNumber = RevisionNumber.getRevisionNumber(in.readLong());
+        var timestamp = in.readLong();
+        var author = UserId.getUserId(in.readUTF());
+        var subjectCount = in.readInt();
+        var subjects = ImmutableSet.<IRI>builder();
+        for(int i = 0; i < subjectCount; i++) {
+            subjects.add(IRI.create(in.readUTF()));
+        }
+        return RevisionIndexEntry.get(revisionNumber, timestamp, author, subjects.build());
+    }
+}
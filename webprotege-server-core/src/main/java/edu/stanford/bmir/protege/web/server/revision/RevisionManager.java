@@ -7,6 +7,7 @@ import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
 import edu.stanford.bmir.protege.web.shared.revision.RevisionSummary;
 import edu.stanford.bmir.protege.web.shared.user.UserId;
 import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLOntologyManager;
 
 import javax.annotation.Nonnull;
@@ -58,6 +59,36 @@ public interface RevisionManager extends HasGetRevisionSummary {
     @Nonnull
     ImmutableList<Revision> getRevisions();
 
+    /**
+     * Gets the revisions whose revision numbers lie within the specified range (inclusive).
+     * @param from The first revision number.  Not {@code null}.
+     * @param to The last revision number.  Not {@code null}.  May be the head revision number.
+     * @return The revisions in ascending revision number order.
+     */
+    @Nonnull
+    ImmutableList<Revision> getRevisions(@Nonnull RevisionNumber from, @Nonnull RevisionNumber to);
+
+    /**
+     * Gets the revisions, whose revision numbers lie within the specified range (inclusive), that were
+     * authored by the specified user.
+     * @param author The author.  Not {@code null}.
+     * @param from The first revision number.  Not {@code null}.
+     * @param to The last revision number.  Not {@code null}.  May be the head revision number.
+     * @return The revisions in ascending revision number order.
+     */
+    @Nonnull
+    ImmutableList<Revision> getRevisionsByAuthor(@Nonnull UserId author,
+                                                 @Nonnull RevisionNumber from,
+                                                 @Nonnull RevisionNumber to);
+
+    /**
+     * Gets the revisions that contain changes whose subject is the specified IRI.
+     * @param subject The subject.  Not {@code null}.
+     * @return The revisions in ascending revision number order.
+     */
+    @Nonnull
+    ImmutableList<Revision> getRevisionsBySubject(@Nonnull IRI subject);
+
     @Nonnull
     OWLOntologyManager getOntologyManagerForRevision(@Nonnull RevisionNumber revision);
 
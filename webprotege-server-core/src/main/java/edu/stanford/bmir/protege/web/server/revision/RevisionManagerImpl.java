@@ -7,6 +7,7 @@ import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
 import edu.stanford.bmir.protege.web.shared.revision.RevisionSummary;
 import edu.stanford.bmir.protege.web.shared.user.UserId;
 import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLOntologyChange;
 import org.semanticweb.owlapi.model.OWLOntologyCreationException;
 import org.semanticweb.owlapi.model.OWLOntologyID;
@@ -122,6 +123,26 @@ public class RevisionManagerImpl implements RevisionManager {
         return revisionStore.getRevisions();
     }
 
+    @Nonnull
+    @Override
+    public ImmutableList<Revision> getRevisions(@Nonnull RevisionNumber from, @Nonnull RevisionNumber to) {
+        return revisionStore.getRevisions(from, to);
+    }
+
+    @Nonnull
+    @Override
+    public ImmutableList<Revision> getRevisionsByAuthor(@Nonnull UserId author,
+                                                        @Nonnull RevisionNumber from,
+                                                        @Nonnull RevisionNumber to) {
+        return revisionStore.getRevisionsByAuthor(author, from, to);
+    }
+
+    @Nonnull
+    @Override
+    public ImmutableList<Revision> getRevisionsBySubject(@Nonnull IRI subject) {
+        return revisionStore.getRevisionsBySubject(subject);
+    }
+
     /**
      * Gets the specified revision
      *
@@ -26,13 +26,20 @@ public class RevisionSerializationTask implements Callable<Integer> {
     }
 
     public Integer call() throws IOException {
+        BinaryOWLOntologyChangeLog changeLog = new BinaryOWLOntologyChangeLog();
+        changeLog.appendChanges(createChangeRecordList(revision), file);
+        return 0;
+    }
+
+    /**
+     * Creates the change record list that represents the specified revision in the change log.
+     */
+    public static OntologyChangeRecordList createChangeRecordList(Revision revision) {
         BinaryOWLMetadata metadata = new BinaryOWLMetadata();
         metadata.setStringAttribute(RevisionSerializationVocabulary.USERNAME_METADATA_ATTRIBUTE.getVocabularyName(), revision.getUserId().getUserName());
         metadata.setLongAttribute(RevisionSerializationVocabulary.REVISION_META_DATA_ATTRIBUTE.getVocabularyName(), revision.getRevisionNumber().getValue());
         metadata.setStringAttribute(RevisionSerializationVocabulary.DESCRIPTION_META_DATA_ATTRIBUTE.getVocabularyName(), revision.getHighLevelDescription());
         metadata.setStringAttribute(RevisionSerializationVocabulary.REVISION_TYPE_META_DATA_ATTRIBUTE.getVocabularyName(), RevisionType.EDIT.name());
-        BinaryOWLOntologyChangeLog changeLog = new BinaryOWLOntologyChangeLog();
-        changeLog.appendChanges(new OntologyChangeRecordList(revision.getTimestamp(), metadata, revision.getChanges()), file);
-        return 0;
+        return new OntologyChangeRecordList(revision.getTimestamp(), metadata, revision.getChanges());
     }
 }
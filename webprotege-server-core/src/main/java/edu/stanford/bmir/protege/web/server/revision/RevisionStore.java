@@ -3,6 +3,8 @@ package edu.stanford.bmir.protege.web.server.revision;
 import com.google.common.collect.ImmutableList;
 import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
 import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.semanticweb.owlapi.model.IRI;
 
 import javax.annotation.Nonnull;
 import java.util.Optional;
@@ -31,6 +33,47 @@ public interface RevisionStore {
     @Nonnull
     Optional<Revision> getRevision(@Nonnull RevisionNumber revisionNumber);
 
+    /**
+     * Gets the revisions whose revision numbers lie within the specified range.
+     * @param from The first revision number in the range (inclusive).  Not {@code null}.
+     * @param to The last revision number in the range (inclusive).  Not {@code null}.  May be the head
+     *           revision number.
+     * @return The revisions, in ascending revision number order.
+     */
+    @Nonnull
+    ImmutableList<Revision> getRevisions(@Nonnull RevisionNumber from, @Nonnull RevisionNumber to);
+
+    /**
+     * Gets the revisions, whose revision numbers lie within the specified range, that were authored by the
+     * specified user.
+     * @param author The author.  Not {@code null}.
+     * @param from The first revision number in the range (inclusive).  Not {@code null}.
+     * @param to The last revision number in the range (inclusive).  Not {@code null}.  May be the head
+     *           revision number.
+     * @return The revisions, in ascending revision number order.
+     */
+    @Nonnull
+    ImmutableList<Revision> getRevisionsByAuthor(@Nonnull UserId author,
+                                                 @Nonnull RevisionNumber from,
+                                                 @Nonnull RevisionNumber to);
+
+    /**
+     * Gets the revisions that contain changes whose subject is the specified IRI.
+     * @param subject The subject.  Not {@code null}.
+     * @return The revisions, in ascending revision number order.
+     */
+    @Nonnull
+    ImmutableList<Revision> getRevisionsBySubject(@Nonnull IRI subject);
+
+    /**
+     * Gets the revisions that have timestamps within the specified range.
+     * @param fromTimestamp The start of the range (inclusive).
+     * @param toTimestamp The end of the range (exclusive).
+     * @return The revisions, in ascending revision number order.
+     */
+    @Nonnull
+    ImmutableList<Revision> getRevisionsByTimestamp(long fromTimestamp, long toTimestamp);
+
     /**
      * Add the specified revision to this revision store.  The revision must have a number that is beyond the revision
      * number of the current revision otherwise an IllegalArgumentException will be thrown.
@@ -4,12 +4,17 @@ import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Interners;
 import edu.stanford.bmir.protege.web.server.inject.project.ChangeHistoryFile;
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryCategory;
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryConsumer;
 import edu.stanford.bmir.protege.web.shared.HasDispose;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
 import edu.stanford.bmir.protege.web.shared.user.UserId;
 import org.semanticweb.binaryowl.BinaryOWLOntologyChangeLog;
+import org.semanticweb.binaryowl.BinaryOWLParseException;
+import org.semanticweb.binaryowl.change.OntologyChangeRecordList;
 import org.semanticweb.binaryowl.chunk.SkipSetting;
+import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLDataFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,13 +25,21 @@ import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.Collections;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -37,11 +50,24 @@ import static edu.stanford.bmir.protege.web.server.revision.RevisionSerializatio
  * Stanford Center for Biomedical Informatics Research
  * 29/05/15
  */
-public class RevisionStoreImpl implements RevisionStore, HasDispose {
+public class RevisionStoreImpl implements RevisionStore, HasDispose, ProjectMemoryConsumer {
 
     private static final Logger logger = LoggerFactory.getLogger(RevisionStoreImpl.class);
 
-    private final ExecutorService changeSerializationExecutor;
+    private static final int MAX_DICTIONARY_SUBJECTS = 2000;
+
+    /**
+     * An estimate of the memory retained by each revision, excluding its changes.  This includes the revision
+     * index entries.
+     */
+    private static final long ESTIMATED_BYTES_PER_REVISION = 200;
+
+    /**
+     * An estimate of the memory retained by each change record.  Change records hold their own copies of axioms.
+     */
+    private static final long ESTIMATED_BYTES_PER_CHANGE = 300;
+
+    private final ChangeLogWriter changeLogWriter;
 
     private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
 
@@ -49,27 +75,49 @@ public class RevisionStoreImpl implements RevisionStore, HasDispose {
 
     private final Lock writeLock = readWriteLock.writeLock();
 
+    /**
+     * Held whilst a revision is handed to the change log writer, which may block if the writer has a backlog.
+     * It is acquired before the write lock is released so that revisions are handed over in order without
+     * blocking readers.
+     */
+    private final Lock persistLock = new ReentrantLock(true);
+
     private final ProjectId projectId;
 
     private final OWLDataFactory dataFactory;
 
     private final File changeHistoryFile;
 
-    private ImmutableList<Revision> revisions = ImmutableList.of();
+    private final ChangeLogWriterSettings changeLogWriterSettings;
+
+    private final RevisionIndexFile revisionIndexFile;
+
+    private final RevisionIndex revisionIndex = new RevisionIndex();
+
+    private volatile ImmutableList<Revision> revisions = ImmutableList.of();
 
 
     @Inject
     public RevisionStoreImpl(@Nonnull ProjectId projectId,
                              @Nonnull @ChangeHistoryFile File changeHistoryFile,
-                             @Nonnull OWLDataFactory dataFactory) {
+                             @Nonnull OWLDataFactory dataFactory,
+                             @Nonnull ChangeLogWriterSettings changeLogWriterSettings) {
         this.projectId = checkNotNull(projectId);
         this.dataFactory = checkNotNull(dataFactory);
         this.changeHistoryFile = checkNotNull(changeHistoryFile);
-        changeSerializationExecutor = Executors.newSingleThreadExecutor(runnable -> {
-            Thread thread = Executors.defaultThreadFactory().newThread(runnable);
-            thread.setName(thread.getName().replace("thread", "change-serializer-thread"));
-            return thread;
-        });
+        this.changeLogWriterSettings = checkNotNull(changeLogWriterSettings);
+        this.revisionIndexFile = RevisionIndexFile.forChangeHistoryFile(changeHistoryFile);
+        this.changeLogWriter = new ChangeLogWriter(projectId,
+                                                   changeHistoryFile,
+                                                   revisionIndexFile,
+                                                   changeLogWriterSettings,
+                                                   this::getSegmentDictionarySubjects);
+    }
+
+    public RevisionStoreImpl(@Nonnull ProjectId projectId,
+                             @Nonnull File changeHistoryFile,
+                             @Nonnull OWLDataFactory dataFactory) {
+        this(projectId, changeHistoryFile, dataFactory, ChangeLogWriterSettings.getDefault());
     }
 
     @Nonnull
@@ -90,22 +138,7 @@ public class RevisionStoreImpl implements RevisionStore, HasDispose {
     private int getRevisionIndexForRevision(RevisionNumber revision) {
         try {
             readLock.lock();
-            if(revisions.isEmpty()) {
-                return -1;
-            }
-            if(revision.isHead()) {
-                return revisions.size() - 1;
-            }
-            var firstRevision = revisions.get(0);
-            if(revision.compareTo(firstRevision.getRevisionNumber()) < 0) {
-                return -1;
-            }
-            var lastRevision = revisions.get(revisions.size() - 1);
-            if(lastRevision.getRevisionNumber() == revision) {
-                return revisions.size() - 1;
-            }
-            var dummyRevision = Revision.createEmptyRevisionWithRevisionNumber(revision);
-            return Collections.binarySearch(revisions, dummyRevision);
+            return revisionIndex.getPosition(revision);
         } finally {
             readLock.unlock();
         }
@@ -122,9 +155,88 @@ public class RevisionStoreImpl implements RevisionStore, HasDispose {
         }
     }
 
+    @Nonnull
+    @Override
+    public ImmutableList<Revision> getRevisions(@Nonnull RevisionNumber from, @Nonnull RevisionNumber to) {
+        checkNotNull(from);
+        checkNotNull(to);
+        try {
+            readLock.lock();
+            var fromIndex = revisionIndex.getLowerBoundPosition(from);
+            var toIndex = to.isHead() ? revisions.size() : revisionIndex.getLowerBoundPosition(to.getNextRevisionNumber());
+            if(toIndex <= fromIndex) {
+                return ImmutableList.of();
+            }
+            return revisions.subList(fromIndex, toIndex);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Nonnull
+    @Override
+    public ImmutableList<Revision> getRevisionsByAuthor(@Nonnull UserId author,
+                                                        @Nonnull RevisionNumber from,
+                                                        @Nonnull RevisionNumber to) {
+        checkNotNull(author);
+        checkNotNull(from);
+        checkNotNull(to);
+        try {
+            readLock.lock();
+            return revisionIndex.getRevisionNumbersByAuthor(author)
+                                .stream()
+                                .filter(revisionNumber -> from.compareTo(revisionNumber) <= 0)
+                                .filter(revisionNumber -> revisionNumber.compareTo(to) <= 0)
+                                .map(this::getIndexedRevision)
+                                .collect(ImmutableList.toImmutableList());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Nonnull
+    @Override
+    public ImmutableList<Revision> getRevisionsBySubject(@Nonnull IRI subject) {
+        checkNotNull(subject);
+        try {
+            readLock.lock();
+            return revisionIndex.getRevisionNumbersBySubject(subject)
+                                .stream()
+                                .map(this::getIndexedRevision)
+                                .collect(ImmutableList.toImmutableList());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Nonnull
+    @Override
+    public ImmutableList<Revision> getRevisionsByTimestamp(long fromTimestamp, long toTimestamp) {
+        try {
+            readLock.lock();
+            return revisionIndex.getRevisionNumbersByTimestamp(fromTimestamp, toTimestamp)
+                                .stream()
+                                .map(this::getIndexedRevision)
+                                .collect(ImmutableList.toImmutableList());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Gets a revision that is known to be in the index.  The read lock must be held.
+     */
+    private Revision getIndexedRevision(RevisionNumber revisionNumber) {
+        return revisions.get(revisionIndex.getPosition(revisionNumber));
+    }
+
     @Override
     public void addRevision(@Nonnull Revision revision) {
         checkNotNull(revision);
+        // Don't add a revision in memory that can never be saved
+        changeLogWriter.checkNotFailed();
+        RevisionIndexEntry indexEntry;
+        boolean firstRevision;
         try {
             writeLock.lock();
             if(revision.getRevisionNumber().compareTo(getCurrentRevisionNumber()) <= 0) {
@@ -136,11 +248,18 @@ public class RevisionStoreImpl implements RevisionStore, HasDispose {
             extendedListBuilder.addAll(revisions);
             extendedListBuilder.add(revision);
             revisions = extendedListBuilder.build();
-            persistChanges(revision);
+            indexEntry = RevisionIndexEntry.get(revision);
+            revisionIndex.add(indexEntry);
+            firstRevision = revisions.size() == 1;
+            persistLock.lock();
         } finally {
             writeLock.unlock();
         }
-
+        try {
+            persistChanges(revision, indexEntry, firstRevision);
+        } finally {
+            persistLock.unlock();
+        }
     }
 
     @Nonnull
@@ -158,64 +277,118 @@ public class RevisionStoreImpl implements RevisionStore, HasDispose {
 
     }
 
-    private void persistChanges(Revision revision) {
-        try {
-            writeLock.lock();
-            var revisionSerializationTask = new RevisionSerializationTask(changeHistoryFile, revision);
-            if(revisions.size() != 1) {
-                changeSerializationExecutor.submit(revisionSerializationTask);
-            }
-            else {
-                // Save immediately
-                try {
-                    logger.info("{} Saving first revision of project", projectId);
-                    revisionSerializationTask.call();
-                } catch(IOException e) {
-                    logger.error("{} An error occurred whilst saving the first revision of the project.  Cause: {}.", projectId, e
-                            .getMessage(), e);
-                }
+    private void persistChanges(Revision revision, RevisionIndexEntry indexEntry, boolean firstRevision) {
+        var written = changeLogWriter.append(revision, indexEntry);
+        if(firstRevision) {
+            // Save immediately
+            try {
+                logger.info("{} Saving first revision of project", projectId);
+                written.join();
+            } catch(CompletionException e) {
+                logger.error("{} An error occurred whilst saving the first revision of the project.  Cause: {}.", projectId, e
+                        .getCause().getMessage(), e.getCause());
             }
-        } finally {
-            writeLock.unlock();
         }
     }
 
+    /**
+     * Gets statistics for the writing of revisions to the change log.
+     */
+    @Nonnull
+    public ChangeLogWriterStatistics getChangeLogWriterStatistics() {
+        return changeLogWriter.getStatistics();
+    }
+
+    @Nonnull
+    @Override
+    public ProjectMemoryCategory getMemoryCategory() {
+        return ProjectMemoryCategory.REVISIONS;
+    }
+
+    @Override
+    public long getEstimatedSizeInBytes() {
+        // The list is replaced rather than modified, so it can be read without taking the lock, which
+        // is held for the whole of a (possibly long) load
+        var currentRevisions = revisions;
+        var changeCount = 0L;
+        for(var revision : currentRevisions) {
+            changeCount += revision.getSize();
+        }
+        return currentRevisions.size() * ESTIMATED_BYTES_PER_REVISION + changeCount * ESTIMATED_BYTES_PER_CHANGE;
+    }
+
+    /**
+     * Loads the change history.
+     * @throws UncheckedIOException if the change history could not be read, for example because it is corrupt.  The store must not be used if it
+     * could not be loaded, because appending revisions to a history that could not be read might make
+     * things worse.
+     */
     public void load() {
         try {
             writeLock.lock();
             if(!changeHistoryFile.exists()) {
                 changeHistoryFile.getParentFile().mkdirs();
+                // Any existing index is stale
+                revisionIndexFile.getFile().delete();
                 return;
             }
-            var revisionsBuilder = ImmutableList.<Revision>builder();
             var metadataInterner = Interners.<String>newStrongInterner();
             var userIdInterner = Interners.<UserId>newStrongInterner();
 
+            // Called concurrently when the history is in the block format
+            Function<OntologyChangeRecordList, Revision> revisionFactory = changeRecordList -> {
+                var metadata = changeRecordList.getMetadata();
+                var userName = metadataInterner.intern(metadata.getStringAttribute(USERNAME_METADATA_ATTRIBUTE.getVocabularyName(), ""));
+                var revisionNumberValue = metadata.getLongAttribute(REVISION_META_DATA_ATTRIBUTE.getVocabularyName(), 0L);
+                var revisionNumber = RevisionNumber.getRevisionNumber(revisionNumberValue);
+                var description = metadata.getStringAttribute(DESCRIPTION_META_DATA_ATTRIBUTE.getVocabularyName(), "");
+                var userId = userIdInterner.intern(UserId.getUserId(userName));
+
+                var internedChangeRecords = ImmutableList.copyOf(changeRecordList.getChangeRecords());
+                return new Revision(userId, revisionNumber, internedChangeRecords, changeRecordList.getTimestamp(), description);
+            };
             try {
                 logger.info("{} Loading change history", projectId);
                 var stopwatch = Stopwatch.createStarted();
-                var changeLog = new BinaryOWLOntologyChangeLog();
-                var inputStream = new BufferedInputStream(new FileInputStream(changeHistoryFile));
-                changeLog.readChanges(inputStream, dataFactory, (changeRecordList, skipSetting, l) -> {
-                    var metadata = changeRecordList.getMetadata();
-                    var userName = metadataInterner.intern(metadata.getStringAttribute(USERNAME_METADATA_ATTRIBUTE.getVocabularyName(), ""));
-                    var revisionNumberValue = metadata.getLongAttribute(REVISION_META_DATA_ATTRIBUTE.getVocabularyName(), 0L);
-                    var revisionNumber = RevisionNumber.getRevisionNumber(revisionNumberValue);
-                    var description = metadata.getStringAttribute(DESCRIPTION_META_DATA_ATTRIBUTE.getVocabularyName(), "");
-                    var userId = userIdInterner.intern(UserId.getUserId(userName));
-
-                    var internedChangeRecords = ImmutableList.copyOf(changeRecordList.getChangeRecords());
-                    var revision = new Revision(userId, revisionNumber, internedChangeRecords, changeRecordList.getTimestamp(), description);
-                    revisionsBuilder.add(revision);
-                }, SkipSetting.SKIP_NONE);
-                inputStream.close();
+                var blockFormat = ChangeHistoryBlockFormat.isBlockFormat(changeHistoryFile);
+                if(blockFormat) {
+                    revisions = readBlockFormatChangeHistory(revisionFactory);
+                    deleteMigrationBackup();
+                }
+                else {
+                    var revisionsBuilder = ImmutableList.<Revision>builder();
+                    var changeLog = new BinaryOWLOntologyChangeLog();
+                    try(var inputStream = new BufferedInputStream(new FileInputStream(changeHistoryFile))) {
+                        changeLog.readChanges(inputStream, dataFactory, (changeRecordList, skipSetting, l) -> {
+                            revisionsBuilder.add(revisionFactory.apply(changeRecordList));
+                        }, SkipSetting.SKIP_NONE);
+                    }
+                    revisions = revisionsBuilder.build();
+                }
                 stopwatch.stop();
-                revisions = revisionsBuilder.build();
                 logger.info("{} Change history loading complete.  Loaded {} revisions in {} ms.", projectId, revisions.size(), stopwatch
                         .elapsed(TimeUnit.MILLISECONDS));
+                loadRevisionIndex();
+                if(!blockFormat) {
+                    migrateChangeHistory();
+                }
 
             } catch(Exception e) {
                 logger.error("{} Failed to load change history for project.  Cause: {}", projectId, e.getMessage(), e);
+                var backupFile = getMigrationBackupFile();
+                if(backupFile.exists()) {
+                    logger.error("{} The change history from before it was migrated to the block format is in {}",
+                                 projectId,
+                                 backupFile.getAbsolutePath());
+                }
+                revisions = ImmutableList.of();
+                revisionIndex.clear();
+                changeLogWriter.dispose();
+                if(e instanceof RuntimeException) {
+                    throw (RuntimeException) e;
+                }
+                throw new UncheckedIOException("Could not load the change history of project " + projectId,
+                                               e instanceof IOException ? (IOException) e : new IOException(e));
             }
         } finally {
             writeLock.unlock();
@@ -224,8 +397,160 @@ public class RevisionStoreImpl implements RevisionStore, HasDispose {
 
     }
 
+    /**
+     * Reads a change history that is in the block format.  The block index is read first, and then the blocks
+     * are decoded in parallel.
+     */
+    private ImmutableList<Revision> readBlockFormatChangeHistory(Function<OntologyChangeRecordList, Revision> revisionFactory) throws IOException, BinaryOWLParseException {
+        var reader = new ChangeHistoryBlockReader(changeHistoryFile);
+        var blockIndex = reader.readBlockIndex();
+        if(blockIndex.hasTruncatedTail()) {
+            // The last block was only partially written.  None of its revisions can be read, and subsequent
+            // blocks must not be appended after it.  Corruption anywhere else fails the load.
+            logger.warn("{} The change history ends with a partially written block.  Discarding {} bytes.",
+                        projectId,
+                        blockIndex.getFileLength() - blockIndex.getValidLength());
+            try(var channel = FileChannel.open(changeHistoryFile.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(blockIndex.getValidLength());
+            }
+        }
+        var blocks = blockIndex.getBlocks();
+        var threadCount = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), blocks.size()));
+        logger.info("{} Reading {} blocks of revisions using {} threads", projectId, blocks.size(), threadCount);
+        var executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+            thread.setName(thread.getName().replace("thread", "change-history-loader-thread"));
+            return thread;
+        });
+        try {
+            return reader.readRevisions(blocks, dataFactory, revisionFactory, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Rewrites a change history that is in the original format in the block format.  The original file is only
+     * replaced if the rewritten file contains all of the revisions.  A copy of the original file is kept until
+     * the migrated file has been successfully loaded.
+     */
+    private void migrateChangeHistory() {
+        var stopwatch = Stopwatch.createStarted();
+        var originalLength = changeHistoryFile.length();
+        var migratedFile = new File(changeHistoryFile.getParentFile(), changeHistoryFile.getName() + ".migrating");
+        try {
+            logger.info("{} Migrating change history to the block format", projectId);
+            ChangeHistoryBlockFormat.writeChangeHistory(migratedFile,
+                                                        revisions,
+                                                        changeLogWriterSettings.getCompression(),
+                                                        ChangeHistoryBlockFormat.createDictionary(getSegmentDictionarySubjects()));
+            var migratedRevisionCount = new ChangeHistoryBlockReader(migratedFile).readBlockIndex()
+                                                                                  .getBlocks()
+                                                                                  .stream()
+                                                                                  .mapToInt(ChangeHistoryBlock::getRevisionCount)
+                                                                                  .sum();
+            if(migratedRevisionCount != revisions.size()) {
+                throw new IOException("Expected " + revisions.size() + " revisions in migrated change history but found " + migratedRevisionCount);
+            }
+            Files.copy(changeHistoryFile.toPath(),
+                       getMigrationBackupFile().toPath(),
+                       StandardCopyOption.REPLACE_EXISTING);
+            Files.move(migratedFile.toPath(),
+                       changeHistoryFile.toPath(),
+                       StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+            logger.info("{} Migrated change history in {} ms.  The size of the change history went from {} bytes to {} bytes.",
+                        projectId,
+                        stopwatch.elapsed(TimeUnit.MILLISECONDS),
+                        originalLength,
+                        changeHistoryFile.length());
+            logger.info("{} The original change history has been kept in {}", projectId, getMigrationBackupFile().getName());
+        } catch(IOException e) {
+            logger.error("{} Could not migrate change history.  The original format will continue to be used.  Cause: {}",
+                         projectId,
+                         e.getMessage(),
+                         e);
+            migratedFile.delete();
+        }
+    }
+
+    private File getMigrationBackupFile() {
+        return new File(changeHistoryFile.getParentFile(), changeHistoryFile.getName() + ".bak");
+    }
+
+    /**
+     * Deletes the copy of the original change history, which is no longer needed once the migrated change
+     * history has been loaded.
+     */
+    private void deleteMigrationBackup() {
+        var backupFile = getMigrationBackupFile();
+        if(backupFile.exists()) {
+            if(backupFile.delete()) {
+                logger.info("{} Deleted the change history from before it was migrated to the block format", projectId);
+            }
+            else {
+                logger.warn("{} Could not delete {}", projectId, backupFile.getAbsolutePath());
+            }
+        }
+    }
+
+    private List<IRI> getSegmentDictionarySubjects() {
+        return revisionIndex.getMostFrequentSubjects(MAX_DICTIONARY_SUBJECTS);
+    }
+
+    /**
+     * Loads the revision index from disk.  If the index is missing or inconsistent with the change history then
+     * the missing entries are recomputed from the revisions and the index file is rewritten.
+     */
+    private void loadRevisionIndex() {
+        var stopwatch = Stopwatch.createStarted();
+        var entries = new ArrayList<RevisionIndexEntry>(revisions.size());
+        var consistent = false;
+        if(revisionIndexFile.exists()) {
+            try {
+                var storedEntries = revisionIndexFile.read();
+                consistent = isPrefixOfRevisions(storedEntries);
+                if(consistent) {
+                    entries.addAll(storedEntries);
+                }
+                else {
+                    logger.info("{} Revision index is inconsistent with the change history", projectId);
+                }
+            } catch(IOException e) {
+                logger.warn("{} Could not read revision index.  Cause: {}", projectId, e.getMessage());
+            }
+        }
+        var storedEntryCount = entries.size();
+        for(int i = storedEntryCount; i < revisions.size(); i++) {
+            entries.add(RevisionIndexEntry.get(revisions.get(i)));
+        }
+        revisionIndex.clear();
+        entries.forEach(revisionIndex::add);
+        if(!consistent || storedEntryCount != entries.size()) {
+            try {
+                logger.info("{} Rebuilt revision index ({} of {} entries recomputed)", projectId, entries.size() - storedEntryCount, entries.size());
+                revisionIndexFile.write(entries);
+            } catch(IOException e) {
+                logger.error("{} Could not write revision index.  Cause: {}", projectId, e.getMessage(), e);
+            }
+        }
+        logger.info("{} Loaded revision index in {} ms", projectId, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+    }
+
+    private boolean isPrefixOfRevisions(List<RevisionIndexEntry> entries) {
+        if(entries.size() > revisions.size()) {
+            return false;
+        }
+        for(int i = 0; i < entries.size(); i++) {
+            if(!entries.get(i).getRevisionNumber().equals(revisions.get(i).getRevisionNumber())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public void dispose() {
-        changeSerializationExecutor.shutdown();
+        changeLogWriter.dispose();
     }
 }
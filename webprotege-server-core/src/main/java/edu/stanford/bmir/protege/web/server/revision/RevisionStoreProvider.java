@@ -1,5 +1,6 @@
 package edu.stanford.bmir.protege.web.server.revision;
 
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryAccountant;
 import edu.stanford.bmir.protege.web.server.project.ProjectDisposablesManager;
 
 import javax.annotation.Nonnull;
@@ -21,13 +22,18 @@ public class RevisionStoreProvider implements Provider<RevisionStore> {
     @Nonnull
     private final ProjectDisposablesManager disposablesManager;
 
+    @Nonnull
+    private final ProjectMemoryAccountant memoryAccountant;
+
     private boolean loaded = false;
 
     @Inject
     public RevisionStoreProvider(@Nonnull RevisionStoreImpl revisionStore,
-                                 @Nonnull ProjectDisposablesManager disposablesManager) {
+                                 @Nonnull ProjectDisposablesManager disposablesManager,
+                                 @Nonnull ProjectMemoryAccountant memoryAccountant) {
         this.revisionStore = checkNotNull(revisionStore);
         this.disposablesManager = checkNotNull(disposablesManager);
+        this.memoryAccountant = checkNotNull(memoryAccountant);
     }
 
     @Override
@@ -36,6 +42,7 @@ public class RevisionStoreProvider implements Provider<RevisionStore> {
             revisionStore.load();
             loaded = true;
             disposablesManager.register(revisionStore);
+            memoryAccountant.register(revisionStore);
         }
         return revisionStore;
     }
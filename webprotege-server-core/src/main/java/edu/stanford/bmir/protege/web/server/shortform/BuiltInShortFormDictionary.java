@@ -59,6 +59,15 @@ public class BuiltInShortFormDictionary {
                 -> new ShortFormMatch(entity, shortForm, DictionaryLanguage.localName(), matchCount, matchPositions));
     }
 
+    @Nonnull
+    public Stream<ShortFormMatch> getShortFormsWithWordPrefix(@Nonnull String prefix,
+                                                              @Nonnull Set<EntityType<?>> entityTypes) {
+        return shortFormCache.getShortFormsWithWordPrefix(prefix,
+                                                          entityTypes,
+                                                          (entity, shortForm, matchCount, matchPositions)
+                -> new ShortFormMatch(entity, shortForm, DictionaryLanguage.localName(), matchCount, matchPositions));
+    }
+
     public void load() {
         loadBuiltInOwlVocabulary();
         loadBuiltInDublinCoreVocabulary();
@@ -107,6 +107,21 @@ public class Dictionary {
                                                       supplier);
     }
 
+    /**
+     * Gets the short forms that contain a word that starts with the specified prefix.
+     * @param prefix The prefix.  Matching is case insensitive.
+     * @param entityTypes The types of entities to be matched.
+     */
+    @Nonnull
+    public Stream<ShortFormMatch> getShortFormsWithWordPrefix(@Nonnull String prefix,
+                                                              @Nonnull Set<EntityType<?>> entityTypes) {
+        ShortFormMatchFunction supplier = (entity, shortForm, matchCount, matchPositions) ->
+                new ShortFormMatch(entity, shortForm, language, matchCount, matchPositions);
+        return shortFormCache.getShortFormsWithWordPrefix(prefix,
+                                                          entityTypes,
+                                                          supplier);
+    }
+
     @Nonnull
     public Stream<OWLEntity> getEntities(@Nonnull String shortForm) {
         return shortFormCache.getEntities(shortForm);
@@ -109,6 +109,18 @@ public class DictionaryManager {
         return getShortFormsContaining(searchStrings, entityTypes, languageManager.getLanguages());
     }
 
+    @Nonnull
+    public Stream<ShortFormMatch> getShortFormsWithWordPrefix(@Nonnull String prefix,
+                                                              @Nonnull Set<EntityType<?>> entityTypes) {
+        if(entityTypes.isEmpty()) {
+            return Stream.empty();
+        }
+        return Streams.concat(
+                builtInShortFormDictionary.getShortFormsWithWordPrefix(prefix, entityTypes),
+                dictionary.getShortFormsWithWordPrefix(prefix, entityTypes, languageManager.getLanguages())
+        );
+    }
+
     public void update(@Nonnull Collection<OWLEntity> entities) {
         dictionary.update(entities,
                           languageManager.getLanguages());
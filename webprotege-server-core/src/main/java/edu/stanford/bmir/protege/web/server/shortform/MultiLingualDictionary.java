@@ -57,6 +57,19 @@ public interface MultiLingualDictionary {
                                         @Nonnull Set<EntityType<?>> entityTypes,
                                         @Nonnull List<DictionaryLanguage> languages);
 
+    /**
+     * Gets short forms that contain a word that starts with the specified prefix.  This does not require a scan
+     * of all short forms.
+     * @param prefix The prefix.  Matching is case insensitive.
+     * @param entityTypes The types of entities to be retrieved.
+     * @param languages The list of languages to consider.
+     * @return A stream of short forms.
+     */
+    @Nonnull
+    Stream<ShortFormMatch> getShortFormsWithWordPrefix(@Nonnull String prefix,
+                                                       @Nonnull Set<EntityType<?>> entityTypes,
+                                                       @Nonnull List<DictionaryLanguage> languages);
+
     /**
      * Gets a stream of entities that exactly match the specified short form.
      * @param shortForm The short form.
@@ -2,6 +2,8 @@ package edu.stanford.bmir.protege.web.server.shortform;
 
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableMap;
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryCategory;
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryConsumer;
 import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import edu.stanford.bmir.protege.web.shared.shortform.DictionaryLanguage;
@@ -28,10 +30,16 @@ import static java.util.stream.Collectors.toList;
  * 3 Apr 2018
  */
 @ProjectSingleton
-public class MultiLingualDictionaryImpl implements MultiLingualDictionary {
+public class MultiLingualDictionaryImpl implements MultiLingualDictionary, ProjectMemoryConsumer {
 
     private static final Logger logger = LoggerFactory.getLogger(MultiLingualDictionaryImpl.class);
 
+    /**
+     * An estimate of the memory retained by each dictionary entry.  This includes the short form itself, the
+     * reverse mapping from short forms to entities and the word prefix index.
+     */
+    private static final long ESTIMATED_BYTES_PER_ENTRY = 250;
+
     @Nonnull
     private final Lock writeLock = new ReentrantLock();
 
@@ -150,6 +158,20 @@ public class MultiLingualDictionaryImpl implements MultiLingualDictionary {
 
     }
 
+    @Nonnull
+    @Override
+    public Stream<ShortFormMatch> getShortFormsWithWordPrefix(@Nonnull String prefix,
+                                                              @Nonnull Set<EntityType<?>> entityTypes,
+                                                              @Nonnull List<DictionaryLanguage> languages) {
+        if(entityTypes.isEmpty()) {
+            return Stream.empty();
+        }
+        var dictionaries = findDictionaries(languages);
+        return dictionaries
+                .stream()
+                .flatMap(dictionary -> dictionary.getShortFormsWithWordPrefix(prefix, entityTypes));
+    }
+
     @Override
     public Stream<OWLEntity> getEntities(@Nonnull String shortForm,
                                          @Nonnull List<DictionaryLanguage> languages) {
@@ -197,4 +219,19 @@ public class MultiLingualDictionaryImpl implements MultiLingualDictionary {
         });
         return resultBuilder.build();
     }
+
+    @Nonnull
+    @Override
+    public ProjectMemoryCategory getMemoryCategory() {
+        return ProjectMemoryCategory.DICTIONARIES;
+    }
+
+    @Override
+    public long getEstimatedSizeInBytes() {
+        var entryCount = 0L;
+        for(var dictionary : dictionaries.values()) {
+            entryCount += dictionary.size();
+        }
+        return entryCount * ESTIMATED_BYTES_PER_ENTRY;
+    }
 }
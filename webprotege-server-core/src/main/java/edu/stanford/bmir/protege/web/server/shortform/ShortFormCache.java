@@ -39,6 +39,8 @@ public class ShortFormCache {
     @Nonnull
     private final Multimap<String, OWLEntity> shortForm2EntityMap;
 
+    @Nonnull
+    private final ShortFormPrefixIndex prefixIndex;
 
     @Inject
     public ShortFormCache() {
@@ -51,6 +53,7 @@ public class ShortFormCache {
         // users edit the project.  With large ontologies there could be an unfortable delay
         // after project load though.
         this.shortForm2EntityMap = Multimaps.synchronizedMultimap(HashMultimap.create(capacity, 1));
+        this.prefixIndex = new ShortFormPrefixIndex(entity2ShortFormMap);
 
     }
 
@@ -81,6 +84,7 @@ public class ShortFormCache {
                     @Nonnull String shortForm) {
         entity2ShortFormMap.put(checkNotNull(entity), ShortForm.create(checkNotNull(shortForm)));
         shortForm2EntityMap.put(shortForm, entity);
+        prefixIndex.handleChanged(entity);
     }
 
     /**
@@ -91,6 +95,7 @@ public class ShortFormCache {
         shortForms.forEach((entity, sf) -> {
             entity2ShortFormMap.put(entity, ShortForm.create(sf));
             shortForm2EntityMap.put(sf, entity);
+            prefixIndex.handleChanged(entity);
         });
 
     }
@@ -103,6 +108,7 @@ public class ShortFormCache {
         if (shortForm != null) {
             shortForm2EntityMap.removeAll(shortForm);
         }
+        prefixIndex.handleChanged(entity);
     }
 
     /**
@@ -111,6 +117,7 @@ public class ShortFormCache {
     public void clear() {
         shortForm2EntityMap.clear();
         entity2ShortFormMap.clear();
+        prefixIndex.handleCleared();
     }
 
     /**
@@ -186,7 +193,24 @@ public class ShortFormCache {
                                   .filter(Objects::nonNull);
     }
 
-    private static class ShortForm {
+    /**
+     * Gets the short forms that contain a word that starts with the specified prefix.  Word starts are determined
+     * in the same way as for entity names, so "Head" and "Region" are word starts in "HeadRegion".  This
+     * look up is backed by an index and does not scan all short forms.
+     *
+     * @param prefix        The prefix.  Matching is case insensitive.
+     * @param entityTypes   The types of entities to be matched.  If empty then no entities will be matched.
+     * @param matchFunction A function that produces a {@link ShortFormMatch}
+     * @return A stream of short form matches.  Each entity is matched at most once.
+     */
+    @Nonnull
+    public Stream<ShortFormMatch> getShortFormsWithWordPrefix(@Nonnull String prefix,
+                                                              @Nonnull Set<EntityType<?>> entityTypes,
+                                                              @Nonnull ShortFormMatchFunction matchFunction) {
+        return prefixIndex.getShortFormsWithWordPrefix(prefix.toLowerCase(), entityTypes, matchFunction);
+    }
+
+    static class ShortForm {
 
         private final String shortForm;
 
@@ -213,6 +237,10 @@ public class ShortFormCache {
             return shortForm;
         }
 
+        public String getLowerCaseShortForm() {
+            return lowerCaseShortForm;
+        }
+
         public int indexOfIgnoreCase(@Nonnull String searchString) {
             return lowerCaseShortForm.indexOf(searchString);
         }
@@ -0,0 +1,294 @@
+package edu.stanford.bmir.protege.web.server.shortform;
+
+import com.google.common.primitives.ImmutableIntArray;
+import org.semanticweb.owlapi.model.EntityType;
+import org.semanticweb.owlapi.model.OWLEntity;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static edu.stanford.bmir.protege.web.shared.entity.EntityNameUtils.isWordStart;
+
+/**
+ * An index of the word starts in short forms, which allows short forms that contain a word that starts with a
+ * given prefix to be found with a binary search rather than a scan over all short forms.  For each entity type
+ * the index holds a sorted array of the lower case short form suffixes that begin at word starts.  The index is
+ * built the first time that it is used.  Short forms that change after the index has been built are tracked
+ * separately and are checked directly when the index is queried.  Once the number of changed short forms
+ * becomes large the index is rebuilt.
+ */
+class ShortFormPrefixIndex {
+
+    /**
+     * The maximum number of word starts that are indexed for a single short form.  This stops very long short forms
+     * from bloating the index.  Matches for words beyond this limit can still be found by scanning.
+     */
+    private static final int MAX_WORD_STARTS_PER_SHORT_FORM = 8;
+
+    private static final int MIN_REBUILD_THRESHOLD = 1000;
+
+    @Nonnull
+    private final Map<OWLEntity, ShortFormCache.ShortForm> shortForms;
+
+    /**
+     * Entities whose short forms have changed since the index snapshot was built
+     */
+    private final Set<OWLEntity> changedEntities = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean trackingChanges = false;
+
+    @Nullable
+    private volatile Snapshot snapshot = null;
+
+    ShortFormPrefixIndex(@Nonnull Map<OWLEntity, ShortFormCache.ShortForm> shortForms) {
+        this.shortForms = checkNotNull(shortForms);
+    }
+
+    /**
+     * Notifies this index that the short form for the specified entity has been added, changed or removed.
+     */
+    void handleChanged(@Nonnull OWLEntity entity) {
+        if(trackingChanges) {
+            changedEntities.add(entity);
+        }
+    }
+
+    /**
+     * Notifies this index that all short forms have been removed.
+     */
+    synchronized void handleCleared() {
+        snapshot = null;
+        changedEntities.clear();
+    }
+
+    /**
+     * Gets matches for the short forms that contain a word that starts with the specified prefix.  Each entity
+     * is matched at most once.
+     * @param lowerCasePrefix The prefix, in lower case.
+     * @param entityTypes The types of entities to be matched.
+     * @param matchFunction A function that produces a {@link ShortFormMatch}.  The match position is the
+     *                      start of the matched word.
+     */
+    @Nonnull
+    Stream<ShortFormMatch> getShortFormsWithWordPrefix(@Nonnull String lowerCasePrefix,
+                                                       @Nonnull Set<EntityType<?>> entityTypes,
+                                                       @Nonnull ShortFormMatchFunction matchFunction) {
+        if(entityTypes.isEmpty()) {
+            return Stream.empty();
+        }
+        var currentSnapshot = getSnapshot();
+        // The index can contain several word starts for the same entity
+        var matchedEntities = new HashSet<OWLEntity>();
+        var indexedMatches = entityTypes.stream()
+                                        .map(currentSnapshot.entries::get)
+                                        .filter(Objects::nonNull)
+                                        .flatMap(entries -> entries.getMatches(lowerCasePrefix))
+                                        .filter(index -> !changedEntities.contains(index.entity))
+                                        .filter(index -> matchedEntities.add(index.entity))
+                                        .map(index -> index.toMatch(matchFunction));
+        var changedMatches = changedEntities.stream()
+                                            .filter(entity -> entityTypes.contains(entity.getEntityType()))
+                                            .map(entity -> getMatch(entity, lowerCasePrefix, matchFunction))
+                                            .filter(Objects::nonNull);
+        return Stream.concat(indexedMatches, changedMatches);
+    }
+
+    @Nullable
+    private ShortFormMatch getMatch(@Nonnull OWLEntity entity,
+                                    @Nonnull String lowerCasePrefix,
+                                    @Nonnull ShortFormMatchFunction matchFunction) {
+        var shortForm = shortForms.get(entity);
+        if(shortForm == null) {
+            return null;
+        }
+        for(int wordStart : getWordStarts(shortForm)) {
+            if(shortForm.getLowerCaseShortForm().startsWith(lowerCasePrefix, wordStart)) {
+                return matchFunction.createMatch(entity, shortForm.getShortForm(), 1, ImmutableIntArray.of(wordStart));
+            }
+        }
+        return null;
+    }
+
+    @Nonnull
+    private Snapshot getSnapshot() {
+        var currentSnapshot = snapshot;
+        if(currentSnapshot != null && !isRebuildRequired(currentSnapshot)) {
+            return currentSnapshot;
+        }
+        synchronized(this) {
+            if(snapshot == null || isRebuildRequired(snapshot)) {
+                // Changes that happen whilst the snapshot is being built are tracked
+                trackingChanges = true;
+                changedEntities.clear();
+                snapshot = Snapshot.build(shortForms);
+            }
+            return snapshot;
+        }
+    }
+
+    private boolean isRebuildRequired(@Nonnull Snapshot snapshot) {
+        return changedEntities.size() > Math.max(MIN_REBUILD_THRESHOLD, snapshot.size / 8);
+    }
+
+    @Nonnull
+    private static int[] getWordStarts(@Nonnull ShortFormCache.ShortForm shortForm) {
+        var sf = shortForm.getShortForm();
+        if(sf.length() != shortForm.getLowerCaseShortForm().length()) {
+            // Positions in the short form do not correspond to positions in the lower case short form
+            return new int[]{0};
+        }
+        var wordStarts = new int[Math.min(sf.length(), MAX_WORD_STARTS_PER_SHORT_FORM)];
+        var count = 0;
+        for(int i = 0; i < sf.length() && count < wordStarts.length; i++) {
+            if(i == 0 || isWordStart(sf, i)) {
+                wordStarts[count] = i;
+                count++;
+            }
+        }
+        return Arrays.copyOf(wordStarts, count);
+    }
+
+    /**
+     * Lexicographically compares the suffix of one string, starting at the specified offset, with the suffix of
+     * another string, starting at the specified offset.
+     */
+    private static int compareSuffixes(@Nonnull String s1, int offset1, @Nonnull String s2, int offset2) {
+        var length1 = s1.length() - offset1;
+        var length2 = s2.length() - offset2;
+        var length = Math.min(length1, length2);
+        for(int i = 0; i < length; i++) {
+            var diff = s1.charAt(offset1 + i) - s2.charAt(offset2 + i);
+            if(diff != 0) {
+                return diff;
+            }
+        }
+        return length1 - length2;
+    }
+
+    private static class Snapshot {
+
+        private final Map<EntityType<?>, SortedEntries> entries;
+
+        private final int size;
+
+        private Snapshot(Map<EntityType<?>, SortedEntries> entries, int size) {
+            this.entries = entries;
+            this.size = size;
+        }
+
+        private static Snapshot build(@Nonnull Map<OWLEntity, ShortFormCache.ShortForm> shortForms) {
+            var entriesByType = new HashMap<EntityType<?>, List<IndexEntry>>();
+            var size = 0;
+            for(var e : shortForms.entrySet()) {
+                var entity = e.getKey();
+                var shortForm = e.getValue();
+                var typeEntries = entriesByType.computeIfAbsent(entity.getEntityType(), t -> new ArrayList<>());
+                for(int wordStart : getWordStarts(shortForm)) {
+                    typeEntries.add(new IndexEntry(entity, shortForm, wordStart));
+                }
+                size++;
+            }
+            var entries = new HashMap<EntityType<?>, SortedEntries>();
+            entriesByType.forEach((type, typeEntries) -> entries.put(type, SortedEntries.create(typeEntries)));
+            return new Snapshot(entries, size);
+        }
+    }
+
+    /**
+     * Index entries for an entity type, sorted by the lower case short form suffix that begins at the word start.
+     * The entries are held in parallel arrays to keep the index compact.
+     */
+    private static class SortedEntries {
+
+        private final OWLEntity[] entities;
+
+        private final ShortFormCache.ShortForm[] shortForms;
+
+        private final int[] wordStarts;
+
+        private SortedEntries(OWLEntity[] entities, ShortFormCache.ShortForm[] shortForms, int[] wordStarts) {
+            this.entities = entities;
+            this.shortForms = shortForms;
+            this.wordStarts = wordStarts;
+        }
+
+        private static SortedEntries create(@Nonnull List<IndexEntry> entries) {
+            entries.sort(IndexEntry.COMPARATOR);
+            var entities = new OWLEntity[entries.size()];
+            var shortForms = new ShortFormCache.ShortForm[entries.size()];
+            var wordStarts = new int[entries.size()];
+            for(int i = 0; i < entries.size(); i++) {
+                var entry = entries.get(i);
+                entities[i] = entry.entity;
+                shortForms[i] = entry.shortForm;
+                wordStarts[i] = entry.wordStart;
+            }
+            return new SortedEntries(entities, shortForms, wordStarts);
+        }
+
+        private Stream<IndexEntry> getMatches(@Nonnull String lowerCasePrefix) {
+            var from = lowerBound(lowerCasePrefix);
+            return IntStream.range(from, entities.length)
+                            .takeWhile(i -> shortForms[i].getLowerCaseShortForm()
+                                                         .startsWith(lowerCasePrefix, wordStarts[i]))
+                            .mapToObj(i -> new IndexEntry(entities[i], shortForms[i], wordStarts[i]));
+        }
+
+        /**
+         * Finds the index of the first entry that is greater than or equal to the specified prefix
+         */
+        private int lowerBound(@Nonnull String lowerCasePrefix) {
+            var low = 0;
+            var high = entities.length;
+            while(low < high) {
+                var mid = (low + high) >>> 1;
+                if(compareSuffixes(shortForms[mid].getLowerCaseShortForm(), wordStarts[mid], lowerCasePrefix, 0) < 0) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static class IndexEntry {
+
+        private static final Comparator<IndexEntry> COMPARATOR = (e1, e2) ->
+                compareSuffixes(e1.shortForm.getLowerCaseShortForm(), e1.wordStart,
+                                e2.shortForm.getLowerCaseShortForm(), e2.wordStart);
+
+        private final OWLEntity entity;
+
+        private final ShortFormCache.ShortForm shortForm;
+
+        private final int wordStart;
+
+        private IndexEntry(OWLEntity entity, ShortFormCache.ShortForm shortForm, int wordStart) {
+            this.entity = entity;
+            this.shortForm = shortForm;
+            this.wordStart = wordStart;
+        }
+
+        private ShortFormMatch toMatch(@Nonnull ShortFormMatchFunction matchFunction) {
+            return matchFunction.createMatch(entity,
+                                             shortForm.getShortForm(),
+                                             1,
+                                             ImmutableIntArray.of(wordStart));
+        }
+    }
+}
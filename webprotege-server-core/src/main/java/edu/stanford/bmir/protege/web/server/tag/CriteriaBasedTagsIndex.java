@@ -0,0 +1,554 @@
+package edu.stanford.bmir.protege.web.server.tag;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import edu.stanford.bmir.protege.web.server.change.HasGetChangeSubjects;
+import edu.stanford.bmir.protege.web.server.index.EntitiesInProjectSignatureIndex;
+import edu.stanford.bmir.protege.web.server.index.ProjectSignatureIndex;
+import edu.stanford.bmir.protege.web.server.match.Matcher;
+import edu.stanford.bmir.protege.web.server.match.MatcherFactory;
+import edu.stanford.bmir.protege.web.server.match.MatchingExecutor;
+import edu.stanford.bmir.protege.web.server.match.OrMatcher;
+import edu.stanford.bmir.protege.web.server.match.FrameLocalCriteriaChecker;
+import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.tag.Tag;
+import edu.stanford.bmir.protege.web.shared.tag.TagId;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * A materialised index of criteria based tag membership.  The index maps each entity in the project signature
+ * to the set (a bit set of tag positions) of criteria based tags that match it.  The index is computed in parallel
+ * on first use.  It is built into fresh structures without holding the lock, and is then swapped in, so that
+ * changes can be applied whilst it is built.  These changes are replayed against the new index before it is
+ * swapped in.  After that, when changes are applied to the project, only the entities whose frames were changed
+ * are re-evaluated.  Tags whose criteria are not frame local (see {@link FrameLocalCriteriaChecker}) are
+ * re-evaluated over the whole project signature in the background after a change.  Until this has finished, reads
+ * return the previous membership of these tags.  The index is rebuilt the next time that it is read after the
+ * project tags have been saved (see {@link #handleTagsChanged()}).  Until the rebuild has finished, other reads
+ * return the previous membership of the tags.
+ */
+@ProjectSingleton
+public class CriteriaBasedTagsIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CriteriaBasedTagsIndex.class);
+
+    /**
+     * Signatures that are larger than this are evaluated in parallel, in partitions of this size
+     */
+    private static final int PARTITION_SIZE = 10_000;
+
+    @Nonnull
+    private final ProjectId projectId;
+
+    @Nonnull
+    private final TagRepository tagRepository;
+
+    @Nonnull
+    private final MatcherFactory matcherFactory;
+
+    @Nonnull
+    private final ProjectSignatureIndex projectSignatureIndex;
+
+    @Nonnull
+    private final EntitiesInProjectSignatureIndex entitiesInProjectSignatureIndex;
+
+    @Nonnull
+    private final HasGetChangeSubjects changeSubjectsProvider;
+
+    @Nonnull
+    private final ExecutorService reevaluationExecutor;
+
+    @Nonnull
+    private final ExecutorService evaluationExecutor;
+
+    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+
+    private final Lock readLock = readWriteLock.readLock();
+
+    private final Lock writeLock = readWriteLock.writeLock();
+
+    /**
+     * Held whilst the index is rebuilt, so that concurrent reads do not rebuild it more than once
+     */
+    private final Lock rebuildLock = new ReentrantLock();
+
+    /**
+     * The tags that have criteria.  The position of a tag in this list is its position in the entity bit sets.
+     */
+    @Nonnull
+    private ImmutableList<Tag> indexedTags = ImmutableList.of();
+
+    @Nonnull
+    private ImmutableMap<TagId, Integer> tagPositions = ImmutableMap.of();
+
+    /**
+     * The positions of the tags whose criteria are not frame local
+     */
+    @Nonnull
+    private BitSet nonLocalTags = new BitSet();
+
+    /**
+     * Entities are only present if they are tagged with at least one tag
+     */
+    @Nonnull
+    private Map<OWLEntity, BitSet> tagsByEntity = new HashMap<>();
+
+    /**
+     * The entities that have been affected by changes whilst the index is being rebuilt, or null if the index
+     * is not being rebuilt
+     */
+    @Nullable
+    private Set<OWLEntity> entitiesChangedDuringRebuild = null;
+
+    private boolean built = false;
+
+    private boolean tagsChanged = false;
+
+    private final AtomicBoolean reevaluationScheduled = new AtomicBoolean();
+
+    @Inject
+    public CriteriaBasedTagsIndex(@Nonnull ProjectId projectId,
+                                  @Nonnull TagRepository tagRepository,
+                                  @Nonnull MatcherFactory matcherFactory,
+                                  @Nonnull ProjectSignatureIndex projectSignatureIndex,
+                                  @Nonnull EntitiesInProjectSignatureIndex entitiesInProjectSignatureIndex,
+                                  @Nonnull HasGetChangeSubjects changeSubjectsProvider,
+                                  @Nonnull @MatchingExecutor ExecutorService reevaluationExecutor,
+                                  @Nonnull @CriteriaTagsExecutor ExecutorService evaluationExecutor) {
+        this.projectId = checkNotNull(projectId);
+        this.tagRepository = checkNotNull(tagRepository);
+        this.matcherFactory = checkNotNull(matcherFactory);
+        this.projectSignatureIndex = checkNotNull(projectSignatureIndex);
+        this.entitiesInProjectSignatureIndex = checkNotNull(entitiesInProjectSignatureIndex);
+        this.changeSubjectsProvider = checkNotNull(changeSubjectsProvider);
+        this.reevaluationExecutor = checkNotNull(reevaluationExecutor);
+        this.evaluationExecutor = checkNotNull(evaluationExecutor);
+    }
+
+    /**
+     * Marks the index as out of date because the project tags have been saved.  The index is rebuilt the
+     * next time that it is read.
+     */
+    public void handleTagsChanged() {
+        try {
+            writeLock.lock();
+            tagsChanged = true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the ids of the criteria based tags that match the specified entity.
+     */
+    @Nonnull
+    public Stream<TagId> getTagIds(@Nonnull OWLEntity entity) {
+        checkNotNull(entity);
+        try {
+            readLock.lock();
+            ensureUpToDate();
+            var tags = tagsByEntity.get(entity);
+            if(tags == null) {
+                return Stream.empty();
+            }
+            return tags.stream()
+                       .mapToObj(indexedTags::get)
+                       .map(Tag::getTagId)
+                       .collect(toList())
+                       .stream();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the entities that are matched by the criteria of the specified tag.
+     */
+    @Nonnull
+    public Stream<OWLEntity> getTaggedEntities(@Nonnull TagId tagId) {
+        checkNotNull(tagId);
+        try {
+            readLock.lock();
+            ensureUpToDate();
+            var position = tagPositions.get(tagId);
+            if(position == null) {
+                return Stream.empty();
+            }
+            return tagsByEntity.entrySet()
+                               .stream()
+                               .filter(entry -> entry.getValue().get(position))
+                               .map(Map.Entry::getKey)
+                               .collect(toList())
+                               .stream();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Updates the index in response to the specified (applied) changes.  The entities that are the subjects of
+     * the changes, along with the entities that are in the signature of the changes, are re-evaluated against
+     * the frame local tags.  Tags that are not frame local are re-evaluated in the background.
+     */
+    public void handleChanges(@Nonnull List<OWLOntologyChange> changes) {
+        var nonLocalTagsStale = false;
+        try {
+            writeLock.lock();
+            if(!built && entitiesChangedDuringRebuild == null) {
+                return;
+            }
+            var affectedEntities = new HashSet<OWLEntity>();
+            for(var change : changes) {
+                affectedEntities.addAll(change.getSignature());
+                affectedEntities.addAll(changeSubjectsProvider.getChangeSubjects(change));
+            }
+            if(entitiesChangedDuringRebuild != null) {
+                entitiesChangedDuringRebuild.addAll(affectedEntities);
+            }
+            if(!built) {
+                return;
+            }
+            nonLocalTagsStale = reevaluateLocalTags(affectedEntities);
+        } finally {
+            writeLock.unlock();
+        }
+        if(nonLocalTagsStale) {
+            scheduleNonLocalTagsReevaluation();
+        }
+    }
+
+    /**
+     * Re-evaluates the frame local tags for the specified entities.  This must be called with the write lock held.
+     * @return true if the index has tags that are not frame local, which are now stale, otherwise false.
+     */
+    private boolean reevaluateLocalTags(Set<OWLEntity> affectedEntities) {
+        var localMatchers = createMatchers(indexedTags, getLocalTags());
+        for(var entity : affectedEntities) {
+            var tags = new BitSet();
+            if(entitiesInProjectSignatureIndex.containsEntityInSignature(entity)) {
+                setMatchingTags(entity, localMatchers, tags);
+            }
+            var currentTags = tagsByEntity.get(entity);
+            if(currentTags != null) {
+                tags.or(intersection(currentTags, nonLocalTags));
+            }
+            putTags(entity, tags);
+        }
+        return !nonLocalTags.isEmpty() && !affectedEntities.isEmpty();
+    }
+
+    /**
+     * Brings the index up to date.  This must be called with the read lock held.  If the index needs to be
+     * rebuilt then the read lock is released for the duration of the rebuild.
+     */
+    private void ensureUpToDate() {
+        if(built && !tagsChanged) {
+            return;
+        }
+        readLock.unlock();
+        try {
+            rebuildIfNecessary();
+        } finally {
+            readLock.lock();
+        }
+    }
+
+    /**
+     * Rebuilds the index if it has not been built or if the project tags have changed.  The new index is
+     * computed without holding the lock.  It is swapped in under the write lock, after the entities that were
+     * affected by changes in the meantime have been re-evaluated.
+     */
+    private void rebuildIfNecessary() {
+        try {
+            rebuildLock.lock();
+            ImmutableList<Tag> currentTags;
+            try {
+                writeLock.lock();
+                if(built && !tagsChanged) {
+                    return;
+                }
+                // Tags that are saved from now on cause another rebuild
+                tagsChanged = false;
+                currentTags = indexedTags;
+                entitiesChangedDuringRebuild = new HashSet<>();
+            } finally {
+                writeLock.unlock();
+            }
+            var stopwatch = Stopwatch.createStarted();
+            ImmutableList<Tag> tags;
+            Map<OWLEntity, BitSet> rebuiltTagsByEntity = null;
+            try {
+                tags = getTagsWithCriteria();
+                if(!built || !currentTags.equals(tags)) {
+                    rebuiltTagsByEntity = evaluateSignature(tags, getAllTags(tags));
+                }
+            } catch(RuntimeException e) {
+                try {
+                    writeLock.lock();
+                    entitiesChangedDuringRebuild = null;
+                    // Try again on the next read
+                    tagsChanged = true;
+                } finally {
+                    writeLock.unlock();
+                }
+                throw e;
+            }
+            if(rebuiltTagsByEntity == null) {
+                try {
+                    writeLock.lock();
+                    entitiesChangedDuringRebuild = null;
+                } finally {
+                    writeLock.unlock();
+                }
+                return;
+            }
+            boolean nonLocalTagsStale;
+            try {
+                writeLock.lock();
+                var changedEntities = entitiesChangedDuringRebuild;
+                entitiesChangedDuringRebuild = null;
+                swapIn(tags, rebuiltTagsByEntity);
+                nonLocalTagsStale = reevaluateLocalTags(changedEntities);
+            } finally {
+                writeLock.unlock();
+            }
+            logger.info("{} Computed criteria based tags for {} entities in {} ms",
+                        projectId,
+                        rebuiltTagsByEntity.size(),
+                        stopwatch.elapsed().toMillis());
+            if(nonLocalTagsStale) {
+                scheduleNonLocalTagsReevaluation();
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @Nonnull
+    private ImmutableList<Tag> getTagsWithCriteria() {
+        return tagRepository.findTags()
+                            .stream()
+                            .filter(tag -> !tag.getCriteria().isEmpty())
+                            .collect(toImmutableList());
+    }
+
+    /**
+     * Replaces the index with one for the specified tags.  This must be called with the write lock held.
+     */
+    private void swapIn(ImmutableList<Tag> tags, Map<OWLEntity, BitSet> rebuiltTagsByEntity) {
+        var positions = ImmutableMap.<TagId, Integer>builder();
+        var rebuiltNonLocalTags = new BitSet();
+        for(int i = 0; i < tags.size(); i++) {
+            var tag = tags.get(i);
+            positions.put(tag.getTagId(), i);
+            if(!tag.getCriteria().stream().allMatch(FrameLocalCriteriaChecker::isFrameLocal)) {
+                rebuiltNonLocalTags.set(i);
+            }
+        }
+        indexedTags = tags;
+        tagPositions = positions.build();
+        nonLocalTags = rebuiltNonLocalTags;
+        tagsByEntity = rebuiltTagsByEntity;
+        built = true;
+    }
+
+    private static BitSet getAllTags(ImmutableList<Tag> tags) {
+        var allTags = new BitSet();
+        allTags.set(0, tags.size());
+        return allTags;
+    }
+
+    private BitSet getLocalTags() {
+        var localTags = new BitSet();
+        localTags.set(0, indexedTags.size());
+        localTags.andNot(nonLocalTags);
+        return localTags;
+    }
+
+    /**
+     * Schedules the re-evaluation of the tags that are not frame local, unless a re-evaluation has been
+     * scheduled and has not started yet.
+     */
+    private void scheduleNonLocalTagsReevaluation() {
+        if(reevaluationScheduled.compareAndSet(false, true)) {
+            reevaluationExecutor.execute(() -> {
+                try {
+                    reevaluateNonLocalTags();
+                } catch(RuntimeException e) {
+                    logger.error("{} Error whilst re-evaluating criteria based tags", projectId, e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Re-evaluates the tags that are not frame local over the whole project signature.  The evaluation is done
+     * without holding the lock, so that reads are not blocked.  Changes that are applied during the evaluation
+     * schedule another re-evaluation.
+     */
+    private void reevaluateNonLocalTags() {
+        reevaluationScheduled.set(false);
+        ImmutableList<Tag> tags;
+        BitSet tagsToEvaluate;
+        try {
+            readLock.lock();
+            if(!built || nonLocalTags.isEmpty()) {
+                return;
+            }
+            tags = indexedTags;
+            tagsToEvaluate = (BitSet) nonLocalTags.clone();
+        } finally {
+            readLock.unlock();
+        }
+        var results = evaluateSignature(tags, tagsToEvaluate);
+        try {
+            writeLock.lock();
+            if(indexedTags != tags) {
+                // Rebuilt in the meantime
+                return;
+            }
+            var localTags = getLocalTags();
+            for(var entity : new ArrayList<>(tagsByEntity.keySet())) {
+                putTags(entity, intersection(tagsByEntity.get(entity), localTags));
+            }
+            results.forEach((entity, entityTags) -> {
+                var currentTags = tagsByEntity.get(entity);
+                if(currentTags != null) {
+                    entityTags.or(currentTags);
+                }
+                putTags(entity, entityTags);
+            });
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Evaluates the specified tags for all entities in the project signature.
+     * @return A map of each entity that is matched by at least one of the evaluated tags to the evaluated
+     * tags that match it.
+     */
+    private Map<OWLEntity, BitSet> evaluateSignature(ImmutableList<Tag> tags, BitSet tagsToEvaluate) {
+        if(tagsToEvaluate.isEmpty()) {
+            return new HashMap<>();
+        }
+        var signature = projectSignatureIndex.getSignature().collect(toList());
+        var partitions = Lists.partition(signature, PARTITION_SIZE);
+        var results = new ArrayList<Map<OWLEntity, BitSet>>();
+        if(partitions.size() < 2) {
+            partitions.forEach(partition -> results.add(evaluatePartition(partition, tags, tagsToEvaluate)));
+        }
+        else {
+            var futures = new ArrayList<Future<Map<OWLEntity, BitSet>>>();
+            try {
+                for(var partition : partitions) {
+                    futures.add(evaluationExecutor.submit(() -> evaluatePartition(partition, tags, tagsToEvaluate)));
+                }
+                for(var future : futures) {
+                    results.add(future.get());
+                }
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted whilst computing criteria based tags", e);
+            } catch(ExecutionException e) {
+                throw new RuntimeException("Error whilst computing criteria based tags", e.getCause());
+            } finally {
+                // The executor is shared, so don't leave it evaluating partitions whose results are not wanted
+                futures.forEach(future -> future.cancel(true));
+            }
+        }
+        var merged = new HashMap<OWLEntity, BitSet>();
+        results.forEach(merged::putAll);
+        return merged;
+    }
+
+    /**
+     * Evaluates a partition of the signature.  Some matchers lazily compute and cache state so each partition
+     * has its own matchers.
+     */
+    private Map<OWLEntity, BitSet> evaluatePartition(List<OWLEntity> partition,
+                                                     ImmutableList<Tag> tags,
+                                                     BitSet tagsToEvaluate) {
+        var matchers = createMatchers(tags, tagsToEvaluate);
+        var result = new HashMap<OWLEntity, BitSet>();
+        for(var entity : partition) {
+            var entityTags = new BitSet();
+            setMatchingTags(entity, matchers, entityTags);
+            if(!entityTags.isEmpty()) {
+                result.put(entity, entityTags);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates matchers for the specified tags.  The returned list is parallel to the tags.
+     * @param tagsToEvaluate The positions of the tags to create matchers for.  The matchers for other tags
+     *                       will be null.
+     */
+    private List<Matcher<OWLEntity>> createMatchers(ImmutableList<Tag> tags, BitSet tagsToEvaluate) {
+        var matchers = new ArrayList<Matcher<OWLEntity>>(tags.size());
+        for(int i = 0; i < tags.size(); i++) {
+            if(!tagsToEvaluate.get(i)) {
+                matchers.add(null);
+            }
+            else {
+                var tagMatchers = tags.get(i)
+                                             .getCriteria()
+                                             .stream()
+                                             .map(matcherFactory::getMatcher)
+                                             .collect(toImmutableList());
+                matchers.add(new OrMatcher<>(tagMatchers));
+            }
+        }
+        return matchers;
+    }
+
+    private static void setMatchingTags(OWLEntity entity, List<Matcher<OWLEntity>> matchers, BitSet tags) {
+        for(int i = 0; i < matchers.size(); i++) {
+            var matcher = matchers.get(i);
+            if(matcher != null && matcher.matches(entity)) {
+                tags.set(i);
+            }
+        }
+    }
+
+    private void putTags(OWLEntity entity, BitSet tags) {
+        if(tags.isEmpty()) {
+            tagsByEntity.remove(entity);
+        }
+        else {
+            tagsByEntity.put(entity, tags);
+        }
+    }
+
+    private static BitSet intersection(BitSet a, BitSet b) {
+        var result = (BitSet) a.clone();
+        result.and(b);
+        return result;
+    }
+}
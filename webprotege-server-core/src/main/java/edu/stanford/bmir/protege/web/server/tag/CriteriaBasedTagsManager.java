@@ -1,14 +1,11 @@
 package edu.stanford.bmir.protege.web.server.tag;
 
-import edu.stanford.bmir.protege.web.server.match.MatchingEngine;
 import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
-import edu.stanford.bmir.protege.web.shared.tag.Tag;
 import edu.stanford.bmir.protege.web.shared.tag.TagId;
 import org.semanticweb.owlapi.model.OWLEntity;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
-import java.util.Objects;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -22,36 +19,22 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public class CriteriaBasedTagsManager {
 
     @Nonnull
-    private final TagRepository tagRepository;
-
-    @Nonnull
-    private final MatchingEngine matchingEngine;
+    private final CriteriaBasedTagsIndex criteriaBasedTagsIndex;
 
     @Inject
-    public CriteriaBasedTagsManager(@Nonnull TagRepository tagRepository,
-                                    @Nonnull MatchingEngine matchingEngine) {
-        this.tagRepository = checkNotNull(tagRepository);
-        this.matchingEngine = checkNotNull(matchingEngine);
+    public CriteriaBasedTagsManager(@Nonnull CriteriaBasedTagsIndex criteriaBasedTagsIndex) {
+        this.criteriaBasedTagsIndex = checkNotNull(criteriaBasedTagsIndex);
     }
 
     public Stream<TagId> getTagsForEntity(@Nonnull OWLEntity entity) {
-        return tagRepository.findTags()
-                     .stream()
-                     .map(tag -> {
-                         if(matchingEngine.matchesAny(entity, tag.getCriteria())) {
-                             return tag;
-                         }
-                         else {
-                             return null;
-                         }
-                     })
-                     .filter(Objects::nonNull)
-                     .map(Tag::getTagId);
+        return criteriaBasedTagsIndex.getTagIds(entity);
     }
 
     public Stream<OWLEntity> getTaggedEntities(@Nonnull TagId tagId) {
-        return tagRepository.findTagByTagId(tagId)
-                     .map(tag -> matchingEngine.matchAny(tag.getCriteria()))
-                     .orElse(Stream.empty());
+        return criteriaBasedTagsIndex.getTaggedEntities(tagId);
+    }
+
+    public void handleTagsChanged() {
+        criteriaBasedTagsIndex.handleTagsChanged();
     }
 }
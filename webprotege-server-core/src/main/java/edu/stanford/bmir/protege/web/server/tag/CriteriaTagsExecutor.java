@@ -0,0 +1,15 @@
+package edu.stanford.bmir.protege.web.server.tag;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Qualifies the executor that is used to evaluate criteria based tags over partitions of a project signature
+ * in parallel.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CriteriaTagsExecutor {
+
+}
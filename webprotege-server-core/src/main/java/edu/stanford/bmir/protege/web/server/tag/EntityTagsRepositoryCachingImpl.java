@@ -1,54 +1,72 @@
 package edu.stanford.bmir.protege.web.server.tag;
 
 import edu.stanford.bmir.protege.web.server.persistence.Repository;
+import edu.stanford.bmir.protege.web.shared.HasDispose;
 import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
 import edu.stanford.bmir.protege.web.shared.tag.TagId;
 import org.semanticweb.owlapi.model.OWLEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.stream.Collectors.toList;
 
 /**
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
  * 25 Jun 2018
+ *
+ * Caches the entity tags for a project in memory.  The cache is loaded the first time that it is used.
+ *
+ * Reads are served from a {@link ConcurrentHashMap} and never block.  Writes are applied to the cache straight
+ * away and are then written to the database, in the order in which they were made, by a single write-behind
+ * thread.  If a write fails then, once all of the writes that were queued after it have been attempted, the
+ * cache is reloaded from the database so that it reflects what has actually been stored.
  */
 @ProjectSingleton
-public class EntityTagsRepositoryCachingImpl implements EntityTagsRepository, Repository {
+public class EntityTagsRepositoryCachingImpl implements EntityTagsRepository, Repository, HasDispose {
 
-    @Nonnull
-    private final Map<OWLEntity, EntityTags> cache = new HashMap<>();
+    private static final Logger logger = LoggerFactory.getLogger(EntityTagsRepositoryCachingImpl.class);
+
+    private static final long DISPOSE_TIMEOUT_SECONDS = 30;
 
     @Nonnull
     private final EntityTagsRepositoryImpl delegate;
 
-    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    @Nullable
+    private volatile ConcurrentHashMap<OWLEntity, EntityTags> cache = null;
 
-    private final Lock readLock = readWriteLock.readLock();
+    /**
+     * Held by writers while they update the cache and queue the corresponding database write, so that queued
+     * writes are in the same order as cache updates.  Readers do not take this lock.
+     */
+    private final Object writeLock = new Object();
 
-    private final Lock writeLock = readWriteLock.writeLock();
+    private final AtomicInteger pendingWriteCount = new AtomicInteger();
 
-    public EntityTagsRepositoryCachingImpl(@Nonnull EntityTagsRepositoryImpl delegate) {
-        this.delegate = checkNotNull(delegate);
-    }
+    private volatile boolean reloadRequired = false;
 
-    public void preloadCache() {
-        writeLock.lock();
-        try {
-            cache.clear();
-            delegate.findAll().forEach(cache::put);
-        } finally {
-            writeLock.unlock();
-        }
+    private final ExecutorService writeBehindExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+        thread.setName(thread.getName().replace("thread", "entity-tags-write-behind-thread"));
+        thread.setDaemon(true);
+        return thread;
+    });
 
+    public EntityTagsRepositoryCachingImpl(@Nonnull EntityTagsRepositoryImpl delegate) {
+        this.delegate = checkNotNull(delegate);
     }
 
     @Override
@@ -56,78 +74,140 @@ public class EntityTagsRepositoryCachingImpl implements EntityTagsRepository, Re
         delegate.ensureIndexes();
     }
 
+    @Nonnull
+    private ConcurrentHashMap<OWLEntity, EntityTags> getCache() {
+        var currentCache = cache;
+        if(currentCache != null) {
+            return currentCache;
+        }
+        synchronized(writeLock) {
+            if(cache == null) {
+                cache = new ConcurrentHashMap<>(delegate.findAll());
+            }
+            return cache;
+        }
+    }
+
     @Override
     public void save(@Nonnull EntityTags tag) {
-        writeLock.lock();
-        try {
-            delegate.save(tag);
-            cache.put(tag.getEntity(), tag);
-        } finally {
-            writeLock.unlock();
+        synchronized(writeLock) {
+            getCache().put(tag.getEntity(), tag);
+            writeBehind(() -> delegate.save(tag));
         }
-
     }
 
     @Override
     public void addTag(@Nonnull OWLEntity entity, @Nonnull TagId tagId) {
-        writeLock.lock();
-        try {
-            delegate.addTag(entity, tagId);
-            cache.remove(entity);
-            delegate.findByEntity(entity).ifPresent(tag -> cache.put(entity, tag));
-        } finally {
-            writeLock.unlock();
+        synchronized(writeLock) {
+            // As with the database update, tags are only added to entities that already have stored tags
+            getCache().computeIfPresent(entity, (e, tags) -> {
+                if(tags.getTags().contains(tagId)) {
+                    return tags;
+                }
+                var updatedTags = tags.getTags();
+                updatedTags.add(tagId);
+                return new EntityTags(tags.getProjectId(), e, updatedTags);
+            });
+            writeBehind(() -> delegate.addTag(entity, tagId));
         }
-
     }
 
     @Override
     public void removeTag(@Nonnull OWLEntity entity, @Nonnull TagId tagId) {
-        writeLock.lock();
-        try {
-            delegate.removeTag(entity, tagId);
-            cache.remove(entity);
-            delegate.findByEntity(entity).ifPresent(tag -> cache.put(entity, tag));
-        } finally {
-            writeLock.unlock();
+        synchronized(writeLock) {
+            getCache().computeIfPresent(entity, (e, tags) -> removeTag(tags, tagId));
+            writeBehind(() -> delegate.removeTag(entity, tagId));
         }
-
     }
 
     @Override
     public void removeTag(@Nonnull TagId tagId) {
-        writeLock.lock();
-        try {
-            delegate.removeTag(tagId);
-            delegate.findByTagId(tagId)
-                    .forEach(tag -> cache.put(tag.getEntity(), tag));
-        } finally {
-            writeLock.unlock();
+        synchronized(writeLock) {
+            getCache().replaceAll((entity, tags) -> removeTag(tags, tagId));
+            writeBehind(() -> delegate.removeTag(tagId));
         }
+    }
 
+    @Nonnull
+    private static EntityTags removeTag(@Nonnull EntityTags tags, @Nonnull TagId tagId) {
+        if(!tags.getTags().contains(tagId)) {
+            return tags;
+        }
+        var remainingTags = tags.getTags();
+        remainingTags.removeIf(tagId::equals);
+        return new EntityTags(tags.getProjectId(), tags.getEntity(), remainingTags);
     }
 
     @Nonnull
     @Override
     public Optional<EntityTags> findByEntity(@Nonnull OWLEntity entity) {
-        readLock.lock();
-        try {
-            return Optional.ofNullable(cache.get(entity));
-        } finally {
-            readLock.unlock();
-        }
-
+        return Optional.ofNullable(getCache().get(entity));
     }
 
     @Nonnull
     @Override
     public Collection<EntityTags> findByTagId(@Nonnull TagId tagId) {
-        readLock.lock();
-        try {
-            return delegate.findByTagId(tagId);
-        } finally {
-            readLock.unlock();
+        return getCache().values()
+                         .stream()
+                         .filter(tags -> tags.getTags().contains(tagId))
+                         .collect(toList());
+    }
+
+    /**
+     * Must be called whilst holding the write lock
+     */
+    private void writeBehind(@Nonnull Runnable write) {
+        pendingWriteCount.incrementAndGet();
+        writeBehindExecutor.execute(() -> {
+            try {
+                write.run();
+            } catch(RuntimeException e) {
+                logger.error("Error writing entity tags.  The cached entity tags will be reloaded.", e);
+                reloadRequired = true;
+            } finally {
+                pendingWriteCount.decrementAndGet();
+            }
+            if(reloadRequired) {
+                reloadIfNoPendingWrites();
+            }
+        });
+    }
+
+    /**
+     * Reloads the cache from the database.  The cache is only reloaded once every queued write has been attempted,
+     * otherwise changes that are in the cache, but not yet in the database, would be lost.
+     */
+    private void reloadIfNoPendingWrites() {
+        synchronized(writeLock) {
+            if(pendingWriteCount.get() != 0) {
+                return;
+            }
+            try {
+                cache = new ConcurrentHashMap<>(delegate.findAll());
+                reloadRequired = false;
+            } catch(RuntimeException e) {
+                // The cache will be reloaded the next time a write finishes
+                logger.error("Error reloading entity tags", e);
+            }
         }
+    }
 
+    /**
+     * Waits for queued writes to be written to the database.
+     */
+    public void flush() throws InterruptedException, ExecutionException, TimeoutException {
+        writeBehindExecutor.submit(() -> {}).get(DISPOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void dispose() {
+        writeBehindExecutor.shutdown();
+        try {
+            if(!writeBehindExecutor.awaitTermination(DISPOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Timed out waiting for {} entity tag writes to complete", pendingWriteCount.get());
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
@@ -36,6 +36,11 @@ public class GetEntityTagsActionHandler extends AbstractProjectActionHandler<Get
         return GetEntityTagsAction.class;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Nonnull
     @Override
     public GetEntityTagsResult execute(@Nonnull GetEntityTagsAction action, @Nonnull ExecutionContext executionContext) {
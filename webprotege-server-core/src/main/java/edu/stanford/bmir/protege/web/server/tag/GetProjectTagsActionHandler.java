@@ -42,6 +42,11 @@ public class GetProjectTagsActionHandler extends AbstractProjectActionHandler<Ge
         return GetProjectTagsAction.class;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Nullable
     @Override
     protected BuiltInAction getRequiredExecutableBuiltInAction() {
@@ -195,6 +195,7 @@ public class TagsManager {
                                            .collect(toList());
             tagRepository.saveTags(tags);
         } finally {
+            criteriaBasedTagsManager.handleTagsChanged();
             writeLock.unlock();
         }
         Set<Tag> oldProjectTags = new HashSet<>(currentProjectTags);
@@ -65,6 +65,11 @@ public class GetUsageActionHandler extends AbstractProjectActionHandler<GetUsage
         return GetUsageAction.class;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Nonnull
     @Override
     protected RequestValidator getAdditionalRequestValidator(GetUsageAction action, RequestContext requestContext) {
@@ -0,0 +1,97 @@
+package edu.stanford.bmir.protege.web.server.user;
+
+import com.google.common.collect.ImmutableMap;
+import edu.stanford.bmir.protege.web.server.project.RecentProjectRecord;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Activity for a user that has not yet been written to the database.  Pending activity is immutable.  Activity
+ * that happens later is merged with pending activity to produce new pending activity.  Applying pending activity
+ * to a record more than once gives the same result as applying it once.
+ */
+class PendingUserActivity {
+
+    private static final PendingUserActivity EMPTY = new PendingUserActivity(UserActivityRecord.UNKNOWN,
+                                                                             UserActivityRecord.UNKNOWN,
+                                                                             ImmutableMap.of());
+
+    private final long lastLogin;
+
+    private final long lastLogout;
+
+    private final ImmutableMap<ProjectId, Long> recentProjects;
+
+    private PendingUserActivity(long lastLogin,
+                                long lastLogout,
+                                @Nonnull ImmutableMap<ProjectId, Long> recentProjects) {
+        this.lastLogin = lastLogin;
+        this.lastLogout = lastLogout;
+        this.recentProjects = checkNotNull(recentProjects);
+    }
+
+    @Nonnull
+    static PendingUserActivity empty() {
+        return EMPTY;
+    }
+
+    @Nonnull
+    PendingUserActivity withLastLogin(long lastLogin) {
+        return new PendingUserActivity(Math.max(this.lastLogin, lastLogin), lastLogout, recentProjects);
+    }
+
+    @Nonnull
+    PendingUserActivity withLastLogout(long lastLogout) {
+        return new PendingUserActivity(lastLogin, Math.max(this.lastLogout, lastLogout), recentProjects);
+    }
+
+    @Nonnull
+    PendingUserActivity withRecentProject(@Nonnull ProjectId projectId, long timestamp) {
+        var updatedRecentProjects = new HashMap<>(recentProjects);
+        updatedRecentProjects.merge(projectId, timestamp, Math::max);
+        return new PendingUserActivity(lastLogin, lastLogout, ImmutableMap.copyOf(updatedRecentProjects));
+    }
+
+    /**
+     * Merges this pending activity with other pending activity.
+     */
+    @Nonnull
+    PendingUserActivity mergeWith(@Nonnull PendingUserActivity other) {
+        var mergedRecentProjects = new HashMap<>(recentProjects);
+        other.recentProjects.forEach((projectId, timestamp) -> mergedRecentProjects.merge(projectId, timestamp, Math::max));
+        return new PendingUserActivity(Math.max(lastLogin, other.lastLogin),
+                                       Math.max(lastLogout, other.lastLogout),
+                                       ImmutableMap.copyOf(mergedRecentProjects));
+    }
+
+    /**
+     * Applies this pending activity to the specified record.
+     * @param record The record, which is typically the record that is stored in the database.
+     * @return A record that contains the activity from the specified record updated with this activity.  Recent
+     * projects are ordered from most recent to least recent.
+     */
+    @Nonnull
+    UserActivityRecord applyTo(@Nonnull UserActivityRecord record) {
+        var mergedRecentProjects = new HashMap<ProjectId, Long>();
+        record.getRecentProjects()
+              .forEach(recentProject -> mergedRecentProjects.merge(recentProject.getProjectId(),
+                                                                   recentProject.getTimestamp(),
+                                                                   Math::max));
+        recentProjects.forEach((projectId, timestamp) -> mergedRecentProjects.merge(projectId, timestamp, Math::max));
+        var sortedRecentProjects = mergedRecentProjects.entrySet()
+                                                       .stream()
+                                                       .map(entry -> new RecentProjectRecord(entry.getKey(),
+                                                                                             entry.getValue()))
+                                                       .sorted()
+                                                       .collect(toList());
+        return new UserActivityRecord(record.getUserId(),
+                                      Math.max(record.getLastLogin(), lastLogin),
+                                      Math.max(record.getLastLogout(), lastLogout),
+                                      sortedRecentProjects);
+    }
+}
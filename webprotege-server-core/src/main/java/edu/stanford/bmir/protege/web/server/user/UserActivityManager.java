@@ -1,38 +1,111 @@
 package edu.stanford.bmir.protege.web.server.user;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.base.Stopwatch;
+import com.mongodb.BasicDBObject;
+import edu.stanford.bmir.protege.web.server.persistence.BulkWriteBatch;
 import edu.stanford.bmir.protege.web.server.persistence.Repository;
-import edu.stanford.bmir.protege.web.server.project.RecentProjectRecord;
+import edu.stanford.bmir.protege.web.shared.HasDispose;
 import edu.stanford.bmir.protege.web.shared.inject.ApplicationSingleton;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import edu.stanford.bmir.protege.web.shared.user.UserId;
 import org.mongodb.morphia.Datastore;
-import org.mongodb.morphia.query.Query;
-import org.mongodb.morphia.query.UpdateOperations;
+import org.mongodb.morphia.Morphia;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
-import java.util.Date;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
 
-import static edu.stanford.bmir.protege.web.server.user.UserActivityRecord.*;
-import static java.util.stream.Collectors.toList;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static edu.stanford.bmir.protege.web.server.user.UserActivityRecord.USER_ID;
 
 /**
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
  * 12 Mar 2017
+ *
+ * Records user activity such as logins and recently opened projects.  Activity is not written to the database
+ * when it happens.  It is buffered in memory, with the activity for each user being coalesced, and the buffered
+ * activity is periodically written to the database using a single bulk write.  Reads take buffered activity
+ * into account, and recently read or written records are cached, so that most reads do not hit the database.
  */
 @ApplicationSingleton
-public class UserActivityManager implements Repository {
+public class UserActivityManager implements Repository, HasDispose {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserActivityManager.class);
+
+    private static final Duration FLUSH_PERIOD = Duration.ofSeconds(5);
+
+    private static final int MAX_CACHED_RECORDS = 10_000;
+
+    private static final Duration CACHE_EXPIRATION_DURATION = Duration.ofMinutes(30);
 
     private final Datastore datastore;
 
+    private final Morphia morphia;
+
+    /**
+     * Activity that has not been written yet
+     */
+    private final ConcurrentHashMap<UserId, PendingUserActivity> pendingActivity = new ConcurrentHashMap<>();
+
+    /**
+     * Activity that is being written
+     */
+    private final ConcurrentHashMap<UserId, PendingUserActivity> inFlightActivity = new ConcurrentHashMap<>();
+
+    /**
+     * Records as they are stored in the database
+     */
+    private final Cache<UserId, Optional<UserActivityRecord>> storedRecords = Caffeine.newBuilder()
+                                                                                      .maximumSize(MAX_CACHED_RECORDS)
+                                                                                      .expireAfterAccess(CACHE_EXPIRATION_DURATION)
+                                                                                      .build();
+
+    private final Object flushLock = new Object();
+
+    private final ScheduledExecutorService flushService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+        thread.setName(thread.getName().replace("thread", "user-activity-flush-thread"));
+        thread.setDaemon(true);
+        return thread;
+    });
+
     @Inject
-    public UserActivityManager(Datastore datastore) {
-        this.datastore = datastore;
+    public UserActivityManager(@Nonnull Datastore datastore,
+                               @Nonnull Morphia morphia) {
+        this.datastore = checkNotNull(datastore);
+        this.morphia = checkNotNull(morphia);
+    }
+
+    /**
+     * Starts periodically writing buffered activity to the database
+     */
+    public void start() {
+        flushService.scheduleWithFixedDelay(this::flushQuietly,
+                                            FLUSH_PERIOD.toMillis(),
+                                            FLUSH_PERIOD.toMillis(),
+                                            TimeUnit.MILLISECONDS);
     }
 
+    @Override
+    public void dispose() {
+        flushService.shutdown();
+        flushQuietly();
+    }
 
     @Override
     public void ensureIndexes() {
@@ -44,69 +117,127 @@ public class UserActivityManager implements Repository {
             return;
         }
         datastore.save(record);
+        storedRecords.put(record.getUserId(), Optional.of(record));
     }
 
     public Optional<UserActivityRecord> getUserActivityRecord(UserId userId) {
         if(userId.isGuest()) {
             return Optional.empty();
         }
-        UserActivityRecord record = datastore.get(UserActivityRecord.class, userId);
-        return Optional.ofNullable(record);
+        var storedRecord = storedRecords.get(userId, this::loadStoredRecord);
+        var inFlight = inFlightActivity.get(userId);
+        var pending = pendingActivity.get(userId);
+        if(inFlight == null && pending == null) {
+            return storedRecord;
+        }
+        var record = storedRecord.orElseGet(() -> UserActivityRecord.get(userId));
+        // Applying activity is idempotent, so it does not matter if activity has been written in the mean time
+        if(inFlight != null) {
+            record = inFlight.applyTo(record);
+        }
+        if(pending != null) {
+            record = pending.applyTo(record);
+        }
+        return Optional.of(record);
     }
 
-    private UserActivityRecord getByUserId(UserId userId) {
-        UserActivityRecord record = datastore.get(UserActivityRecord.class, userId);
-        if (record == null) {
-            datastore.save(record = UserActivityRecord.get(userId));
-        }
-        return record;
+    private Optional<UserActivityRecord> loadStoredRecord(UserId userId) {
+        return Optional.ofNullable(datastore.get(UserActivityRecord.class, userId));
     }
 
     public void setLastLogin(@Nonnull UserId userId, long lastLogin) {
-        if(userId.isGuest()) {
-            return;
-        }
-        getByUserId(userId);
-        Query<UserActivityRecord> query = queryByUserId(userId);
-        UpdateOperations<UserActivityRecord> operations = datastore.createUpdateOperations(UserActivityRecord.class)
-                                                                   .set(LAST_LOGIN, new Date(lastLogin));
-        datastore.update(query, operations);
+        addActivity(userId, activity -> activity.withLastLogin(lastLogin));
     }
 
     public void setLastLogout(@Nonnull UserId userId, long lastLogout) {
-        if(userId.isGuest()) {
-            return;
-        }
-        getByUserId(userId);
-        Query<UserActivityRecord> query = queryByUserId(userId);
-        UpdateOperations<UserActivityRecord> operations = datastore.createUpdateOperations(UserActivityRecord.class)
-                                                                   .set(LAST_LOGOUT, new Date(lastLogout));
-        datastore.update(query, operations);
+        addActivity(userId, activity -> activity.withLastLogout(lastLogout));
     }
 
     public void addRecentProject(@Nonnull UserId userId, @Nonnull ProjectId projectId, long timestamp) {
+        checkNotNull(projectId);
+        addActivity(userId, activity -> activity.withRecentProject(projectId, timestamp));
+    }
+
+    private void addActivity(@Nonnull UserId userId, UnaryOperator<PendingUserActivity> update) {
         if(userId.isGuest()) {
             return;
         }
-        UserActivityRecord record = getByUserId(userId);
-        List<RecentProjectRecord> recentProjects = record.getRecentProjects().stream()
-                                                         .filter(recentProject -> !recentProject.getProjectId()
-                                                                                                .equals(projectId))
-                                                         .sorted()
-                                                         .collect(toList());
-        recentProjects.add(0, new RecentProjectRecord(projectId, timestamp));
-        UserActivityRecord replacement = new UserActivityRecord(
-                record.getUserId(),
-                record.getLastLogin(),
-                record.getLastLogout(),
-                recentProjects
-        );
-        save(replacement);
+        pendingActivity.compute(userId, (id, activity) -> update.apply(activity == null ? PendingUserActivity.empty() : activity));
     }
 
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch(Exception e) {
+            logger.error("Error writing user activity", e);
+        }
+    }
+
+    /**
+     * Writes buffered activity to the database.  If the write fails then the activity is buffered again.
+     */
+    public void flush() {
+        synchronized(flushLock) {
+            if(pendingActivity.isEmpty()) {
+                return;
+            }
+            var stopwatch = Stopwatch.createStarted();
+            var batch = new HashMap<UserId, PendingUserActivity>();
+            for(var userId : pendingActivity.keySet()) {
+                var activity = pendingActivity.get(userId);
+                if(activity != null) {
+                    inFlightActivity.put(userId, activity);
+                    // If there has been more activity then it stays pending.  It contains this activity.
+                    pendingActivity.remove(userId, activity);
+                    batch.put(userId, activity);
+                }
+            }
+            try {
+                var updatedRecords = applyToStoredRecords(batch);
+                writeRecords(updatedRecords);
+                updatedRecords.forEach(record -> storedRecords.put(record.getUserId(), Optional.of(record)));
+                logger.debug("Wrote activity for {} users in {} ms", batch.size(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+            } catch(RuntimeException e) {
+                batch.forEach((userId, activity) -> pendingActivity.merge(userId, activity, PendingUserActivity::mergeWith));
+                throw e;
+            } finally {
+                batch.forEach(inFlightActivity::remove);
+            }
+        }
+    }
 
-    private Query<UserActivityRecord> queryByUserId(@Nonnull UserId userId) {
-        return datastore.createQuery(UserActivityRecord.class)
-                        .field(USER_ID).equal(userId);
+    private List<UserActivityRecord> applyToStoredRecords(Map<UserId, PendingUserActivity> batch) {
+        var storedRecordsForBatch = new HashMap<UserId, UserActivityRecord>();
+        var uncachedUserIds = new ArrayList<UserId>();
+        batch.keySet().forEach(userId -> {
+            var cachedRecord = storedRecords.getIfPresent(userId);
+            if(cachedRecord == null) {
+                uncachedUserIds.add(userId);
+            }
+            else {
+                cachedRecord.ifPresent(record -> storedRecordsForBatch.put(userId, record));
+            }
+        });
+        if(!uncachedUserIds.isEmpty()) {
+            datastore.createQuery(UserActivityRecord.class)
+                     .field(USER_ID).in(uncachedUserIds)
+                     .asList()
+                     .forEach(record -> storedRecordsForBatch.put(record.getUserId(), record));
+        }
+        var updatedRecords = new ArrayList<UserActivityRecord>(batch.size());
+        batch.forEach((userId, activity) -> {
+            var storedRecord = storedRecordsForBatch.getOrDefault(userId, UserActivityRecord.get(userId));
+            updatedRecords.add(activity.applyTo(storedRecord));
+        });
+        return updatedRecords;
+    }
+
+    private void writeRecords(List<UserActivityRecord> records) {
+        var batch = BulkWriteBatch.create(datastore.getCollection(UserActivityRecord.class));
+        for(var record : records) {
+            var document = morphia.toDBObject(record);
+            batch.replaceOrInsert(new BasicDBObject("_id", document.get("_id")), document);
+        }
+        batch.flush();
     }
 }
@@ -1,6 +1,8 @@
 package edu.stanford.bmir.protege.web.server.user;
 
+import edu.stanford.bmir.protege.web.server.app.ApplicationDisposablesManager;
 import org.mongodb.morphia.Datastore;
+import org.mongodb.morphia.Morphia;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
@@ -14,15 +16,25 @@ public class UserActivityManagerProvider implements Provider<UserActivityManager
 
     private Datastore datastore;
 
+    private Morphia morphia;
+
+    private ApplicationDisposablesManager disposablesManager;
+
     @Inject
-    public UserActivityManagerProvider(Datastore datastore) {
+    public UserActivityManagerProvider(Datastore datastore,
+                                       Morphia morphia,
+                                       ApplicationDisposablesManager disposablesManager) {
         this.datastore = datastore;
+        this.morphia = morphia;
+        this.disposablesManager = disposablesManager;
     }
 
     @Override
     public UserActivityManager get() {
-        UserActivityManager userActivityManager = new UserActivityManager(datastore);
+        UserActivityManager userActivityManager = new UserActivityManager(datastore, morphia);
         userActivityManager.ensureIndexes();
+        userActivityManager.start();
+        disposablesManager.register(userActivityManager);
         return userActivityManager;
     }
 }
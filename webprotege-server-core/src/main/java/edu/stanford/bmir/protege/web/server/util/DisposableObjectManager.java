@@ -1,11 +1,13 @@
 package edu.stanford.bmir.protege.web.server.util;
 
+import com.google.common.collect.Lists;
 import edu.stanford.bmir.protege.web.shared.HasDispose;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -14,6 +16,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
  * 10 Apr 2018
+ *
+ * Disposes of objects in the reverse order to which they were registered.  Objects are usually registered when
+ * they are created, after the objects that they depend on, so objects are disposed of before their dependencies.
  */
 public class DisposableObjectManager {
 
@@ -30,7 +35,7 @@ public class DisposableObjectManager {
     }
 
     public synchronized void dispose() {
-        disposables.forEach(disposable -> {
+        Lists.reverse(new ArrayList<>(disposables)).forEach(disposable -> {
             try {
                 disposable.dispose();
             }
@@ -0,0 +1,29 @@
+package edu.stanford.bmir.protege.web.server.viz;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.bmir.protege.web.shared.viz.EntityGraph;
+import org.semanticweb.owlapi.model.OWLEntity;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An entity graph that was built up to a depth and edge budget, along with the nodes that were not expanded.
+ */
+@AutoValue
+public abstract class BoundedEntityGraph {
+
+    @Nonnull
+    public static BoundedEntityGraph get(@Nonnull EntityGraph graph, @Nonnull ImmutableSet<OWLEntity> frontier) {
+        return new AutoValue_BoundedEntityGraph(graph, frontier);
+    }
+
+    @Nonnull
+    public abstract EntityGraph getGraph();
+
+    /**
+     * Gets the nodes in the graph that have edges that are not in the graph
+     */
+    @Nonnull
+    public abstract ImmutableSet<OWLEntity> getFrontier();
+}
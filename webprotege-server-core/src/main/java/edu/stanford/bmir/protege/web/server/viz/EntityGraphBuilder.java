@@ -1,12 +1,12 @@
 package edu.stanford.bmir.protege.web.server.viz;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Streams;
 import edu.stanford.bmir.protege.web.server.index.*;
 import edu.stanford.bmir.protege.web.server.renderer.RenderingManager;
 import edu.stanford.bmir.protege.web.server.util.ClassExpression;
 import edu.stanford.bmir.protege.web.shared.entity.OWLEntityData;
-import edu.stanford.bmir.protege.web.shared.entity.OWLNamedIndividualData;
 import edu.stanford.bmir.protege.web.shared.viz.Edge;
 import edu.stanford.bmir.protege.web.shared.viz.EntityGraph;
 import edu.stanford.bmir.protege.web.shared.viz.IsAEdge;
@@ -15,9 +15,7 @@ import org.semanticweb.owlapi.model.*;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
-import java.util.HashSet;
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -31,6 +29,10 @@ import static edu.stanford.bmir.protege.web.server.util.Named.*;
  *
  * Builds a simple graph for an entity.  The graph is rooted at the entity and contains edges to depict
  * ISA links e.g. SubClassOf(:A :B), and other relationship links, e.g. SubClassOf(:A ObjectSomeValuesFrom(:R :B))
+ *
+ * The graph is built breadth first, so that the nodes that are closest to the root are added first, and
+ * building stops at a maximum depth or once an edge budget has been used up.  The nodes that have edges that
+ * were not added make up the frontier of the graph, from which the graph can be expanded later on.
  */
 public class EntityGraphBuilder {
 
@@ -52,89 +54,139 @@ public class EntityGraphBuilder {
     @Nonnull
     private final EquivalentClassesAxiomsIndex equivalentClassesAxioms;
 
+    @Nonnull
+    private final EntityNeighbourhoodCache neighbourhoodCache;
+
     @Inject
     public EntityGraphBuilder(@Nonnull RenderingManager renderer,
                               @Nonnull ProjectOntologiesIndex projectOntologiesIndex,
                               @Nonnull ObjectPropertyAssertionAxiomsBySubjectIndex objectPropertyAssertions,
                               @Nonnull SubClassOfAxiomsBySubClassIndex subClassOfAxioms,
                               @Nonnull ClassAssertionAxiomsByIndividualIndex classAssertionAxioms,
-                              @Nonnull EquivalentClassesAxiomsIndex equivalentClassesAxioms) {
+                              @Nonnull EquivalentClassesAxiomsIndex equivalentClassesAxioms,
+                              @Nonnull EntityNeighbourhoodCache neighbourhoodCache) {
         this.renderer = checkNotNull(renderer);
         this.projectOntologiesIndex = projectOntologiesIndex;
         this.objectPropertyAssertions = objectPropertyAssertions;
         this.subClassOfAxioms = subClassOfAxioms;
         this.classAssertionAxioms = classAssertionAxioms;
         this.equivalentClassesAxioms = equivalentClassesAxioms;
+        this.neighbourhoodCache = checkNotNull(neighbourhoodCache);
     }
 
 
+    /**
+     * Creates a graph for an entity.
+     * @param root The root entity of the graph.
+     * @param expandFrom The entities to expand the graph from.  If empty, the graph is expanded from the root.
+     * @param maxDepth The maximum depth, from the entities that the graph is expanded from, of nodes whose
+     *                 edges are added to the graph.
+     * @param edgeBudget The maximum number of edges in the graph.  The edges for a node are either all added or
+     *                   not added at all.  The edges for the first node are always added.
+     * @return The graph along with its frontier.
+     */
     @Nonnull
-    public EntityGraph createGraph(@Nonnull OWLEntity root) {
+    public BoundedEntityGraph createGraph(@Nonnull OWLEntity root,
+                                          @Nonnull Set<OWLEntity> expandFrom,
+                                          int maxDepth,
+                                          int edgeBudget) {
         var edges = new LinkedHashSet<Edge>();
-        createGraph(root, edges, new HashSet<>());
-        return EntityGraph.create(renderer.getRendering(root), ImmutableSet.copyOf(edges));
+        var frontier = new LinkedHashSet<OWLEntity>();
+        var renderings = new HashMap<OWLEntity, OWLEntityData>();
+        var level = new ArrayList<OWLEntity>(expandFrom.isEmpty() ? Collections.singleton(root) : expandFrom);
+        var visited = new HashSet<OWLEntity>(level);
+        var budgetUsedUp = false;
+        for(int depth = 0; !level.isEmpty(); depth++) {
+            var nextLevel = new ArrayList<OWLEntity>();
+            for(var entity : level) {
+                var neighbourhood = getNeighbourhood(entity);
+                if(neighbourhood.isEmpty()) {
+                    continue;
+                }
+                if(depth >= maxDepth || budgetUsedUp) {
+                    frontier.add(entity);
+                    continue;
+                }
+                if(!edges.isEmpty() && edges.size() + neighbourhood.size() > edgeBudget) {
+                    budgetUsedUp = true;
+                    frontier.add(entity);
+                    continue;
+                }
+                for(var edge : neighbourhood) {
+                    edges.add(render(edge, renderings));
+                    if(visited.add(edge.getHead())) {
+                        nextLevel.add(edge.getHead());
+                    }
+                }
+            }
+            level = nextLevel;
+        }
+        var graph = EntityGraph.create(getRendering(root, renderings), ImmutableSet.copyOf(edges));
+        return BoundedEntityGraph.get(graph, ImmutableSet.copyOf(frontier));
     }
 
-    private void createGraph(@Nonnull OWLEntity entity,
-                             @Nonnull Set<Edge> edges,
-                             @Nonnull Set<OWLEntity> processed) {
-        if(processed.contains(entity)) {
-            return;
+    @Nonnull
+    private ImmutableList<NeighbourhoodEdge> getNeighbourhood(@Nonnull OWLEntity entity) {
+        return neighbourhoodCache.getNeighbourhood(entity, this::computeNeighbourhood);
+    }
+
+    @Nonnull
+    private OWLEntityData getRendering(@Nonnull OWLEntity entity,
+                                       @Nonnull Map<OWLEntity, OWLEntityData> renderings) {
+        return renderings.computeIfAbsent(entity, renderer::getRendering);
+    }
+
+    @Nonnull
+    private Edge render(@Nonnull NeighbourhoodEdge edge,
+                        @Nonnull Map<OWLEntity, OWLEntityData> renderings) {
+        var tailData = getRendering(edge.getTail(), renderings);
+        var headData = getRendering(edge.getHead(), renderings);
+        var relationship = edge.getRelationship();
+        if(relationship == null) {
+            return IsAEdge.get(tailData, headData);
+        }
+        else {
+            return RelationshipEdge.get(tailData, headData, renderer.getObjectPropertyData(relationship));
         }
-        processed.add(entity);
+    }
+
+    @Nonnull
+    private ImmutableList<NeighbourhoodEdge> computeNeighbourhood(@Nonnull OWLEntity entity) {
+        var edges = new LinkedHashSet<NeighbourhoodEdge>();
         if(entity.isOWLClass()) {
-            var cls = entity.asOWLClass();
-            createEdgesForClass(edges, processed, cls);
+            createEdgesForClass(edges, entity.asOWLClass());
         }
         else if(entity.isOWLNamedIndividual()) {
-            var ind = entity.asOWLNamedIndividual();
-            createEdgesForIndividual(edges, processed, ind);
+            var individual = entity.asOWLNamedIndividual();
+            createEdgesForClassAssertions(edges, individual);
+            createEdgesForObjectPropertyAssertions(edges, individual);
         }
+        return ImmutableList.copyOf(edges);
     }
 
-    private void createEdgesForIndividual(Set<Edge> edges,
-                                          Set<OWLEntity> processed,
-                                          OWLNamedIndividual individual) {
-        var individualData = renderer.getIndividualData(individual);
-        createEdgesForClassAssertions(edges, processed, individual, individualData);
-        createEdgesForObjectPropertyAssertions(edges, processed, individual, individualData);
-    }
-
-    private void createEdgesForObjectPropertyAssertions(Set<Edge> edges,
-                                                        Set<OWLEntity> processed,
-                                                        OWLNamedIndividual individual,
-                                                        OWLNamedIndividualData individualData) {
+    private void createEdgesForObjectPropertyAssertions(Set<NeighbourhoodEdge> edges,
+                                                        OWLNamedIndividual individual) {
         projectOntologiesIndex.getOntologyIds()
                 .flatMap(ontId -> objectPropertyAssertions.getObjectPropertyAssertions(individual, ontId))
                 .filter(ax -> isNamedIndividual(ax.getObject()))
                 .filter(ax -> isNamedProperty(ax.getProperty()))
                 .forEach(ax -> {
                     var object = ax.getObject().asOWLNamedIndividual();
-                    var objectData = renderer.getIndividualData(object);
-                    var propertyData = renderer.getObjectPropertyData(ax.getProperty().asOWLObjectProperty());
-                    edges.add(RelationshipEdge.get(individualData, objectData, propertyData));
-                    createGraph(object, edges, processed);
+                    var property = ax.getProperty().asOWLObjectProperty();
+                    edges.add(NeighbourhoodEdge.relationship(individual, object, property));
                 });
     }
 
-    private void createEdgesForClassAssertions(Set<Edge> edges,
-                                               Set<OWLEntity> processed,
-                                               OWLNamedIndividual individual,
-                                               OWLNamedIndividualData individualData) {
+    private void createEdgesForClassAssertions(Set<NeighbourhoodEdge> edges,
+                                               OWLNamedIndividual individual) {
         projectOntologiesIndex.getOntologyIds()
                 .flatMap(ontId -> classAssertionAxioms.getClassAssertionAxioms(individual, ontId))
                 .filter(ax -> isNotOwlThing(ax.getClassExpression()))
                 .filter(ax -> isNamedClass(ax.getClassExpression()))
-                .forEach(ax -> {
-                    var cls = ax.getClassExpression().asOWLClass();
-                    var clsData = renderer.getClassData(cls);
-                    edges.add(IsAEdge.get(individualData, clsData));
-                    createEdgesForClass(edges, processed, cls);
-                });
+                .forEach(ax -> edges.add(NeighbourhoodEdge.isA(individual, ax.getClassExpression().asOWLClass())));
     }
 
-    private void createEdgesForClass(Set<Edge> edges,
-                                     Set<OWLEntity> processed,
+    private void createEdgesForClass(Set<NeighbourhoodEdge> edges,
                                      OWLClass cls) {
         var subClassAxioms = projectOntologiesIndex.getOntologyIds()
                                                    .flatMap(ontId -> subClassOfAxioms.getSubClassOfAxiomsForSubClass(cls, ontId)
@@ -143,7 +195,7 @@ public class EntityGraphBuilder {
         var combinedAxioms = Streams.concat(subClassAxioms, equivalentClassesAxioms);
         combinedAxioms
                 .filter(ax -> isNamedClass(ax.getSubClass()))
-                .forEach(ax -> createEdgeForSubClassOfAxiom(cls, ax, edges, processed));
+                .forEach(ax -> createEdgeForSubClassOfAxiom(cls, ax, edges));
     }
 
     private Stream<OWLSubClassOfAxiom> getEquivalentClassAxiomsAsSubClassOfAxioms(OWLClass cls) {
@@ -154,56 +206,33 @@ public class EntityGraphBuilder {
 
     private void createEdgeForSubClassOfAxiom(OWLClass subCls,
                                               OWLSubClassOfAxiom subClassOfAxiom,
-                                              Set<Edge> edges,
-                                              Set<OWLEntity> processed) {
-        OWLEntityData subClsData = renderer.getClassData(subCls);
+                                              Set<NeighbourhoodEdge> edges) {
         subClassOfAxiom
                 .getSuperClass()
                 .asConjunctSet()
                 .stream()
                 .filter(ClassExpression::isNotOwlThing)
-                .forEach(superClass -> addEdgeForSuperClass(edges, processed, subClsData, superClass));
+                .forEach(superClass -> addEdgeForSuperClass(edges, subCls, superClass));
     }
 
-    private void addEdgeForSuperClass(Set<Edge> edges,
-                                      Set<OWLEntity> processed,
-                                      OWLEntityData subClsData,
+    private void addEdgeForSuperClass(Set<NeighbourhoodEdge> edges,
+                                      OWLClass subCls,
                                       OWLClassExpression superClass) {
         if(isNamedClass(superClass)) {
-            addEdgeForNamedSuperClass(edges, processed, subClsData, superClass);
+            edges.add(NeighbourhoodEdge.isA(subCls, superClass.asOWLClass()));
         }
-        else {
-            addEdgeForComplexSuperClass(edges, processed, subClsData, superClass);
-        }
-    }
-
-    private void addEdgeForNamedSuperClass(Set<Edge> edges,
-                                           Set<OWLEntity> processed,
-                                           OWLEntityData subClsData,
-                                           OWLClassExpression superClass) {
-        var superCls = superClass.asOWLClass();
-        var superClsData = renderer.getClassData(superCls);
-        edges.add(IsAEdge.get(subClsData, superClsData));
-        createGraph(superCls, edges, processed);
-    }
-
-    private void addEdgeForComplexSuperClass(Set<Edge> edges,
-                                             Set<OWLEntity> processed,
-                                             OWLEntityData subClsData,
-                                             OWLClassExpression superClass) {
-        if(superClass instanceof OWLObjectSomeValuesFrom) {
+        else if(superClass instanceof OWLObjectSomeValuesFrom) {
             var someValuesFrom = (OWLObjectSomeValuesFrom) superClass;
-            addEdgeForSomeValuesFrom(edges, processed, subClsData, someValuesFrom);
+            addEdgeForSomeValuesFrom(edges, subCls, someValuesFrom);
         }
         else if(superClass instanceof OWLObjectHasValue) {
             var hasValue = (OWLObjectHasValue) superClass;
-            addEdgeForHasValue(edges, processed, subClsData, hasValue);
+            addEdgeForHasValue(edges, subCls, hasValue);
         }
     }
 
-    private void addEdgeForHasValue(Set<Edge> edges,
-                                    Set<OWLEntity> processed,
-                                    OWLEntityData subClsData,
+    private void addEdgeForHasValue(Set<NeighbourhoodEdge> edges,
+                                    OWLClass subCls,
                                     OWLObjectHasValue hasValue) {
         var property = hasValue.getProperty();
         if(isInverseProperty(property)) {
@@ -213,16 +242,11 @@ public class EntityGraphBuilder {
         if(isAnonymousIndividual(filler)) {
             return;
         }
-        var individual = filler.asOWLNamedIndividual();
-        var individualData = renderer.getIndividualData(individual);
-        var propertyData = renderer.getObjectPropertyData(property.asOWLObjectProperty());
-        edges.add(RelationshipEdge.get(subClsData, individualData, propertyData));
-        createGraph(individual, edges, processed);
+        edges.add(NeighbourhoodEdge.relationship(subCls, filler.asOWLNamedIndividual(), property.asOWLObjectProperty()));
     }
 
-    private void addEdgeForSomeValuesFrom(Set<Edge> edges,
-                                          Set<OWLEntity> processed,
-                                          OWLEntityData subClsData,
+    private void addEdgeForSomeValuesFrom(Set<NeighbourhoodEdge> edges,
+                                          OWLClass subCls,
                                           OWLObjectSomeValuesFrom someValuesFrom) {
         var property = someValuesFrom.getProperty();
         if(!isNamedProperty(property)) {
@@ -232,10 +256,6 @@ public class EntityGraphBuilder {
         if(!isNamedClass(filler)) {
             return;
         }
-        var fillerCls = filler.asOWLClass();
-        var fillerClsData = renderer.getClassData(fillerCls);
-        var propertyData = renderer.getObjectPropertyData(property.asOWLObjectProperty());
-        edges.add(RelationshipEdge.get(subClsData, fillerClsData, propertyData));
-        createGraph(fillerCls, edges, processed);
+        edges.add(NeighbourhoodEdge.relationship(subCls, filler.asOWLClass(), property.asOWLObjectProperty()));
     }
 }
@@ -0,0 +1,123 @@
+package edu.stanford.bmir.protege.web.server.viz;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryAccountant;
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryCategory;
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryConsumer;
+import edu.stanford.bmir.protege.web.server.revision.RevisionManager;
+import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import org.semanticweb.owlapi.model.OWLEntity;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Caches the neighbourhoods of entities that are used to build entity graphs.  Neighbourhoods are cached against
+ * the project revision, because they are computed from the axioms in the project.  They are cached unrendered,
+ * so that changes to display name settings are reflected straight away.
+ */
+@ProjectSingleton
+class EntityNeighbourhoodCache implements ProjectMemoryConsumer {
+
+    private static final int MAX_CACHED_NEIGHBOURHOODS = 10_000;
+
+    /**
+     * An estimate of the memory retained by each cached neighbourhood and by each edge in a neighbourhood.  The
+     * entities at the ends of edges are shared with the ontologies.
+     */
+    private static final long ESTIMATED_BYTES_PER_NEIGHBOURHOOD = 150;
+
+    private static final long ESTIMATED_BYTES_PER_EDGE = 40;
+
+    private static final Duration CACHE_EXPIRATION_DURATION = Duration.ofMinutes(10);
+
+    @Nonnull
+    private final RevisionManager revisionManager;
+
+    private final Cache<NeighbourhoodKey, ImmutableList<NeighbourhoodEdge>> neighbourhoods = Caffeine.newBuilder()
+                                                                                                     .maximumSize(MAX_CACHED_NEIGHBOURHOODS)
+                                                                                                     .expireAfterAccess(CACHE_EXPIRATION_DURATION)
+                                                                                                     .build();
+
+    @Inject
+    EntityNeighbourhoodCache(@Nonnull RevisionManager revisionManager,
+                             @Nonnull ProjectMemoryAccountant memoryAccountant) {
+        this.revisionManager = checkNotNull(revisionManager);
+        memoryAccountant.register(this);
+    }
+
+    /**
+     * Gets the neighbourhood of the specified entity at the current revision.
+     * @param entity The entity.
+     * @param neighbourhoodFunction A function that computes the neighbourhood of the entity if it is not cached.
+     */
+    @Nonnull
+    ImmutableList<NeighbourhoodEdge> getNeighbourhood(@Nonnull OWLEntity entity,
+                                                      @Nonnull Function<OWLEntity, ImmutableList<NeighbourhoodEdge>> neighbourhoodFunction) {
+        var key = new NeighbourhoodKey(revisionManager.getCurrentRevision(), entity);
+        return neighbourhoods.get(key, k -> neighbourhoodFunction.apply(k.entity));
+    }
+
+    @Nonnull
+    @Override
+    public ProjectMemoryCategory getMemoryCategory() {
+        return ProjectMemoryCategory.ENTITY_GRAPH_CACHE;
+    }
+
+    @Override
+    public long getEstimatedSizeInBytes() {
+        var size = 0L;
+        for(var neighbourhood : neighbourhoods.asMap().values()) {
+            size += ESTIMATED_BYTES_PER_NEIGHBOURHOOD + neighbourhood.size() * ESTIMATED_BYTES_PER_EDGE;
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isSheddable() {
+        return true;
+    }
+
+    @Override
+    public void shed() {
+        neighbourhoods.invalidateAll();
+    }
+
+    private static final class NeighbourhoodKey {
+
+        private final RevisionNumber revisionNumber;
+
+        private final OWLEntity entity;
+
+        private NeighbourhoodKey(RevisionNumber revisionNumber, OWLEntity entity) {
+            this.revisionNumber = revisionNumber;
+            this.entity = entity;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(revisionNumber, entity);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(obj == this) {
+                return true;
+            }
+            if(!(obj instanceof NeighbourhoodKey)) {
+                return false;
+            }
+            NeighbourhoodKey other = (NeighbourhoodKey) obj;
+            return this.revisionNumber.equals(other.revisionNumber)
+                    && this.entity.equals(other.entity);
+        }
+    }
+}
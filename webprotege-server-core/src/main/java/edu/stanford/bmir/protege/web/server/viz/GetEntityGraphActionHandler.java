@@ -4,7 +4,6 @@ import com.google.common.base.Stopwatch;
 import edu.stanford.bmir.protege.web.server.access.AccessManager;
 import edu.stanford.bmir.protege.web.server.dispatch.AbstractProjectActionHandler;
 import edu.stanford.bmir.protege.web.server.dispatch.ExecutionContext;
-import edu.stanford.bmir.protege.web.shared.viz.EntityGraph;
 import edu.stanford.bmir.protege.web.shared.viz.GetEntityGraphAction;
 import edu.stanford.bmir.protege.web.shared.viz.GetEntityGraphResult;
 import org.slf4j.Logger;
@@ -25,6 +24,16 @@ public class GetEntityGraphActionHandler extends AbstractProjectActionHandler<Ge
 
     private static Logger logger = LoggerFactory.getLogger(GetEntityGraphActionHandler.class);
 
+    /**
+     * The largest depth that a client may request.  Larger depths are reduced to this.
+     */
+    static final int MAX_DEPTH = 2 * GetEntityGraphAction.DEFAULT_MAX_DEPTH;
+
+    /**
+     * The largest edge budget that a client may request.  Larger budgets are reduced to this.
+     */
+    static final int MAX_EDGE_BUDGET = 4 * GetEntityGraphAction.DEFAULT_EDGE_BUDGET;
+
     @Nonnull
     private final EntityGraphBuilder graphBuilder;
 
@@ -41,16 +50,25 @@ public class GetEntityGraphActionHandler extends AbstractProjectActionHandler<Ge
         return GetEntityGraphAction.class;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Nonnull
     @Override
     public GetEntityGraphResult execute(@Nonnull GetEntityGraphAction action, @Nonnull ExecutionContext executionContext) {
         Stopwatch stopwatch = Stopwatch.createStarted();
-        EntityGraph graph = graphBuilder.createGraph(action.getEntity());
+        BoundedEntityGraph boundedGraph = graphBuilder.createGraph(action.getEntity(),
+                                                                   action.getExpandFrom(),
+                                                                   Math.min(action.getMaxDepth(), MAX_DEPTH),
+                                                                   Math.min(action.getEdgeBudget(), MAX_EDGE_BUDGET));
         stopwatch.stop();
-        logger.debug("Created entity graph [{} nodes; edges {}] in {} ms",
-                    graph.getNodes().size(),
-                    graph.getEdges().size(),
+        logger.debug("Created entity graph [{} nodes; edges {}; frontier {}] in {} ms",
+                    boundedGraph.getGraph().getNodes().size(),
+                    boundedGraph.getGraph().getEdges().size(),
+                    boundedGraph.getFrontier().size(),
                     stopwatch.elapsed(TimeUnit.MILLISECONDS));
-        return GetEntityGraphResult.get(graph);
+        return GetEntityGraphResult.get(boundedGraph.getGraph(), boundedGraph.getFrontier());
     }
 }
@@ -0,0 +1,36 @@
+package edu.stanford.bmir.protege.web.server.viz;
+
+import com.google.auto.value.AutoValue;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * An unrendered edge in the neighbourhood of an entity.  An edge without a relationship is an ISA edge.
+ */
+@AutoValue
+abstract class NeighbourhoodEdge {
+
+    @Nonnull
+    static NeighbourhoodEdge isA(@Nonnull OWLEntity tail, @Nonnull OWLEntity head) {
+        return new AutoValue_NeighbourhoodEdge(tail, head, null);
+    }
+
+    @Nonnull
+    static NeighbourhoodEdge relationship(@Nonnull OWLEntity tail,
+                                          @Nonnull OWLEntity head,
+                                          @Nonnull OWLObjectProperty relationship) {
+        return new AutoValue_NeighbourhoodEdge(tail, head, relationship);
+    }
+
+    @Nonnull
+    abstract OWLEntity getTail();
+
+    @Nonnull
+    abstract OWLEntity getHead();
+
+    @Nullable
+    abstract OWLObjectProperty getRelationship();
+}
@@ -39,6 +39,11 @@ public class GetWatchesActionHandler extends AbstractProjectActionHandler<GetWat
         return GetWatchesAction.class;
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Nonnull
     @Override
     protected Iterable<BuiltInAction> getRequiredExecutableBuiltInActions() {
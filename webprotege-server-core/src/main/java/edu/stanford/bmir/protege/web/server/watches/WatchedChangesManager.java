@@ -1,22 +1,23 @@
 package edu.stanford.bmir.protege.web.server.watches;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import edu.stanford.bmir.protege.web.server.hierarchy.HierarchyProvider;
+import edu.stanford.bmir.protege.web.server.index.ClassAssertionAxiomsByClassIndex;
+import edu.stanford.bmir.protege.web.server.index.ProjectOntologiesIndex;
 import edu.stanford.bmir.protege.web.server.revision.EntitiesByRevisionCache;
 import edu.stanford.bmir.protege.web.server.revision.ProjectChangesManager;
 import edu.stanford.bmir.protege.web.server.revision.Revision;
 import edu.stanford.bmir.protege.web.server.revision.RevisionManager;
 import edu.stanford.bmir.protege.web.shared.change.ProjectChange;
 import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
 import edu.stanford.bmir.protege.web.shared.watches.Watch;
 import org.semanticweb.owlapi.model.*;
 import org.semanticweb.owlapi.search.EntitySearcher;
 
 import javax.inject.Inject;
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static edu.stanford.bmir.protege.web.shared.watches.WatchType.BRANCH;
@@ -45,6 +46,10 @@ public class WatchedChangesManager {
 
     private final EntitiesByRevisionCache entitiesByRevisionCache;
 
+    private final ProjectOntologiesIndex projectOntologiesIndex;
+
+    private final ClassAssertionAxiomsByClassIndex classAssertionsByClassIndex;
+
     @Inject
     public WatchedChangesManager(ProjectChangesManager projectChangesManager,
                                  HierarchyProvider<OWLClass> classHierarchyProvider,
@@ -53,7 +58,9 @@ public class WatchedChangesManager {
                                  HierarchyProvider<OWLAnnotationProperty> annotationPropertyHierarchyProvider,
                                  HasImportsClosure rootOntologyImportsClosureProvider,
                                  RevisionManager changeManager,
-                                 EntitiesByRevisionCache entitiesByRevisionCache) {
+                                 EntitiesByRevisionCache entitiesByRevisionCache,
+                                 ProjectOntologiesIndex projectOntologiesIndex,
+                                 ClassAssertionAxiomsByClassIndex classAssertionsByClassIndex) {
         this.projectChangesManager = checkNotNull(projectChangesManager);
         this.classHierarchyProvider = checkNotNull(classHierarchyProvider);
         this.objectPropertyHierarchyProvider = checkNotNull(objectPropertyHierarchyProvider);
@@ -62,8 +69,18 @@ public class WatchedChangesManager {
         this.rootOntologyImportsClosureProvider = checkNotNull(rootOntologyImportsClosureProvider);
         this.changeManager = checkNotNull(changeManager);
         this.entitiesByRevisionCache = checkNotNull(entitiesByRevisionCache);
+        this.projectOntologiesIndex = checkNotNull(projectOntologiesIndex);
+        this.classAssertionsByClassIndex = checkNotNull(classAssertionsByClassIndex);
     }
 
+    /**
+     * Gets the changes to the entities that are watched by the specified watches.
+     * <p>
+     * Whether an entity is in a watched branch is decided using the current hierarchies.  Changes to entities
+     * that used to be in a watched branch but have since been deleted, or moved out of the branch, are therefore
+     * not included.  All of the changes to an entity that has been moved into a watched branch are included.
+     * Directly watched entities are not affected by this.
+     */
     public ImmutableList<ProjectChange> getProjectChangesForWatches(Set<Watch> watches) {
         Set<OWLEntity> superEntities = new HashSet<>();
         Set<OWLEntity> directWatches = new HashSet<>();
@@ -81,9 +98,11 @@ public class WatchedChangesManager {
             return ImmutableList.of();
         }
         ImmutableList.Builder<ProjectChange> result = ImmutableList.builder();
-        List<Revision> revisionsCopy = changeManager.getRevisions();
-        for (Revision revision : revisionsCopy) {
-            for (OWLEntity watchedEntity : getWatchedEntities(superEntities, directWatches, revision)) {
+        Collection<Revision> candidateRevisions = getCandidateRevisions(superEntities, directWatches);
+        Map<RevisionNumber, ImmutableSet<OWLEntity>> entitiesByRevision = entitiesByRevisionCache.getEntities(candidateRevisions);
+        for (Revision revision : candidateRevisions) {
+            Set<OWLEntity> entities = entitiesByRevision.get(revision.getRevisionNumber());
+            for (OWLEntity watchedEntity : getWatchedEntities(superEntities, directWatches, entities)) {
                 ImmutableList<ProjectChange> changes = projectChangesManager.getProjectChangesForSubjectInRevision(watchedEntity, revision);
                 result.addAll(changes);
             }
@@ -91,9 +110,80 @@ public class WatchedChangesManager {
         return result.build();
     }
 
-    private Set<OWLEntity> getWatchedEntities(Set<OWLEntity> superEntities, Set<OWLEntity> directWatches, Revision revision) {
+    /**
+     * Uses the revision index to find the revisions that contain changes to watched entities.  Only
+     * these revisions need to be examined.  The entities in each watched branch are found by walking down the
+     * current hierarchies from the root of the branch, and only the subjects of these entities are looked up in
+     * the revision index.  The history of changes is therefore never scanned.  An entity that is not in the
+     * current hierarchies has no ancestors, so the changes to it would not be reported by
+     * {@link #getWatchedEntities} anyway.
+     */
+    private Collection<Revision> getCandidateRevisions(Set<OWLEntity> superEntities, Set<OWLEntity> directWatches) {
+        Set<IRI> watchedSubjects = new HashSet<>();
+        for (OWLEntity entity : directWatches) {
+            watchedSubjects.add(entity.getIRI());
+        }
+        for (OWLEntity superEntity : superEntities) {
+            for (OWLEntity branchEntity : getBranchEntities(superEntity)) {
+                watchedSubjects.add(branchEntity.getIRI());
+            }
+        }
+        SortedSet<Revision> candidateRevisions = new TreeSet<>();
+        for (IRI subject : watchedSubjects) {
+            candidateRevisions.addAll(changeManager.getRevisionsBySubject(subject));
+        }
+        return candidateRevisions;
+    }
+
+    /**
+     * Gets the entities in the branch below the specified entity.  For a class branch these are the descendant
+     * classes and their asserted instances.
+     */
+    private Set<OWLEntity> getBranchEntities(OWLEntity superEntity) {
+        Set<OWLEntity> branchEntities = new HashSet<>();
+        superEntity.accept(new OWLEntityVisitor() {
+            @Override
+            public void visit(OWLClass cls) {
+                Set<OWLClass> branchClasses = new HashSet<>(classHierarchyProvider.getDescendants(cls));
+                branchClasses.add(cls);
+                branchEntities.addAll(branchClasses);
+                for (OWLClass branchClass : branchClasses) {
+                    projectOntologiesIndex.getOntologyIds()
+                                          .flatMap(ontologyId -> classAssertionsByClassIndex.getClassAssertionAxioms(branchClass, ontologyId))
+                                          .map(OWLClassAssertionAxiom::getIndividual)
+                                          .filter(OWLIndividual::isNamed)
+                                          .forEach(individual -> branchEntities.add(individual.asOWLNamedIndividual()));
+                }
+            }
+
+            @Override
+            public void visit(OWLObjectProperty property) {
+                branchEntities.addAll(objectPropertyHierarchyProvider.getDescendants(property));
+            }
+
+            @Override
+            public void visit(OWLDataProperty property) {
+                branchEntities.addAll(dataPropertyHierarchyProvider.getDescendants(property));
+            }
+
+            @Override
+            public void visit(OWLNamedIndividual individual) {
+            }
+
+            @Override
+            public void visit(OWLDatatype datatype) {
+            }
+
+            @Override
+            public void visit(OWLAnnotationProperty property) {
+                branchEntities.addAll(annotationPropertyHierarchyProvider.getDescendants(property));
+            }
+        });
+        return branchEntities;
+    }
+
+    private Set<OWLEntity> getWatchedEntities(Set<OWLEntity> superEntities, Set<OWLEntity> directWatches, Set<OWLEntity> entities) {
         Set<OWLEntity> watchedEntities = new HashSet<>();
-        Set<OWLEntity> entities = entitiesByRevisionCache.getEntities(revision);
         for (OWLEntity entity : entities) {
             if (directWatches.contains(entity)) {
                 watchedEntities.add(entity);
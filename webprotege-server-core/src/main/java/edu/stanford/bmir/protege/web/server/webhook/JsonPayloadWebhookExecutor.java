@@ -2,6 +2,7 @@ package edu.stanford.bmir.protege.web.server.webhook;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import edu.stanford.bmir.protege.web.shared.webhook.Webhook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,28 +27,33 @@ public class JsonPayloadWebhookExecutor {
     @Nonnull
     private final WebhookExecutor webhookExecutor;
 
+    /**
+     * Payloads are written without any pretty printing
+     */
     @Nonnull
-    private final ObjectMapper objectMapper;
+    private final ObjectWriter objectWriter;
 
     @Inject
     public JsonPayloadWebhookExecutor(@Nonnull WebhookExecutor webhookExecutor,
                                       @Nonnull ObjectMapper objectMapper) {
         this.webhookExecutor = webhookExecutor;
-        this.objectMapper = objectMapper;
+        this.objectWriter = objectMapper.writer();
     }
 
     /**
-     * Submit the specified payload for the specified Webhooks.
+     * Submit the specified payload for the specified Webhooks.  The payload is serialized once and the
+     * same JSON is posted to each Webhook.
      * @param payload The payload that will be serialized to JSON.
      * @param webhooks The Webhooks that specify the payload URLs where the JSON payload
      *                 will be sent to.
      */
     public void submit(@Nonnull Object payload,
                        @Nonnull List<? extends Webhook> webhooks) {
+        if(webhooks.isEmpty()) {
+            return;
+        }
         try {
-            final String jsonPayload = objectMapper
-                    .writerWithDefaultPrettyPrinter()
-                    .writeValueAsString(checkNotNull(payload));
+            final String jsonPayload = objectWriter.writeValueAsString(checkNotNull(payload));
             webhooks.forEach(webhook -> {
                 String payloadUrl = webhook.getPayloadUrl();
                 String invocationId = UUID.randomUUID().toString();
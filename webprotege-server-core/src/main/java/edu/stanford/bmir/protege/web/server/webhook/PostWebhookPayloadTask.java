@@ -14,32 +14,43 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * Stanford Center for Biomedical Informatics Research
  * 19 May 2017
  */
-public class PostWebhookPayloadTask implements Callable<Void> {
+public class PostWebhookPayloadTask implements Callable<Integer> {
 
     private static final Logger logger = LoggerFactory.getLogger(PostWebhookPayloadTask.class);
 
     @Nonnull
     private final WebhookInvocation invocation;
 
-    public PostWebhookPayloadTask(@Nonnull WebhookInvocation invocation) {
+    private final int timeoutMs;
+
+    public PostWebhookPayloadTask(@Nonnull WebhookInvocation invocation,
+                                  int timeoutMs) {
         this.invocation = checkNotNull(invocation);
+        this.timeoutMs = timeoutMs;
     }
 
+    /**
+     * Posts the payload
+     * @return The HTTP status code of the response
+     * @throws Exception if the payload could not be posted, for example because of a connection timeout
+     */
     @Override
-    public Void call() throws Exception {
+    public Integer call() throws Exception {
         logger.info("Posting webhook payload {} to {}",
                     invocation.getId(),
                     invocation.getPayloadUrl());
 
-        Request.Post(invocation.getPayloadUrl())
-               .bodyString(invocation.getPayload(), invocation.getContentType())
-               .execute()
-               .handleResponse(httpResponse -> {
-                   logger.info("Webhook payload {} POST result {}",
-                               invocation.getId(),
-                               httpResponse.getStatusLine().getStatusCode());
-                   return null;
-               });
-        return null;
+        return Request.Post(invocation.getPayloadUrl())
+                      .connectTimeout(timeoutMs)
+                      .socketTimeout(timeoutMs)
+                      .bodyString(invocation.getPayload(), invocation.getContentType())
+                      .execute()
+                      .handleResponse(httpResponse -> {
+                          var statusCode = httpResponse.getStatusLine().getStatusCode();
+                          logger.info("Webhook payload {} POST result {}",
+                                      invocation.getId(),
+                                      statusCode);
+                          return statusCode;
+                      });
     }
 }
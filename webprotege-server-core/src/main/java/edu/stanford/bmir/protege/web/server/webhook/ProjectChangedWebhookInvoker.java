@@ -9,8 +9,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static edu.stanford.bmir.protege.web.shared.webhook.ProjectWebhookEventType.PROJECT_CHANGED;
 
@@ -24,34 +26,103 @@ public class ProjectChangedWebhookInvoker {
 
     private static final Logger logger = LoggerFactory.getLogger(ProjectChangedWebhookInvoker.class);
 
+    /**
+     * Changes that are made by the same user within this window are reported in a single payload
+     */
+    private static final long COALESCING_WINDOW_MS = 1_000;
+
     @Nonnull
     private final ProjectId projectId;
 
     @Nonnull
     private final JsonPayloadWebhookExecutor webhookExecutor;
 
+    @Nonnull
+    private final WebhookExecutor scheduler;
+
     @Nonnull
     private final WebhookRepository webhookRepository;
 
+    @Nullable
+    private PendingPayload pendingPayload = null;
 
     @Inject
     public ProjectChangedWebhookInvoker(@Nonnull ProjectId projectId,
                                         @Nonnull JsonPayloadWebhookExecutor webhookExecutor,
+                                        @Nonnull WebhookExecutor scheduler,
                                         @Nonnull WebhookRepository webhookRepository) {
         this.projectId = projectId;
         this.webhookExecutor = webhookExecutor;
+        this.scheduler = scheduler;
         this.webhookRepository = webhookRepository;
     }
 
+    /**
+     * Reports a project change to the project changed webhooks.  The change is not reported immediately.
+     * Changes by the same user that follow in quick succession are reported together, as a range of revisions.
+     */
     public void invoke(@Nonnull UserId userId,
                        @Nonnull RevisionNumber revisionNumber,
                        long timestamp) {
-        ProjectChangedWebhookPayload payload = new ProjectChangedWebhookPayload(projectId,
-                                                                                userId,
-                                                                                revisionNumber.getValueAsInt(),
-                                                                                timestamp);
+        PendingPayload payloadToFlush = null;
+        synchronized (this) {
+            if(pendingPayload != null && pendingPayload.userId.equals(userId)) {
+                pendingPayload.lastRevisionNumber = revisionNumber.getValue();
+                pendingPayload.timestamp = timestamp;
+                return;
+            }
+            // Changes by a different user start a new range
+            payloadToFlush = pendingPayload;
+            var nextPayload = new PendingPayload(userId, revisionNumber.getValue(), timestamp);
+            pendingPayload = nextPayload;
+            scheduler.schedule(() -> flush(nextPayload), COALESCING_WINDOW_MS, TimeUnit.MILLISECONDS);
+        }
+        if(payloadToFlush != null) {
+            flush(payloadToFlush);
+        }
+    }
+
+    private void flush(@Nonnull PendingPayload payloadToFlush) {
+        ProjectChangedWebhookPayload payload;
+        synchronized (this) {
+            if(payloadToFlush.flushed) {
+                return;
+            }
+            payloadToFlush.flushed = true;
+            if(pendingPayload == payloadToFlush) {
+                pendingPayload = null;
+            }
+            payload = new ProjectChangedWebhookPayload(projectId,
+                                                       payloadToFlush.userId,
+                                                       payloadToFlush.firstRevisionNumber,
+                                                       payloadToFlush.lastRevisionNumber,
+                                                       payloadToFlush.timestamp);
+        }
+        try {
+            List<ProjectWebhook> webhooks = webhookRepository.getProjectWebhooks(projectId, PROJECT_CHANGED);
+            webhookExecutor.submit(payload, webhooks);
+        } catch (Exception e) {
+            logger.error("{} Could not invoke project changed webhooks", projectId, e);
+        }
+    }
+
+    private static class PendingPayload {
+
+        private final UserId userId;
+
+        private final long firstRevisionNumber;
+
+        private long lastRevisionNumber;
+
+        private long timestamp;
+
+        private boolean flushed = false;
 
-        List<ProjectWebhook> webhooks = webhookRepository.getProjectWebhooks(projectId, PROJECT_CHANGED);
-        webhookExecutor.submit(payload, webhooks);
+        private PendingPayload(UserId userId, long revisionNumber, long timestamp) {
+            this.userId = userId;
+            this.firstRevisionNumber = revisionNumber;
+            this.lastRevisionNumber = revisionNumber;
+            this.timestamp = timestamp;
+        }
     }
 }
@@ -5,6 +5,7 @@ import edu.stanford.bmir.protege.web.shared.user.UserId;
 
 import javax.annotation.Nonnull;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -20,6 +21,8 @@ public class ProjectChangedWebhookPayload {
     @Nonnull
     private final UserId userId;
 
+    private final long firstRevisionNumber;
+
     private final long revisionNumber;
 
     private long timestamp;
@@ -28,8 +31,25 @@ public class ProjectChangedWebhookPayload {
                                         @Nonnull UserId userId,
                                         long revisionNumber,
                                         long timestamp) {
+        this(projectId, userId, revisionNumber, revisionNumber, timestamp);
+    }
+
+    /**
+     * Creates a payload for a range of revisions that were made by the same user
+     * @param firstRevisionNumber The first revision in the range
+     * @param revisionNumber The last revision in the range
+     * @param timestamp The timestamp of the last revision in the range
+     */
+    public ProjectChangedWebhookPayload(@Nonnull ProjectId projectId,
+                                        @Nonnull UserId userId,
+                                        long firstRevisionNumber,
+                                        long revisionNumber,
+                                        long timestamp) {
+        checkArgument(firstRevisionNumber <= revisionNumber,
+                      "The first revision number must not be greater than the revision number");
         this.projectId = checkNotNull(projectId);
         this.userId = checkNotNull(userId);
+        this.firstRevisionNumber = firstRevisionNumber;
         this.revisionNumber = revisionNumber;
         this.timestamp = timestamp;
     }
@@ -44,6 +64,10 @@ public class ProjectChangedWebhookPayload {
         return userId;
     }
 
+    public long getFirstRevisionNumber() {
+        return firstRevisionNumber;
+    }
+
     public long getRevisionNumber() {
         return revisionNumber;
     }
@@ -2,28 +2,118 @@ package edu.stanford.bmir.protege.web.server.webhook;
 
 import edu.stanford.bmir.protege.web.shared.HasDispose;
 import edu.stanford.bmir.protege.web.shared.inject.ApplicationSingleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
-import java.util.concurrent.ExecutorService;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
  * 19 May 2017
+ *
+ * Delivers webhook payloads.  Each payload URL (endpoint) has its own queue, and the queues are serviced by a
+ * small shared pool of threads, so a slow or unreachable endpoint only delays its own payloads.  Failed
+ * deliveries are retried with exponential backoff.  If an endpoint fails repeatedly then its circuit breaker
+ * opens and payloads for it are dropped until the circuit breaker closes again.  The state for an endpoint is
+ * discarded once the endpoint has been idle for a while.
  */
 @ApplicationSingleton
 public class WebhookExecutor implements HasDispose {
 
-    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
-        Thread thread = Executors.defaultThreadFactory().newThread(runnable);
-        thread.setName(thread.getName().replace("thread", "webhook-processor-thread"));
-        return thread;
-    });
+    private static final Logger logger = LoggerFactory.getLogger(WebhookExecutor.class);
+
+    private static final int THREAD_POOL_SIZE = 4;
+
+    private static final int TIMEOUT_MS = 10_000;
+
+    private static final int MAX_QUEUED_INVOCATIONS_PER_ENDPOINT = 1000;
+
+    private static final int MAX_ATTEMPTS = 4;
+
+    private static final long INITIAL_RETRY_DELAY_MS = 1_000;
+
+    private static final long MAX_RETRY_DELAY_MS = 60_000;
+
+    /**
+     * The number of consecutive failed attempts that opens the circuit breaker for an endpoint
+     */
+    private static final int CIRCUIT_BREAKER_FAILURE_THRESHOLD = 8;
+
+    private static final long CIRCUIT_BREAKER_OPEN_MS = 5 * 60_000;
+
+    /**
+     * Endpoints that have had nothing queued for this long (and whose circuit breakers are closed) are discarded
+     */
+    private static final long ENDPOINT_IDLE_MS = 10 * 60_000;
+
+    private final WebhookPoster poster;
+
+    private final long initialRetryDelayMs;
+
+    private final long circuitBreakerOpenMs;
+
+    private final long endpointIdleMs;
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    private final ConcurrentHashMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    private final AtomicLong submittedCount = new AtomicLong();
+
+    private final AtomicLong deliveredCount = new AtomicLong();
+
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final AtomicLong retryCount = new AtomicLong();
+
+    private final AtomicLong maxDeliveryLatencyMs = new AtomicLong();
+
+    private final AtomicLong totalDeliveryLatencyMs = new AtomicLong();
 
     @Inject
     public WebhookExecutor() {
+        this(invocation -> new PostWebhookPayloadTask(invocation, TIMEOUT_MS).call(),
+             INITIAL_RETRY_DELAY_MS,
+             CIRCUIT_BREAKER_OPEN_MS,
+             ENDPOINT_IDLE_MS);
+    }
+
+    WebhookExecutor(@Nonnull WebhookPoster poster,
+                    long initialRetryDelayMs,
+                    long circuitBreakerOpenMs) {
+        this(poster, initialRetryDelayMs, circuitBreakerOpenMs, ENDPOINT_IDLE_MS);
+    }
+
+    WebhookExecutor(@Nonnull WebhookPoster poster,
+                    long initialRetryDelayMs,
+                    long circuitBreakerOpenMs,
+                    long endpointIdleMs) {
+        this.poster = checkNotNull(poster);
+        this.initialRetryDelayMs = initialRetryDelayMs;
+        this.circuitBreakerOpenMs = circuitBreakerOpenMs;
+        this.endpointIdleMs = endpointIdleMs;
+        this.executor = new ScheduledThreadPoolExecutor(THREAD_POOL_SIZE, runnable -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+            thread.setName(thread.getName().replace("thread", "webhook-processor-thread"));
+            return thread;
+        });
+        // Don't hold up shutdown for retries
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor.scheduleWithFixedDelay(this::removeIdleEndpoints, endpointIdleMs, endpointIdleMs, TimeUnit.MILLISECONDS);
     }
 
     @Override
@@ -36,15 +126,263 @@ public class WebhookExecutor implements HasDispose {
      */
     public void shutdown() {
         executor.shutdown();
+        var statistics = getStatistics();
+        logger.info("Webhook executor shut down.  Delivered {} of {} payloads ({} failed, {} dropped, {} retries, " +
+                            "mean latency {} ms, max latency {} ms).",
+                    statistics.getDeliveredCount(),
+                    statistics.getSubmittedCount(),
+                    statistics.getFailedCount(),
+                    statistics.getDroppedCount(),
+                    statistics.getRetryCount(),
+                    String.format("%.1f", statistics.getMeanDeliveryLatencyMs()),
+                    statistics.getMaxDeliveryLatencyMs());
     }
 
     /**
      * Submit the specified {@link WebhookInvocation} to be executed.  The {@link WebhookInvocation}
-     * will be submitted asynchronously.  Ordering is preserved so that if WebhookInvoation X is submitted
-     * before WebhookInvocation Y then X will be invoked before Y.
+     * will be submitted asynchronously.  Ordering is preserved for each payload URL so that if WebhookInvoation X
+     * is submitted before WebhookInvocation Y, for the same payload URL, then X will be invoked before Y.
      * @param webhookInvocation The invocation
      */
     public void submit(@Nonnull WebhookInvocation webhookInvocation) {
-        executor.submit(new PostWebhookPayloadTask(webhookInvocation));
+        checkNotNull(webhookInvocation);
+        submittedCount.incrementAndGet();
+        // Enqueue whilst the mapping is locked so that the endpoint cannot be removed in the meantime
+        endpoints.compute(webhookInvocation.getPayloadUrl(), (payloadUrl, endpoint) -> {
+            var target = endpoint != null ? endpoint : new Endpoint(payloadUrl);
+            target.enqueue(new QueuedInvocation(webhookInvocation));
+            return target;
+        });
+    }
+
+    private void removeIdleEndpoints() {
+        var idleSince = System.currentTimeMillis() - endpointIdleMs;
+        for(var payloadUrl : endpoints.keySet()) {
+            endpoints.computeIfPresent(payloadUrl, (url, endpoint) -> endpoint.isIdleSince(idleSince) ? null : endpoint);
+        }
+    }
+
+    int getEndpointCount() {
+        return endpoints.size();
+    }
+
+    /**
+     * Runs the specified task, on the webhook threads, after the specified delay.
+     */
+    void schedule(@Nonnull Runnable task, long delay, @Nonnull TimeUnit timeUnit) {
+        try {
+            executor.schedule(task, delay, timeUnit);
+        } catch(RejectedExecutionException e) {
+            logger.warn("Webhook executor has been shut down.  Task not scheduled.");
+        }
+    }
+
+    @Nonnull
+    public WebhookExecutorStatistics getStatistics() {
+        var queueDepth = 0;
+        var openCircuitCount = 0;
+        for(var endpoint : endpoints.values()) {
+            synchronized(endpoint) {
+                queueDepth += endpoint.queue.size();
+                if(endpoint.isCircuitOpen()) {
+                    openCircuitCount++;
+                }
+            }
+        }
+        return WebhookExecutorStatistics.get(queueDepth,
+                                             openCircuitCount,
+                                             submittedCount.get(),
+                                             deliveredCount.get(),
+                                             failedCount.get(),
+                                             droppedCount.get(),
+                                             retryCount.get(),
+                                             maxDeliveryLatencyMs.get(),
+                                             totalDeliveryLatencyMs.get());
+    }
+
+    private long getRetryDelayMs(int attempt) {
+        var delay = initialRetryDelayMs << Math.min(attempt - 1, 20);
+        return Math.min(delay, Math.max(MAX_RETRY_DELAY_MS, initialRetryDelayMs));
+    }
+
+    private static boolean isSuccess(int statusCode) {
+        return statusCode >= 200 && statusCode < 300;
+    }
+
+    /**
+     * Client errors, apart from timeouts and rate limiting, will not go away if the payload is posted again.
+     */
+    private static boolean isRetryable(int statusCode) {
+        return statusCode >= 500 || statusCode == 408 || statusCode == 429;
+    }
+
+    private void recordDelivery(QueuedInvocation queuedInvocation) {
+        var latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queuedInvocation.submittedAt);
+        deliveredCount.incrementAndGet();
+        totalDeliveryLatencyMs.addAndGet(latency);
+        maxDeliveryLatencyMs.accumulateAndGet(latency, Math::max);
+    }
+
+    /**
+     * Posts a webhook payload
+     */
+    interface WebhookPoster {
+
+        /**
+         * Posts the payload for the specified invocation
+         * @return The HTTP status code of the response
+         */
+        int post(@Nonnull WebhookInvocation invocation) throws Exception;
+    }
+
+    private static class QueuedInvocation {
+
+        private final WebhookInvocation invocation;
+
+        private final long submittedAt = System.nanoTime();
+
+        private int attempts = 0;
+
+        private QueuedInvocation(WebhookInvocation invocation) {
+            this.invocation = invocation;
+        }
+    }
+
+    /**
+     * The queue and circuit breaker for a payload URL.  At most one delivery (or retry) for an endpoint is
+     * in progress or scheduled at any one time.  This is what preserves the order of invocations.
+     */
+    private class Endpoint {
+
+        private final String payloadUrl;
+
+        private final Deque<QueuedInvocation> queue = new ArrayDeque<>();
+
+        private boolean processing = false;
+
+        private int consecutiveFailures = 0;
+
+        private long circuitOpenUntil = 0;
+
+        private long lastActiveTime = System.currentTimeMillis();
+
+        private Endpoint(String payloadUrl) {
+            this.payloadUrl = payloadUrl;
+        }
+
+        private boolean isCircuitOpen() {
+            return System.currentTimeMillis() < circuitOpenUntil;
+        }
+
+        private synchronized boolean isIdleSince(long time) {
+            return !processing && queue.isEmpty() && !isCircuitOpen() && lastActiveTime < time;
+        }
+
+        private synchronized void enqueue(QueuedInvocation queuedInvocation) {
+            if(isCircuitOpen()) {
+                droppedCount.incrementAndGet();
+                logger.info("Dropped webhook payload {} because the circuit breaker for {} is open",
+                            queuedInvocation.invocation.getId(),
+                            payloadUrl);
+                return;
+            }
+            if(queue.size() >= MAX_QUEUED_INVOCATIONS_PER_ENDPOINT) {
+                droppedCount.incrementAndGet();
+                logger.warn("Dropped webhook payload {} because there are {} payloads waiting to be posted to {}",
+                            queuedInvocation.invocation.getId(),
+                            queue.size(),
+                            payloadUrl);
+                return;
+            }
+            queue.add(queuedInvocation);
+            lastActiveTime = System.currentTimeMillis();
+            if(!processing) {
+                processing = true;
+                execute(this::processHead, 0);
+            }
+        }
+
+        private void execute(Runnable task, long delayMs) {
+            try {
+                executor.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+            } catch(RejectedExecutionException e) {
+                logger.warn("Webhook executor has been shut down.  Payloads for {} will not be posted.", payloadUrl);
+            }
+        }
+
+        private void processHead() {
+            QueuedInvocation head;
+            synchronized(this) {
+                head = queue.peek();
+                if(head == null) {
+                    processing = false;
+                    return;
+                }
+            }
+            head.attempts++;
+            var statusCode = -1;
+            try {
+                statusCode = poster.post(head.invocation);
+            } catch(Exception e) {
+                logger.info("Could not post webhook payload {} to {}: {}",
+                            head.invocation.getId(),
+                            payloadUrl,
+                            e.getMessage());
+            }
+            if(isSuccess(statusCode)) {
+                recordDelivery(head);
+                completeHead(true);
+            }
+            else if(statusCode != -1 && !isRetryable(statusCode)) {
+                failedCount.incrementAndGet();
+                logger.info("Webhook payload {} was rejected by {} with status code {}",
+                            head.invocation.getId(),
+                            payloadUrl,
+                            statusCode);
+                completeHead(true);
+            }
+            else {
+                handleRetryableFailure(head);
+            }
+        }
+
+        private synchronized void completeHead(boolean endpointResponded) {
+            queue.poll();
+            lastActiveTime = System.currentTimeMillis();
+            if(endpointResponded) {
+                if(consecutiveFailures >= CIRCUIT_BREAKER_FAILURE_THRESHOLD) {
+                    logger.info("Closed the circuit breaker for {}", payloadUrl);
+                }
+                consecutiveFailures = 0;
+            }
+            execute(this::processHead, 0);
+        }
+
+        private synchronized void handleRetryableFailure(QueuedInvocation head) {
+            consecutiveFailures++;
+            if(consecutiveFailures >= CIRCUIT_BREAKER_FAILURE_THRESHOLD) {
+                circuitOpenUntil = System.currentTimeMillis() + circuitBreakerOpenMs;
+                failedCount.addAndGet(queue.size());
+                logger.warn("Opened the circuit breaker for {} after {} consecutive failures.  " +
+                                    "Discarded {} queued payloads.",
+                            payloadUrl,
+                            consecutiveFailures,
+                            queue.size());
+                queue.clear();
+                processing = false;
+            }
+            else if(head.attempts < MAX_ATTEMPTS) {
+                retryCount.incrementAndGet();
+                execute(this::processHead, getRetryDelayMs(head.attempts));
+            }
+            else {
+                failedCount.incrementAndGet();
+                logger.warn("Giving up on webhook payload {} for {} after {} attempts",
+                            head.invocation.getId(),
+                            payloadUrl,
+                            head.attempts);
+                completeHead(false);
+            }
+        }
     }
 }
@@ -0,0 +1,71 @@
+package edu.stanford.bmir.protege.web.server.webhook;
+
+import com.google.auto.value.AutoValue;
+
+/**
+ * A snapshot of the state of a {@link WebhookExecutor}.
+ */
+@AutoValue
+public abstract class WebhookExecutorStatistics {
+
+    public static WebhookExecutorStatistics get(int queueDepth,
+                                                int openCircuitCount,
+                                                long submittedCount,
+                                                long deliveredCount,
+                                                long failedCount,
+                                                long droppedCount,
+                                                long retryCount,
+                                                long maxDeliveryLatencyMs,
+                                                long totalDeliveryLatencyMs) {
+        return new AutoValue_WebhookExecutorStatistics(queueDepth,
+                                                       openCircuitCount,
+                                                       submittedCount,
+                                                       deliveredCount,
+                                                       failedCount,
+                                                       droppedCount,
+                                                       retryCount,
+                                                       maxDeliveryLatencyMs,
+                                                       totalDeliveryLatencyMs);
+    }
+
+    /**
+     * Gets the number of invocations, over all endpoints, that are waiting to be delivered.
+     */
+    public abstract int getQueueDepth();
+
+    /**
+     * Gets the number of endpoints whose circuit breakers are currently open.
+     */
+    public abstract int getOpenCircuitCount();
+
+    public abstract long getSubmittedCount();
+
+    public abstract long getDeliveredCount();
+
+    /**
+     * Gets the number of invocations that were rejected by their endpoint or that ran out of retries.
+     */
+    public abstract long getFailedCount();
+
+    /**
+     * Gets the number of invocations that were discarded without being attempted, either because the queue
+     * for their endpoint was full or because the circuit breaker for their endpoint was open.
+     */
+    public abstract long getDroppedCount();
+
+    public abstract long getRetryCount();
+
+    /**
+     * Gets the maximum time from submission to successful delivery.
+     */
+    public abstract long getMaxDeliveryLatencyMs();
+
+    public abstract long getTotalDeliveryLatencyMs();
+
+    public double getMeanDeliveryLatencyMs() {
+        if(getDeliveredCount() == 0) {
+            return 0;
+        }
+        return (double) getTotalDeliveryLatencyMs() / getDeliveredCount();
+    }
+}
@@ -0,0 +1,74 @@
+package edu.stanford.bmir.protege.web.server.webhook;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.Writer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Writes the queue, delivery and circuit breaker state of the {@link WebhookExecutor} in the Prometheus text
+ * exposition format.
+ */
+public class WebhookMetricsWriter {
+
+    private static final double MS_PER_SECOND = 1_000;
+
+    @Nonnull
+    private final WebhookExecutor webhookExecutor;
+
+    @Inject
+    public WebhookMetricsWriter(@Nonnull WebhookExecutor webhookExecutor) {
+        this.webhookExecutor = checkNotNull(webhookExecutor);
+    }
+
+    public void write(@Nonnull Writer writer) throws IOException {
+        var stats = webhookExecutor.getStatistics();
+        writeMetric(writer, "webprotege_webhook_queue_depth", "gauge",
+                    "Webhook payloads, over all endpoints, that are waiting to be delivered", stats.getQueueDepth());
+        writeMetric(writer, "webprotege_webhook_open_circuits", "gauge",
+                    "Webhook endpoints whose circuit breakers are open", stats.getOpenCircuitCount());
+        writeMetric(writer, "webprotege_webhook_submitted_total", "counter",
+                    "Webhook payloads that were submitted for delivery", stats.getSubmittedCount());
+        writeMetric(writer, "webprotege_webhook_delivered_total", "counter",
+                    "Webhook payloads that were delivered", stats.getDeliveredCount());
+        writeMetric(writer, "webprotege_webhook_failed_total", "counter",
+                    "Webhook payloads that were rejected by their endpoint or that ran out of retries", stats.getFailedCount());
+        writeMetric(writer, "webprotege_webhook_dropped_total", "counter",
+                    "Webhook payloads that were discarded because their endpoint queue was full or its circuit breaker was open", stats.getDroppedCount());
+        writeMetric(writer, "webprotege_webhook_retries_total", "counter",
+                    "Webhook delivery attempts that were retried", stats.getRetryCount());
+        writeMetric(writer, "webprotege_webhook_delivery_latency_seconds_total", "counter",
+                    "Total time from submission to delivery of delivered webhook payloads", stats.getTotalDeliveryLatencyMs() / MS_PER_SECOND);
+        writeMetric(writer, "webprotege_webhook_delivery_latency_seconds_max", "gauge",
+                    "Longest time from submission to delivery of a webhook payload", stats.getMaxDeliveryLatencyMs() / MS_PER_SECOND);
+        writer.flush();
+    }
+
+    private static void writeMetric(@Nonnull Writer writer,
+                                    @Nonnull String name,
+                                    @Nonnull String type,
+                                    @Nonnull String help,
+                                    long value) throws IOException {
+        writeHeader(writer, name, type, help);
+        writer.write(name + " " + value + "\n");
+    }
+
+    private static void writeMetric(@Nonnull Writer writer,
+                                    @Nonnull String name,
+                                    @Nonnull String type,
+                                    @Nonnull String help,
+                                    double value) throws IOException {
+        writeHeader(writer, name, type, help);
+        writer.write(name + " " + value + "\n");
+    }
+
+    private static void writeHeader(@Nonnull Writer writer,
+                                    @Nonnull String name,
+                                    @Nonnull String type,
+                                    @Nonnull String help) throws IOException {
+        writer.write("# HELP " + name + " " + help + "\n");
+        writer.write("# TYPE " + name + " " + type + "\n");
+    }
+}
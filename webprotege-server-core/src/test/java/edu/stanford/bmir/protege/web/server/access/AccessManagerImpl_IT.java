@@ -4,8 +4,11 @@ import com.mongodb.MongoClient;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
 import edu.stanford.bmir.protege.web.server.persistence.MongoTestUtils;
+import edu.stanford.bmir.protege.web.shared.access.ActionId;
+import edu.stanford.bmir.protege.web.shared.access.BuiltInAction;
 import edu.stanford.bmir.protege.web.shared.access.BuiltInRole;
 import edu.stanford.bmir.protege.web.shared.access.RoleId;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import org.bson.Document;
 import org.junit.After;
 import org.junit.Before;
@@ -16,8 +19,10 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.mongodb.morphia.Datastore;
 import org.mongodb.morphia.Morphia;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static java.util.Collections.emptyList;
@@ -136,6 +141,20 @@ public class AccessManagerImpl_IT {
         assertThat((List<String>) rebuiltDocument.get(ACTION_CLOSURE_FIELD), hasItems("ViewProject"));
     }
 
+    @Test
+    public void shouldGetActionClosuresForManyResources() {
+        var projectResource = new ProjectResource(ProjectId.get("12345678-1234-1234-1234-123456789abc"));
+        var otherProjectResource = new ProjectResource(ProjectId.get("12345678-5678-5678-5678-123456789abc"));
+        manager.setAssignedRoles(subject, projectResource, Collections.singleton(BuiltInRole.CAN_EDIT.getRoleId()));
+        Map<Resource, Set<ActionId>> actionClosures = manager.getActionClosures(subject,
+                                                                                Arrays.asList(resource,
+                                                                                              projectResource,
+                                                                                              otherProjectResource));
+        assertThat(actionClosures.get(resource), is(manager.getActionClosure(subject, resource)));
+        assertThat(actionClosures.get(projectResource), hasItem(BuiltInAction.EDIT_ONTOLOGY.getActionId()));
+        assertThat(actionClosures.get(otherProjectResource), is(empty()));
+    }
+
     @After
     public void tearDown() {
         database.drop();
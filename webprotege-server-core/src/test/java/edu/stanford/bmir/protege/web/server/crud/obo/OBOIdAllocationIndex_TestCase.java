@@ -0,0 +1,121 @@
+package edu.stanford.bmir.protege.web.server.crud.obo;
+
+import edu.stanford.bmir.protege.web.server.index.EntitiesInProjectSignatureByIriIndex;
+import edu.stanford.bmir.protege.web.server.index.ProjectSignatureIndex;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.model.*;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OBOIdAllocationIndex_TestCase {
+
+    private static final String PREFIX = "http://purl.obolibrary.org/obo/GO_";
+
+    private final OWLDataFactory dataFactory = new OWLDataFactoryImpl();
+
+    @Mock
+    private ProjectSignatureIndex projectSignatureIndex;
+
+    @Mock
+    private EntitiesInProjectSignatureByIriIndex entitiesInProjectSignatureByIriIndex;
+
+    @Mock
+    private OWLOntologyChange change;
+
+    private final List<OWLEntity> signature = new ArrayList<>();
+
+    private OBOIdAllocationIndex index;
+
+    @Before
+    public void setUp() {
+        for(int i = 1; i <= 1000; i++) {
+            signature.add(createClass(i));
+        }
+        signature.add(createClass(1002));
+        when(projectSignatureIndex.getSignature()).thenAnswer(invocation -> signature.stream());
+        when(entitiesInProjectSignatureByIriIndex.getEntityInSignature(any()))
+                .thenAnswer(invocation -> signature.stream().filter(e -> e.getIRI().equals(invocation.getArguments()[0])));
+        index = new OBOIdAllocationIndex(projectSignatureIndex, entitiesInProjectSignatureByIriIndex);
+    }
+
+    private OWLClass createClass(int id) {
+        return dataFactory.getOWLClass(IRI.create(PREFIX + String.format("%07d", id)));
+    }
+
+    @Test
+    public void shouldReturnStartIfFree() {
+        assertThat(index.getNextFreeId(PREFIX, 7, 5000), is(5000L));
+    }
+
+    @Test
+    public void shouldSkipUsedIds() {
+        assertThat(index.getNextFreeId(PREFIX, 7, 1), is(1001L));
+        assertThat(index.getNextFreeId(PREFIX, 7, 1002), is(1003L));
+    }
+
+    @Test
+    public void shouldBuildIndexOnce() {
+        index.getNextFreeId(PREFIX, 7, 1);
+        index.getNextFreeId(PREFIX, 7, 500);
+        verify(projectSignatureIndex, times(1)).getSignature();
+    }
+
+    @Test
+    public void shouldIgnoreIdsWithDifferentNumberOfDigits() {
+        assertThat(index.getNextFreeId(PREFIX, 8, 1), is(1L));
+    }
+
+    @Test
+    public void shouldUpdateUsedIdsFromChanges() {
+        index.getNextFreeId(PREFIX, 7, 1);
+        var added = createClass(1001);
+        var removed = createClass(5);
+        signature.add(added);
+        signature.remove(removed);
+        when(change.getSignature()).thenReturn(new HashSet<>(List.of(added, removed)));
+        index.handleChanges(Collections.singletonList(change));
+        assertThat(index.getNextFreeId(PREFIX, 7, 1), is(5L));
+        assertThat(index.getNextFreeId(PREFIX, 7, 6), is(1003L));
+    }
+
+    @Test
+    public void shouldMarkIdUsed() {
+        index.markUsed(PREFIX, 7, 1001);
+        assertThat(index.getNextFreeId(PREFIX, 7, 1), is(1003L));
+    }
+
+    @Test
+    public void shouldParseZeroPaddedId() {
+        assertThat(OBOIdAllocationIndex.parseId(PREFIX + "0000123", PREFIX, 7), is(OptionalLong.of(123)));
+    }
+
+    @Test
+    public void shouldParseIdLongerThanTotalDigits() {
+        assertThat(OBOIdAllocationIndex.parseId(PREFIX + "12345678", PREFIX, 7), is(OptionalLong.of(12345678)));
+    }
+
+    @Test
+    public void shouldNotParseNonNumericSuffix() {
+        assertThat(OBOIdAllocationIndex.parseId(PREFIX + "00001a3", PREFIX, 7), is(OptionalLong.empty()));
+    }
+
+    @Test
+    public void shouldNotParseIdWithOtherPrefix() {
+        assertThat(OBOIdAllocationIndex.parseId("http://example.org/0000123", PREFIX, 7), is(OptionalLong.empty()));
+    }
+}
@@ -0,0 +1,43 @@
+package edu.stanford.bmir.protege.web.server.csv;
+
+import edu.stanford.bmir.protege.web.shared.csv.CSVRow;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class CSVGridParser_TestCase {
+
+    private static final String input =
+            "a,b\n" +
+            "c,\"d,e\"\n" +
+            "f,g";
+
+    private CSVGridParser parser;
+
+    @Before
+    public void setUp() {
+        parser = new CSVGridParser();
+    }
+
+    @Test
+    public void shouldReadRowsOneAtATime() throws IOException {
+        List<CSVRow> rows = new ArrayList<>();
+        var rowCount = parser.readRows(new StringReader(input), rows::add);
+        assertThat(rowCount, is(3));
+        assertThat(rows.size(), is(3));
+        assertThat(rows.get(1).getColumnValue(1), is("d,e"));
+    }
+
+    @Test
+    public void shouldReadToLimit() throws IOException {
+        var grid = parser.readToLimit(new StringReader(input), 2);
+        assertThat(grid.getRowCount(), is(2));
+    }
+}
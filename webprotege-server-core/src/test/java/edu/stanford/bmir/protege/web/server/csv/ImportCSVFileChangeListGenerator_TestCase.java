@@ -0,0 +1,151 @@
+package edu.stanford.bmir.protege.web.server.csv;
+
+import edu.stanford.bmir.protege.web.server.change.ChangeGenerationContext;
+import edu.stanford.bmir.protege.web.server.change.OntologyChangeFactory;
+import edu.stanford.bmir.protege.web.server.project.DefaultOntologyIdManager;
+import edu.stanford.bmir.protege.web.shared.DataFactory;
+import edu.stanford.bmir.protege.web.shared.csv.*;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.model.*;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+import static org.semanticweb.owlapi.model.EntityType.CLASS;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ImportCSVFileChangeListGenerator_TestCase {
+
+    private final OWLDataFactory dataFactory = new OWLDataFactoryImpl();
+
+    private final Map<IRI, IRI> importedEntityIris = new HashMap<>();
+
+    @Mock
+    private OntologyChangeFactory changeFactory;
+
+    @Mock
+    private DefaultOntologyIdManager defaultOntologyIdManager;
+
+    @Mock
+    private OWLOntology ontology;
+
+    private OWLClass rootClass;
+
+    private OWLObjectProperty property;
+
+    private OWLAnnotationProperty annotationProperty;
+
+    private OWLClass freshA;
+
+    private OWLClass freshB;
+
+    private ImportCSVFileChangeListGenerator generator;
+
+    @Before
+    public void setUp() {
+        var ontologyId = new OWLOntologyID();
+        when(defaultOntologyIdManager.getDefaultOntologyId()).thenReturn(ontologyId);
+        when(changeFactory.createAddAxiom(any(), any()))
+                .thenAnswer(invocation -> new AddAxiom(ontology, (OWLAxiom) invocation.getArguments()[1]));
+        rootClass = dataFactory.getOWLClass(IRI.create("http://example.org/Root"));
+        property = dataFactory.getOWLObjectProperty(IRI.create("http://example.org/p"));
+        annotationProperty = dataFactory.getOWLAnnotationProperty(IRI.create("http://example.org/ap"));
+        freshA = DataFactory.getFreshOWLEntity(CLASS, "A", Optional.empty());
+        freshB = DataFactory.getFreshOWLEntity(CLASS, "B", Optional.empty());
+        var gridBuilder = CSVGrid.builder();
+        gridBuilder.addRow("A", "B");
+        var descriptor = new CSVImportDescriptor(CSVRowImportType.CLASS,
+                                                 0,
+                                                 singletonList(CSVColumnDescriptor.create(1, property, ColumnType.CLASS)));
+        generator = new ImportCSVFileChangeListGenerator(rootClass,
+                                                         gridBuilder.build(),
+                                                         descriptor,
+                                                         importedEntityIris,
+                                                         dataFactory,
+                                                         changeFactory,
+                                                         defaultOntologyIdManager);
+    }
+
+    private void createAnnotationColumnGenerator() {
+        var gridBuilder = CSVGrid.builder();
+        gridBuilder.addRow("A", "B");
+        var descriptor = new CSVImportDescriptor(CSVRowImportType.CLASS,
+                                                 0,
+                                                 singletonList(CSVColumnDescriptor.create(1, annotationProperty, ColumnType.CLASS)));
+        generator = new ImportCSVFileChangeListGenerator(rootClass,
+                                                         gridBuilder.build(),
+                                                         descriptor,
+                                                         importedEntityIris,
+                                                         dataFactory,
+                                                         changeFactory,
+                                                         defaultOntologyIdManager);
+    }
+
+    private List<OWLAxiom> generateAxioms() {
+        return generator.generateChanges(new ChangeGenerationContext(UserId.getUserId("Bob")))
+                        .getChanges()
+                        .stream()
+                        .map(OWLOntologyChange::getAxiom)
+                        .collect(toList());
+    }
+
+    @Test
+    public void shouldUseFreshEntitiesForNamesThatHaveNotBeenImported() {
+        var axioms = generateAxioms();
+        assertThat(axioms, hasItems(dataFactory.getOWLSubClassOfAxiom(freshA, rootClass),
+                                    dataFactory.getOWLSubClassOfAxiom(freshA,
+                                                                      dataFactory.getOWLObjectSomeValuesFrom(property, freshB))));
+        assertThat(generator.getFreshEntities(), containsInAnyOrder(freshA, freshB));
+    }
+
+    @Test
+    public void shouldUseEntitiesCreatedByEarlierImports() {
+        var importedA = dataFactory.getOWLClass(IRI.create("http://example.org/A"));
+        importedEntityIris.put(freshA.getIRI(), importedA.getIRI());
+        var axioms = generateAxioms();
+        assertThat(axioms, hasItems(dataFactory.getOWLSubClassOfAxiom(importedA, rootClass),
+                                    dataFactory.getOWLSubClassOfAxiom(importedA,
+                                                                      dataFactory.getOWLObjectSomeValuesFrom(property, freshB))));
+        assertThat(generator.getFreshEntities(), contains(freshB));
+    }
+
+    @Test
+    public void shouldRecordFreshEntitiesThatAreOnlyUsedInAnnotations() {
+        createAnnotationColumnGenerator();
+        var axioms = generateAxioms();
+        assertThat(axioms, hasItems(dataFactory.getOWLAnnotationAssertionAxiom(annotationProperty,
+                                                                               freshA.getIRI(),
+                                                                               freshB.getIRI()),
+                                    dataFactory.getOWLDeclarationAxiom(freshB)));
+        assertThat(generator.getFreshEntities(), containsInAnyOrder(freshA, freshB));
+    }
+
+    @Test
+    public void shouldUseEntitiesCreatedByEarlierImportsInAnnotations() {
+        createAnnotationColumnGenerator();
+        var importedA = dataFactory.getOWLClass(IRI.create("http://example.org/A"));
+        var importedB = dataFactory.getOWLClass(IRI.create("http://example.org/B"));
+        importedEntityIris.put(freshA.getIRI(), importedA.getIRI());
+        importedEntityIris.put(freshB.getIRI(), importedB.getIRI());
+        var axioms = generateAxioms();
+        assertThat(axioms, hasItem(dataFactory.getOWLAnnotationAssertionAxiom(annotationProperty,
+                                                                              importedA.getIRI(),
+                                                                              importedB.getIRI())));
+        assertThat(axioms, not(hasItem(dataFactory.getOWLDeclarationAxiom(importedB))));
+        assertThat(generator.getFreshEntities(), is(empty()));
+    }
+}
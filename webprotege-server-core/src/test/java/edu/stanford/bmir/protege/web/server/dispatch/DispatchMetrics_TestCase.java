@@ -0,0 +1,123 @@
+package edu.stanford.bmir.protege.web.server.dispatch;
+
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class DispatchMetrics_TestCase {
+
+    private static final String ACTION_TYPE = "GetEntityRenderingAction";
+
+    private final ProjectId projectId = ProjectId.get("12345678-1234-1234-1234-123456789abc");
+
+    private DispatchMetrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = new DispatchMetrics(() -> 0);
+        metrics.addProjectMetrics(projectId);
+    }
+
+    private void record(long durationMs, boolean failed) {
+        metrics.recordAction(ACTION_TYPE, projectId, TimeUnit.MILLISECONDS.toNanos(durationMs), 100, 250, failed);
+    }
+
+    @Test
+    public void shouldRecordActionsByActionType() {
+        record(2, false);
+        record(40, true);
+        var actionMetrics = metrics.getMetricsByActionType().get(ACTION_TYPE);
+        assertThat(actionMetrics.getCallCount(), is(2L));
+        assertThat(actionMetrics.getErrorCount(), is(1L));
+        assertThat(actionMetrics.getTotalDurationNanos(), is(TimeUnit.MILLISECONDS.toNanos(42)));
+        assertThat(actionMetrics.getMaxDurationNanos(), is(TimeUnit.MILLISECONDS.toNanos(40)));
+        assertThat(actionMetrics.getAllocatedBytes(), is(300L));
+    }
+
+    @Test
+    public void shouldRecordActionsByProject() {
+        record(2, false);
+        assertThat(metrics.getMetricsByProject().get(projectId).getCallCount(), is(1L));
+    }
+
+    @Test
+    public void shouldNotRecordProjectForNonProjectActions() {
+        metrics.recordAction(ACTION_TYPE, null, 1, 0, 0, false);
+        assertThat(metrics.getMetricsByProject().get(projectId).getCallCount(), is(0L));
+    }
+
+    @Test
+    public void shouldIgnoreAllocationWhenNotSupported() {
+        metrics.recordAction(ACTION_TYPE, projectId, 1, -1, -1, false);
+        assertThat(metrics.getMetricsByActionType().get(ACTION_TYPE).getAllocatedBytes(), is(0L));
+    }
+
+    @Test
+    public void shouldRecordCumulativeDurationBuckets() {
+        record(2, false);
+        record(40, false);
+        record(20_000, false);
+        var buckets = metrics.getMetricsByActionType().get(ACTION_TYPE).getCumulativeDurationBucketCounts();
+        // 0.005s
+        assertThat(buckets[0], is(1L));
+        // 0.05s
+        assertThat(buckets[3], is(2L));
+        // 10s
+        assertThat(buckets[buckets.length - 2], is(2L));
+        // +Inf
+        assertThat(buckets[buckets.length - 1], is(3L));
+    }
+
+    @Test
+    public void shouldRecordLockWaitsByProject() {
+        metrics.recordLockWait(projectId, 5);
+        metrics.recordLockWait(projectId, 7);
+        assertThat(metrics.getMetricsByProject().get(projectId).getLockWaitNanos(), is(12L));
+    }
+
+    @Test
+    public void shouldRemoveProjectMetrics() {
+        record(2, false);
+        metrics.removeProjectMetrics(projectId);
+        assertThat(metrics.getMetricsByProject().containsKey(projectId), is(false));
+        assertThat(metrics.getMetricsByActionType().containsKey(ACTION_TYPE), is(true));
+    }
+
+    @Test
+    public void shouldIgnoreLockWaitsForProjectsThatAreNotLoaded() {
+        metrics.removeProjectMetrics(projectId);
+        metrics.recordLockWait(projectId, 5);
+        assertThat(metrics.getMetricsByProject().containsKey(projectId), is(false));
+    }
+
+    @Test
+    public void shouldIgnoreActionsForProjectsThatAreNotLoaded() {
+        metrics.removeProjectMetrics(projectId);
+        record(2, false);
+        assertThat(metrics.getMetricsByProject().containsKey(projectId), is(false));
+        assertThat(metrics.getMetricsByActionType().get(ACTION_TYPE).getCallCount(), is(1L));
+    }
+
+    @Test
+    public void shouldWritePrometheusTextFormat() throws Exception {
+        record(2, true);
+        metrics.recordLockWait(projectId, TimeUnit.MILLISECONDS.toNanos(500));
+        var writer = new StringWriter();
+        new DispatchMetricsWriter(metrics).write(writer);
+        var text = writer.toString();
+        assertThat(text, containsString("# TYPE webprotege_action_duration_seconds histogram\n"));
+        assertThat(text, containsString("webprotege_action_duration_seconds_bucket{action=\"GetEntityRenderingAction\",le=\"0.005\"} 1\n"));
+        assertThat(text, containsString("webprotege_action_duration_seconds_bucket{action=\"GetEntityRenderingAction\",le=\"+Inf\"} 1\n"));
+        assertThat(text, containsString("webprotege_action_duration_seconds_count{action=\"GetEntityRenderingAction\"} 1\n"));
+        assertThat(text, containsString("webprotege_action_errors_total{action=\"GetEntityRenderingAction\"} 1\n"));
+        assertThat(text, containsString("webprotege_action_allocated_bytes_total{action=\"GetEntityRenderingAction\"} 150\n"));
+        assertThat(text, containsString("webprotege_project_action_duration_seconds_count{project=\"" + projectId.getId() + "\"} 1\n"));
+        assertThat(text, containsString("webprotege_project_lock_wait_seconds_total{project=\"" + projectId.getId() + "\"} 0.5\n"));
+    }
+}
@@ -0,0 +1,106 @@
+package edu.stanford.bmir.protege.web.server.dispatch.handlers;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.bmir.protege.web.server.access.AccessManager;
+import edu.stanford.bmir.protege.web.server.access.ProjectResource;
+import edu.stanford.bmir.protege.web.server.access.Subject;
+import edu.stanford.bmir.protege.web.server.dispatch.ExecutionContext;
+import edu.stanford.bmir.protege.web.server.permissions.ProjectPermissionsManager;
+import edu.stanford.bmir.protege.web.server.user.UserActivityManager;
+import edu.stanford.bmir.protege.web.shared.access.BuiltInAction;
+import edu.stanford.bmir.protege.web.shared.project.AvailableProject;
+import edu.stanford.bmir.protege.web.shared.project.GetAvailableProjectsAction;
+import edu.stanford.bmir.protege.web.shared.project.ProjectDetails;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static edu.stanford.bmir.protege.web.shared.access.BuiltInAction.DOWNLOAD_PROJECT;
+import static edu.stanford.bmir.protege.web.shared.access.BuiltInAction.MOVE_ANY_PROJECT_TO_TRASH;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GetAvailableProjectsHandler_TestCase {
+
+    private final UserId userId = UserId.getUserId("The User");
+
+    private final UserId otherUserId = UserId.getUserId("Other User");
+
+    private final ProjectId projectIdA = ProjectId.get("12345678-1234-1234-1234-123456789abc");
+
+    private final ProjectId projectIdB = ProjectId.get("12345678-5678-5678-5678-123456789abc");
+
+    @Mock
+    private ProjectPermissionsManager projectPermissionsManager;
+
+    @Mock
+    private AccessManager accessManager;
+
+    @Mock
+    private UserActivityManager userActivityManager;
+
+    @Mock
+    private ExecutionContext executionContext;
+
+    @Mock
+    private ProjectDetails detailsA, detailsB;
+
+    private GetAvailableProjectsHandler handler;
+
+    @Before
+    public void setUp() {
+        when(executionContext.getUserId()).thenReturn(userId);
+        when(userActivityManager.getUserActivityRecord(userId)).thenReturn(Optional.empty());
+        when(detailsA.getProjectId()).thenReturn(projectIdA);
+        when(detailsA.getOwner()).thenReturn(otherUserId);
+        when(detailsB.getProjectId()).thenReturn(projectIdB);
+        when(detailsB.getOwner()).thenReturn(userId);
+        when(projectPermissionsManager.getReadableProjects(userId)).thenReturn(Arrays.asList(detailsA, detailsB));
+        when(accessManager.getActionClosures(any(), any())).thenReturn(ImmutableMap.of(
+                new ProjectResource(projectIdA),
+                ImmutableSet.of(DOWNLOAD_PROJECT.getActionId(), MOVE_ANY_PROJECT_TO_TRASH.getActionId()),
+                new ProjectResource(projectIdB),
+                ImmutableSet.of()
+        ));
+        handler = new GetAvailableProjectsHandler(projectPermissionsManager, accessManager, userActivityManager);
+    }
+
+    private List<AvailableProject> execute() {
+        return handler.execute(new GetAvailableProjectsAction(), executionContext).getDetails();
+    }
+
+    @Test
+    public void shouldResolvePermissionsForAllProjectsWithOneCall() {
+        execute();
+        verify(accessManager, times(1)).getActionClosures(Subject.forUser(userId),
+                                                          Arrays.asList(new ProjectResource(projectIdA),
+                                                                        new ProjectResource(projectIdB)));
+        verify(accessManager, never()).hasPermission(any(), any(), any(BuiltInAction.class));
+    }
+
+    @Test
+    public void shouldUseActionClosureForPermissions() {
+        var projectA = execute().get(0);
+        assertThat(projectA.isDownloadable(), is(true));
+        assertThat(projectA.isTrashable(), is(true));
+    }
+
+    @Test
+    public void shouldAllowOwnerToTrashProject() {
+        var projectB = execute().get(1);
+        assertThat(projectB.isDownloadable(), is(false));
+        assertThat(projectB.isTrashable(), is(true));
+    }
+}
@@ -1,19 +1,32 @@
 package edu.stanford.bmir.protege.web.server.dispatch.impl;
 
+import com.google.common.collect.ImmutableList;
 import edu.stanford.bmir.protege.web.server.app.UserInSessionFactory;
 import edu.stanford.bmir.protege.web.server.dispatch.*;
 import edu.stanford.bmir.protege.web.server.project.ProjectManager;
 import edu.stanford.bmir.protege.web.shared.app.UserInSession;
 import edu.stanford.bmir.protege.web.shared.dispatch.Action;
-import edu.stanford.bmir.protege.web.shared.dispatch.ActionExecutionException;
-import edu.stanford.bmir.protege.web.shared.dispatch.Result;
+import edu.stanford.bmir.protege.web.shared.dispatch.*;
 import edu.stanford.bmir.protege.web.shared.permissions.PermissionDeniedException;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.*;
 
 /**
@@ -53,15 +66,26 @@ public class DispatchServiceExecutorImpl_TestCase<A extends Action<R>, R extends
     @Mock
     private UserInSession userInSession;
 
+    private ExecutorService batchActionExecutor;
+
+    private DispatchMetrics dispatchMetrics;
+
     @Before
     public void setUp() throws Exception {
-        executor = new DispatchServiceExecutorImpl(registry, projectManager, userInSessionFactory);
+        batchActionExecutor = Executors.newFixedThreadPool(4);
+        dispatchMetrics = new DispatchMetrics();
+        executor = new DispatchServiceExecutorImpl(registry, projectManager, userInSessionFactory, batchActionExecutor, dispatchMetrics);
         when(registry.getActionHandler(action)).thenReturn(actionHandler);
         when(actionHandler.getRequestValidator(action, requestContext)).thenReturn(requestValidator);
         when(requestValidator.validateAction()).thenReturn(RequestValidationResult.getValid());
         when(userInSessionFactory.getUserInSession(any())).thenReturn(userInSession);
     }
 
+    @After
+    public void tearDown() {
+        batchActionExecutor.shutdownNow();
+    }
+
     @Test(expected = ActionExecutionException.class)
     public void shouldThrowActionExecutionException() {
         ExecutionContext executionContext = this.executionContext;
@@ -86,4 +110,64 @@ public class DispatchServiceExecutorImpl_TestCase<A extends Action<R>, R extends
         executor.execute(action, requestContext, executionContext);
         verify(actionHandler, times(1)).execute(action, executionContext);
     }
+
+    @SuppressWarnings("unchecked")
+    private Action<?> mockAction(boolean readOnly, Result result, Runnable onExecute) {
+        Action<Result> batchedAction = mock(Action.class);
+        ActionHandler<Action<Result>, Result> handler = mock(ActionHandler.class);
+        doReturn(handler).when(registry).getActionHandler(batchedAction);
+        when(handler.isReadOnly()).thenReturn(readOnly);
+        when(handler.getRequestValidator(batchedAction, requestContext)).thenReturn(requestValidator);
+        when(handler.execute(batchedAction, executionContext)).thenAnswer(invocation -> {
+            onExecute.run();
+            return result;
+        });
+        return batchedAction;
+    }
+
+    private List<Result> getResults(DispatchServiceResultContainer container) {
+        return ((BatchResult) container.getResult()).getResults()
+                                                    .stream()
+                                                    .map(r -> r.getResult().get().getResult())
+                                                    .collect(toList());
+    }
+
+    @Test
+    public void shouldExecuteReadOnlyBatchedActionsConcurrently() {
+        var latch = new CountDownLatch(3);
+        Runnable awaitOthers = () -> {
+            latch.countDown();
+            try {
+                // Only completes if all three actions are executing at the same time
+                assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+            } catch(InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        };
+        var resultA = mock(Result.class);
+        var resultB = mock(Result.class);
+        var resultC = mock(Result.class);
+        var batchAction = BatchAction.create(ImmutableList.of(mockAction(true, resultA, awaitOthers),
+                                                              mockAction(true, resultB, awaitOthers),
+                                                              mockAction(true, resultC, awaitOthers)));
+        var container = executor.execute(batchAction, requestContext, executionContext);
+        assertThat(getResults(container), contains(resultA, resultB, resultC));
+    }
+
+    @Test
+    public void shouldExecuteMutatingBatchedActionsInOrder() {
+        var executed = Collections.synchronizedList(new ArrayList<String>());
+        var results = new ArrayList<Result>();
+        for(int i = 0; i < 5; i++) {
+            results.add(mock(Result.class));
+        }
+        var batchAction = BatchAction.create(ImmutableList.of(mockAction(true, results.get(0), () -> executed.add("read")),
+                                                              mockAction(true, results.get(1), () -> executed.add("read")),
+                                                              mockAction(false, results.get(2), () -> executed.add("write")),
+                                                              mockAction(true, results.get(3), () -> executed.add("read")),
+                                                              mockAction(false, results.get(4), () -> executed.add("write"))));
+        var container = executor.execute(batchAction, requestContext, executionContext);
+        assertThat(executed, contains("read", "read", "write", "read", "write"));
+        assertThat(getResults(container), is(results));
+    }
 }
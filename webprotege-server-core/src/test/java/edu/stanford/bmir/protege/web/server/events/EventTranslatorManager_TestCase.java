@@ -0,0 +1,132 @@
+package edu.stanford.bmir.protege.web.server.events;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.bmir.protege.web.server.change.ChangeApplicationResult;
+import edu.stanford.bmir.protege.web.server.revision.Revision;
+import edu.stanford.bmir.protege.web.shared.event.ProjectEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EventTranslatorManager_TestCase {
+
+    @Mock
+    private Revision revision;
+
+    @Mock
+    private ChangeApplicationResult<?> changeApplicationResult;
+
+    @Mock
+    private ProjectEvent<?> firstEvent;
+
+    @Mock
+    private ProjectEvent<?> secondEvent;
+
+    private ExecutorService executorService;
+
+    @Before
+    public void setUp() {
+        executorService = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void shouldReturnEventsInTranslatorOrderWhenTranslatorsFinishOutOfOrder() throws Exception {
+        var secondTranslatorFinished = new CountDownLatch(1);
+        var first = new TestTranslator(firstEvent) {
+            @Override
+            void beforeTranslating() throws InterruptedException {
+                // Only returns if the translators run concurrently
+                assertThat(secondTranslatorFinished.await(10, TimeUnit.SECONDS), is(true));
+            }
+        };
+        var second = new TestTranslator(secondEvent) {
+            @Override
+            void afterTranslating() {
+                secondTranslatorFinished.countDown();
+            }
+        };
+        var manager = new EventTranslatorManager(ImmutableSet.of(first, second), executorService);
+        var events = manager.translateOntologyChanges(revision, changeApplicationResult).get(10, TimeUnit.SECONDS);
+        assertThat(events, contains(firstEvent, secondEvent));
+    }
+
+    @Test
+    public void shouldPrepareAllTranslators() {
+        var first = new TestTranslator(firstEvent);
+        var second = new TestTranslator(secondEvent);
+        var manager = new EventTranslatorManager(ImmutableSet.of(first, second), executorService);
+        manager.prepareForOntologyChanges(ImmutableList.of());
+        assertThat(first.prepared, is(true));
+        assertThat(second.prepared, is(true));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldPropagateExceptionFromPreparation() {
+        var translator = new TestTranslator(firstEvent) {
+            @Override
+            public void prepareForOntologyChanges(List<OWLOntologyChange> submittedChanges) {
+                throw new IllegalStateException();
+            }
+        };
+        var manager = new EventTranslatorManager(ImmutableSet.of(translator), executorService);
+        manager.prepareForOntologyChanges(ImmutableList.of());
+    }
+
+    private static class TestTranslator implements EventTranslator {
+
+        private final ProjectEvent<?> event;
+
+        private volatile boolean prepared = false;
+
+        private TestTranslator(ProjectEvent<?> event) {
+            this.event = event;
+        }
+
+        @Override
+        public void prepareForOntologyChanges(List<OWLOntologyChange> submittedChanges) {
+            prepared = true;
+        }
+
+        @Override
+        public void translateOntologyChanges(Revision revision,
+                                             ChangeApplicationResult<?> changes,
+                                             List<ProjectEvent<?>> projectEventList) {
+            try {
+                beforeTranslating();
+            } catch(InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            projectEventList.add(event);
+            afterTranslating();
+        }
+
+        void beforeTranslating() throws InterruptedException {
+
+        }
+
+        void afterTranslating() {
+
+        }
+    }
+}
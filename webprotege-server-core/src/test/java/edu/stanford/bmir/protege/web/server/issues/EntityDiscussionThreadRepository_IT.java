@@ -180,6 +180,45 @@ public class EntityDiscussionThreadRepository_IT {
         assertThat(count, is(1));
     }
 
+    @Test
+    public void shouldNotCountCommentsInClosedThreadsAsOpen() {
+        EntityDiscussionThread closedThread = new EntityDiscussionThread(ThreadId.create(),
+                                                                         projectId,
+                                                                         entity,
+                                                                         Status.CLOSED,
+                                                                         ImmutableList.of(createComment(), createComment()));
+        repository.saveThread(closedThread);
+        CommentCounts counts = repository.getCommentCounts(projectId, entity);
+        assertThat(counts, is(CommentCounts.get(3, 1)));
+    }
+
+    @Test
+    public void shouldReturnUpdatedThreadWhenCommentIsAdded() {
+        Comment theComment = createComment();
+        Optional<EntityDiscussionThread> updatedThread = repository.addCommentToThread(thread.getId(), theComment);
+        assertThat(updatedThread.get().getComments(), hasItem(theComment));
+    }
+
+    @Test
+    public void shouldReturnUpdatedThreadWhenStatusIsSet() {
+        Optional<EntityDiscussionThread> updatedThread = repository.setThreadStatus(thread.getId(), Status.CLOSED);
+        assertThat(updatedThread.get().getStatus(), is(Status.CLOSED));
+    }
+
+    @Test
+    public void shouldGetThreadCreator() {
+        Optional<UserId> creator = repository.getThreadCreator(thread.getId());
+        assertThat(creator, is(Optional.of(comment.getCreatedBy())));
+    }
+
+    private static Comment createComment() {
+        return new Comment(CommentId.create(),
+                           UserId.getUserId("Matthew"),
+                           System.currentTimeMillis(),
+                           Optional.empty(),
+                           "The body", "The rendered body");
+    }
+
     private MongoCollection<Document> getCollection() {
         return mongoClient.getDatabase(getTestDbName())
                           .getCollection("EntityDiscussionThreads");
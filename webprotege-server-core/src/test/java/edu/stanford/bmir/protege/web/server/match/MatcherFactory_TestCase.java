@@ -0,0 +1,82 @@
+package edu.stanford.bmir.protege.web.server.match;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.server.hierarchy.ClassHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.index.AnnotationAssertionAxiomsIndex;
+import edu.stanford.bmir.protege.web.server.index.ClassAssertionAxiomsByClassIndex;
+import edu.stanford.bmir.protege.web.server.index.ProjectOntologiesIndex;
+import edu.stanford.bmir.protege.web.server.index.ProjectSignatureByTypeIndex;
+import edu.stanford.bmir.protege.web.shared.match.criteria.*;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MatcherFactory_TestCase {
+
+    private final OWLClass cls = new OWLDataFactoryImpl().getOWLClass(IRI.create("http://example.org/A"));
+
+    @Mock
+    private AnnotationAssertionAxiomsIndex annotationAssertionAxiomsIndex;
+
+    @Mock
+    private ClassHierarchyProvider classHierarchyProvider;
+
+    @Mock
+    private ProjectOntologiesIndex projectOntologiesIndex;
+
+    @Mock
+    private ClassAssertionAxiomsByClassIndex classAssertionAxiomsByClassIndex;
+
+    @Mock
+    private ProjectSignatureByTypeIndex projectSignatureByTypeIndex;
+
+    private MatcherFactory matcherFactory;
+
+    @Before
+    public void setUp() {
+        matcherFactory = new MatcherFactory(new SubClassOfMatcherFactory(() -> classHierarchyProvider),
+                                            new InstanceOfMatcherFactory(() -> classHierarchyProvider,
+                                                                         () -> projectOntologiesIndex,
+                                                                         () -> classAssertionAxiomsByClassIndex,
+                                                                         () -> projectSignatureByTypeIndex),
+                                            new ConflictingBooleanValuesMatcherFactory(() -> annotationAssertionAxiomsIndex),
+                                            new EntityIsDeprecatedMatcherFactory(() -> annotationAssertionAxiomsIndex),
+                                            new AnnotationValuesAreNotDisjointMatcherFactory(() -> annotationAssertionAxiomsIndex),
+                                            new NonUniqueLangTagsMatcherFactory(() -> annotationAssertionAxiomsIndex),
+                                            new EntityAnnotationMatcherFactory(() -> annotationAssertionAxiomsIndex),
+                                            new IriAnnotationsMatcherFactory(() -> annotationAssertionAxiomsIndex));
+    }
+
+    @Test
+    public void shouldReuseCompiledMatcherForEqualCriteria() {
+        var matcherA = matcherFactory.getMatcher(createRegexCriteria());
+        var matcherB = matcherFactory.getMatcher(createRegexCriteria());
+        assertThat(matcherA, is(sameInstance(matcherB)));
+    }
+
+    @Test
+    public void shouldNotReuseMatchersForHierarchyCriteria() {
+        var criteria = CompositeRootCriteria.get(ImmutableList.of(createRegexCriteria(),
+                                                                  SubClassOfCriteria.get(cls, HierarchyFilterType.ALL)),
+                                                 MultiMatchType.ALL);
+        var matcherA = matcherFactory.getMatcher(criteria);
+        var matcherB = matcherFactory.getMatcher(criteria);
+        assertThat(matcherA, is(not(sameInstance(matcherB))));
+    }
+
+    private static RootCriteria createRegexCriteria() {
+        return EntityAnnotationCriteria.get(AnyAnnotationPropertyCriteria.get(),
+                                            StringContainsRegexMatchCriteria.get("heart\\s+disease", true));
+    }
+}
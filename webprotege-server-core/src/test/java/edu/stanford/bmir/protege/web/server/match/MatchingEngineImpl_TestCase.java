@@ -0,0 +1,93 @@
+package edu.stanford.bmir.protege.web.server.match;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.shared.match.criteria.EntityIsDeprecatedCriteria;
+import edu.stanford.bmir.protege.web.shared.match.criteria.IsNotBuiltInEntityCriteria;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLEntity;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MatchingEngineImpl_TestCase {
+
+    private static final int SIGNATURE_SIZE = 12_345;
+
+    private final OWLDataFactoryImpl dataFactory = new OWLDataFactoryImpl();
+
+    @Mock
+    private MatchingQueryPlanner queryPlanner;
+
+    @Mock
+    private MatcherFactory matcherFactory;
+
+    private List<OWLEntity> signature;
+
+    private ExecutorService executorService;
+
+    private MatchingEngineImpl matchingEngine;
+
+    @Before
+    public void setUp() {
+        signature = IntStream.range(0, SIGNATURE_SIZE)
+                             .mapToObj(i -> (OWLEntity) dataFactory.getOWLClass(IRI.create("http://example.org/C" + i)))
+                             .collect(toList());
+        when(queryPlanner.plan(any())).thenReturn(MatchingQueryPlan.fullScan(() -> signature.stream()));
+        when(matcherFactory.getMatcher(IsNotBuiltInEntityCriteria.get())).thenAnswer(invocation -> (Matcher<OWLEntity>) this::isEven);
+        when(matcherFactory.getMatcher(EntityIsDeprecatedCriteria.get())).thenAnswer(invocation -> (Matcher<OWLEntity>) entity -> false);
+        executorService = Executors.newFixedThreadPool(2);
+        matchingEngine = new MatchingEngineImpl(queryPlanner, matcherFactory, executorService);
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    private boolean isEven(OWLEntity entity) {
+        var iri = entity.getIRI().toString();
+        return Integer.parseInt(iri.substring(iri.lastIndexOf('C') + 1)) % 2 == 0;
+    }
+
+    @Test
+    public void shouldMatchCandidatesInParallelPreservingOrder() {
+        var expected = signature.stream().filter(this::isEven).collect(toList());
+        var matched = matchingEngine.match(IsNotBuiltInEntityCriteria.get()).collect(toList());
+        assertThat(matched, is(expected));
+        // One matcher per partition
+        verify(matcherFactory, atLeast(2)).getMatcher(IsNotBuiltInEntityCriteria.get());
+    }
+
+    @Test
+    public void shouldMatchAnyCriteria() {
+        var matched = matchingEngine.matchAny(ImmutableList.of(EntityIsDeprecatedCriteria.get(),
+                                                               IsNotBuiltInEntityCriteria.get()))
+                                    .count();
+        assertThat(matched, is((long) (SIGNATURE_SIZE + 1) / 2));
+    }
+
+    @Test
+    public void shouldRemoveDuplicateIndexedCandidates() {
+        var candidate = signature.get(0);
+        when(queryPlanner.plan(any())).thenReturn(MatchingQueryPlan.indexed("Test",
+                                                                            () -> Stream.of(candidate, candidate)));
+        var matched = matchingEngine.match(IsNotBuiltInEntityCriteria.get()).collect(toList());
+        assertThat(matched, contains(candidate));
+    }
+}
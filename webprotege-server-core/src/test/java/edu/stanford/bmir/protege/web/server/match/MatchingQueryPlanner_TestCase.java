@@ -0,0 +1,145 @@
+package edu.stanford.bmir.protege.web.server.match;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.bmir.protege.web.server.hierarchy.ClassHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.index.*;
+import edu.stanford.bmir.protege.web.shared.match.AnnotationPresence;
+import edu.stanford.bmir.protege.web.shared.match.criteria.*;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.model.*;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toSet;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MatchingQueryPlanner_TestCase {
+
+    private final OWLDataFactory dataFactory = new OWLDataFactoryImpl();
+
+    private final OWLClass clsA = dataFactory.getOWLClass(IRI.create("http://example.org/A"));
+
+    private final OWLClass clsB = dataFactory.getOWLClass(IRI.create("http://example.org/B"));
+
+    private final OWLClass clsC = dataFactory.getOWLClass(IRI.create("http://example.org/C"));
+
+    private final OWLNamedIndividual individual = dataFactory.getOWLNamedIndividual(IRI.create("http://example.org/i"));
+
+    private final OWLOntologyID ontologyId = new OWLOntologyID();
+
+    @Mock
+    private ProjectSignatureIndex projectSignatureIndex;
+
+    @Mock
+    private ProjectSignatureByTypeIndex projectSignatureByTypeIndex;
+
+    @Mock
+    private ProjectOntologiesIndex projectOntologiesIndex;
+
+    @Mock
+    private AxiomsByEntityReferenceIndex axiomsByEntityReferenceIndex;
+
+    @Mock
+    private ClassAssertionAxiomsByClassIndex classAssertionAxiomsByClassIndex;
+
+    @Mock
+    private EntitiesInProjectSignatureByIriIndex entitiesInProjectSignatureByIriIndex;
+
+    @Mock
+    private ClassHierarchyProvider classHierarchyProvider;
+
+    private MatchingQueryPlanner planner;
+
+    @Before
+    public void setUp() {
+        when(projectSignatureIndex.getSignature()).thenAnswer(invocation -> Stream.of(clsA, clsB, clsC, individual));
+        when(projectSignatureByTypeIndex.getSignature(EntityType.CLASS)).thenAnswer(invocation -> Stream.of(clsA, clsB, clsC));
+        when(projectSignatureByTypeIndex.getSignature(EntityType.NAMED_INDIVIDUAL)).thenAnswer(invocation -> Stream.of(individual));
+        when(projectOntologiesIndex.getOntologyIds()).thenAnswer(invocation -> Stream.of(ontologyId));
+        when(classHierarchyProvider.getChildren(clsA)).thenReturn(Collections.singleton(clsB));
+        when(classHierarchyProvider.getDescendants(clsA)).thenReturn(ImmutableSet.of(clsB, clsC));
+        var deprecation = dataFactory.getOWLAnnotationAssertionAxiom(dataFactory.getOWLDeprecated(),
+                                                                     clsC.getIRI(),
+                                                                     dataFactory.getOWLLiteral(true));
+        when(axiomsByEntityReferenceIndex.getReferencingAxioms(dataFactory.getOWLDeprecated(), ontologyId))
+                .thenAnswer(invocation -> Stream.of(deprecation));
+        when(entitiesInProjectSignatureByIriIndex.getEntityInSignature(clsC.getIRI())).thenAnswer(invocation -> Stream.of(clsC));
+        planner = new MatchingQueryPlanner(projectSignatureIndex,
+                                           projectSignatureByTypeIndex,
+                                           projectOntologiesIndex,
+                                           axiomsByEntityReferenceIndex,
+                                           classAssertionAxiomsByClassIndex,
+                                           entitiesInProjectSignatureByIriIndex,
+                                           classHierarchyProvider,
+                                           dataFactory);
+    }
+
+    @Test
+    public void shouldPlanFullScanForCriteriaThatAreNotIndexed() {
+        var plan = planner.plan(IsNotBuiltInEntityCriteria.get());
+        assertThat(plan.isFullScan(), is(true));
+        assertThat(plan.getCandidates().collect(toSet()), containsInAnyOrder(clsA, clsB, clsC, individual));
+    }
+
+    @Test
+    public void shouldUseEntityTypeIndex() {
+        var plan = planner.plan(EntityTypeIsOneOfCriteria.get(ImmutableSet.of(EntityType.CLASS)));
+        assertThat(plan.isFullScan(), is(false));
+        assertThat(plan.getCandidates().collect(toSet()), containsInAnyOrder(clsA, clsB, clsC));
+    }
+
+    @Test
+    public void shouldUseMostSelectiveConjunct() {
+        var criteria = CompositeRootCriteria.get(ImmutableList.of(IsNotBuiltInEntityCriteria.get(),
+                                                                  EntityTypeIsOneOfCriteria.get(ImmutableSet.of(EntityType.CLASS)),
+                                                                  SubClassOfCriteria.get(clsA, HierarchyFilterType.DIRECT)),
+                                                 MultiMatchType.ALL);
+        var plan = planner.plan(criteria);
+        assertThat(plan.getCandidates().collect(toSet()), contains(clsB));
+        assertThat(plan.explain(), containsString("Direct sub classes of"));
+    }
+
+    @Test
+    public void shouldUseUnionOfIndexedDisjuncts() {
+        var criteria = CompositeRootCriteria.get(ImmutableList.of(SubClassOfCriteria.get(clsA, HierarchyFilterType.DIRECT),
+                                                                  EntityTypeIsOneOfCriteria.get(ImmutableSet.of(EntityType.NAMED_INDIVIDUAL))),
+                                                 MultiMatchType.ANY);
+        var plan = planner.plan(criteria);
+        assertThat(plan.isFullScan(), is(false));
+        assertThat(plan.getCandidates().collect(toSet()), containsInAnyOrder(clsB, individual));
+    }
+
+    @Test
+    public void shouldPlanFullScanIfAnyDisjunctIsNotIndexed() {
+        var criteria = CompositeRootCriteria.get(ImmutableList.of(SubClassOfCriteria.get(clsA, HierarchyFilterType.DIRECT),
+                                                                  IsNotBuiltInEntityCriteria.get()),
+                                                 MultiMatchType.ANY);
+        assertThat(planner.plan(criteria).isFullScan(), is(true));
+    }
+
+    @Test
+    public void shouldUseAnnotationAssertionsForDeprecatedEntities() {
+        var plan = planner.plan(EntityIsDeprecatedCriteria.get());
+        assertThat(plan.getCandidates().collect(toSet()), contains(clsC));
+    }
+
+    @Test
+    public void shouldNotUseAnnotationPropertyIndexForAbsentAnnotations() {
+        var criteria = EntityAnnotationCriteria.get(AnnotationComponentsCriteria.get(IriEqualsCriteria.get(dataFactory.getOWLDeprecated()),
+                                                                                     AnyAnnotationValueCriteria.get()),
+                                                    AnnotationPresence.NONE);
+        assertThat(planner.plan(criteria).isFullScan(), is(true));
+        verify(axiomsByEntityReferenceIndex, never()).getReferencingAxioms(any(), any());
+    }
+}
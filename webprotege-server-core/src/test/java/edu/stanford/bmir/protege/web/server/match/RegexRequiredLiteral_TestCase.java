@@ -0,0 +1,110 @@
+package edu.stanford.bmir.protege.web.server.match;
+
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class RegexRequiredLiteral_TestCase {
+
+    private static Optional<String> getRequiredLiteral(String regex) {
+        return RegexRequiredLiteral.getRequiredLiteral(Pattern.compile(regex));
+    }
+
+    @Test
+    public void shouldExtractWholeLiteral() {
+        assertThat(getRequiredLiteral("heart"), is(Optional.of("heart")));
+    }
+
+    @Test
+    public void shouldExtractLongestRun() {
+        assertThat(getRequiredLiteral("ab.cdef\\d+"), is(Optional.of("cdef")));
+    }
+
+    @Test
+    public void shouldExcludeOptionalCharacters() {
+        assertThat(getRequiredLiteral("colou?r"), is(Optional.of("colo")));
+        assertThat(getRequiredLiteral("abcd*"), is(Optional.of("abc")));
+        assertThat(getRequiredLiteral("abcd{0,2}"), is(Optional.of("abc")));
+    }
+
+    @Test
+    public void shouldIncludeCharacterRepeatedAtLeastOnce() {
+        assertThat(getRequiredLiteral("abcd+"), is(Optional.of("abcd")));
+    }
+
+    @Test
+    public void shouldIgnoreCharacterClasses() {
+        assertThat(getRequiredLiteral("[abc]xy[^]z]"), is(Optional.of("xy")));
+    }
+
+    @Test
+    public void shouldIgnoreGroups() {
+        assertThat(getRequiredLiteral("(abcdef)?xy"), is(Optional.of("xy")));
+    }
+
+    @Test
+    public void shouldSkipHexEscapes() {
+        assertThat(getRequiredLiteral("\\x41BC"), is(Optional.of("BC")));
+        assertThat(getRequiredLiteral("\\x{41}BC"), is(Optional.of("BC")));
+    }
+
+    @Test
+    public void shouldSkipUnicodeEscapes() {
+        assertThat(getRequiredLiteral("\\u0041BC"), is(Optional.of("BC")));
+    }
+
+    @Test
+    public void shouldSkipControlCharacterEscapes() {
+        assertThat(getRequiredLiteral("\\cJfoo"), is(Optional.of("foo")));
+        assertThat(getRequiredLiteral("[\\c]x]ab"), is(Optional.of("ab")));
+    }
+
+    @Test
+    public void shouldSkipOctalEscapes() {
+        assertThat(getRequiredLiteral("\\0101BC"), is(Optional.of("BC")));
+        assertThat(getRequiredLiteral("\\077BC"), is(Optional.of("BC")));
+        assertThat(getRequiredLiteral("\\07BC"), is(Optional.of("BC")));
+    }
+
+    @Test
+    public void shouldSkipBackReferences() {
+        assertThat(getRequiredLiteral("(ab)\\1cd"), is(Optional.of("cd")));
+        assertThat(getRequiredLiteral("(a)(b)(c)(d)(e)(f)(g)(h)(i)(j)\\10xyz"), is(Optional.of("xyz")));
+    }
+
+    @Test
+    public void shouldNotExtractLiteralFromNamedBackReferences() {
+        assertThat(getRequiredLiteral("(?<name>ab)\\k<name>cd"), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldSkipUnicodePropertyEscapes() {
+        assertThat(getRequiredLiteral("\\p{Lu}ab\\pLc"), is(Optional.of("ab")));
+    }
+
+    @Test
+    public void shouldNotExtractLiteralFromAlternation() {
+        assertThat(getRequiredLiteral("abc|def"), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldNotExtractLiteralFromPatternWithEmbeddedFlags() {
+        assertThat(getRequiredLiteral("(?x)a b c"), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldNotExtractLiteralFromCommentsPattern() {
+        assertThat(RegexRequiredLiteral.getRequiredLiteral(Pattern.compile("a b", Pattern.COMMENTS)), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldDetectPlainLiteral() {
+        assertThat(RegexRequiredLiteral.isPlainLiteral(Pattern.compile("abc def")), is(true));
+        assertThat(RegexRequiredLiteral.isPlainLiteral(Pattern.compile("abc.")), is(false));
+        assertThat(RegexRequiredLiteral.isPlainLiteral(Pattern.compile("abc", Pattern.CASE_INSENSITIVE)), is(false));
+    }
+}
@@ -32,4 +32,25 @@ public class StringContainsRegexMatchMatcher_TestCase {
     public void shouldNotMatchValue() {
         assertThat(matcher.matches("0"), is(false));
     }
+
+    @Test
+    public void shouldMatchValueContainingRequiredLiteral() {
+        var literalMatcher = new StringContainsRegexMatchMatcher(Pattern.compile("abc\\d+"));
+        assertThat(literalMatcher.matches("xxabc12"), is(true));
+        assertThat(literalMatcher.matches("xxabc"), is(false));
+        assertThat(literalMatcher.matches("xx12"), is(false));
+    }
+
+    @Test
+    public void shouldMatchValueContainingRequiredLiteralIgnoringCase() {
+        var literalMatcher = new StringContainsRegexMatchMatcher(Pattern.compile("abc\\d+", Pattern.CASE_INSENSITIVE));
+        assertThat(literalMatcher.matches("xxABC12"), is(true));
+    }
+
+    @Test
+    public void shouldMatchPlainLiteral() {
+        var literalMatcher = new StringContainsRegexMatchMatcher(Pattern.compile("abc"));
+        assertThat(literalMatcher.matches("xxabcxx"), is(true));
+        assertThat(literalMatcher.matches("xxABCxx"), is(false));
+    }
 }
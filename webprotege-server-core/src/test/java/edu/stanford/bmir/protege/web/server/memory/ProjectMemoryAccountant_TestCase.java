@@ -0,0 +1,101 @@
+package edu.stanford.bmir.protege.web.server.memory;
+
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ProjectMemoryAccountant_TestCase {
+
+    private ProjectMemoryAccountant accountant;
+
+    private TestConsumer ontologies;
+
+    private TestConsumer cache;
+
+    @Before
+    public void setUp() {
+        accountant = new ProjectMemoryAccountant(ProjectId.get("12345678-1234-1234-1234-123456789abc"));
+        ontologies = new TestConsumer(ProjectMemoryCategory.ONTOLOGIES, 1000, false);
+        cache = new TestConsumer(ProjectMemoryCategory.ENTITY_GRAPH_CACHE, 300, true);
+        accountant.register(ontologies);
+        accountant.register(cache);
+    }
+
+    @Test
+    public void shouldReportEstimatedSizeByCategory() {
+        var usage = accountant.getEstimatedUsage();
+        assertThat(usage.getEstimatedSizes().get(ProjectMemoryCategory.ONTOLOGIES), is(1000L));
+        assertThat(usage.getEstimatedSizes().get(ProjectMemoryCategory.ENTITY_GRAPH_CACHE), is(300L));
+        assertThat(usage.getTotalEstimatedSize(), is(1300L));
+    }
+
+    @Test
+    public void shouldSumConsumersInTheSameCategory() {
+        accountant.register(new TestConsumer(ProjectMemoryCategory.ONTOLOGIES, 500, false));
+        var usage = accountant.getEstimatedUsage();
+        assertThat(usage.getEstimatedSizes().get(ProjectMemoryCategory.ONTOLOGIES), is(1500L));
+    }
+
+    @Test
+    public void shouldIgnoreDuplicateRegistrations() {
+        accountant.register(ontologies);
+        assertThat(accountant.getEstimatedUsage().getTotalEstimatedSize(), is(1300L));
+    }
+
+    @Test
+    public void shouldOnlyShedSheddableConsumers() {
+        var released = accountant.shed();
+        assertThat(released, is(300L));
+        assertThat(cache.isShed(), is(true));
+        assertThat(ontologies.isShed(), is(false));
+        assertThat(accountant.getEstimatedUsage().getTotalEstimatedSize(), is(1000L));
+    }
+
+    private static class TestConsumer implements ProjectMemoryConsumer {
+
+        private final ProjectMemoryCategory category;
+
+        private final boolean sheddable;
+
+        private long size;
+
+        private boolean shed = false;
+
+        private TestConsumer(ProjectMemoryCategory category, long size, boolean sheddable) {
+            this.category = category;
+            this.size = size;
+            this.sheddable = sheddable;
+        }
+
+        @Nonnull
+        @Override
+        public ProjectMemoryCategory getMemoryCategory() {
+            return category;
+        }
+
+        @Override
+        public long getEstimatedSizeInBytes() {
+            return size;
+        }
+
+        @Override
+        public boolean isSheddable() {
+            return sheddable;
+        }
+
+        @Override
+        public void shed() {
+            shed = true;
+            size = 0;
+        }
+
+        public boolean isShed() {
+            return shed;
+        }
+    }
+}
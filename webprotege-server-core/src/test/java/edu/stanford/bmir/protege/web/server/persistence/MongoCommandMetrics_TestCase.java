@@ -0,0 +1,100 @@
+package edu.stanford.bmir.protege.web.server.persistence;
+
+import com.google.common.collect.ImmutableMap;
+import com.mongodb.MongoException;
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonDocument;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class MongoCommandMetrics_TestCase {
+
+    private final ConnectionDescription connectionDescription = new ConnectionDescription(new ServerId(new ClusterId(),
+                                                                                                        new ServerAddress()));
+
+    private MongoCommandMetrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = new MongoCommandMetrics();
+    }
+
+    private void succeed(String commandName, long durationMs) {
+        metrics.commandSucceeded(new CommandSucceededEvent(1,
+                                                           connectionDescription,
+                                                           commandName,
+                                                           new BsonDocument(),
+                                                           TimeUnit.MILLISECONDS.toNanos(durationMs)));
+    }
+
+    private void fail(String commandName, long durationMs) {
+        metrics.commandFailed(new CommandFailedEvent(1,
+                                                     connectionDescription,
+                                                     commandName,
+                                                     TimeUnit.MILLISECONDS.toNanos(durationMs),
+                                                     new MongoException("Failed")));
+    }
+
+    @Test
+    public void shouldBeEmptyInitially() {
+        var statistics = metrics.getStatistics();
+        assertThat(statistics.getCommandCount(), is(0L));
+        assertThat(statistics.getMeanDurationMs(), is(0.0));
+    }
+
+    @Test
+    public void shouldCountCommandsByName() {
+        succeed("find", 2);
+        succeed("find", 4);
+        succeed("update", 6);
+        var statistics = metrics.getStatistics();
+        assertThat(statistics.getCommandCount(), is(3L));
+        assertThat(statistics.getCommandCountsByName(), is(ImmutableMap.of("find", 2L, "update", 1L)));
+    }
+
+    @Test
+    public void shouldRecordDurations() {
+        succeed("find", 2);
+        succeed("find", 10);
+        var statistics = metrics.getStatistics();
+        assertThat(statistics.getTotalDurationMs(), is(12L));
+        assertThat(statistics.getMaxDurationMs(), is(10L));
+        assertThat(statistics.getMeanDurationMs(), is(6.0));
+    }
+
+    @Test
+    public void shouldCountFailedCommands() {
+        succeed("find", 1);
+        fail("aggregate", 1);
+        var statistics = metrics.getStatistics();
+        assertThat(statistics.getCommandCount(), is(2L));
+        assertThat(statistics.getFailedCommandCount(), is(1L));
+    }
+
+    @Test
+    public void shouldRecordStatisticsByCommandName() {
+        succeed("find", 2);
+        succeed("find", 10);
+        fail("find", 4);
+        succeed("update", 6);
+        var byCommandName = metrics.getStatisticsByCommandName();
+        assertThat(byCommandName.keySet(), contains("find", "update"));
+        var find = byCommandName.get("find");
+        assertThat(find.getCommandCount(), is(3L));
+        assertThat(find.getFailedCommandCount(), is(1L));
+        assertThat(find.getTotalDurationNanos(), is(TimeUnit.MILLISECONDS.toNanos(16)));
+        assertThat(find.getMaxDurationNanos(), is(TimeUnit.MILLISECONDS.toNanos(10)));
+        assertThat(byCommandName.get("update").getFailedCommandCount(), is(0L));
+    }
+}
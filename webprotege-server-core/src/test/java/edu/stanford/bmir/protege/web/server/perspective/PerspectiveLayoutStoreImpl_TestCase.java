@@ -0,0 +1,107 @@
+package edu.stanford.bmir.protege.web.server.perspective;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import edu.stanford.bmir.protege.web.shared.perspective.PerspectiveId;
+import edu.stanford.bmir.protege.web.shared.perspective.PerspectiveLayout;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import edu.stanford.protege.widgetmap.server.node.JsonNodeSerializer;
+import edu.stanford.protege.widgetmap.shared.node.Node;
+import edu.stanford.protege.widgetmap.shared.node.TerminalNode;
+import edu.stanford.protege.widgetmap.shared.node.TerminalNodeId;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PerspectiveLayoutStoreImpl_TestCase {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private PerspectiveFileManager perspectiveFileManager;
+
+    private PerspectiveLayoutStoreImpl store;
+
+    private final ProjectId projectId = ProjectId.get("12345678-1234-1234-1234-123456789abc");
+
+    private final UserId userId = UserId.getUserId("JohnSmith");
+
+    private final PerspectiveId perspectiveId = PerspectiveId.get("ThePerspective");
+
+    private final Node userNode = new TerminalNode(new TerminalNodeId("UserNode"));
+
+    private final Node defaultNode = new TerminalNode(new TerminalNodeId("DefaultNode"));
+
+    private File userFile;
+
+    private File projectFile;
+
+    private File defaultFile;
+
+    @Before
+    public void setUp() throws Exception {
+        userFile = new File(temporaryFolder.getRoot(), "user/layout.json");
+        projectFile = new File(temporaryFolder.getRoot(), "project/layout.json");
+        defaultFile = new File(temporaryFolder.getRoot(), "default/layout.json");
+        when(perspectiveFileManager.getPerspectiveLayoutForUser(projectId, perspectiveId, userId)).thenReturn(userFile);
+        when(perspectiveFileManager.getDefaultPerspectiveLayoutForProject(projectId, perspectiveId)).thenReturn(projectFile);
+        when(perspectiveFileManager.getDefaultPerspectiveLayout(perspectiveId)).thenReturn(defaultFile);
+        store = new PerspectiveLayoutStoreImpl(perspectiveFileManager);
+    }
+
+    @Test
+    public void shouldFallBackToDefaultLayout() throws IOException {
+        write(defaultFile, defaultNode);
+        PerspectiveLayout layout = store.getPerspectiveLayout(projectId, userId, perspectiveId);
+        assertThat(layout.getRootNode(), is(Optional.of(defaultNode)));
+    }
+
+    @Test
+    public void shouldCacheMissingLayout() throws IOException {
+        store.getPerspectiveLayout(projectId, userId, perspectiveId);
+        write(defaultFile, defaultNode);
+        PerspectiveLayout layout = store.getPerspectiveLayout(projectId, userId, perspectiveId);
+        assertThat(layout.getRootNode(), is(Optional.empty()));
+        verify(perspectiveFileManager, times(1)).getPerspectiveLayoutForUser(projectId, perspectiveId, userId);
+        verify(perspectiveFileManager, times(1)).getDefaultPerspectiveLayoutForProject(projectId, perspectiveId);
+    }
+
+    @Test
+    public void shouldReturnSetLayout() throws IOException {
+        write(defaultFile, defaultNode);
+        store.getPerspectiveLayout(projectId, userId, perspectiveId);
+        store.setPerspectiveLayout(projectId, userId, new PerspectiveLayout(perspectiveId, Optional.of(userNode)));
+        PerspectiveLayout layout = store.getPerspectiveLayout(projectId, userId, perspectiveId);
+        assertThat(layout.getRootNode(), is(Optional.of(userNode)));
+    }
+
+    @Test
+    public void shouldReturnDefaultLayoutAfterClear() throws IOException {
+        write(defaultFile, defaultNode);
+        write(userFile, userNode);
+        store.getPerspectiveLayout(projectId, userId, perspectiveId);
+        store.clearPerspectiveLayout(projectId, userId, perspectiveId);
+        PerspectiveLayout layout = store.getPerspectiveLayout(projectId, userId, perspectiveId);
+        assertThat(layout.getRootNode(), is(Optional.of(defaultNode)));
+    }
+
+    private static void write(File file, Node node) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.write(new JsonNodeSerializer().serialize(node).getBytes(Charsets.UTF_8), file);
+    }
+}
@@ -0,0 +1,145 @@
+package edu.stanford.bmir.protege.web.server.project;
+
+import com.google.common.collect.ImmutableMap;
+import edu.stanford.bmir.protege.web.server.memory.HeapUsage;
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryCategory;
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryUsage;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MemoryPressureHandler_TestCase {
+
+    private static final long MAX_BYTES = 1000 * 100;
+
+    private static final int SHED_CACHES_FREE_PERCENT = 20;
+
+    private static final int UNLOAD_PROJECTS_FREE_PERCENT = 10;
+
+    private static final long UNLOAD_MIN_IDLE_TIME = 30_000;
+
+    @Mock
+    private ProjectCache projectCache;
+
+    private final ProjectId smallProjectId = ProjectId.get("11111111-1111-1111-1111-111111111111");
+
+    private final ProjectId largeProjectId = ProjectId.get("22222222-2222-2222-2222-222222222222");
+
+    private HeapUsage heapUsage;
+
+    private MemoryPressureHandler handler;
+
+    @Before
+    public void setUp() {
+        var settings = MemoryPressureSettings.get(SHED_CACHES_FREE_PERCENT,
+                                                  UNLOAD_PROJECTS_FREE_PERCENT,
+                                                  UNLOAD_MIN_IDLE_TIME);
+        handler = new MemoryPressureHandler(projectCache, settings, () -> heapUsage);
+        when(projectCache.getEstimatedMemoryUsage()).thenReturn(ImmutableMap.of(
+                smallProjectId, usage(10_000),
+                largeProjectId, usage(15_000)
+        ));
+        var now = System.currentTimeMillis();
+        when(projectCache.getLastAccessTime(smallProjectId)).thenReturn(now - 60_000);
+        when(projectCache.getLastAccessTime(largeProjectId)).thenReturn(now - 60_000);
+    }
+
+    private static ProjectMemoryUsage usage(long bytes) {
+        return ProjectMemoryUsage.get(ImmutableMap.of(ProjectMemoryCategory.ONTOLOGIES, bytes));
+    }
+
+    private void setFreePercent(int freePercent, long collectionCount) {
+        heapUsage = HeapUsage.get(MAX_BYTES, MAX_BYTES - MAX_BYTES / 100 * freePercent, collectionCount);
+    }
+
+    @Test
+    public void shouldNotRespondWhenFreeHeapIsAboveShedCachesWatermark() {
+        setFreePercent(50, 1);
+        handler.checkMemoryPressure();
+        verify(projectCache, never()).shedProjectCaches();
+        verify(projectCache, never()).purge(any(ProjectId.class));
+        assertThat(handler.getCacheShedCount(), is(0L));
+    }
+
+    @Test
+    public void shouldShedCachesWithoutUnloadingWhenFreeHeapIsAboveUnloadWatermark() {
+        setFreePercent(15, 1);
+        handler.checkMemoryPressure();
+        verify(projectCache).shedProjectCaches();
+        verify(projectCache, never()).purge(any(ProjectId.class));
+        assertThat(handler.getCacheShedCount(), is(1L));
+        assertThat(handler.getProjectUnloadCount(), is(0L));
+    }
+
+    @Test
+    public void shouldNotUnloadProjectsWhenSheddingCachesIsExpectedToReleaseEnough() {
+        setFreePercent(5, 1);
+        when(projectCache.shedProjectCaches()).thenReturn(MAX_BYTES / 100 * 10);
+        handler.checkMemoryPressure();
+        verify(projectCache, never()).purge(any(ProjectId.class));
+    }
+
+    @Test
+    public void shouldUnloadLargestIdleProjectFirst() {
+        setFreePercent(5, 1);
+        handler.checkMemoryPressure();
+        verify(projectCache).purge(largeProjectId);
+        verify(projectCache, never()).purge(smallProjectId);
+        assertThat(handler.getProjectUnloadCount(), is(1L));
+    }
+
+    @Test
+    public void shouldUnloadProjectsUntilFreeHeapIsExpectedToReachShedCachesWatermark() {
+        setFreePercent(0, 1);
+        handler.checkMemoryPressure();
+        InOrder inOrder = inOrder(projectCache);
+        inOrder.verify(projectCache).purge(largeProjectId);
+        inOrder.verify(projectCache).purge(smallProjectId);
+        assertThat(handler.getProjectUnloadCount(), is(2L));
+    }
+
+    @Test
+    public void shouldUnloadProjectThatHasBeenIdleForLongestFirst() {
+        var now = System.currentTimeMillis();
+        when(projectCache.getLastAccessTime(smallProjectId)).thenReturn(now - 60 * 60_000);
+        when(projectCache.getLastAccessTime(largeProjectId)).thenReturn(now - 2 * 60_000);
+        setFreePercent(0, 1);
+        handler.checkMemoryPressure();
+        InOrder inOrder = inOrder(projectCache);
+        inOrder.verify(projectCache).purge(smallProjectId);
+        inOrder.verify(projectCache).purge(largeProjectId);
+    }
+
+    @Test
+    public void shouldNotUnloadActiveProjectEvenWhenItIsTheLargest() {
+        var now = System.currentTimeMillis();
+        when(projectCache.getLastAccessTime(smallProjectId)).thenReturn(now - 60 * 60_000);
+        when(projectCache.getLastAccessTime(largeProjectId)).thenReturn(now);
+        setFreePercent(0, 1);
+        handler.checkMemoryPressure();
+        verify(projectCache).purge(smallProjectId);
+        verify(projectCache, never()).purge(largeProjectId);
+        assertThat(handler.getProjectUnloadCount(), is(1L));
+    }
+
+    @Test
+    public void shouldNotRespondAgainUntilThereHasBeenACollection() {
+        setFreePercent(15, 1);
+        handler.checkMemoryPressure();
+        handler.checkMemoryPressure();
+        verify(projectCache, times(1)).shedProjectCaches();
+        setFreePercent(15, 2);
+        handler.checkMemoryPressure();
+        verify(projectCache, times(2)).shedProjectCaches();
+    }
+}
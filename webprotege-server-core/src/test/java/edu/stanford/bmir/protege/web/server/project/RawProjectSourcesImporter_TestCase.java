@@ -0,0 +1,174 @@
+package edu.stanford.bmir.protege.web.server.project;
+
+import edu.stanford.bmir.protege.web.server.owlapi.WebProtegeOWLManager;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semanticweb.owlapi.io.FileDocumentSource;
+import org.semanticweb.owlapi.io.IRIDocumentSource;
+import org.semanticweb.owlapi.io.OWLOntologyDocumentSource;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.util.AutoIRIMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+
+public class RawProjectSourcesImporter_TestCase {
+
+    private static final String ROOT = "http://example.org/root";
+
+    private static final String MODULE_A = "http://example.org/moduleA";
+
+    private static final String MODULE_B = "http://example.org/moduleB";
+
+    private static final String UNRELATED = "http://example.org/unrelated";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File rootDocument;
+
+    private File baseDirectory;
+
+    private OWLOntologyManager manager;
+
+    @Before
+    public void setUp() throws IOException {
+        baseDirectory = temporaryFolder.newFolder();
+        rootDocument = writeDocument("root.ofn", ROOT, "Import(<" + MODULE_A + ">)");
+        writeDocument("moduleA.ofn", MODULE_A, "Import(<" + MODULE_B + ">)");
+        writeDocument("moduleB.ofn", MODULE_B, "");
+        writeDocument("unrelated.ofn", UNRELATED, "");
+        manager = WebProtegeOWLManager.createOWLOntologyManager();
+    }
+
+    @Test
+    public void shouldLoadImportsClosureOfRootOntologyInParallel() throws OWLOntologyCreationException {
+        var importer = new RawProjectSourcesImporter(manager,
+                                                     new OWLOntologyLoaderConfiguration(),
+                                                     new ParallelOntologyDocumentParser(2, 1024 * 1024));
+        var root = importer.importRawProjectSources(new TestSources(true));
+        assertThat(root.getOntologyID().getOntologyIRI().get(), is(IRI.create(ROOT)));
+        assertThat(getOntologyIris(manager.getOntologies()), containsInAnyOrder(ROOT, MODULE_A, MODULE_B));
+        assertThat(getOntologyIris(manager.getImportsClosure(root)), containsInAnyOrder(ROOT, MODULE_A, MODULE_B));
+    }
+
+    @Test
+    public void shouldLoadSameOntologiesAsSequentialImport() throws OWLOntologyCreationException {
+        var sequentialManager = WebProtegeOWLManager.createOWLOntologyManager();
+        var sequentialImporter = new RawProjectSourcesImporter(sequentialManager,
+                                                               new OWLOntologyLoaderConfiguration());
+        sequentialImporter.importRawProjectSources(new TestSources(false));
+        var parallelImporter = new RawProjectSourcesImporter(manager, new OWLOntologyLoaderConfiguration());
+        parallelImporter.importRawProjectSources(new TestSources(true));
+        assertThat(getOntologyIris(manager.getOntologies()),
+                   is(getOntologyIris(sequentialManager.getOntologies())));
+    }
+
+    @Test
+    public void shouldLoadOneOfTwoDocumentsThatContainTheSameOntology() throws OWLOntologyCreationException, IOException {
+        writeDocument("moduleB-copy.ofn", MODULE_B, "", "B");
+        var sequentialManager = WebProtegeOWLManager.createOWLOntologyManager();
+        var sequentialImporter = new RawProjectSourcesImporter(sequentialManager,
+                                                               new OWLOntologyLoaderConfiguration());
+        sequentialImporter.importRawProjectSources(new TestSources(false, "moduleB-copy.ofn"));
+        var parallelImporter = new RawProjectSourcesImporter(manager,
+                                                             new OWLOntologyLoaderConfiguration(),
+                                                             new ParallelOntologyDocumentParser(2, 1024 * 1024));
+        parallelImporter.importRawProjectSources(new TestSources(true, "moduleB-copy.ofn"));
+        assertThat(getOntologyIris(manager.getOntologies()), containsInAnyOrder(ROOT, MODULE_A, MODULE_B));
+        var moduleB = manager.getOntology(IRI.create(MODULE_B));
+        var sequentialModuleB = sequentialManager.getOntology(IRI.create(MODULE_B));
+        assertThat(moduleB.getAxioms(), is(sequentialModuleB.getAxioms()));
+    }
+
+    @Test
+    public void shouldIgnoreCorruptDocumentThatIsNotImported() throws OWLOntologyCreationException, IOException {
+        var corruptDocument = new File(baseDirectory, "corrupt.owl");
+        Files.write(corruptDocument.toPath(), "Ontology(<http://example.org/corrupt>\nDeclaration(Class(".getBytes(StandardCharsets.UTF_8));
+        var importer = new RawProjectSourcesImporter(manager,
+                                                     new OWLOntologyLoaderConfiguration(),
+                                                     new ParallelOntologyDocumentParser(2, 1024 * 1024));
+        var root = importer.importRawProjectSources(new TestSources(true, "corrupt.owl"));
+        assertThat(root.getOntologyID().getOntologyIRI().get(), is(IRI.create(ROOT)));
+        assertThat(getOntologyIris(manager.getOntologies()), containsInAnyOrder(ROOT, MODULE_A, MODULE_B));
+    }
+
+    private File writeDocument(String fileName, String ontologyIri, String imports) throws IOException {
+        return writeDocument(fileName, ontologyIri, imports, "A");
+    }
+
+    private File writeDocument(String fileName, String ontologyIri, String imports, String className) throws IOException {
+        var file = new File(baseDirectory, fileName);
+        var content = "Ontology(<" + ontologyIri + ">\n"
+                + imports + "\n"
+                + "Declaration(Class(<" + ontologyIri + "#" + className + ">))\n"
+                + ")";
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static List<String> getOntologyIris(Collection<OWLOntology> ontologies) {
+        return ontologies.stream()
+                         .map(ont -> ont.getOntologyID().getOntologyIRI().get().toString())
+                         .sorted()
+                         .collect(Collectors.toList());
+    }
+
+    private class TestSources implements RawProjectSources {
+
+        private final boolean exposeContainedDocuments;
+
+        private final List<String> additionalDocumentFileNames;
+
+        private final AutoIRIMapper iriMapper = new AutoIRIMapper(baseDirectory, true);
+
+        private TestSources(boolean exposeContainedDocuments, String... additionalDocumentFileNames) {
+            this.exposeContainedDocuments = exposeContainedDocuments;
+            this.additionalDocumentFileNames = asList(additionalDocumentFileNames);
+        }
+
+        @Override
+        public Collection<OWLOntologyDocumentSource> getDocumentSources() {
+            return singletonList(new FileDocumentSource(rootDocument));
+        }
+
+        @Override
+        public Collection<OWLOntologyDocumentSource> getContainedDocumentSources() {
+            if(!exposeContainedDocuments) {
+                return RawProjectSources.super.getContainedDocumentSources();
+            }
+            var documentSources = new ArrayList<OWLOntologyDocumentSource>();
+            for(var fileName : asList("moduleA.ofn", "moduleB.ofn", "unrelated.ofn")) {
+                documentSources.add(new IRIDocumentSource(IRI.create(new File(baseDirectory, fileName))));
+            }
+            for(var fileName : additionalDocumentFileNames) {
+                documentSources.add(new IRIDocumentSource(IRI.create(new File(baseDirectory, fileName))));
+            }
+            return documentSources;
+        }
+
+        @Override
+        public OWLOntologyIRIMapper getOntologyIRIMapper() {
+            return iriMapper;
+        }
+
+        @Override
+        public void cleanUpTemporaryFiles() {
+
+        }
+    }
+}
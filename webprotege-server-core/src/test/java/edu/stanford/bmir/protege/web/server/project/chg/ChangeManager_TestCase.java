@@ -0,0 +1,276 @@
+package edu.stanford.bmir.protege.web.server.project.chg;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.bmir.protege.web.server.access.AccessManager;
+import edu.stanford.bmir.protege.web.server.access.Resource;
+import edu.stanford.bmir.protege.web.server.access.Subject;
+import edu.stanford.bmir.protege.web.server.app.UserInSessionFactory;
+import edu.stanford.bmir.protege.web.server.change.ChangeApplicationResult;
+import edu.stanford.bmir.protege.web.server.change.FixedChangeListGenerator;
+import edu.stanford.bmir.protege.web.server.crud.EntityCrudContextFactory;
+import edu.stanford.bmir.protege.web.server.crud.EntityCrudKitHandler;
+import edu.stanford.bmir.protege.web.server.crud.ProjectEntityCrudKitHandlerCache;
+import edu.stanford.bmir.protege.web.server.crud.obo.OBOIdAllocationIndex;
+import edu.stanford.bmir.protege.web.server.events.EventLifeTime;
+import edu.stanford.bmir.protege.web.server.events.EventManager;
+import edu.stanford.bmir.protege.web.server.events.EventTranslator;
+import edu.stanford.bmir.protege.web.server.events.EventTranslatorManager;
+import edu.stanford.bmir.protege.web.server.hierarchy.ClassHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.hierarchy.OWLAnnotationPropertyHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.hierarchy.OWLDataPropertyHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.hierarchy.OWLObjectPropertyHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.index.IndexUpdater;
+import edu.stanford.bmir.protege.web.server.lang.ActiveLanguagesManager;
+import edu.stanford.bmir.protege.web.server.owlapi.RenameMapFactory;
+import edu.stanford.bmir.protege.web.server.owlapi.WebProtegeOWLManager;
+import edu.stanford.bmir.protege.web.server.project.BuiltInPrefixDeclarations;
+import edu.stanford.bmir.protege.web.server.project.PrefixDeclarationsStore;
+import edu.stanford.bmir.protege.web.server.project.ProjectDetailsRepository;
+import edu.stanford.bmir.protege.web.server.renderer.RenderingManager;
+import edu.stanford.bmir.protege.web.server.revision.Revision;
+import edu.stanford.bmir.protege.web.server.revision.RevisionManager;
+import edu.stanford.bmir.protege.web.server.shortform.DictionaryManager;
+import edu.stanford.bmir.protege.web.server.shortform.DictionaryUpdatesProcessor;
+import edu.stanford.bmir.protege.web.server.tag.CriteriaBasedTagsIndex;
+import edu.stanford.bmir.protege.web.server.webhook.ProjectChangedWebhookInvoker;
+import edu.stanford.bmir.protege.web.shared.access.BuiltInAction;
+import edu.stanford.bmir.protege.web.shared.event.ClassFrameChangedEvent;
+import edu.stanford.bmir.protege.web.shared.event.ProjectEvent;
+import edu.stanford.bmir.protege.web.shared.project.PrefixDeclarations;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.*;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChangeManager_TestCase {
+
+    private static final UserId USER_ID = UserId.getUserId("User");
+
+    private final ProjectId projectId = ProjectId.get(UUID.randomUUID().toString());
+
+    @Mock
+    private AccessManager accessManager;
+
+    @Mock
+    private PrefixDeclarationsStore prefixDeclarationsStore;
+
+    @Mock
+    private ProjectDetailsRepository projectDetailsRepository;
+
+    @Mock
+    private ProjectEntityCrudKitHandlerCache entityCrudKitHandlerCache;
+
+    @Mock
+    private EntityCrudKitHandler<?, ?> entityCrudKitHandler;
+
+    @Mock
+    private RevisionManager revisionManager;
+
+    @Mock
+    private RenderingManager renderingManager;
+
+    private EventManager<ProjectEvent<?>> eventManager;
+
+    private final CountDownLatch revisionsAdded = new CountDownLatch(2);
+
+    private final CountDownLatch firstTranslationStarted = new CountDownLatch(1);
+
+    private final CountDownLatch firstTranslationMayFinish = new CountDownLatch(1);
+
+    private volatile boolean blockFirstTranslation = false;
+
+    private ExecutorService executorService;
+
+    private OWLOntology rootOntology;
+
+    private OWLDataFactory dataFactory;
+
+    private ChangeManager changeManager;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws OWLOntologyCreationException {
+        executorService = Executors.newFixedThreadPool(2);
+        eventManager = new EventManager<>(EventLifeTime.get(1, TimeUnit.HOURS));
+        // The ontology store edits the root ontology through a project manager, as loaded projects do
+        var delegateManager = WebProtegeOWLManager.createConcurrentOWLOntologyManager();
+        var ontologyManager = new ProjectOWLOntologyManager();
+        ontologyManager.setDelegate(delegateManager);
+        rootOntology = delegateManager.createOntology();
+        ontologyManager.sealDelegate();
+        dataFactory = delegateManager.getOWLDataFactory();
+
+        when(accessManager.hasPermission(any(Subject.class), any(Resource.class), any(BuiltInAction.class))).thenReturn(true);
+        when(prefixDeclarationsStore.find(projectId)).thenReturn(PrefixDeclarations.get(projectId));
+        when(entityCrudKitHandlerCache.getHandler()).thenReturn((EntityCrudKitHandler) entityCrudKitHandler);
+        var nextRevisionNumber = new AtomicLong();
+        when(revisionManager.addRevision(any(UserId.class), anyListOf(OWLOntologyChangeRecord.class), anyString()))
+                .thenAnswer(invocation -> {
+                    revisionsAdded.countDown();
+                    return new Revision(USER_ID,
+                                        RevisionNumber.getRevisionNumber(nextRevisionNumber.incrementAndGet()),
+                                        ImmutableList.of(),
+                                        System.currentTimeMillis(),
+                                        "Changes");
+                });
+
+        var translator = new DeclarationTranslator();
+        changeManager = new ChangeManager(projectId,
+                                          mock(DictionaryUpdatesProcessor.class),
+                                          mock(ActiveLanguagesManager.class),
+                                          accessManager,
+                                          prefixDeclarationsStore,
+                                          projectDetailsRepository,
+                                          mock(ProjectChangedWebhookInvoker.class),
+                                          eventManager,
+                                          () -> new EventTranslatorManager(ImmutableSet.of(translator), executorService),
+                                          entityCrudKitHandlerCache,
+                                          revisionManager,
+                                          dataFactory,
+                                          mock(DictionaryManager.class),
+                                          mock(ClassHierarchyProvider.class),
+                                          mock(OWLObjectPropertyHierarchyProvider.class),
+                                          mock(OWLDataPropertyHierarchyProvider.class),
+                                          mock(OWLAnnotationPropertyHierarchyProvider.class),
+                                          mock(UserInSessionFactory.class),
+                                          new EntityCrudContextFactory(() -> projectId, () -> projectDetailsRepository),
+                                          new RenameMapFactory(() -> dataFactory, () -> renderingManager),
+                                          BuiltInPrefixDeclarations.get(ImmutableList.of()),
+                                          new IndexUpdater(),
+                                          rootOntology::getOntologyID,
+                                          new OntologyStoreImpl(rootOntology),
+                                          mock(CriteriaBasedTagsIndex.class),
+                                          mock(OBOIdAllocationIndex.class),
+                                          (lockedProjectId, waitNanos) -> {});
+    }
+
+    @After
+    public void tearDown() {
+        firstTranslationMayFinish.countDown();
+        eventManager.dispose();
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void shouldContainEventsForOwnRevisionWhenChangesHaveBeenApplied() {
+        // Change handlers read the events for their changes from the tag that was current before the changes
+        var tag = eventManager.getCurrentTag();
+        changeManager.applyChanges(USER_ID, declareClass("A"));
+        var events = eventManager.getEventsFromTag(tag).getEvents();
+        assertThat(events, contains(frameChangedEvent("A")));
+    }
+
+    @Test
+    public void shouldPostEventsInRevisionOrder() {
+        var tag = eventManager.getCurrentTag();
+        changeManager.applyChanges(USER_ID, declareClass("A"));
+        changeManager.applyChanges(USER_ID, declareClass("B"));
+        var events = eventManager.getEventsFromTag(tag).getEvents();
+        assertThat(events, contains(frameChangedEvent("A"), frameChangedEvent("B")));
+    }
+
+    @Test(timeout = 10_000)
+    public void shouldApplyChangesWhilstEventsForPreviousRevisionAreBeingTranslated() throws Exception {
+        blockFirstTranslation = true;
+        var tag = eventManager.getCurrentTag();
+        var writers = Executors.newFixedThreadPool(2);
+        try {
+            var first = writers.submit(() -> changeManager.applyChanges(USER_ID, declareClass("A")));
+            firstTranslationStarted.await();
+            var second = writers.submit(() -> changeManager.applyChanges(USER_ID, declareClass("B")));
+            // Blocks if applying changes waits for the events for the previous revision
+            revisionsAdded.await();
+            assertThat(eventManager.getEventsFromTag(tag).getEvents(), is(empty()));
+            firstTranslationMayFinish.countDown();
+            first.get();
+            second.get();
+            var events = eventManager.getEventsFromTag(tag).getEvents();
+            assertThat(events, contains(frameChangedEvent("A"), frameChangedEvent("B")));
+        } finally {
+            writers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldNotPostEventsForChangesThatHadNoEffect() {
+        changeManager.applyChanges(USER_ID, declareClass("A"));
+        var tag = eventManager.getCurrentTag();
+        changeManager.applyChanges(USER_ID, declareClass("A"));
+        assertThat(eventManager.getCurrentTag(), is(tag));
+    }
+
+    private FixedChangeListGenerator<Boolean> declareClass(String name) {
+        var change = new AddAxiom(rootOntology, dataFactory.getOWLDeclarationAxiom(getOWLClass(name)));
+        return FixedChangeListGenerator.get(ImmutableList.of(change), true, "Declared " + name);
+    }
+
+    private OWLClass getOWLClass(String name) {
+        return dataFactory.getOWLClass(IRI.create("http://example.org/" + name));
+    }
+
+    private ProjectEvent<?> frameChangedEvent(String name) {
+        return new ClassFrameChangedEvent(getOWLClass(name), projectId, USER_ID);
+    }
+
+    /**
+     * Generates an event for each class that is declared by the applied changes, provided that the declaration is
+     * in the ontology when the changes are translated.  The translation of the first revision can be made to wait
+     * until it is allowed to finish.
+     */
+    private class DeclarationTranslator implements EventTranslator {
+
+        @Override
+        public void prepareForOntologyChanges(List<OWLOntologyChange> submittedChanges) {
+
+        }
+
+        @Override
+        public void translateOntologyChanges(Revision revision,
+                                             ChangeApplicationResult<?> changes,
+                                             List<ProjectEvent<?>> projectEventList) {
+            if(blockFirstTranslation && revision.getRevisionNumber().getValue() == 1) {
+                firstTranslationStarted.countDown();
+                try {
+                    firstTranslationMayFinish.await();
+                } catch(InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            changes.getChangeList()
+                   .stream()
+                   .filter(OWLOntologyChange::isAxiomChange)
+                   .map(OWLOntologyChange::getAxiom)
+                   .filter(ax -> ax instanceof OWLDeclarationAxiom)
+                   .filter(rootOntology::containsAxiom)
+                   .map(ax -> ((OWLDeclarationAxiom) ax).getEntity())
+                   .filter(OWLEntity::isOWLClass)
+                   .map(entity -> new ClassFrameChangedEvent(entity.asOWLClass(), projectId, USER_ID))
+                   .forEach(projectEventList::add);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semanticweb.owlapi.change.AddAxiomData;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLOntologyID;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ChangeHistoryBlockFormat_TestCase {
+
+    private static final int REVISION_COUNT = 100;
+
+    private static final UserId USER = UserId.getUserId("User");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final OWLDataFactoryImpl dataFactory = new OWLDataFactoryImpl();
+
+    private final ProjectId projectId = ProjectId.get(UUID.randomUUID().toString());
+
+    private File changeHistoryFile;
+
+    @Before
+    public void setUp() throws Exception {
+        changeHistoryFile = new File(temporaryFolder.newFolder(), "change-data.binary");
+        for(int i = 1; i <= REVISION_COUNT; i++) {
+            new RevisionSerializationTask(changeHistoryFile, createRevision(i)).call();
+        }
+    }
+
+    @Test
+    public void shouldMigrateOriginalFormatOnLoad() throws Exception {
+        var originalLength = changeHistoryFile.length();
+        assertThat(ChangeHistoryBlockFormat.isBlockFormat(changeHistoryFile), is(false));
+        loadStore().dispose();
+        assertThat(ChangeHistoryBlockFormat.isBlockFormat(changeHistoryFile), is(true));
+        assertThat(changeHistoryFile.length(), is(lessThan(originalLength)));
+        var store = loadStore();
+        assertThat(getRevisionNumbers(store.getRevisions()).size(), is(REVISION_COUNT));
+        store.dispose();
+    }
+
+    @Test
+    public void shouldKeepOriginalFormatUntilMigratedHistoryHasBeenLoaded() {
+        var originalLength = changeHistoryFile.length();
+        var backupFile = new File(changeHistoryFile.getParentFile(), changeHistoryFile.getName() + ".bak");
+        loadStore().dispose();
+        assertThat(backupFile.length(), is(originalLength));
+        loadStore().dispose();
+        assertThat(backupFile.exists(), is(false));
+    }
+
+    @Test
+    public void shouldAppendRevisionsAfterMigration() {
+        var store = loadStore();
+        store.addRevision(createRevision(REVISION_COUNT + 1));
+        store.addRevision(createRevision(REVISION_COUNT + 2));
+        store.dispose();
+        var reloadedStore = loadStore();
+        var revisionNumbers = getRevisionNumbers(reloadedStore.getRevisions());
+        assertThat(revisionNumbers.size(), is(REVISION_COUNT + 2));
+        assertThat(revisionNumbers.get(REVISION_COUNT + 1), is((long) REVISION_COUNT + 2));
+        reloadedStore.dispose();
+    }
+
+    @Test
+    public void shouldReadBlocksIndependently() throws Exception {
+        loadStore().dispose();
+        var reader = new ChangeHistoryBlockReader(changeHistoryFile);
+        var blocks = reader.readBlockIndex().getBlocks();
+        assertThat(blocks, is(not(empty())));
+        var lastBlock = blocks.get(blocks.size() - 1);
+        assertThat(lastBlock.getLastRevisionNumber(), is(RevisionNumber.getRevisionNumber(REVISION_COUNT)));
+        var revisionNumbers = new ArrayList<Long>();
+        var revisionAttribute = RevisionSerializationVocabulary.REVISION_META_DATA_ATTRIBUTE.getVocabularyName();
+        reader.readRevisions(lastBlock, dataFactory, (list, skipSetting, position) ->
+                revisionNumbers.add(list.getMetadata().getLongAttribute(revisionAttribute, 0L)));
+        assertThat(revisionNumbers.size(), is(lastBlock.getRevisionCount()));
+        assertThat(revisionNumbers.get(revisionNumbers.size() - 1), is((long) REVISION_COUNT));
+    }
+
+    @Test
+    public void shouldDiscardPartiallyWrittenBlock() throws Exception {
+        loadStore().dispose();
+        var validLength = changeHistoryFile.length();
+        // Simulate a crash part way through writing a block
+        try(var file = new RandomAccessFile(changeHistoryFile, "rw")) {
+            file.seek(validLength);
+            file.writeByte(ChangeHistoryBlockFormat.BLOCK_RECORD);
+            file.writeLong(REVISION_COUNT + 1);
+        }
+        var store = loadStore();
+        assertThat(getRevisionNumbers(store.getRevisions()).size(), is(REVISION_COUNT));
+        assertThat(changeHistoryFile.length(), is(validLength));
+        store.dispose();
+    }
+
+    @Test
+    public void shouldNotCompressWithNoCompression() {
+        var data = new byte[]{1, 2, 3};
+        assertThat(ChangeHistoryCompression.NONE.compress(data, new byte[0]), is(data));
+    }
+
+    @Test
+    public void shouldDecompressWithDictionary() throws Exception {
+        var dictionary = ChangeHistoryBlockFormat.createDictionary(List.of(IRI.create("http://example.org/C1")));
+        var data = "http://example.org/C1 http://example.org/C1".getBytes();
+        var compressed = ChangeHistoryCompression.DEFLATE.compress(data, dictionary);
+        assertThat(ChangeHistoryCompression.DEFLATE.decompress(ByteBuffer.wrap(compressed), data.length, dictionary),
+                   is(ByteBuffer.wrap(data)));
+    }
+
+    private RevisionStoreImpl loadStore() {
+        var store = new RevisionStoreImpl(projectId, changeHistoryFile, dataFactory);
+        store.load();
+        return store;
+    }
+
+    private Revision createRevision(long number) {
+        var cls = dataFactory.getOWLClass(IRI.create("http://example.org/ontology/C" + (number % 10)));
+        var label = dataFactory.getOWLAnnotationAssertionAxiom(dataFactory.getRDFSLabel(),
+                                                               cls.getIRI(),
+                                                               dataFactory.getOWLLiteral("Label " + number));
+        var records = ImmutableList.of(new OWLOntologyChangeRecord(new OWLOntologyID(), new AddAxiomData(dataFactory.getOWLDeclarationAxiom(cls))),
+                                       new OWLOntologyChangeRecord(new OWLOntologyID(), new AddAxiomData(label)));
+        return new Revision(USER,
+                            RevisionNumber.getRevisionNumber(number),
+                            records,
+                            number,
+                            "Revision " + number);
+    }
+
+    private static List<Long> getRevisionNumbers(ImmutableList<Revision> revisions) {
+        return revisions.stream()
+                        .map(rev -> rev.getRevisionNumber().getValue())
+                        .collect(toList());
+    }
+}
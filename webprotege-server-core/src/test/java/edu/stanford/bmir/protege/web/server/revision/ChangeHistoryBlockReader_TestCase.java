@@ -0,0 +1,158 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semanticweb.owlapi.change.AddAxiomData;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLOntologyID;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.LongStream;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class ChangeHistoryBlockReader_TestCase {
+
+    private static final int REVISION_COUNT = 700;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final OWLDataFactoryImpl dataFactory = new OWLDataFactoryImpl();
+
+    private File changeHistoryFile;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        changeHistoryFile = new File(temporaryFolder.newFolder(), "change-data.binary");
+        var revisions = new ArrayList<Revision>();
+        for(int i = 1; i <= REVISION_COUNT; i++) {
+            revisions.add(createRevision(i));
+        }
+        ChangeHistoryBlockFormat.writeChangeHistory(changeHistoryFile,
+                                                    revisions,
+                                                    ChangeHistoryCompression.DEFLATE,
+                                                    new byte[0]);
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldReadBlockIndex() throws Exception {
+        var blockIndex = new ChangeHistoryBlockReader(changeHistoryFile).readBlockIndex();
+        assertThat(blockIndex.getBlocks().size(), is(greaterThan(1)));
+        assertThat(blockIndex.hasTruncatedTail(), is(false));
+        var revisionCount = blockIndex.getBlocks().stream().mapToInt(ChangeHistoryBlock::getRevisionCount).sum();
+        assertThat(revisionCount, is(REVISION_COUNT));
+    }
+
+    @Test
+    public void shouldReadRevisionsInOrderInParallel() throws Exception {
+        var reader = new ChangeHistoryBlockReader(changeHistoryFile);
+        var blocks = reader.readBlockIndex().getBlocks();
+        var revisionAttribute = RevisionSerializationVocabulary.REVISION_META_DATA_ATTRIBUTE.getVocabularyName();
+        var revisionNumbers = reader.readRevisions(blocks,
+                                                   dataFactory,
+                                                   list -> list.getMetadata().getLongAttribute(revisionAttribute, 0L),
+                                                   executor);
+        var expected = LongStream.rangeClosed(1, REVISION_COUNT).boxed().collect(toList());
+        assertThat(revisionNumbers, is(expected));
+    }
+
+    @Test
+    public void shouldTreatFinalBlockWithBadChecksumAsTruncatedTail() throws Exception {
+        var blocks = new ChangeHistoryBlockReader(changeHistoryFile).readBlockIndex().getBlocks();
+        var lastBlock = blocks.get(blocks.size() - 1);
+        corruptByteAt(lastBlock.getDataPosition());
+        var blockIndex = new ChangeHistoryBlockReader(changeHistoryFile).readBlockIndex();
+        assertThat(blockIndex.hasTruncatedTail(), is(true));
+        assertThat(blockIndex.getBlocks().size(), is(blocks.size() - 1));
+        assertThat(blockIndex.getValidLength(), is(lessThan(lastBlock.getDataPosition())));
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void shouldFailToLoadChangeHistoryWithCorruptBlockBeforeTheEnd() throws Exception {
+        var blocks = new ChangeHistoryBlockReader(changeHistoryFile).readBlockIndex().getBlocks();
+        corruptByteAt(blocks.get(0).getDataPosition());
+        var fileLength = changeHistoryFile.length();
+        try {
+            new RevisionStoreImpl(ProjectId.get(UUID.randomUUID().toString()), changeHistoryFile, dataFactory).load();
+        } finally {
+            // Nothing must have been truncated
+            assertThat(changeHistoryFile.length(), is(fileLength));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldFailWhenDamagedRecordIsFollowedByIntactBlock() throws Exception {
+        var blocks = new ChangeHistoryBlockReader(changeHistoryFile).readBlockIndex().getBlocks();
+        var lastBlock = blocks.get(blocks.size() - 1);
+        var lastBlockRecordPosition = (int) lastBlock.getDataPosition() - ChangeHistoryBlockFormat.BLOCK_RECORD_HEADER_LENGTH;
+        var lastBlockRecord = Arrays.copyOfRange(Files.readAllBytes(changeHistoryFile.toPath()),
+                                                 lastBlockRecordPosition,
+                                                 (int) changeHistoryFile.length());
+        try(var out = new DataOutputStream(new FileOutputStream(changeHistoryFile, true))) {
+            // The header of a block whose data was never written, followed by an intact block
+            out.writeByte(ChangeHistoryBlockFormat.BLOCK_RECORD);
+            out.writeLong(REVISION_COUNT + 1);
+            out.writeLong(REVISION_COUNT + 1);
+            out.writeInt(1);
+            out.writeByte(ChangeHistoryCompression.DEFLATE.getCode());
+            out.writeInt(1000);
+            out.writeInt(lastBlockRecord.length * 2);
+            out.writeInt(0);
+            out.write(lastBlockRecord);
+        }
+        new ChangeHistoryBlockReader(changeHistoryFile).readBlockIndex();
+    }
+
+    private void corruptByteAt(long position) throws Exception {
+        try(var file = new RandomAccessFile(changeHistoryFile, "rw")) {
+            file.seek(position);
+            var b = file.read();
+            file.seek(position);
+            file.write(b ^ 0xFF);
+        }
+    }
+
+    private Revision createRevision(long number) {
+        var cls = dataFactory.getOWLClass(IRI.create("http://example.org/C" + number));
+        var record = new OWLOntologyChangeRecord(new OWLOntologyID(),
+                                                 new AddAxiomData(dataFactory.getOWLDeclarationAxiom(cls)));
+        return new Revision(UserId.getUserId("User"),
+                            RevisionNumber.getRevisionNumber(number),
+                            ImmutableList.of(record),
+                            number,
+                            "Revision " + number);
+    }
+}
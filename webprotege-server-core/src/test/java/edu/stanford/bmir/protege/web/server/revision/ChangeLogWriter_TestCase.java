@@ -0,0 +1,412 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semanticweb.owlapi.change.AddAxiomData;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLOntologyID;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+
+public class ChangeLogWriter_TestCase {
+
+    private static final int REVISION_COUNT = 50;
+
+    private static final UserId USER = UserId.getUserId("User");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final OWLDataFactoryImpl dataFactory = new OWLDataFactoryImpl();
+
+    private final ProjectId projectId = ProjectId.get(UUID.randomUUID().toString());
+
+    private File changeHistoryFile;
+
+    private RevisionIndexFile revisionIndexFile;
+
+    private ChangeLogWriter writer;
+
+    @Before
+    public void setUp() throws Exception {
+        changeHistoryFile = new File(temporaryFolder.newFolder(), "change-data.binary");
+        revisionIndexFile = RevisionIndexFile.forChangeHistoryFile(changeHistoryFile);
+        writer = new ChangeLogWriter(projectId,
+                                     changeHistoryFile,
+                                     revisionIndexFile,
+                                     ChangeLogWriterSettings.get(ChangeLogSyncPolicy.EVERY_BATCH,
+                                                                 1000,
+                                                                 5,
+                                                                 ChangeHistoryCompression.DEFLATE),
+                                     List::of);
+    }
+
+    @After
+    public void tearDown() {
+        writer.dispose();
+    }
+
+    @Test
+    public void shouldWriteAllRevisionsInOrder() throws Exception {
+        var written = new ArrayList<CompletableFuture<Void>>();
+        for(int i = 1; i <= REVISION_COUNT; i++) {
+            var revision = createRevision(i);
+            written.add(writer.append(revision, RevisionIndexEntry.get(revision)));
+        }
+        CompletableFuture.allOf(written.toArray(new CompletableFuture[0])).get();
+        var store = new RevisionStoreImpl(projectId, changeHistoryFile, dataFactory);
+        store.load();
+        var revisionNumbers = store.getRevisions()
+                                   .stream()
+                                   .map(rev -> rev.getRevisionNumber().getValue())
+                                   .collect(toList());
+        assertThat(revisionNumbers.size(), is(REVISION_COUNT));
+        assertThat(revisionNumbers.get(0), is(1L));
+        assertThat(revisionNumbers.get(REVISION_COUNT - 1), is((long) REVISION_COUNT));
+        assertThat(revisionIndexFile.read().size(), is(REVISION_COUNT));
+        store.dispose();
+    }
+
+    @Test
+    public void shouldWritePendingRevisionsOnDispose() {
+        var revision = createRevision(1);
+        var written = writer.append(revision, RevisionIndexEntry.get(revision));
+        writer.dispose();
+        assertThat(written.isDone(), is(true));
+        assertThat(changeHistoryFile.length(), is(greaterThan(0L)));
+    }
+
+    @Test
+    public void shouldRecordStatistics() throws Exception {
+        var revision = createRevision(1);
+        writer.append(revision, RevisionIndexEntry.get(revision)).get();
+        var statistics = writer.getStatistics();
+        assertThat(statistics.getFlushCount(), is(1L));
+        assertThat(statistics.getFlushedRevisionCount(), is(1L));
+        assertThat(statistics.getFlushedByteCount(),
+                   is(changeHistoryFile.length() - ChangeHistoryBlockFormat.HEADER_LENGTH));
+        assertThat(statistics.getQueueDepth(), is(0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotAcceptRevisionsAfterDispose() {
+        writer.dispose();
+        var revision = createRevision(1);
+        writer.append(revision, RevisionIndexEntry.get(revision));
+    }
+
+    @Test
+    public void shouldCarryOnWithLastSegmentWhenReopened() throws Exception {
+        var subjects = createDictionarySubjects("http://example.org/A");
+        replaceWriter(() -> subjects);
+        append(1).get();
+        writer.dispose();
+        var lengthAfterFirstSegment = changeHistoryFile.length();
+        replaceWriter(() -> subjects);
+        append(2).get();
+        writer.dispose();
+        var dictionary = ChangeHistoryBlockFormat.createDictionary(subjects);
+        assertThat(changeHistoryFile.length() - lengthAfterFirstSegment, is(lessThan((long) dictionary.length)));
+        var blocks = new ChangeHistoryBlockReader(changeHistoryFile).readBlockIndex().getBlocks();
+        assertThat(blocks.size(), is(2));
+        assertThat(blocks.get(1).getDictionary(), is(dictionary));
+        assertThat(loadRevisionNumbers(), contains(1L, 2L));
+    }
+
+    @Test
+    public void shouldStartNewSegmentWhenDictionaryChangesMaterially() throws Exception {
+        replaceWriter(() -> createDictionarySubjects("http://example.org/A"));
+        append(1).get();
+        writer.dispose();
+        var changedSubjects = createDictionarySubjects("http://example.org/B");
+        replaceWriter(() -> changedSubjects);
+        append(2).get();
+        writer.dispose();
+        var blocks = new ChangeHistoryBlockReader(changeHistoryFile).readBlockIndex().getBlocks();
+        assertThat(blocks.get(1).getDictionary(), is(ChangeHistoryBlockFormat.createDictionary(changedSubjects)));
+        assertThat(loadRevisionNumbers(), contains(1L, 2L));
+    }
+
+    private void replaceWriter(Supplier<List<IRI>> segmentDictionarySubjectsSupplier) {
+        writer.dispose();
+        writer = new ChangeLogWriter(projectId,
+                                     changeHistoryFile,
+                                     revisionIndexFile,
+                                     ChangeLogWriterSettings.get(ChangeLogSyncPolicy.EVERY_BATCH,
+                                                                 1000,
+                                                                 5,
+                                                                 ChangeHistoryCompression.DEFLATE),
+                                     segmentDictionarySubjectsSupplier);
+    }
+
+    private static List<IRI> createDictionarySubjects(String prefix) {
+        return IntStream.range(0, 100)
+                        .mapToObj(i -> IRI.create(prefix + "/Subject" + i))
+                        .collect(toList());
+    }
+
+    @Test
+    public void shouldRetryPartiallyWrittenBatch() throws Exception {
+        var failingWrites = new AtomicInteger();
+        replaceWriterWithFailingWriter(failingWrites, IOException::new);
+        append(1).get();
+        failingWrites.set(1);
+        append(2).get();
+        append(3).get();
+        writer.dispose();
+        assertThat(loadRevisionNumbers(), contains(1L, 2L, 3L));
+    }
+
+    @Test
+    public void shouldFailClosedWhenBatchCannotBeWritten() throws Exception {
+        var failingWrites = new AtomicInteger();
+        replaceWriterWithFailingWriter(failingWrites, IOException::new);
+        append(1).get();
+        failingWrites.set(Integer.MAX_VALUE);
+        try {
+            append(2).get();
+            fail("Expected the write to fail");
+        } catch(ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(IOException.class)));
+        }
+        failingWrites.set(0);
+        try {
+            append(3);
+            fail("Expected the writer to have failed");
+        } catch(IllegalStateException e) {
+            assertThat(e.getCause(), is(instanceOf(IOException.class)));
+        }
+        writer.dispose();
+        assertThat(loadRevisionNumbers(), contains(1L));
+    }
+
+    @Test
+    public void shouldFailBatchWhenChannelThrowsRuntimeException() throws Exception {
+        var failingWrites = new AtomicInteger();
+        replaceWriterWithFailingWriter(failingWrites, IllegalStateException::new);
+        append(1).get();
+        failingWrites.set(Integer.MAX_VALUE);
+        try {
+            append(2).get(10, TimeUnit.SECONDS);
+            fail("Expected the write to fail");
+        } catch(ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(IllegalStateException.class)));
+        }
+        try {
+            writer.checkNotFailed();
+            fail("Expected the writer to have failed");
+        } catch(IllegalStateException e) {
+            assertThat(e.getCause(), is(instanceOf(IllegalStateException.class)));
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void shouldDisposeAfterWriterHasFailed() throws Exception {
+        var failingWrites = new AtomicInteger(Integer.MAX_VALUE);
+        replaceWriterWithFailingWriter(failingWrites, IllegalStateException::new);
+        var written = append(1);
+        try {
+            written.get();
+            fail("Expected the write to fail");
+        } catch(ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(IllegalStateException.class)));
+        }
+        writer.dispose();
+        assertThat(written.isCompletedExceptionally(), is(true));
+    }
+
+    private void replaceWriterWithFailingWriter(AtomicInteger failingWrites,
+                                                Function<String, ? extends Exception> failureFactory) {
+        writer.dispose();
+        writer = new ChangeLogWriter(projectId,
+                                     changeHistoryFile,
+                                     revisionIndexFile,
+                                     ChangeLogWriterSettings.get(ChangeLogSyncPolicy.EVERY_BATCH,
+                                                                 1000,
+                                                                 5,
+                                                                 ChangeHistoryCompression.DEFLATE),
+                                     List::of,
+                                     file -> new FailingFileChannel(FileChannel.open(file.toPath(),
+                                                                                     StandardOpenOption.CREATE,
+                                                                                     StandardOpenOption.WRITE),
+                                                                    failingWrites,
+                                                                    failureFactory));
+    }
+
+    private List<Long> loadRevisionNumbers() throws Exception {
+        var store = new RevisionStoreImpl(projectId, changeHistoryFile, dataFactory);
+        store.load();
+        var revisionNumbers = store.getRevisions()
+                                   .stream()
+                                   .map(rev -> rev.getRevisionNumber().getValue())
+                                   .collect(toList());
+        store.dispose();
+        return revisionNumbers;
+    }
+
+    private CompletableFuture<Void> append(long revisionNumber) {
+        var revision = createRevision(revisionNumber);
+        return writer.append(revision, RevisionIndexEntry.get(revision));
+    }
+
+    private Revision createRevision(long number) {
+        var cls = dataFactory.getOWLClass(IRI.create("http://example.org/C" + number));
+        var record = new OWLOntologyChangeRecord(new OWLOntologyID(),
+                                                 new AddAxiomData(dataFactory.getOWLDeclarationAxiom(cls)));
+        return new Revision(USER,
+                            RevisionNumber.getRevisionNumber(number),
+                            ImmutableList.of(record),
+                            number,
+                            "Revision " + number);
+    }
+
+    /**
+     * A channel that, whilst there are writes left to fail, writes half of the bytes that it is asked to write
+     * and then fails with an exception from the failure factory.  Writes are always appended to the end of the file.
+     */
+    private static class FailingFileChannel extends FileChannel {
+
+        private final FileChannel delegate;
+
+        private final AtomicInteger failingWrites;
+
+        private final Function<String, ? extends Exception> failureFactory;
+
+        private FailingFileChannel(FileChannel delegate,
+                                   AtomicInteger failingWrites,
+                                   Function<String, ? extends Exception> failureFactory) {
+            this.delegate = delegate;
+            this.failingWrites = failingWrites;
+            this.failureFactory = failureFactory;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if(failingWrites.getAndUpdate(remaining -> Math.max(remaining - 1, 0)) > 0) {
+                var half = src.duplicate();
+                half.limit(half.position() + half.remaining() / 2);
+                delegate.write(half, delegate.size());
+                var failure = failureFactory.apply("Simulated write failure");
+                Throwables.throwIfInstanceOf(failure, IOException.class);
+                Throwables.throwIfUnchecked(failure);
+                throw new AssertionError(failure);
+            }
+            return delegate.write(src, delegate.size());
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package edu.stanford.bmir.protege.web.server.revision;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
 import edu.stanford.bmir.protege.web.server.axiom.*;
 import edu.stanford.bmir.protege.web.server.change.ChangeRecordComparator;
 import edu.stanford.bmir.protege.web.server.diff.Revision2DiffElementsTranslator;
@@ -8,6 +9,7 @@ import edu.stanford.bmir.protege.web.server.index.*;
 import edu.stanford.bmir.protege.web.server.lang.ActiveLanguagesManagerImpl;
 import edu.stanford.bmir.protege.web.server.lang.LanguageManager;
 import edu.stanford.bmir.protege.web.server.mansyntax.render.*;
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryAccountant;
 import edu.stanford.bmir.protege.web.server.object.OWLObjectComparatorImpl;
 import edu.stanford.bmir.protege.web.server.owlapi.ProjectAnnotationAssertionAxiomsBySubjectIndexImpl;
 import edu.stanford.bmir.protege.web.server.project.DefaultOntologyIdManager;
@@ -157,7 +159,10 @@ public class ProjectChangesManager_IT {
                 ),
                                                    () -> new Revision2DiffElementsTranslator(new WebProtegeOntologyIRIShortFormProvider(defaultOntologyIdManager),
                                                                                              defaultOntologyIdManager,
-                                                                                             projectOntologiesIndex));
+                                                                                             projectOntologiesIndex),
+                                                   new RevisionCache(RevisionCacheSettings.getInMegabytes(16, 16),
+                                                                     MoreExecutors.newDirectExecutorService()),
+                                                   new ProjectMemoryAccountant(projectId));
 
 
         createChanges(manager, rootOntology, dataFactory, revisionManager);
@@ -0,0 +1,162 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static edu.stanford.bmir.protege.web.server.memory.ProjectMemoryCategory.ENTITIES_BY_REVISION_CACHE;
+import static edu.stanford.bmir.protege.web.server.memory.ProjectMemoryCategory.PROJECT_CHANGES_CACHE;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class RevisionCache_TestCase {
+
+    private static final long MAX_SIZE = 10_000;
+
+    private static final long PROJECT_QUOTA = 1_000;
+
+    private static final long VALUE_SIZE = 100;
+
+    private final ProjectId projectId = ProjectId.get("11111111-1111-1111-1111-111111111111");
+
+    private final ProjectId otherProjectId = ProjectId.get("22222222-2222-2222-2222-222222222222");
+
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    private ExecutorService executorService;
+
+    private RevisionCache cache;
+
+    @Before
+    public void setUp() {
+        executorService = Executors.newFixedThreadPool(4);
+        cache = new RevisionCache(RevisionCacheSettings.get(MAX_SIZE, PROJECT_QUOTA), executorService);
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    private static Revision revision(long revisionNumber) {
+        return new Revision(UserId.getUserId("User"),
+                            RevisionNumber.getRevisionNumber(revisionNumber),
+                            ImmutableList.of(),
+                            0,
+                            "Revision " + revisionNumber);
+    }
+
+    private String load(Revision revision) {
+        loadCount.incrementAndGet();
+        return "Value " + revision.getRevisionNumber().getValue();
+    }
+
+    private String get(ProjectId projectId, Revision revision) {
+        return cache.get(projectId, ENTITIES_BY_REVISION_CACHE, revision, this::load, value -> VALUE_SIZE);
+    }
+
+    @Test
+    public void shouldLoadValueOnce() {
+        var revision = revision(1);
+        assertThat(get(projectId, revision), is("Value 1"));
+        assertThat(get(projectId, revision), is("Value 1"));
+        assertThat(loadCount.get(), is(1));
+    }
+
+    @Test
+    public void shouldTrackEstimatedSizeByProjectAndCategory() {
+        get(projectId, revision(1));
+        get(projectId, revision(2));
+        get(otherProjectId, revision(1));
+        assertThat(cache.getEstimatedSize(projectId, ENTITIES_BY_REVISION_CACHE), is(2 * VALUE_SIZE));
+        assertThat(cache.getEstimatedSize(projectId, PROJECT_CHANGES_CACHE), is(0L));
+        assertThat(cache.getEstimatedSize(otherProjectId), is(VALUE_SIZE));
+    }
+
+    @Test
+    public void shouldNotCacheValuesOverProjectQuota() {
+        var revisionCount = (int) (PROJECT_QUOTA / VALUE_SIZE);
+        for(int i = 1; i <= revisionCount + 1; i++) {
+            get(projectId, revision(i));
+        }
+        assertThat(cache.getEstimatedSize(projectId), is(PROJECT_QUOTA));
+        assertThat(cache.getQuotaRejectionCount(), is(1L));
+        get(projectId, revision(revisionCount + 1));
+        assertThat(loadCount.get(), is(revisionCount + 2));
+    }
+
+    @Test
+    public void shouldAllowOtherProjectsToCacheWhenOneProjectIsAtItsQuota() {
+        for(int i = 1; i <= PROJECT_QUOTA / VALUE_SIZE + 1; i++) {
+            get(projectId, revision(i));
+        }
+        get(otherProjectId, revision(1));
+        assertThat(cache.getEstimatedSize(otherProjectId), is(VALUE_SIZE));
+    }
+
+    @Test
+    public void shouldInvalidateCategory() {
+        get(projectId, revision(1));
+        cache.get(projectId, PROJECT_CHANGES_CACHE, revision(1), this::load, value -> VALUE_SIZE);
+        cache.invalidate(projectId, ENTITIES_BY_REVISION_CACHE);
+        assertThat(cache.getEstimatedSize(projectId, ENTITIES_BY_REVISION_CACHE), is(0L));
+        assertThat(cache.getEstimatedSize(projectId, PROJECT_CHANGES_CACHE), is(VALUE_SIZE));
+    }
+
+    @Test
+    public void shouldInvalidateProject() {
+        get(projectId, revision(1));
+        get(otherProjectId, revision(1));
+        cache.invalidate(projectId);
+        assertThat(cache.getEstimatedSize(projectId), is(0L));
+        assertThat(cache.getEstimatedSize(otherProjectId), is(VALUE_SIZE));
+        get(projectId, revision(1));
+        assertThat(loadCount.get(), is(3));
+    }
+
+    @Test
+    public void shouldGetAllInOrderLoadingOnlyMissingValues() {
+        get(projectId, revision(2));
+        var values = cache.getAll(projectId,
+                                  ENTITIES_BY_REVISION_CACHE,
+                                  ImmutableList.of(revision(3), revision(2), revision(1), revision(3)),
+                                  this::load,
+                                  value -> VALUE_SIZE);
+        assertThat(values.values(), contains("Value 3", "Value 2", "Value 1"));
+        assertThat(loadCount.get(), is(3));
+        assertThat(cache.getEstimatedSize(projectId), is(3 * VALUE_SIZE));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldPropagateLoaderExceptionFromGetAll() {
+        cache.getAll(projectId,
+                     ENTITIES_BY_REVISION_CACHE,
+                     ImmutableList.of(revision(1), revision(2)),
+                     revision -> {
+                         throw new IllegalStateException();
+                     },
+                     value -> VALUE_SIZE);
+    }
+
+    @Test
+    public void shouldGetAllWithDirectExecutor() {
+        cache = new RevisionCache(RevisionCacheSettings.get(MAX_SIZE, PROJECT_QUOTA),
+                                  MoreExecutors.newDirectExecutorService());
+        var values = cache.getAll(projectId,
+                                  ENTITIES_BY_REVISION_CACHE,
+                                  ImmutableList.of(revision(1), revision(2)),
+                                  this::load,
+                                  value -> VALUE_SIZE);
+        assertThat(values.values(), contains("Value 1", "Value 2"));
+    }
+}
@@ -0,0 +1,123 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semanticweb.owlapi.change.AddAxiomData;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLOntologyID;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.io.File;
+import java.util.List;
+import java.util.UUID;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class RevisionStoreImpl_Index_TestCase {
+
+    private static final IRI CLS_A = IRI.create("http://example.org/A");
+
+    private static final IRI CLS_B = IRI.create("http://example.org/B");
+
+    private static final UserId ALICE = UserId.getUserId("Alice");
+
+    private static final UserId BOB = UserId.getUserId("Bob");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final OWLDataFactoryImpl dataFactory = new OWLDataFactoryImpl();
+
+    private final ProjectId projectId = ProjectId.get(UUID.randomUUID().toString());
+
+    private File changeHistoryFile;
+
+    @Before
+    public void setUp() throws Exception {
+        changeHistoryFile = new File(temporaryFolder.newFolder(), "change-data.binary");
+        new RevisionSerializationTask(changeHistoryFile, createRevision(1, ALICE, 1000L, CLS_A)).call();
+        new RevisionSerializationTask(changeHistoryFile, createRevision(2, BOB, 2000L, CLS_B)).call();
+        new RevisionSerializationTask(changeHistoryFile, createRevision(3, ALICE, 3000L, CLS_B)).call();
+    }
+
+    @Test
+    public void shouldGetRevisionsBySubject() {
+        var store = loadStore();
+        assertThat(getRevisionNumbers(store.getRevisionsBySubject(CLS_A)), contains(1L));
+        assertThat(getRevisionNumbers(store.getRevisionsBySubject(CLS_B)), contains(2L, 3L));
+    }
+
+    @Test
+    public void shouldGetRevisionsByAuthor() {
+        var store = loadStore();
+        var head = RevisionNumber.getHeadRevisionNumber();
+        assertThat(getRevisionNumbers(store.getRevisionsByAuthor(ALICE, RevisionNumber.getRevisionNumber(1), head)),
+                   contains(1L, 3L));
+        assertThat(getRevisionNumbers(store.getRevisionsByAuthor(ALICE, RevisionNumber.getRevisionNumber(2), head)),
+                   contains(3L));
+    }
+
+    @Test
+    public void shouldGetRevisionsInRange() {
+        var store = loadStore();
+        var revisions = store.getRevisions(RevisionNumber.getRevisionNumber(2), RevisionNumber.getRevisionNumber(3));
+        assertThat(getRevisionNumbers(revisions), contains(2L, 3L));
+    }
+
+    @Test
+    public void shouldGetRevisionsByTimestamp() {
+        var store = loadStore();
+        assertThat(getRevisionNumbers(store.getRevisionsByTimestamp(1500L, 3000L)), contains(2L));
+    }
+
+    @Test
+    public void shouldWriteIndexFileOnLoad() {
+        loadStore();
+        assertThat(RevisionIndexFile.forChangeHistoryFile(changeHistoryFile).exists(), is(true));
+    }
+
+    @Test
+    public void shouldRebuildCorruptIndexFile() throws Exception {
+        var indexFile = RevisionIndexFile.forChangeHistoryFile(changeHistoryFile);
+        indexFile.write(ImmutableList.of(RevisionIndexEntry.get(RevisionNumber.getRevisionNumber(7),
+                                                                0L,
+                                                                BOB,
+                                                                ImmutableSet.of(CLS_A))));
+        var store = loadStore();
+        assertThat(getRevisionNumbers(store.getRevisionsBySubject(CLS_A)), contains(1L));
+        assertThat(indexFile.read().size(), is(3));
+    }
+
+    private RevisionStoreImpl loadStore() {
+        var store = new RevisionStoreImpl(projectId, changeHistoryFile, dataFactory);
+        store.load();
+        return store;
+    }
+
+    private Revision createRevision(long number, UserId author, long timestamp, IRI subject) {
+        var axiom = dataFactory.getOWLDeclarationAxiom(dataFactory.getOWLClass(subject));
+        var record = new OWLOntologyChangeRecord(new OWLOntologyID(), new AddAxiomData(axiom));
+        return new Revision(author,
+                            RevisionNumber.getRevisionNumber(number),
+                            ImmutableList.of(record),
+                            timestamp,
+                            "Revision " + number);
+    }
+
+    private static List<Long> getRevisionNumbers(ImmutableList<Revision> revisions) {
+        return revisions.stream()
+                        .map(rev -> rev.getRevisionNumber().getValue())
+                        .collect(toList());
+    }
+}
@@ -0,0 +1,130 @@
+package edu.stanford.bmir.protege.web.server.shortform;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.ImmutableIntArray;
+import edu.stanford.bmir.protege.web.shared.shortform.DictionaryLanguage;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.model.EntityType;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.util.List;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ShortFormPrefixIndex_TestCase {
+
+    private static final Set<EntityType<?>> CLASSES = ImmutableSet.of(EntityType.CLASS);
+
+    private final OWLDataFactoryImpl dataFactory = new OWLDataFactoryImpl();
+
+    private ShortFormCache cache;
+
+    private OWLClass headRegion;
+
+    private OWLClass regionOfHead;
+
+    private OWLClass heart;
+
+    @Before
+    public void setUp() {
+        cache = ShortFormCache.create();
+        headRegion = dataFactory.getOWLClass(IRI.create("http://example.org/A"));
+        regionOfHead = dataFactory.getOWLClass(IRI.create("http://example.org/B"));
+        heart = dataFactory.getOWLClass(IRI.create("http://example.org/C"));
+        cache.put(headRegion, "HeadRegion");
+        cache.put(regionOfHead, "region of head");
+        cache.put(heart, "Heart");
+    }
+
+    private List<OWLEntity> getEntities(String prefix, Set<EntityType<?>> entityTypes) {
+        return cache.getShortFormsWithWordPrefix(prefix, entityTypes, ShortFormPrefixIndex_TestCase::match)
+                    .map(ShortFormMatch::getEntity)
+                    .collect(toList());
+    }
+
+    private static ShortFormMatch match(OWLEntity entity,
+                                        String shortForm,
+                                        int matchCount,
+                                        ImmutableIntArray matchPositions) {
+        return new ShortFormMatch(entity, shortForm, DictionaryLanguage.localName(), matchCount, matchPositions);
+    }
+
+    @Test
+    public void shouldFindShortFormsWithWordStartingWithPrefix() {
+        assertThat(getEntities("hea", CLASSES), containsInAnyOrder(headRegion, regionOfHead, heart));
+    }
+
+    @Test
+    public void shouldFindCamelCaseWordStarts() {
+        assertThat(getEntities("reg", CLASSES), containsInAnyOrder(headRegion, regionOfHead));
+    }
+
+    @Test
+    public void shouldMatchCaseInsensitively() {
+        assertThat(getEntities("HEADR", CLASSES), contains(headRegion));
+    }
+
+    @Test
+    public void shouldNotMatchWithinWords() {
+        assertThat(getEntities("egion", CLASSES), is(empty()));
+    }
+
+    @Test
+    public void shouldReturnMatchPositionOfWordStart() {
+        var match = cache.getShortFormsWithWordPrefix("head", CLASSES, ShortFormPrefixIndex_TestCase::match)
+                         .filter(m -> m.getEntity().equals(regionOfHead))
+                         .findFirst()
+                         .orElseThrow();
+        assertThat(match.getMatchPositions().get(0), is(10));
+    }
+
+    @Test
+    public void shouldMatchEachEntityOnce() {
+        var entity = dataFactory.getOWLClass(IRI.create("http://example.org/D"));
+        cache.put(entity, "head of head");
+        assertThat(getEntities("head", CLASSES), containsInAnyOrder(headRegion, regionOfHead, entity));
+    }
+
+    @Test
+    public void shouldFilterByEntityType() {
+        OWLObjectProperty property = dataFactory.getOWLObjectProperty(IRI.create("http://example.org/P"));
+        cache.put(property, "hasHead");
+        assertThat(getEntities("head", ImmutableSet.of(EntityType.OBJECT_PROPERTY)), contains(property));
+    }
+
+    @Test
+    public void shouldReflectChangesAfterIndexIsBuilt() {
+        getEntities("hea", CLASSES);
+        var entity = dataFactory.getOWLClass(IRI.create("http://example.org/D"));
+        cache.put(entity, "Headache");
+        cache.put(heart, "Liver");
+        cache.remove(headRegion);
+        assertThat(getEntities("hea", CLASSES), containsInAnyOrder(regionOfHead, entity));
+        assertThat(getEntities("liv", CLASSES), contains(heart));
+    }
+
+    @Test
+    public void shouldReflectManyChangesAfterIndexIsBuilt() {
+        getEntities("hea", CLASSES);
+        for(int i = 0; i < 2000; i++) {
+            cache.put(dataFactory.getOWLClass(IRI.create("http://example.org/X" + i)), "Extra" + i);
+        }
+        assertThat(getEntities("extra", CLASSES), hasSize(2000));
+        assertThat(getEntities("extra199", CLASSES), hasSize(11));
+    }
+
+    @Test
+    public void shouldBeEmptyAfterClear() {
+        getEntities("hea", CLASSES);
+        cache.clear();
+        assertThat(getEntities("hea", CLASSES), is(empty()));
+    }
+}
@@ -0,0 +1,243 @@
+package edu.stanford.bmir.protege.web.server.tag;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import edu.stanford.bmir.protege.web.server.change.HasGetChangeSubjects;
+import edu.stanford.bmir.protege.web.server.index.EntitiesInProjectSignatureIndex;
+import edu.stanford.bmir.protege.web.server.index.ProjectSignatureIndex;
+import edu.stanford.bmir.protege.web.server.match.MatcherFactory;
+import edu.stanford.bmir.protege.web.shared.color.Color;
+import edu.stanford.bmir.protege.web.shared.match.criteria.EntityIsDeprecatedCriteria;
+import edu.stanford.bmir.protege.web.shared.match.criteria.HierarchyFilterType;
+import edu.stanford.bmir.protege.web.shared.match.criteria.RootCriteria;
+import edu.stanford.bmir.protege.web.shared.match.criteria.SubClassOfCriteria;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.tag.Tag;
+import edu.stanford.bmir.protege.web.shared.tag.TagId;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.model.*;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toSet;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CriteriaBasedTagsIndex_TestCase {
+
+    private final OWLDataFactory dataFactory = new OWLDataFactoryImpl();
+
+    private final OWLClass clsA = dataFactory.getOWLClass(IRI.create("http://example.org/A"));
+
+    private final OWLClass clsB = dataFactory.getOWLClass(IRI.create("http://example.org/B"));
+
+    private final OWLClass clsC = dataFactory.getOWLClass(IRI.create("http://example.org/C"));
+
+    private final SubClassOfCriteria subClassOfCriteria = SubClassOfCriteria.get(clsC, HierarchyFilterType.ALL);
+
+    private final Set<OWLEntity> deprecatedEntities = new HashSet<>();
+
+    private final Set<OWLEntity> subClassesOfC = new HashSet<>();
+
+    private final Set<OWLEntity> signature = new LinkedHashSet<>();
+
+    private final ProjectId projectId = ProjectId.get(UUID.randomUUID().toString());
+
+    @Mock
+    private TagRepository tagRepository;
+
+    @Mock
+    private MatcherFactory matcherFactory;
+
+    @Mock
+    private ProjectSignatureIndex projectSignatureIndex;
+
+    @Mock
+    private EntitiesInProjectSignatureIndex entitiesInProjectSignatureIndex;
+
+    @Mock
+    private HasGetChangeSubjects changeSubjectsProvider;
+
+    @Mock
+    private Color color;
+
+    @Mock
+    private OWLOntology ontology;
+
+    private Tag deprecatedTag;
+
+    private Tag subClassOfTag;
+
+    private CriteriaBasedTagsIndex index;
+
+    @Before
+    public void setUp() {
+        signature.addAll(Arrays.asList(clsA, clsB, clsC));
+        deprecatedEntities.add(clsA);
+        deprecatedTag = createTag("Deprecated", EntityIsDeprecatedCriteria.get());
+        subClassOfTag = createTag("SubClassOfC", subClassOfCriteria);
+        when(tagRepository.findTags()).thenReturn(Arrays.asList(deprecatedTag, subClassOfTag));
+        when(matcherFactory.getMatcher(EntityIsDeprecatedCriteria.get())).thenReturn(deprecatedEntities::contains);
+        when(matcherFactory.getMatcher(subClassOfCriteria)).thenReturn(subClassesOfC::contains);
+        when(projectSignatureIndex.getSignature()).thenAnswer(invocation -> new ArrayList<>(signature).stream());
+        when(entitiesInProjectSignatureIndex.containsEntityInSignature(any())).thenAnswer(
+                invocation -> signature.contains(invocation.getArguments()[0]));
+        when(changeSubjectsProvider.getChangeSubjects(any())).thenReturn(Collections.emptySet());
+        index = new CriteriaBasedTagsIndex(projectId,
+                                           tagRepository,
+                                           matcherFactory,
+                                           projectSignatureIndex,
+                                           entitiesInProjectSignatureIndex,
+                                           changeSubjectsProvider,
+                                           MoreExecutors.newDirectExecutorService(),
+                                           MoreExecutors.newDirectExecutorService());
+    }
+
+    private Tag createTag(String label, RootCriteria criteria) {
+        return Tag.get(TagId.createTagId(), projectId, label, "", color, color, singletonList(criteria));
+    }
+
+    @Test
+    public void shouldGetTagsForEntity() {
+        assertThat(index.getTagIds(clsA).collect(toSet()), contains(deprecatedTag.getTagId()));
+        assertThat(index.getTagIds(clsB).collect(toSet()), is(empty()));
+    }
+
+    @Test
+    public void shouldGetTaggedEntities() {
+        assertThat(index.getTaggedEntities(deprecatedTag.getTagId()).collect(toSet()), contains(clsA));
+    }
+
+    @Test
+    public void shouldEvaluateSignatureOnce() {
+        index.getTagIds(clsA);
+        index.getTagIds(clsB);
+        index.getTaggedEntities(deprecatedTag.getTagId());
+        verify(projectSignatureIndex, times(1)).getSignature();
+    }
+
+    @Test
+    public void shouldReevaluateChangeSubjects() {
+        // Only frame local tags, so the signature should not be evaluated again
+        when(tagRepository.findTags()).thenReturn(singletonList(deprecatedTag));
+        index.getTagIds(clsB);
+        deprecatedEntities.add(clsB);
+        var change = createChange(clsB);
+        when(changeSubjectsProvider.getChangeSubjects(change)).thenReturn(Collections.singleton(clsB));
+        index.handleChanges(singletonList(change));
+        assertThat(index.getTagIds(clsB).collect(toSet()), contains(deprecatedTag.getTagId()));
+        verify(projectSignatureIndex, times(1)).getSignature();
+    }
+
+    @Test
+    public void shouldNotReevaluateEntitiesThatAreNotAffectedByChanges() {
+        index.getTagIds(clsB);
+        deprecatedEntities.add(clsB);
+        index.handleChanges(singletonList(createChange(clsC)));
+        assertThat(index.getTagIds(clsB).collect(toSet()), is(empty()));
+    }
+
+    @Test
+    public void shouldRemoveEntitiesThatAreNoLongerInSignature() {
+        index.getTagIds(clsA);
+        signature.remove(clsA);
+        index.handleChanges(singletonList(createChange(clsA)));
+        assertThat(index.getTaggedEntities(deprecatedTag.getTagId()).collect(toSet()), is(empty()));
+    }
+
+    @Test
+    public void shouldReevaluateNonLocalTagsAfterChanges() {
+        index.getTagIds(clsA);
+        subClassesOfC.add(clsB);
+        index.handleChanges(singletonList(createChange(clsA)));
+        assertThat(index.getTaggedEntities(subClassOfTag.getTagId()).collect(toSet()), contains(clsB));
+        assertThat(index.getTagIds(clsA).collect(toSet()), contains(deprecatedTag.getTagId()));
+    }
+
+    @Test
+    public void shouldReevaluateNonLocalTagsInTheBackground() {
+        var executor = mock(ExecutorService.class);
+        index = new CriteriaBasedTagsIndex(projectId,
+                                           tagRepository,
+                                           matcherFactory,
+                                           projectSignatureIndex,
+                                           entitiesInProjectSignatureIndex,
+                                           changeSubjectsProvider,
+                                           executor,
+                                           MoreExecutors.newDirectExecutorService());
+        index.getTagIds(clsA);
+        subClassesOfC.add(clsB);
+        index.handleChanges(singletonList(createChange(clsA)));
+        index.handleChanges(singletonList(createChange(clsA)));
+        // Reads do not wait for the re-evaluation
+        assertThat(index.getTaggedEntities(subClassOfTag.getTagId()).collect(toSet()), is(empty()));
+        var reevaluation = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, times(1)).execute(reevaluation.capture());
+        reevaluation.getValue().run();
+        assertThat(index.getTaggedEntities(subClassOfTag.getTagId()).collect(toSet()), contains(clsB));
+        verify(projectSignatureIndex, times(2)).getSignature();
+    }
+
+    @Test
+    public void shouldNotFindTagsOnEveryRead() {
+        index.getTagIds(clsA);
+        index.getTagIds(clsB);
+        index.handleChanges(singletonList(createChange(clsA)));
+        index.getTaggedEntities(deprecatedTag.getTagId());
+        verify(tagRepository, times(1)).findTags();
+    }
+
+    @Test
+    public void shouldRebuildWhenTagsChange() {
+        index.getTagIds(clsA);
+        when(tagRepository.findTags()).thenReturn(singletonList(subClassOfTag));
+        index.handleTagsChanged();
+        assertThat(index.getTagIds(clsA).collect(toSet()), is(empty()));
+        assertThat(index.getTaggedEntities(deprecatedTag.getTagId()).collect(toSet()), is(empty()));
+    }
+
+    @Test
+    public void shouldIgnoreTagsWithoutCriteria() {
+        var plainTag = Tag.get(TagId.createTagId(), projectId, "Plain", "", color, color, ImmutableList.of());
+        when(tagRepository.findTags()).thenReturn(singletonList(plainTag));
+        assertThat(index.getTagIds(clsA).collect(toSet()), is(empty()));
+        verify(projectSignatureIndex, never()).getSignature();
+    }
+
+    @Test
+    public void shouldApplyChangesWhilstIndexIsBeingBuilt() {
+        when(tagRepository.findTags()).thenReturn(singletonList(deprecatedTag));
+        var changeApplied = new AtomicBoolean();
+        when(matcherFactory.getMatcher(EntityIsDeprecatedCriteria.get())).thenReturn(entity -> {
+            var deprecated = deprecatedEntities.contains(entity);
+            if(entity.equals(clsB) && !changeApplied.getAndSet(true)) {
+                // Deprecate B after it has been evaluated by the build, from another thread
+                deprecatedEntities.add(clsB);
+                CompletableFuture.runAsync(() -> index.handleChanges(singletonList(createChange(clsB))))
+                                 .orTimeout(10, TimeUnit.SECONDS)
+                                 .join();
+            }
+            return deprecated;
+        });
+        assertThat(index.getTagIds(clsB).collect(toSet()), contains(deprecatedTag.getTagId()));
+        assertThat(index.getTaggedEntities(deprecatedTag.getTagId()).collect(toSet()), containsInAnyOrder(clsA, clsB));
+    }
+
+    private OWLOntologyChange createChange(OWLEntity entity) {
+        return new AddAxiom(ontology, dataFactory.getOWLDeclarationAxiom(entity));
+    }
+}
@@ -0,0 +1,121 @@
+package edu.stanford.bmir.protege.web.server.tag;
+
+import com.google.common.collect.ImmutableMap;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.tag.TagId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLEntity;
+import uk.ac.manchester.cs.owl.owlapi.OWLClassImpl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EntityTagsRepositoryCachingImpl_TestCase {
+
+    private final ProjectId projectId = ProjectId.get("12345678-1234-1234-1234-123456789abc");
+
+    private final TagId tagIdA = TagId.getId("12345678-1234-1234-1234-123456789abc");
+
+    private final TagId tagIdB = TagId.getId("12345678-5678-5678-5678-123456789abc");
+
+    private final OWLEntity entity = new OWLClassImpl(IRI.create("http://stuff.com/entities/A"));
+
+    private final OWLEntity otherEntity = new OWLClassImpl(IRI.create("http://stuff.com/entities/B"));
+
+    @Mock
+    private EntityTagsRepositoryImpl delegate;
+
+    private EntityTagsRepositoryCachingImpl repository;
+
+    private EntityTags entityTags;
+
+    @Before
+    public void setUp() {
+        entityTags = new EntityTags(projectId, entity, Arrays.asList(tagIdA, tagIdB));
+        when(delegate.findAll()).thenReturn(ImmutableMap.of(entity, entityTags));
+        repository = new EntityTagsRepositoryCachingImpl(delegate);
+    }
+
+    @After
+    public void tearDown() {
+        repository.dispose();
+    }
+
+    @Test
+    public void shouldNotLoadUntilUsed() {
+        verify(delegate, never()).findAll();
+    }
+
+    @Test
+    public void shouldLoadOnceAndServeReadsFromCache() {
+        assertThat(repository.findByEntity(entity), is(Optional.of(entityTags)));
+        assertThat(repository.findByTagId(tagIdA), contains(entityTags));
+        verify(delegate, times(1)).findAll();
+        verify(delegate, never()).findByEntity(any());
+        verify(delegate, never()).findByTagId(any());
+    }
+
+    @Test
+    public void shouldApplyAddTagToCacheAndWriteBehind() throws Exception {
+        var tagIdC = TagId.getId("12345678-abcd-abcd-abcd-123456789abc");
+        repository.addTag(entity, tagIdC);
+        assertThat(repository.findByEntity(entity).get().getTags(), contains(tagIdA, tagIdB, tagIdC));
+        repository.flush();
+        verify(delegate).addTag(entity, tagIdC);
+    }
+
+    @Test
+    public void shouldNotAddTagToEntityWithoutStoredTags() {
+        repository.addTag(otherEntity, tagIdA);
+        assertThat(repository.findByEntity(otherEntity), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldApplyRemoveTagToCache() {
+        repository.removeTag(entity, tagIdA);
+        assertThat(repository.findByEntity(entity).get().getTags(), contains(tagIdB));
+    }
+
+    @Test
+    public void shouldRemoveTagFromAllCachedEntities() {
+        repository.save(new EntityTags(projectId, otherEntity, Collections.singletonList(tagIdA)));
+        repository.removeTag(tagIdA);
+        assertThat(repository.findByTagId(tagIdA), is(empty()));
+        assertThat(repository.findByTagId(tagIdB), contains(new EntityTags(projectId, entity, Collections.singletonList(tagIdB))));
+    }
+
+    @Test
+    public void shouldWriteBehindInOrder() throws Exception {
+        var savedTags = new EntityTags(projectId, otherEntity, Collections.singletonList(tagIdA));
+        repository.save(savedTags);
+        repository.removeTag(otherEntity, tagIdA);
+        repository.addTag(otherEntity, tagIdB);
+        repository.flush();
+        InOrder inOrder = inOrder(delegate);
+        inOrder.verify(delegate).save(savedTags);
+        inOrder.verify(delegate).removeTag(otherEntity, tagIdA);
+        inOrder.verify(delegate).addTag(otherEntity, tagIdB);
+    }
+
+    @Test
+    public void shouldReloadCacheWhenWriteFails() throws Exception {
+        doThrow(new RuntimeException("Write failed")).when(delegate).removeTag(entity, tagIdA);
+        repository.removeTag(entity, tagIdA);
+        repository.flush();
+        assertThat(repository.findByEntity(entity), is(Optional.of(entityTags)));
+        verify(delegate, times(2)).findAll();
+    }
+}
@@ -0,0 +1,73 @@
+package edu.stanford.bmir.protege.web.server.user;
+
+import edu.stanford.bmir.protege.web.server.project.RecentProjectRecord;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class PendingUserActivity_TestCase {
+
+    private final UserId userId = UserId.getUserId("John Smith");
+
+    private final ProjectId projectA = ProjectId.get("11111111-1111-1111-1111-111111111111");
+
+    private final ProjectId projectB = ProjectId.get("22222222-2222-2222-2222-222222222222");
+
+    private final UserActivityRecord storedRecord = new UserActivityRecord(userId,
+                                                                           10,
+                                                                           20,
+                                                                           List.of(new RecentProjectRecord(projectA, 5)));
+
+    @Test
+    public void shouldApplyLatestLoginAndLogout() {
+        var activity = PendingUserActivity.empty()
+                                          .withLastLogin(40)
+                                          .withLastLogin(30)
+                                          .withLastLogout(50);
+        var record = activity.applyTo(storedRecord);
+        assertThat(record.getLastLogin(), is(40L));
+        assertThat(record.getLastLogout(), is(50L));
+    }
+
+    @Test
+    public void shouldKeepStoredTimestampsIfThereIsNoActivity() {
+        var record = PendingUserActivity.empty().applyTo(storedRecord);
+        assertThat(record, is(storedRecord));
+    }
+
+    @Test
+    public void shouldOrderRecentProjectsByMostRecentFirst() {
+        var activity = PendingUserActivity.empty()
+                                          .withRecentProject(projectB, 6)
+                                          .withRecentProject(projectA, 7);
+        var record = activity.applyTo(storedRecord);
+        assertThat(record.getRecentProjects(), contains(new RecentProjectRecord(projectA, 7),
+                                                        new RecentProjectRecord(projectB, 6)));
+    }
+
+    @Test
+    public void shouldBeIdempotent() {
+        var activity = PendingUserActivity.empty()
+                                          .withLastLogin(40)
+                                          .withRecentProject(projectB, 6);
+        var once = activity.applyTo(storedRecord);
+        assertThat(activity.applyTo(once), is(once));
+    }
+
+    @Test
+    public void shouldMergeActivity() {
+        var first = PendingUserActivity.empty().withLastLogin(40).withRecentProject(projectA, 7);
+        var second = PendingUserActivity.empty().withLastLogout(50).withRecentProject(projectB, 8);
+        var record = first.mergeWith(second).applyTo(UserActivityRecord.get(userId));
+        assertThat(record.getLastLogin(), is(40L));
+        assertThat(record.getLastLogout(), is(50L));
+        assertThat(record.getRecentProjects(), contains(new RecentProjectRecord(projectB, 8),
+                                                        new RecentProjectRecord(projectA, 7)));
+    }
+}
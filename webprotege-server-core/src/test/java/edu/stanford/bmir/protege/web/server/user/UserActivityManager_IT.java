@@ -59,7 +59,7 @@ public class UserActivityManager_IT {
         mongoClient = createMongoClient();
         Morphia morphia = createMorphia();
         datastore = morphia.createDatastore(mongoClient, getTestDbName());
-        repository = new UserActivityManager(datastore);
+        repository = new UserActivityManager(datastore, morphia);
     }
 
     @After
@@ -0,0 +1,76 @@
+package edu.stanford.bmir.protege.web.server.user;
+
+import edu.stanford.bmir.protege.web.server.project.RecentProjectRecord;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mongodb.morphia.Datastore;
+import org.mongodb.morphia.Morphia;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserActivityManager_TestCase {
+
+    private final UserId userId = UserId.getUserId("John Smith");
+
+    private final ProjectId projectId = ProjectId.get("11111111-1111-1111-1111-111111111111");
+
+    @Mock
+    private Datastore datastore;
+
+    @Mock
+    private Morphia morphia;
+
+    private UserActivityManager manager;
+
+    @Before
+    public void setUp() {
+        manager = new UserActivityManager(datastore, morphia);
+    }
+
+    @Test
+    public void shouldNotWriteActivityImmediately() {
+        manager.setLastLogin(userId, 10);
+        manager.setLastLogout(userId, 20);
+        manager.addRecentProject(userId, projectId, 30);
+        verifyZeroInteractions(datastore);
+    }
+
+    @Test
+    public void shouldReadBufferedActivity() {
+        manager.setLastLogin(userId, 10);
+        manager.addRecentProject(userId, projectId, 30);
+        var record = manager.getUserActivityRecord(userId);
+        assertThat(record.isPresent(), is(true));
+        assertThat(record.get().getLastLogin(), is(10L));
+        assertThat(record.get().getRecentProjects(), contains(new RecentProjectRecord(projectId, 30)));
+    }
+
+    @Test
+    public void shouldCacheStoredRecords() {
+        var storedRecord = new UserActivityRecord(userId, 1, 2, List.of());
+        when(datastore.get(UserActivityRecord.class, userId)).thenReturn(storedRecord);
+        manager.getUserActivityRecord(userId);
+        assertThat(manager.getUserActivityRecord(userId), is(Optional.of(storedRecord)));
+        verify(datastore, times(1)).get(UserActivityRecord.class, userId);
+    }
+
+    @Test
+    public void shouldNotRecordGuestActivity() {
+        manager.setLastLogin(UserId.getGuest(), 10);
+        assertThat(manager.getUserActivityRecord(UserId.getGuest()), is(Optional.empty()));
+        manager.flush();
+        verifyZeroInteractions(datastore);
+    }
+}
@@ -0,0 +1,153 @@
+package edu.stanford.bmir.protege.web.server.viz;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
+import edu.stanford.bmir.protege.web.server.index.*;
+import edu.stanford.bmir.protege.web.server.memory.ProjectMemoryAccountant;
+import edu.stanford.bmir.protege.web.server.renderer.RenderingManager;
+import edu.stanford.bmir.protege.web.server.revision.RevisionManager;
+import edu.stanford.bmir.protege.web.shared.DataFactory;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.viz.Edge;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.model.*;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toSet;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EntityGraphBuilder_TestCase {
+
+    private final OWLDataFactory dataFactory = new OWLDataFactoryImpl();
+
+    private final OWLOntologyID ontologyId = new OWLOntologyID(IRI.create("http://example.org/ont"));
+
+    private final OWLClass clsA = cls("A"), clsB = cls("B"), clsC = cls("C"), clsD = cls("D");
+
+    private final ListMultimap<OWLClass, OWLSubClassOfAxiom> subClassOfAxiomsBySubClass = ArrayListMultimap.create();
+
+    @Mock
+    private RenderingManager renderer;
+
+    @Mock
+    private ProjectOntologiesIndex projectOntologiesIndex;
+
+    @Mock
+    private ObjectPropertyAssertionAxiomsBySubjectIndex objectPropertyAssertions;
+
+    @Mock
+    private SubClassOfAxiomsBySubClassIndex subClassOfAxioms;
+
+    @Mock
+    private ClassAssertionAxiomsByIndividualIndex classAssertionAxioms;
+
+    @Mock
+    private EquivalentClassesAxiomsIndex equivalentClassesAxioms;
+
+    @Mock
+    private RevisionManager revisionManager;
+
+    private EntityGraphBuilder builder;
+
+    private OWLClass cls(String name) {
+        return dataFactory.getOWLClass(IRI.create("http://example.org/" + name));
+    }
+
+    private void addSubClassOf(OWLClass subCls, OWLClass superCls) {
+        subClassOfAxiomsBySubClass.put(subCls, dataFactory.getOWLSubClassOfAxiom(subCls, superCls));
+    }
+
+    @Before
+    public void setUp() {
+        // A ⊑ B, A ⊑ C, B ⊑ D
+        addSubClassOf(clsA, clsB);
+        addSubClassOf(clsA, clsC);
+        addSubClassOf(clsB, clsD);
+        when(projectOntologiesIndex.getOntologyIds()).thenAnswer(invocation -> Stream.of(ontologyId));
+        when(subClassOfAxioms.getSubClassOfAxiomsForSubClass(any(), any()))
+                .thenAnswer(invocation -> subClassOfAxiomsBySubClass.get((OWLClass) invocation.getArguments()[0]).stream());
+        when(equivalentClassesAxioms.getEquivalentClassesAxioms(any(), any())).thenAnswer(invocation -> Stream.empty());
+        when(renderer.getRendering(any(OWLEntity.class))).thenAnswer(invocation -> {
+            OWLEntity entity = (OWLEntity) invocation.getArguments()[0];
+            return DataFactory.getOWLEntityData(entity, entity.getIRI().getShortForm(), ImmutableMap.of());
+        });
+        when(revisionManager.getCurrentRevision()).thenReturn(RevisionNumber.getRevisionNumber(1));
+        builder = new EntityGraphBuilder(renderer,
+                                         projectOntologiesIndex,
+                                         objectPropertyAssertions,
+                                         subClassOfAxioms,
+                                         classAssertionAxioms,
+                                         equivalentClassesAxioms,
+                                         new EntityNeighbourhoodCache(revisionManager,
+                                                                      mock(ProjectMemoryAccountant.class)));
+    }
+
+    private static Set<String> toEdgeStrings(Set<Edge> edges) {
+        return edges.stream()
+                    .map(e -> e.getTail().getBrowserText() + "->" + e.getHead().getBrowserText())
+                    .collect(toSet());
+    }
+
+    @Test
+    public void shouldBuildCompleteGraphWithinBounds() {
+        var graph = builder.createGraph(clsA, ImmutableSet.of(), 10, 10);
+        assertThat(toEdgeStrings(graph.getGraph().getEdges()), containsInAnyOrder("A->B", "A->C", "B->D"));
+        assertThat(graph.getFrontier(), is(empty()));
+    }
+
+    @Test
+    public void shouldStopAtMaxDepth() {
+        var graph = builder.createGraph(clsA, ImmutableSet.of(), 1, 10);
+        assertThat(toEdgeStrings(graph.getGraph().getEdges()), containsInAnyOrder("A->B", "A->C"));
+        // C has no edges so it is not in the frontier
+        assertThat(graph.getFrontier(), contains(clsB));
+    }
+
+    @Test
+    public void shouldStopWhenEdgeBudgetIsUsedUp() {
+        var graph = builder.createGraph(clsA, ImmutableSet.of(), 10, 2);
+        assertThat(toEdgeStrings(graph.getGraph().getEdges()), containsInAnyOrder("A->B", "A->C"));
+        assertThat(graph.getFrontier(), contains(clsB));
+    }
+
+    @Test
+    public void shouldAlwaysAddEdgesOfFirstNode() {
+        var graph = builder.createGraph(clsA, ImmutableSet.of(), 10, 1);
+        assertThat(toEdgeStrings(graph.getGraph().getEdges()), containsInAnyOrder("A->B", "A->C"));
+    }
+
+    @Test
+    public void shouldExpandFromFrontier() {
+        var graph = builder.createGraph(clsA, ImmutableSet.of(clsB), 10, 10);
+        assertThat(graph.getGraph().getRootEntity(), is(clsA));
+        assertThat(toEdgeStrings(graph.getGraph().getEdges()), containsInAnyOrder("B->D"));
+    }
+
+    @Test
+    public void shouldCacheNeighbourhoodsForRevision() {
+        builder.createGraph(clsA, ImmutableSet.of(), 10, 10);
+        builder.createGraph(clsA, ImmutableSet.of(), 10, 10);
+        verify(subClassOfAxioms, times(1)).getSubClassOfAxiomsForSubClass(clsA, ontologyId);
+    }
+
+    @Test
+    public void shouldRecomputeNeighbourhoodsForNewRevision() {
+        builder.createGraph(clsA, ImmutableSet.of(), 10, 10);
+        when(revisionManager.getCurrentRevision()).thenReturn(RevisionNumber.getRevisionNumber(2));
+        builder.createGraph(clsA, ImmutableSet.of(), 10, 10);
+        verify(subClassOfAxioms, times(2)).getSubClassOfAxiomsForSubClass(clsA, ontologyId);
+    }
+}
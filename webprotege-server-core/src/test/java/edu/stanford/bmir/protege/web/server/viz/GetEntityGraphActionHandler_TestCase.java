@@ -0,0 +1,66 @@
+package edu.stanford.bmir.protege.web.server.viz;
+
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.bmir.protege.web.server.access.AccessManager;
+import edu.stanford.bmir.protege.web.server.dispatch.ExecutionContext;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.viz.EntityGraph;
+import edu.stanford.bmir.protege.web.shared.viz.GetEntityGraphAction;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.util.UUID;
+
+import static edu.stanford.bmir.protege.web.server.viz.GetEntityGraphActionHandler.MAX_DEPTH;
+import static edu.stanford.bmir.protege.web.server.viz.GetEntityGraphActionHandler.MAX_EDGE_BUDGET;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GetEntityGraphActionHandler_TestCase {
+
+    private final ProjectId projectId = ProjectId.get(UUID.randomUUID().toString());
+
+    private final OWLClass cls = new OWLDataFactoryImpl().getOWLClass(IRI.create("http://example.org/A"));
+
+    @Mock
+    private AccessManager accessManager;
+
+    @Mock
+    private EntityGraphBuilder graphBuilder;
+
+    @Mock
+    private EntityGraph graph;
+
+    private GetEntityGraphActionHandler handler;
+
+    @Before
+    public void setUp() {
+        when(graph.getNodes()).thenReturn(ImmutableSet.of());
+        when(graph.getEdges()).thenReturn(ImmutableSet.of());
+        when(graphBuilder.createGraph(any(), any(), anyInt(), anyInt()))
+                .thenReturn(BoundedEntityGraph.get(graph, ImmutableSet.of()));
+        handler = new GetEntityGraphActionHandler(accessManager, graphBuilder);
+    }
+
+    @Test
+    public void shouldPassRequestedLimitsThatAreWithinTheMaximums() {
+        handler.execute(new GetEntityGraphAction(projectId, cls, ImmutableSet.of(), 3, 40),
+                        mock(ExecutionContext.class));
+        verify(graphBuilder).createGraph(cls, ImmutableSet.of(), 3, 40);
+    }
+
+    @Test
+    public void shouldLimitDepthAndEdgeBudgetToTheMaximums() {
+        handler.execute(new GetEntityGraphAction(projectId, cls, ImmutableSet.of(), Integer.MAX_VALUE, Integer.MAX_VALUE),
+                        mock(ExecutionContext.class));
+        verify(graphBuilder).createGraph(cls, ImmutableSet.of(), MAX_DEPTH, MAX_EDGE_BUDGET);
+    }
+}
@@ -0,0 +1,153 @@
+package edu.stanford.bmir.protege.web.server.watches;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.bmir.protege.web.server.hierarchy.HierarchyProvider;
+import edu.stanford.bmir.protege.web.server.index.ClassAssertionAxiomsByClassIndex;
+import edu.stanford.bmir.protege.web.server.index.ProjectOntologiesIndex;
+import edu.stanford.bmir.protege.web.server.revision.EntitiesByRevisionCache;
+import edu.stanford.bmir.protege.web.server.revision.ProjectChangesManager;
+import edu.stanford.bmir.protege.web.server.revision.Revision;
+import edu.stanford.bmir.protege.web.server.revision.RevisionManager;
+import edu.stanford.bmir.protege.web.shared.change.ProjectChange;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import edu.stanford.bmir.protege.web.shared.watches.Watch;
+import edu.stanford.bmir.protege.web.shared.watches.WatchType;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.model.*;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("unchecked")
+@RunWith(MockitoJUnitRunner.class)
+public class WatchedChangesManager_TestCase {
+
+    private final OWLDataFactory dataFactory = new OWLDataFactoryImpl();
+
+    private final OWLClass branchRoot = dataFactory.getOWLClass(IRI.create("http://example.org/A"));
+
+    private final OWLClass descendant = dataFactory.getOWLClass(IRI.create("http://example.org/B"));
+
+    private final OWLClass deletedDescendant = dataFactory.getOWLClass(IRI.create("http://example.org/C"));
+
+    private final UserId userId = UserId.getUserId("JohnSmith");
+
+    private final OWLOntologyID ontologyId = new OWLOntologyID(IRI.create("http://example.org/ontology"));
+
+    @Mock
+    private ProjectChangesManager projectChangesManager;
+
+    @Mock
+    private HierarchyProvider<OWLClass> classHierarchyProvider;
+
+    @Mock
+    private HierarchyProvider<OWLObjectProperty> objectPropertyHierarchyProvider;
+
+    @Mock
+    private HierarchyProvider<OWLDataProperty> dataPropertyHierarchyProvider;
+
+    @Mock
+    private HierarchyProvider<OWLAnnotationProperty> annotationPropertyHierarchyProvider;
+
+    @Mock
+    private HasImportsClosure importsClosureProvider;
+
+    @Mock
+    private RevisionManager revisionManager;
+
+    @Mock
+    private EntitiesByRevisionCache entitiesByRevisionCache;
+
+    @Mock
+    private ProjectOntologiesIndex projectOntologiesIndex;
+
+    @Mock
+    private ClassAssertionAxiomsByClassIndex classAssertionsByClassIndex;
+
+    @Mock
+    private ProjectChange descendantChange;
+
+    @Mock
+    private ProjectChange deletedDescendantChange;
+
+    private WatchedChangesManager manager;
+
+    @Before
+    public void setUp() {
+        var descendantRevision = createRevision(1);
+        var deletedDescendantRevision = createRevision(2);
+        when(revisionManager.getRevisionsBySubject(any(IRI.class))).thenReturn(ImmutableList.of());
+        when(revisionManager.getRevisionsBySubject(descendant.getIRI())).thenReturn(ImmutableList.of(descendantRevision));
+        when(revisionManager.getRevisionsBySubject(deletedDescendant.getIRI())).thenReturn(ImmutableList.of(deletedDescendantRevision));
+        // The deleted descendant is no longer in the class hierarchy
+        when(classHierarchyProvider.getDescendants(any(OWLClass.class))).thenReturn(Collections.emptySet());
+        when(classHierarchyProvider.getDescendants(branchRoot)).thenReturn(Collections.singleton(descendant));
+        when(classHierarchyProvider.getAncestors(any(OWLClass.class))).thenReturn(Collections.emptySet());
+        when(classHierarchyProvider.getAncestors(descendant)).thenReturn(Collections.singleton(branchRoot));
+        when(entitiesByRevisionCache.getEntities(any(Collection.class))).thenReturn(ImmutableMap.of(
+                descendantRevision.getRevisionNumber(), ImmutableSet.<OWLEntity>of(descendant),
+                deletedDescendantRevision.getRevisionNumber(), ImmutableSet.<OWLEntity>of(deletedDescendant)));
+        when(projectChangesManager.getProjectChangesForSubjectInRevision(descendant, descendantRevision))
+                .thenReturn(ImmutableList.of(descendantChange));
+        when(projectChangesManager.getProjectChangesForSubjectInRevision(deletedDescendant, deletedDescendantRevision))
+                .thenReturn(ImmutableList.of(deletedDescendantChange));
+        when(projectOntologiesIndex.getOntologyIds()).thenAnswer(invocation -> Stream.of(ontologyId));
+        when(classAssertionsByClassIndex.getClassAssertionAxioms(any(OWLClass.class), any(OWLOntologyID.class)))
+                .thenAnswer(invocation -> Stream.empty());
+        manager = new WatchedChangesManager(projectChangesManager,
+                                            classHierarchyProvider,
+                                            objectPropertyHierarchyProvider,
+                                            dataPropertyHierarchyProvider,
+                                            annotationPropertyHierarchyProvider,
+                                            importsClosureProvider,
+                                            revisionManager,
+                                            entitiesByRevisionCache,
+                                            projectOntologiesIndex,
+                                            classAssertionsByClassIndex);
+    }
+
+    @Test
+    public void shouldNotReturnChangesForDeletedDescendantOfWatchedBranch() {
+        var watch = new Watch(userId, branchRoot, WatchType.BRANCH);
+        var changes = manager.getProjectChangesForWatches(Collections.singleton(watch));
+        assertThat(changes, contains(descendantChange));
+    }
+
+    @Test
+    public void shouldReturnChangesForDeletedEntityThatIsWatchedDirectly() {
+        var watch = new Watch(userId, deletedDescendant, WatchType.ENTITY);
+        var changes = manager.getProjectChangesForWatches(Collections.singleton(watch));
+        assertThat(changes, contains(deletedDescendantChange));
+    }
+
+    @Test
+    public void shouldOnlyLookUpSubjectsInWatchedBranch() {
+        var watch = new Watch(userId, branchRoot, WatchType.BRANCH);
+        manager.getProjectChangesForWatches(Collections.singleton(watch));
+        verify(revisionManager, never()).getRevisionsBySubject(deletedDescendant.getIRI());
+    }
+
+    private static Revision createRevision(long number) {
+        return new Revision(UserId.getUserId("JohnSmith"),
+                            RevisionNumber.getRevisionNumber(number),
+                            ImmutableList.of(),
+                            number,
+                            "Revision " + number);
+    }
+}
@@ -0,0 +1,105 @@
+package edu.stanford.bmir.protege.web.server.webhook;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import edu.stanford.bmir.protege.web.shared.webhook.ProjectWebhook;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static edu.stanford.bmir.protege.web.shared.webhook.ProjectWebhookEventType.PROJECT_CHANGED;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ProjectChangedWebhookInvoker_TestCase {
+
+    private final ProjectId projectId = ProjectId.get("12345678-1234-1234-1234-123456789abc");
+
+    private final UserId userA = UserId.getUserId("A");
+
+    private final UserId userB = UserId.getUserId("B");
+
+    @Mock
+    private JsonPayloadWebhookExecutor jsonPayloadWebhookExecutor;
+
+    @Mock
+    private WebhookExecutor scheduler;
+
+    @Mock
+    private WebhookRepository webhookRepository;
+
+    @Mock
+    private ProjectWebhook webhook;
+
+    private List<ProjectWebhook> webhooks;
+
+    private ProjectChangedWebhookInvoker invoker;
+
+    @Before
+    public void setUp() {
+        webhooks = ImmutableList.of(webhook);
+        when(webhookRepository.getProjectWebhooks(projectId, PROJECT_CHANGED)).thenReturn(webhooks);
+        invoker = new ProjectChangedWebhookInvoker(projectId, jsonPayloadWebhookExecutor, scheduler, webhookRepository);
+    }
+
+    @Test
+    public void shouldCoalesceChangesBySameUser() {
+        invoker.invoke(userA, RevisionNumber.getRevisionNumber(3), 30);
+        invoker.invoke(userA, RevisionNumber.getRevisionNumber(4), 40);
+        invoker.invoke(userA, RevisionNumber.getRevisionNumber(5), 50);
+        verify(jsonPayloadWebhookExecutor, never()).submit(any(), any());
+
+        runScheduledFlush(1);
+
+        var payload = captureSubmittedPayloads(1).get(0);
+        assertThat(payload.getUserId(), is(userA));
+        assertThat(payload.getFirstRevisionNumber(), is(3L));
+        assertThat(payload.getRevisionNumber(), is(5L));
+        assertThat(payload.getTimestamp(), is(50L));
+    }
+
+    @Test
+    public void shouldFlushPendingChangesWhenUserChanges() {
+        invoker.invoke(userA, RevisionNumber.getRevisionNumber(3), 30);
+        invoker.invoke(userB, RevisionNumber.getRevisionNumber(4), 40);
+
+        var payload = captureSubmittedPayloads(1).get(0);
+        assertThat(payload.getUserId(), is(userA));
+        assertThat(payload.getRevisionNumber(), is(3L));
+    }
+
+    @Test
+    public void shouldNotSubmitPayloadTwice() {
+        invoker.invoke(userA, RevisionNumber.getRevisionNumber(3), 30);
+        invoker.invoke(userB, RevisionNumber.getRevisionNumber(4), 40);
+        // Runs both scheduled flushes, the first of which has already been flushed
+        runScheduledFlush(2);
+        var payloads = captureSubmittedPayloads(2);
+        assertThat(payloads.get(1).getUserId(), is(userB));
+    }
+
+    private void runScheduledFlush(int expectedScheduleCount) {
+        var taskCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, times(expectedScheduleCount)).schedule(taskCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        taskCaptor.getAllValues().forEach(Runnable::run);
+    }
+
+    private List<ProjectChangedWebhookPayload> captureSubmittedPayloads(int expectedCount) {
+        var payloadCaptor = ArgumentCaptor.forClass(ProjectChangedWebhookPayload.class);
+        verify(jsonPayloadWebhookExecutor, times(expectedCount)).submit(payloadCaptor.capture(), eq(webhooks));
+        return payloadCaptor.getAllValues();
+    }
+}
@@ -0,0 +1,173 @@
+package edu.stanford.bmir.protege.web.server.webhook;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.apache.http.entity.ContentType.APPLICATION_JSON;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class WebhookExecutor_TestCase {
+
+    private static final String SLOW_URL = "http://slow.example.org";
+
+    private static final String FAST_URL = "http://fast.example.org";
+
+    private static final String FAILING_URL = "http://failing.example.org";
+
+    private WebhookExecutor executor;
+
+    @After
+    public void tearDown() {
+        if(executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private static WebhookInvocation invocation(String id, String url) {
+        return new WebhookInvocation(id, url, "{}", APPLICATION_JSON);
+    }
+
+    private static void await(CountDownLatch latch) throws InterruptedException {
+        assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    public void shouldNotDelayOtherEndpointsBehindSlowEndpoint() throws Exception {
+        var slowEndpointReleased = new CountDownLatch(1);
+        var fastEndpointPosted = new CountDownLatch(1);
+        executor = new WebhookExecutor(invocation -> {
+            if(invocation.getPayloadUrl().equals(SLOW_URL)) {
+                slowEndpointReleased.await();
+            }
+            else {
+                fastEndpointPosted.countDown();
+            }
+            return 200;
+        }, 1, 60_000);
+        executor.submit(invocation("a", SLOW_URL));
+        executor.submit(invocation("b", FAST_URL));
+        await(fastEndpointPosted);
+        slowEndpointReleased.countDown();
+    }
+
+    @Test
+    public void shouldPreserveOrderForEndpoint() throws Exception {
+        var posted = new CopyOnWriteArrayList<String>();
+        var allPosted = new CountDownLatch(3);
+        executor = new WebhookExecutor(invocation -> {
+            posted.add(invocation.getId());
+            allPosted.countDown();
+            return 200;
+        }, 1, 60_000);
+        executor.submit(invocation("a", FAST_URL));
+        executor.submit(invocation("b", FAST_URL));
+        executor.submit(invocation("c", FAST_URL));
+        await(allPosted);
+        assertThat(posted, contains("a", "b", "c"));
+    }
+
+    @Test
+    public void shouldRetryFailedDelivery() throws Exception {
+        var attempts = new AtomicInteger();
+        var delivered = new CountDownLatch(1);
+        executor = new WebhookExecutor(invocation -> {
+            if(attempts.incrementAndGet() < 3) {
+                return 503;
+            }
+            delivered.countDown();
+            return 200;
+        }, 1, 60_000);
+        executor.submit(invocation("a", FAST_URL));
+        await(delivered);
+        waitForDeliveredCount(1);
+        var statistics = executor.getStatistics();
+        assertThat(statistics.getRetryCount(), is(2L));
+        assertThat(statistics.getDeliveredCount(), is(1L));
+    }
+
+    @Test
+    public void shouldNotRetryClientErrors() throws Exception {
+        var attempts = new AtomicInteger();
+        var posted = new CountDownLatch(2);
+        executor = new WebhookExecutor(invocation -> {
+            attempts.incrementAndGet();
+            posted.countDown();
+            return invocation.getId().equals("a") ? 404 : 200;
+        }, 1, 60_000);
+        executor.submit(invocation("a", FAST_URL));
+        executor.submit(invocation("b", FAST_URL));
+        await(posted);
+        waitForDeliveredCount(1);
+        assertThat(attempts.get(), is(2));
+        assertThat(executor.getStatistics().getFailedCount(), is(1L));
+    }
+
+    @Test
+    public void shouldOpenCircuitBreakerForFailingEndpoint() throws Exception {
+        var attempts = new AtomicInteger();
+        executor = new WebhookExecutor(invocation -> {
+            attempts.incrementAndGet();
+            throw new IOException("Connection refused");
+        }, 1, 60_000);
+        for(int i = 0; i < 3; i++) {
+            executor.submit(invocation("p" + i, FAILING_URL));
+        }
+        waitForOpenCircuit();
+        var attemptsWhenOpened = attempts.get();
+        executor.submit(invocation("q", FAILING_URL));
+        var statistics = executor.getStatistics();
+        assertThat(statistics.getDroppedCount(), is(1L));
+        assertThat(statistics.getQueueDepth(), is(0));
+        assertThat(attempts.get(), is(attemptsWhenOpened));
+    }
+
+    @Test
+    public void shouldRemoveIdleEndpoints() throws Exception {
+        executor = new WebhookExecutor(invocation -> 200, 1, 60_000, 1);
+        executor.submit(invocation("a", FAST_URL));
+        waitForDeliveredCount(1);
+        var deadline = System.currentTimeMillis() + 10_000;
+        while(executor.getEndpointCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(executor.getEndpointCount(), is(0));
+    }
+
+    @Test
+    public void shouldKeepEndpointsWithOpenCircuitBreakers() throws Exception {
+        executor = new WebhookExecutor(invocation -> {
+            throw new IOException("Connection refused");
+        }, 1, 60_000, 1);
+        for(int i = 0; i < 3; i++) {
+            executor.submit(invocation("p" + i, FAILING_URL));
+        }
+        waitForOpenCircuit();
+        Thread.sleep(50);
+        assertThat(executor.getEndpointCount(), is(1));
+        executor.submit(invocation("q", FAILING_URL));
+        assertThat(executor.getStatistics().getDroppedCount(), is(1L));
+    }
+
+    private void waitForDeliveredCount(long count) throws InterruptedException {
+        var deadline = System.currentTimeMillis() + 10_000;
+        while(executor.getStatistics().getDeliveredCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private void waitForOpenCircuit() throws InterruptedException {
+        var deadline = System.currentTimeMillis() + 10_000;
+        while(executor.getStatistics().getOpenCircuitCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(executor.getStatistics().getOpenCircuitCount(), is(1));
+    }
+}
@@ -3,6 +3,7 @@ package edu.stanford.bmir.protege.web.server.app;
 import dagger.Component;
 import edu.stanford.bmir.protege.web.server.access.AccessManager;
 import edu.stanford.bmir.protege.web.server.api.ApiModule;
+import edu.stanford.bmir.protege.web.server.dispatch.DispatchMetricsServlet;
 import edu.stanford.bmir.protege.web.server.dispatch.DispatchServlet;
 import edu.stanford.bmir.protege.web.server.download.ProjectDownloadServlet;
 import edu.stanford.bmir.protege.web.server.inject.*;
@@ -51,6 +52,8 @@ public interface ServerComponent {
 
     DispatchServlet getDispatchServlet();
 
+    DispatchMetricsServlet getDispatchMetricsServlet();
+
     WebProtegeSessionListener getSessionListener();
 
     WebProtegeConfigurationChecker getWebProtegeConfigurationChecker();
@@ -43,6 +43,9 @@ public class WebProtegeServletContextListener implements ServletContextListener
             servletContext.addServlet("FileUploadServlet", serverComponent.getFileUploadServlet())
                           .addMapping("/webprotege/submitfile");
 
+            servletContext.addServlet("DispatchMetricsServlet", serverComponent.getDispatchMetricsServlet())
+                          .addMapping("/metrics");
+
             servletContext.addServlet("JerseyContainerServlet", serverComponent.getJerseyServletContainer())
                           .addMapping("/data/*");
 
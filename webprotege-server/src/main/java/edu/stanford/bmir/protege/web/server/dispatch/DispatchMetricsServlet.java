@@ -0,0 +1,115 @@
+package edu.stanford.bmir.protege.web.server.dispatch;
+
+import edu.stanford.bmir.protege.web.server.access.AccessManager;
+import edu.stanford.bmir.protege.web.server.access.ApplicationResource;
+import edu.stanford.bmir.protege.web.server.access.Subject;
+import edu.stanford.bmir.protege.web.server.app.WebProtegeProperties;
+import edu.stanford.bmir.protege.web.server.persistence.MongoCommandMetricsWriter;
+import edu.stanford.bmir.protege.web.server.project.ProjectMemoryMetricsWriter;
+import edu.stanford.bmir.protege.web.server.revision.RevisionCacheMetricsWriter;
+import edu.stanford.bmir.protege.web.server.session.WebProtegeSessionImpl;
+import edu.stanford.bmir.protege.web.server.webhook.WebhookMetricsWriter;
+import edu.stanford.bmir.protege.web.shared.access.BuiltInAction;
+import edu.stanford.bmir.protege.web.shared.inject.ApplicationSingleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static edu.stanford.bmir.protege.web.server.logging.RequestFormatter.formatAddr;
+
+/**
+ * A servlet that exposes the dispatch, project memory, revision cache, database command and webhook metrics in the Prometheus text format.
+ * The metrics may be read by users that are allowed to edit the application settings and, if the
+ * metrics.access.token property is set, by collectors that supply the token in an Authorization: Bearer header.
+ */
+@ApplicationSingleton
+public class DispatchMetricsServlet extends HttpServlet {
+
+    private static final Logger logger = LoggerFactory.getLogger(DispatchMetricsServlet.class);
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    @Nonnull
+    private final AccessManager accessManager;
+
+    @Nonnull
+    private final DispatchMetricsWriter dispatchMetricsWriter;
+
+    @Nonnull
+    private final ProjectMemoryMetricsWriter projectMemoryMetricsWriter;
+
+    @Nonnull
+    private final RevisionCacheMetricsWriter revisionCacheMetricsWriter;
+
+    @Nonnull
+    private final MongoCommandMetricsWriter mongoCommandMetricsWriter;
+
+    @Nonnull
+    private final WebhookMetricsWriter webhookMetricsWriter;
+
+    @Nonnull
+    private final Optional<String> accessToken;
+
+    @Inject
+    public DispatchMetricsServlet(@Nonnull AccessManager accessManager,
+                                  @Nonnull DispatchMetricsWriter dispatchMetricsWriter,
+                                  @Nonnull ProjectMemoryMetricsWriter projectMemoryMetricsWriter,
+                                  @Nonnull RevisionCacheMetricsWriter revisionCacheMetricsWriter,
+                                  @Nonnull MongoCommandMetricsWriter mongoCommandMetricsWriter,
+                                  @Nonnull WebhookMetricsWriter webhookMetricsWriter,
+                                  @Nonnull WebProtegeProperties properties) {
+        this.accessManager = checkNotNull(accessManager);
+        this.dispatchMetricsWriter = checkNotNull(dispatchMetricsWriter);
+        this.projectMemoryMetricsWriter = checkNotNull(projectMemoryMetricsWriter);
+        this.revisionCacheMetricsWriter = checkNotNull(revisionCacheMetricsWriter);
+        this.mongoCommandMetricsWriter = checkNotNull(mongoCommandMetricsWriter);
+        this.webhookMetricsWriter = checkNotNull(webhookMetricsWriter);
+        this.accessToken = properties.getMetricsAccessToken();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if(!hasAccessToken(req)) {
+            var userId = new WebProtegeSessionImpl(req.getSession()).getUserInSession();
+            if(!accessManager.hasPermission(Subject.forUser(userId),
+                                            ApplicationResource.get(),
+                                            BuiltInAction.EDIT_APPLICATION_SETTINGS)) {
+                logger.info("Denied metrics request from {} at {}", userId, formatAddr(req));
+                resp.sendError(HttpServletResponse.SC_FORBIDDEN);
+                return;
+            }
+        }
+        resp.setContentType(DispatchMetricsWriter.CONTENT_TYPE);
+        dispatchMetricsWriter.write(resp.getWriter());
+        projectMemoryMetricsWriter.write(resp.getWriter());
+        revisionCacheMetricsWriter.write(resp.getWriter());
+        mongoCommandMetricsWriter.write(resp.getWriter());
+        webhookMetricsWriter.write(resp.getWriter());
+    }
+
+    /**
+     * Determines whether the request carries the configured metrics access token.
+     */
+    private boolean hasAccessToken(@Nonnull HttpServletRequest req) {
+        if(accessToken.isEmpty()) {
+            return false;
+        }
+        var authorization = req.getHeader("Authorization");
+        if(authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            return false;
+        }
+        var suppliedToken = authorization.substring(BEARER_PREFIX.length()).trim();
+        return MessageDigest.isEqual(suppliedToken.getBytes(StandardCharsets.UTF_8),
+                                     accessToken.get().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -26,17 +26,24 @@ public class ProjectCacheManager implements HasDispose {
 
     private static final long PROJECT_PURGE_CHECK_INTERVAL_MS = 30_000;
 
+    private static final long MEMORY_PRESSURE_CHECK_INTERVAL_MS = 5_000;
+
     private final ScheduledExecutorService purgeService;
 
     private final ProjectCache projectCache;
 
+    @Nonnull
+    private final MemoryPressureHandler memoryPressureHandler;
+
     @Nonnull
     private final ApplicationDisposablesManager disposablesManager;
 
     @Inject
     public ProjectCacheManager(@Nonnull ProjectCache projectCache,
+                               @Nonnull MemoryPressureHandler memoryPressureHandler,
                                @Nonnull ApplicationDisposablesManager disposablesManager) {
         this.projectCache = checkNotNull(projectCache);
+        this.memoryPressureHandler = checkNotNull(memoryPressureHandler);
         this.disposablesManager = checkNotNull(disposablesManager);
         this.purgeService = Executors.newSingleThreadScheduledExecutor(runnable -> {
             Thread thread = Executors.defaultThreadFactory().newThread(runnable);
@@ -52,6 +59,19 @@ public class ProjectCacheManager implements HasDispose {
                                          PROJECT_PURGE_CHECK_INTERVAL_MS,
                                          TimeUnit.MILLISECONDS);
         logger.info("Started project purge service with check interval of {} ms", PROJECT_PURGE_CHECK_INTERVAL_MS);
+        purgeService.scheduleWithFixedDelay(this::checkMemoryPressure,
+                                            MEMORY_PRESSURE_CHECK_INTERVAL_MS,
+                                            MEMORY_PRESSURE_CHECK_INTERVAL_MS,
+                                            TimeUnit.MILLISECONDS);
+    }
+
+    private void checkMemoryPressure() {
+        try {
+            memoryPressureHandler.checkMemoryPressure();
+        } catch (RuntimeException e) {
+            // Uncaught exceptions would cancel future checks
+            logger.error("Error whilst checking memory pressure: {}", e.getMessage(), e);
+        }
     }
 
     public void dispose() {
@@ -48,7 +48,37 @@ public enum WebProtegePropertyName {
     MONGO_DB_AUTH_PASSWORD("mongodb.auth.password", PropertyValue.ofString("")),
 
     @WebProtegePropertiesDocumentation(description = "The time in milliseconds after which a project becomes dormant and is purgable from memory", example = "180000")
-    PROJECT_DORMANT_TIME("project.dormant.time", PropertyValue.ofInteger(180_000));
+    PROJECT_DORMANT_TIME("project.dormant.time", PropertyValue.ofInteger(180_000)),
+
+    @WebProtegePropertiesDocumentation(description = "Specifies when revisions written to a project change log are forced to disk.  One of NONE (left to the operating system), EVERY_BATCH or PERIODIC (at most once every change.log.sync.interval milliseconds)", example = "EVERY_BATCH")
+    CHANGE_LOG_SYNC_POLICY("change.log.sync.policy", PropertyValue.ofString("EVERY_BATCH")),
+
+    @WebProtegePropertiesDocumentation(description = "The interval in milliseconds between syncs of a project change log when the PERIODIC sync policy is used", example = "1000")
+    CHANGE_LOG_SYNC_INTERVAL("change.log.sync.interval", PropertyValue.ofInteger(1000)),
+
+    @WebProtegePropertiesDocumentation(description = "The maximum number of revisions that may be waiting to be written to a project change log.  Edits to the project are held up when this number is reached", example = "1000")
+    CHANGE_LOG_MAX_PENDING_REVISIONS("change.log.max.pending.revisions", PropertyValue.ofInteger(1000)),
+
+    @WebProtegePropertiesDocumentation(description = "The compression that is applied to blocks of revisions in project change logs.  One of NONE or DEFLATE", example = "DEFLATE")
+    CHANGE_LOG_COMPRESSION("change.log.compression", PropertyValue.ofString("DEFLATE")),
+
+    @WebProtegePropertiesDocumentation(description = "The percentage of the maximum tenured (old generation) heap that must be free after garbage collection.  Below this, the caches of loaded projects are discarded", example = "20")
+    MEMORY_PRESSURE_SHED_CACHES_FREE_PERCENT("memory.pressure.shed.caches.free.percent", PropertyValue.ofInteger(20)),
+
+    @WebProtegePropertiesDocumentation(description = "The percentage of the maximum tenured (old generation) heap that must be free after garbage collection.  Below this, the projects that have been idle for longest are unloaded until the free heap is expected to be back above memory.pressure.shed.caches.free.percent", example = "10")
+    MEMORY_PRESSURE_UNLOAD_PROJECTS_FREE_PERCENT("memory.pressure.unload.projects.free.percent", PropertyValue.ofInteger(10)),
+
+    @WebProtegePropertiesDocumentation(description = "The time in milliseconds since a project was last accessed before it may be unloaded because memory is low.  Projects that have been accessed more recently are never unloaded", example = "60000")
+    MEMORY_PRESSURE_UNLOAD_MIN_IDLE_TIME("memory.pressure.unload.projects.min.idle.time", PropertyValue.ofInteger(60_000)),
+
+    @WebProtegePropertiesDocumentation(description = "The maximum estimated size, in megabytes, of the data that is cached for project revisions.  The cache is shared by all loaded projects", example = "256")
+    REVISION_CACHE_MAX_SIZE_MB("revision.cache.max.size.mb", PropertyValue.ofInteger(256)),
+
+    @WebProtegePropertiesDocumentation(description = "The maximum estimated size, in megabytes, of the revision data that may be cached for any one project", example = "64")
+    REVISION_CACHE_PROJECT_QUOTA_MB("revision.cache.project.quota.mb", PropertyValue.ofInteger(64)),
+
+    @WebProtegePropertiesDocumentation(description = "A token that allows metrics collectors to read the /metrics endpoint without signing in.  The token is supplied in an Authorization: Bearer header.  If no token is specified then only signed in users that may edit the application settings can read the metrics", example = "3f1c9a7e5b2d4e8f")
+    METRICS_ACCESS_TOKEN("metrics.access.token", PropertyValue.absentByDefault());
 
     private static class PropertyValue {
 
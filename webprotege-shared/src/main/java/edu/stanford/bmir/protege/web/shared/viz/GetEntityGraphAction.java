@@ -1,5 +1,6 @@
 package edu.stanford.bmir.protege.web.shared.viz;
 
+import com.google.common.collect.ImmutableSet;
 import edu.stanford.bmir.protege.web.shared.annotations.GwtSerializationConstructor;
 import edu.stanford.bmir.protege.web.shared.dispatch.ProjectAction;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
@@ -7,22 +8,63 @@ import org.semanticweb.owlapi.model.OWLEntity;
 
 import javax.annotation.Nonnull;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
  * 11 Oct 2018
+ *
+ * Gets the graph for an entity.  The graph is built breadth first, up to a maximum depth and until an edge
+ * budget is used up.  Nodes that could not be expanded are returned as the frontier of the graph and can be
+ * expanded by a subsequent action.
  */
 public class GetEntityGraphAction implements ProjectAction<GetEntityGraphResult> {
 
+    public static final int DEFAULT_MAX_DEPTH = 12;
+
+    public static final int DEFAULT_EDGE_BUDGET = 500;
+
     private ProjectId projectId;
 
     private OWLEntity entity;
 
+    private ImmutableSet<OWLEntity> expandFrom;
+
+    private int maxDepth;
+
+    private int edgeBudget;
+
     public GetEntityGraphAction(@Nonnull ProjectId projectId, @Nonnull OWLEntity entity) {
+        this(projectId, entity, ImmutableSet.of(), DEFAULT_MAX_DEPTH, DEFAULT_EDGE_BUDGET);
+    }
+
+    /**
+     * Creates an action that expands the graph for an entity.
+     * @param projectId The project id.
+     * @param entity The root entity of the graph.
+     * @param expandFrom The entities that the graph should be expanded from.  These are typically nodes in the
+     *                   frontier of a previously retrieved graph.  If empty then the graph is expanded from the
+     *                   root entity.
+     * @param maxDepth The maximum number of edges between the entities that the graph is expanded from and
+     *                 any other node.
+     * @param edgeBudget The maximum number of edges to retrieve.  The edges of the first entity that is
+     *                   expanded are always retrieved, even if they exceed the budget.
+     * The server limits both the depth and the edge budget, so larger values are reduced to the server maximums.
+     */
+    public GetEntityGraphAction(@Nonnull ProjectId projectId,
+                                @Nonnull OWLEntity entity,
+                                @Nonnull ImmutableSet<OWLEntity> expandFrom,
+                                int maxDepth,
+                                int edgeBudget) {
+        checkArgument(maxDepth > 0, "maxDepth must be greater than zero");
+        checkArgument(edgeBudget > 0, "edgeBudget must be greater than zero");
         this.projectId = checkNotNull(projectId);
         this.entity = checkNotNull(entity);
+        this.expandFrom = checkNotNull(expandFrom);
+        this.maxDepth = maxDepth;
+        this.edgeBudget = edgeBudget;
     }
 
     @GwtSerializationConstructor
@@ -39,4 +81,17 @@ public class GetEntityGraphAction implements ProjectAction<GetEntityGraphResult>
     public OWLEntity getEntity() {
         return entity;
     }
+
+    @Nonnull
+    public ImmutableSet<OWLEntity> getExpandFrom() {
+        return expandFrom;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public int getEdgeBudget() {
+        return edgeBudget;
+    }
 }
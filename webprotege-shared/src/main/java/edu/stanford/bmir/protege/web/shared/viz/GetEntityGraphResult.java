@@ -2,7 +2,9 @@ package edu.stanford.bmir.protege.web.shared.viz;
 
 import com.google.auto.value.AutoValue;
 import com.google.common.annotations.GwtCompatible;
+import com.google.common.collect.ImmutableSet;
 import edu.stanford.bmir.protege.web.shared.dispatch.Result;
+import org.semanticweb.owlapi.model.OWLEntity;
 
 import javax.annotation.Nonnull;
 
@@ -16,10 +18,21 @@ import javax.annotation.Nonnull;
 public abstract class GetEntityGraphResult implements Result {
 
     public static GetEntityGraphResult get(@Nonnull EntityGraph entityGraph) {
-        return new AutoValue_GetEntityGraphResult(entityGraph);
+        return get(entityGraph, ImmutableSet.of());
+    }
+
+    public static GetEntityGraphResult get(@Nonnull EntityGraph entityGraph,
+                                           @Nonnull ImmutableSet<OWLEntity> frontier) {
+        return new AutoValue_GetEntityGraphResult(entityGraph, frontier);
     }
 
     @Nonnull
     public abstract EntityGraph getEntityGraph();
 
+    /**
+     * Gets the nodes in the graph that have edges that were not retrieved, because either the maximum depth
+     * was reached or the edge budget was used up.
+     */
+    @Nonnull
+    public abstract ImmutableSet<OWLEntity> getFrontier();
 }